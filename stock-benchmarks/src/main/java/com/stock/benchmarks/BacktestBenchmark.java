@@ -0,0 +1,152 @@
+package com.stock.benchmarks;
+
+import com.stock.realtime.backtest.BacktestEngine;
+import com.stock.realtime.backtest.BacktestReport;
+import com.stock.realtime.backtest.BacktestStrategy;
+import com.stock.realtime.backtest.RuleSpec;
+import com.stock.realtime.backtest.RuleType;
+import com.stock.realtime.backtest.StrategySpec;
+import com.stock.realtime.bar.BarRingBuffer;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.HeapBarRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.num.DoubleNum;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行回测基准：全市场日线（默认每只股票2500根，约十年）上同时回测三个策略
+ * backtest只测策略运行和指标统计；loadAndBacktest另含从K线缓冲区复制为BarSeries的开销。
+ * 以秒为单位报告单次全市场回测耗时，启动时打印K线总根数
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BacktestBenchmark {
+
+    @Param({"5000"})
+    private int symbols;
+
+    @Param({"2500"})
+    private int bars;
+
+    private ForkJoinPool pool;
+    private BacktestEngine engine;
+    private List<BacktestStrategy> strategies;
+    private List<String> codes;
+    private Map<String, BarSeries> series;
+    private Map<String, BarRingBuffer> buffers;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        engine = new BacktestEngine(pool);
+        strategies = List.of(
+                BacktestStrategy.compile(strategy("ma-cross",
+                        rule(RuleType.CROSS_UP, "sma(5)", "sma(20)"),
+                        rule(RuleType.CROSS_DOWN, "sma(5)", "sma(20)"))),
+                BacktestStrategy.compile(strategy("rsi-reversion",
+                        rule(RuleType.BELOW, "rsi(14)", "30"),
+                        or(rule(RuleType.ABOVE, "rsi(14)", "70"), stop(RuleType.STOP_LOSS, 8)))),
+                BacktestStrategy.compile(strategy("breakout",
+                        rule(RuleType.CROSS_UP, "close", "highest(20)"),
+                        or(rule(RuleType.CROSS_DOWN, "close", "lowest(10)"), stop(RuleType.STOP_GAIN, 20)))));
+
+        Random random = new Random(42);
+        long start = 1262304000000L;
+        long day = BarTimeframe.D1.getMillis();
+        codes = new ArrayList<>(symbols);
+        series = new HashMap<>(symbols * 2);
+        buffers = new HashMap<>(symbols * 2);
+        for (int s = 0; s < symbols; s++) {
+            String code = String.format("%06d", s);
+            HeapBarRingBuffer buffer = new HeapBarRingBuffer(bars);
+            double price = 5 + random.nextDouble() * 100;
+            for (int i = 0; i < bars; i++) {
+                // 几何布朗运动，年化波动约30%
+                double open = price;
+                double close = open * Math.exp(random.nextGaussian() * 0.019);
+                double high = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+                double low = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+                long volume = 100_000 + random.nextInt(10_000_000);
+                buffer.append(start + i * day, open, high, low, close, volume, volume * close);
+                price = close;
+            }
+            codes.add(code);
+            buffers.put(code, buffer);
+            series.put(code, buffer.read(view ->
+                    BarStore.toBarSeries(code, BarTimeframe.D1, view, DoubleNum.class, 0, view.size())));
+        }
+        System.out.printf("%n%d只股票 × %d根日线 = %d根K线，%d个策略，并行度%d%n",
+                symbols, bars, (long) symbols * bars, strategies.size(), pool.getParallelism());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BacktestReport backtest() {
+        return engine.run(codes, series::get, strategies, 0.0003, false, completed -> { });
+    }
+
+    @Benchmark
+    public BacktestReport loadAndBacktest() {
+        return engine.run(codes, code -> buffers.get(code).read(view ->
+                        BarStore.toBarSeries(code, BarTimeframe.D1, view, DoubleNum.class, 0, view.size())),
+                strategies, 0.0003, false, completed -> { });
+    }
+
+    private static StrategySpec strategy(String name, RuleSpec entry, RuleSpec exit) {
+        StrategySpec spec = new StrategySpec();
+        spec.setName(name);
+        spec.setEntry(entry);
+        spec.setExit(exit);
+        return spec;
+    }
+
+    private static RuleSpec rule(RuleType type, String left, String right) {
+        RuleSpec rule = new RuleSpec();
+        rule.setType(type);
+        rule.setLeft(left);
+        rule.setRight(right);
+        return rule;
+    }
+
+    private static RuleSpec stop(RuleType type, double percent) {
+        RuleSpec rule = new RuleSpec();
+        rule.setType(type);
+        rule.setValue(percent);
+        return rule;
+    }
+
+    private static RuleSpec or(RuleSpec... rules) {
+        RuleSpec rule = new RuleSpec();
+        rule.setType(RuleType.OR);
+        rule.setRules(List.of(rules));
+        return rule;
+    }
+}
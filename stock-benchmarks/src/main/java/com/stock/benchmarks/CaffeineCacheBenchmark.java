@@ -0,0 +1,103 @@
+package com.stock.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.realtime.config.CacheConfig;
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地行情缓存访问基准：CacheConfig中的stockPriceCache（最大条数、写后过期、统计），
+ * 4线程只读，以及3读1写（查询与行情写入并发）。访问序列为均匀分布，或集中在少数热门股票（约20%的股票承担80%的访问）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CaffeineCacheBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"5000"})
+    private int symbols;
+
+    @Param({"uniform", "hot"})
+    private String pattern;
+
+    private Cache<String, Object> cache;
+    private String[] codes;
+    private RealtimeQuote[] quotes;
+    private int[] sequence;
+
+    @Setup
+    public void setup() {
+        cache = new CacheConfig().stockPriceCache(new SimpleMeterRegistry(), symbols, 30);
+        quotes = QuoteSerializationBenchmark.MarketData.quotes(symbols, 42);
+        codes = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            codes[i] = quotes[i].getStockCode();
+            cache.put(codes[i], quotes[i]);
+        }
+        Random random = new Random(7);
+        sequence = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            double u = random.nextDouble();
+            // u^7.2使约20%的股票承担约80%的访问
+            sequence[i] = "hot".equals(pattern) ? (int) (symbols * Math.pow(u, 7.2)) : (int) (symbols * u);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        @Setup
+        public void setup() {
+            position = (int) (Thread.currentThread().getId() * 7919);
+        }
+
+        int next(int[] sequence) {
+            return sequence[position++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object readOnly(Cursor cursor) {
+        return cache.getIfPresent(codes[cursor.next(sequence)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object read(Cursor cursor) {
+        return cache.getIfPresent(codes[cursor.next(sequence)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write(Cursor cursor) {
+        int index = cursor.next(sequence);
+        cache.put(codes[index], quotes[index]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.stock.benchmarks;
+
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.HeapBarRingBuffer;
+import com.stock.realtime.entity.TechnicalIndicator;
+import com.stock.realtime.indicator.IncrementalIndicatorEngine;
+import com.stock.realtime.indicator.IndicatorValues;
+import com.stock.realtime.service.TechnicalIndicatorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单只股票技术指标计算基准：TechnicalIndicatorService按整段K线序列全量重建ta4j指标，
+ * 对比增量引擎在形成中K线上的单次tick更新（含转换为与全量计算相同的TechnicalIndicator输出）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+
+    private static final String CODE = "600000";
+
+    @Param({"250", "1200"})
+    private int bars;
+
+    private TechnicalIndicatorService indicatorService;
+    private IncrementalIndicatorEngine indicatorEngine;
+    private IndicatorValues values;
+    private BarSeries series;
+    private double[] ticks;
+    private double high;
+    private double low;
+    private int tick;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long start = 1262304000000L;
+        long day = BarTimeframe.D1.getMillis();
+        HeapBarRingBuffer buffer = new HeapBarRingBuffer(bars);
+        double price = 20;
+        for (int i = 0; i < bars; i++) {
+            double open = price;
+            double close = open * Math.exp(random.nextGaussian() * 0.019);
+            double barHigh = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+            double barLow = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+            long volume = 100_000 + random.nextInt(10_000_000);
+            buffer.append(start + i * day, open, barHigh, barLow, close, volume, volume * close);
+            price = close;
+        }
+        series = buffer.read(view -> BarStore.toBarSeries(CODE, BarTimeframe.D1, view));
+
+        indicatorService = new TechnicalIndicatorService();
+        indicatorEngine = new IncrementalIndicatorEngine();
+        indicatorEngine.warmUp(CODE, series);
+        values = new IndicatorValues();
+
+        // 形成中K线上的一串tick价格
+        ticks = new double[1024];
+        for (int i = 0; i < ticks.length; i++) {
+            price *= 1 + random.nextGaussian() * 0.001;
+            ticks[i] = price;
+        }
+        high = price;
+        low = price;
+    }
+
+    @Benchmark
+    public TechnicalIndicator ta4jFullRecalculation() {
+        return indicatorService.calculateIndicators(CODE, series).join();
+    }
+
+    @Benchmark
+    public IndicatorValues incrementalTick() {
+        applyTick();
+        indicatorEngine.evaluate(CODE, values);
+        return values;
+    }
+
+    @Benchmark
+    public TechnicalIndicator incrementalTickToIndicator() {
+        applyTick();
+        indicatorEngine.evaluate(CODE, values);
+        return IncrementalIndicatorEngine.toTechnicalIndicator(CODE, values);
+    }
+
+    private void applyTick() {
+        double close = ticks[tick++ & (ticks.length - 1)];
+        high = Math.max(high, close);
+        low = Math.min(low, close);
+        indicatorEngine.onTick(CODE, high, low, close);
+    }
+}
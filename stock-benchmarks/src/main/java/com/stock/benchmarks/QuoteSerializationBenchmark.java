@@ -0,0 +1,142 @@
+package com.stock.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.push.QuoteBinaryCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情序列化基准：JSON（与STOMP消息转换器相同的Jackson配置）对比二进制帧
+ * 每次操作编码或解码整个股票池的一轮行情，启动时打印两种格式的平均帧大小
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteSerializationBenchmark {
+
+    @Param({"5000"})
+    private int symbols;
+
+    private ObjectMapper objectMapper;
+    private RealtimeQuote[] quotes;
+    private byte[][] jsonFrames;
+    private byte[][] binaryFrames;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        quotes = MarketData.quotes(symbols, 42);
+        jsonFrames = new byte[symbols][];
+        binaryFrames = new byte[symbols][];
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < symbols; i++) {
+            jsonFrames[i] = objectMapper.writeValueAsBytes(quotes[i]);
+            binaryFrames[i] = QuoteBinaryCodec.encode(quotes[i]);
+            jsonBytes += jsonFrames[i].length;
+            binaryBytes += binaryFrames[i].length;
+        }
+        System.out.printf("%n每轮%d只股票: JSON %d字节（平均%d），二进制 %d字节（平均%d），压缩比 %.2f%n",
+                symbols, jsonBytes, jsonBytes / symbols, binaryBytes, binaryBytes / symbols,
+                (double) jsonBytes / binaryBytes);
+    }
+
+    @Benchmark
+    public void jsonEncode(Blackhole bh) throws Exception {
+        for (RealtimeQuote quote : quotes) {
+            bh.consume(objectMapper.writeValueAsBytes(quote));
+        }
+    }
+
+    @Benchmark
+    public void binaryEncode(Blackhole bh) {
+        for (RealtimeQuote quote : quotes) {
+            bh.consume(QuoteBinaryCodec.encode(quote));
+        }
+    }
+
+    @Benchmark
+    public void jsonDecode(Blackhole bh) throws Exception {
+        for (byte[] frame : jsonFrames) {
+            bh.consume(objectMapper.readValue(frame, RealtimeQuote.class));
+        }
+    }
+
+    @Benchmark
+    public void binaryDecode(Blackhole bh) {
+        for (byte[] frame : binaryFrames) {
+            bh.consume(QuoteBinaryCodec.decode(frame));
+        }
+    }
+
+    /**
+     * 基准测试用的确定性行情数据
+     */
+    static final class MarketData {
+
+        private MarketData() {
+        }
+
+        static RealtimeQuote[] quotes(int count, long seed) {
+            Random random = new Random(seed);
+            LocalDateTime now = LocalDateTime.of(2024, 6, 3, 10, 30);
+            RealtimeQuote[] quotes = new RealtimeQuote[count];
+            for (int i = 0; i < count; i++) {
+                String code = String.format("%06d", i < count / 2 ? 600000 + i : i);
+                BigDecimal preClose = price(5 + random.nextDouble() * 200);
+                BigDecimal current = price(preClose.doubleValue() * (1 + random.nextGaussian() * 0.02));
+                BigDecimal change = current.subtract(preClose);
+                quotes[i] = RealtimeQuote.builder()
+                        .stockCode(code)
+                        .stockName("股票" + code)
+                        .currentPrice(current)
+                        .change(change)
+                        .changePercent(change.multiply(BigDecimal.valueOf(100)).divide(preClose, 2, RoundingMode.HALF_UP))
+                        .openPrice(price(preClose.doubleValue() * (1 + random.nextGaussian() * 0.005)))
+                        .highPrice(price(current.doubleValue() * 1.01))
+                        .lowPrice(price(current.doubleValue() * 0.99))
+                        .preClosePrice(preClose)
+                        .volume((long) random.nextInt(50_000_000))
+                        .amount(BigDecimal.valueOf(random.nextInt(1_000_000_000), 2))
+                        .turnoverRate(price(random.nextDouble() * 10))
+                        .pe(price(random.nextDouble() * 80))
+                        .pb(price(random.nextDouble() * 10))
+                        .bid1(current.subtract(new BigDecimal("0.01")))
+                        .bidVolume1((long) random.nextInt(100_000))
+                        .ask1(current.add(new BigDecimal("0.01")))
+                        .askVolume1((long) random.nextInt(100_000))
+                        .updateTime(now.plusNanos(i * 1_000_000L))
+                        .build();
+            }
+            return quotes;
+        }
+
+        private static BigDecimal price(double value) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.stock.common.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 指数篮子成分股DTO
+ */
+@Data
+public class BasketConstituent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String stockCode;
+
+    private String stockName;
+
+    /**
+     * 市值（元）
+     */
+    private BigDecimal marketCap;
+}
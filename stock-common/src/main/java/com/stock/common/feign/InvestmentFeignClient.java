@@ -0,0 +1,28 @@
+package com.stock.common.feign;
+
+import com.stock.common.dto.BasketConstituent;
+import com.stock.common.result.Result;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * 投资信息服务Feign客户端
+ * 用于其他服务按省份、题材查询股票集合
+ */
+@FeignClient(name = "stock-investment-service", path = "/investment")
+public interface InvestmentFeignClient {
+
+    /**
+     * 查询指数篮子成分股，省份和题材同时给出时取交集
+     *
+     * @param province 省份，可选
+     * @param theme    题材标签，可选
+     * @return 成分股及市值
+     */
+    @GetMapping("/constituents")
+    Result<List<BasketConstituent>> getConstituents(@RequestParam(value = "province", required = false) String province,
+                                                    @RequestParam(value = "theme", required = false) String theme);
+}
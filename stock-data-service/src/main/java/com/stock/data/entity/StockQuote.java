@@ -82,6 +82,11 @@ public class StockQuote {
      */
     private LocalDateTime updateTime;
 
+    /**
+     * 数据源时间戳（收到Tushare响应时的epoch毫秒），实时服务以此计算从数据源到WebSocket推送的延迟
+     */
+    private Long sourceTime;
+
     /**
      * 数据来源
      */
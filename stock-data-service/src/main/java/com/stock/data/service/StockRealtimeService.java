@@ -6,6 +6,8 @@ import com.stock.data.properties.StockCodeMapping;
 import com.stock.data.properties.TushareProperties;
 import com.stock.data.entity.StockQuote;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.redisson.api.RBloomFilter;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
@@ -30,6 +32,9 @@ import java.util.stream.Collectors;
 /**
  * 股票实时数据服务
  * 负责实时获取股票数据并推送到消息队列
+ * 获取、转换、发送消息队列、写缓存各环节的耗时记录到stock.data.tick.stage（p50/p99/p99.9）。
+ * 行情携带收到数据源响应的时刻（sourceTime），实时服务以消息队列为行情源时（realtime.feed.source=mq）
+ * 据此统计从数据源到WebSocket发送的端到端延迟
  */
 @Service
 public class StockRealtimeService {
@@ -54,11 +59,38 @@ public class StockRealtimeService {
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private RBloomFilter<String> stockCodeFilter;
 
+    private Timer fetchTimer;
+    private Timer convertTimer;
+    private Timer mqPublishTimer;
+    private Timer cacheWriteTimer;
+
     private static final String CACHE_PREFIX = "stock:realtime:";
     private static final String CACHE_KEY_ALL = CACHE_PREFIX + "all";
 
+    /**
+     * 初始化各环节耗时统计
+     */
+    @PostConstruct
+    public void initMetrics() {
+        fetchTimer = stageTimer("fetch");
+        convertTimer = stageTimer("convert");
+        mqPublishTimer = stageTimer("mq_publish");
+        cacheWriteTimer = stageTimer("cache_write");
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("stock.data.tick.stage")
+                .description("实时行情在数据服务各环节的耗时")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
     /**
      * 初始化布隆过滤器
      */
@@ -133,7 +165,10 @@ public class StockRealtimeService {
             }
 
             // 批量获取股票行情数据
+            long fetchStart = System.nanoTime();
             Map<String, Map<String, Object>> quotesMap = tushareApiClient.getLatestQuotesBatch(tsCodes);
+            fetchTimer.record(System.nanoTime() - fetchStart, TimeUnit.NANOSECONDS);
+            long sourceTime = System.currentTimeMillis();
 
             if (quotesMap.isEmpty()) {
                 log.warn("未获取到任何股票数据");
@@ -146,16 +181,22 @@ public class StockRealtimeService {
 
             for (Map.Entry<String, Map<String, Object>> entry : quotesMap.entrySet()) {
                 try {
-                    StockQuote stockQuote = convertToStockQuote(entry.getKey(), entry.getValue());
+                    long start = System.nanoTime();
+                    StockQuote stockQuote = convertToStockQuote(entry.getKey(), entry.getValue(), sourceTime);
+                    convertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                     if (stockQuote != null) {
                         stockQuotes.add(stockQuote);
                         
                         // 发送到消息队列
+                        start = System.nanoTime();
                         stockDataProducer.sendStockQuote(stockQuote);
                         stockDataProducer.sendRealtimeData(stockQuote);
+                        mqPublishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                         
                         // 缓存到Redis
+                        start = System.nanoTime();
                         cacheStockQuote(stockQuote);
+                        cacheWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                         
                         successCount++;
                     }
@@ -300,7 +341,7 @@ public class StockRealtimeService {
                 // 从API获取数据
                 Map<String, Object> quote = tushareApiClient.getLatestQuote(tsCode);
                 if (quote != null) {
-                    StockQuote stockQuote = convertToStockQuote(tsCode, quote);
+                    StockQuote stockQuote = convertToStockQuote(tsCode, quote, System.currentTimeMillis());
                     if (stockQuote != null) {
                         // 添加随机过期时间（3600±300秒），防止缓存雪崩
                         long expireTime = 3600 + (long) (Math.random() * 600);
@@ -357,9 +398,10 @@ public class StockRealtimeService {
      * 
      * @param tsCode 股票代码
      * @param rawData 原始数据
+     * @param sourceTime 收到数据源响应的时间（epoch毫秒）
      * @return StockQuote对象
      */
-    private StockQuote convertToStockQuote(String tsCode, Map<String, Object> rawData) {
+    private StockQuote convertToStockQuote(String tsCode, Map<String, Object> rawData, long sourceTime) {
         try {
             Map<String, String> codeToCompanyMap = stockCodeMapping.getCodeToCompanyMap();
             String name = codeToCompanyMap.getOrDefault(tsCode, tsCode);
@@ -378,6 +420,7 @@ public class StockRealtimeService {
                     .vol(getBigDecimal(rawData, "vol"))
                     .amount(getBigDecimal(rawData, "amount"))
                     .updateTime(LocalDateTime.now())
+                    .sourceTime(sourceTime)
                     .build();
 
             return quote;
@@ -1,6 +1,7 @@
 package com.stock.investment.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.stock.common.dto.BasketConstituent;
 import com.stock.investment.entity.InvestmentInfo;
 import com.stock.investment.service.InvestmentInfoService;
 import com.stock.common.result.Result;
@@ -138,6 +139,17 @@ public class InvestmentInfoController {
         return Result.success(list);
     }
 
+    /**
+     * 查询指数篮子成分股
+     */
+    @GetMapping("/constituents")
+    @Operation(summary = "查询指数篮子成分股", description = "按省份、题材标签筛选股票及市值，用于自定义指数")
+    public Result<List<BasketConstituent>> getConstituents(
+            @Parameter(description = "省份过滤，可选") @RequestParam(required = false) String province,
+            @Parameter(description = "题材标签过滤，可选") @RequestParam(required = false) String theme) {
+        return Result.success(investmentInfoService.getConstituents(province, theme));
+    }
+
     /**
      * 按日期范围查询
      */
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stock.common.dto.BasketConstituent;
 import com.stock.investment.entity.InvestmentInfo;
 import com.stock.investment.repository.InvestmentInfoMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -134,6 +136,42 @@ public class InvestmentInfoService {
         return investmentInfoMapper.selectList(wrapper);
     }
 
+    /**
+     * 查询指数篮子成分股（省份和题材标签同时给出时取交集），股票代码保存在industry列
+     * 每只股票按投资日期保存多行，只取最新日期的一行，市值权重不随查询结果顺序变化
+     */
+    public List<BasketConstituent> getConstituents(String province, String theme) {
+        LambdaQueryWrapper<InvestmentInfo> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(InvestmentInfo::getId, InvestmentInfo::getIndustry, InvestmentInfo::getCompanyName,
+                InvestmentInfo::getMarketCap, InvestmentInfo::getInvestmentDate);
+        wrapper.eq(InvestmentInfo::getStatus, 1);
+        wrapper.isNotNull(InvestmentInfo::getIndustry);
+        if (StringUtils.hasText(province)) {
+            wrapper.eq(InvestmentInfo::getProvince, province);
+        }
+        if (StringUtils.hasText(theme)) {
+            wrapper.and(w -> w.like(InvestmentInfo::getThemeTags, theme)
+                             .or()
+                             .like(InvestmentInfo::getTitle, theme));
+        }
+
+        wrapper.orderByDesc(InvestmentInfo::getInvestmentDate, InvestmentInfo::getId);
+
+        Map<String, InvestmentInfo> latest = new LinkedHashMap<>();
+        for (InvestmentInfo info : investmentInfoMapper.selectList(wrapper)) {
+            latest.putIfAbsent(info.getIndustry(), info);
+        }
+        return latest.values().stream()
+                .map(info -> {
+                    BasketConstituent constituent = new BasketConstituent();
+                    constituent.setStockCode(info.getIndustry());
+                    constituent.setStockName(info.getCompanyName());
+                    constituent.setMarketCap(info.getMarketCap());
+                    return constituent;
+                })
+                .toList();
+    }
+
     /**
      * 按日期查询
      */
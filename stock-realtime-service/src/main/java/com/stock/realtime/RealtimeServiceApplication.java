@@ -1,8 +1,10 @@
 package com.stock.realtime;
 
+import com.stock.common.feign.InvestmentFeignClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -11,6 +13,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableFeignClients(clients = InvestmentFeignClient.class)
 @EnableScheduling
 @EnableAsync
 public class RealtimeServiceApplication {
@@ -0,0 +1,92 @@
+package com.stock.realtime.alert;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 单只股票的提醒索引
+ * 每个指标按方向各一棵以阈值为键的有序树：向上提醒在数值≥阈值时触发，即headMap(value)；
+ * 向下提醒在数值≤阈值时触发，即tailMap(value)。每个tick的查找为O(log n + k)，k为触发数
+ */
+final class AlertBook {
+
+    private final TreeMap<Double, List<PriceAlert>>[] above;
+    private final TreeMap<Double, List<PriceAlert>>[] below;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    AlertBook() {
+        above = new TreeMap[AlertType.METRICS];
+        below = new TreeMap[AlertType.METRICS];
+        for (int m = 0; m < AlertType.METRICS; m++) {
+            above[m] = new TreeMap<>();
+            below[m] = new TreeMap<>();
+        }
+    }
+
+    synchronized void add(PriceAlert alert) {
+        tree(alert.getType()).computeIfAbsent(alert.getThreshold(), k -> new ArrayList<>(1)).add(alert);
+        size++;
+    }
+
+    synchronized boolean remove(PriceAlert alert) {
+        TreeMap<Double, List<PriceAlert>> tree = tree(alert.getType());
+        List<PriceAlert> alerts = tree.get(alert.getThreshold());
+        if (alerts == null || !alerts.removeIf(a -> a.getId().equals(alert.getId()))) {
+            return false;
+        }
+        if (alerts.isEmpty()) {
+            tree.remove(alert.getThreshold());
+        }
+        size--;
+        return true;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 取出并移除被这组数值触发的提醒
+     *
+     * @param values 按指标排列的当前数值，NaN表示缺失
+     * @return 没有触发时返回null
+     */
+    synchronized List<PriceAlert> trigger(double[] values) {
+        List<PriceAlert> triggered = null;
+        for (int m = 0; m < AlertType.METRICS; m++) {
+            double value = values[m];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            triggered = drain(above[m].headMap(value, true), triggered);
+            triggered = drain(below[m].tailMap(value, true), triggered);
+        }
+        return triggered;
+    }
+
+    private List<PriceAlert> drain(NavigableMap<Double, List<PriceAlert>> range, List<PriceAlert> triggered) {
+        if (range.isEmpty()) {
+            return triggered;
+        }
+        if (triggered == null) {
+            triggered = new ArrayList<>();
+        }
+        Iterator<Map.Entry<Double, List<PriceAlert>>> iterator = range.entrySet().iterator();
+        while (iterator.hasNext()) {
+            List<PriceAlert> alerts = iterator.next().getValue();
+            triggered.addAll(alerts);
+            size -= alerts.size();
+            iterator.remove();
+        }
+        return triggered;
+    }
+
+    private TreeMap<Double, List<PriceAlert>> tree(AlertType type) {
+        return type.isAbove() ? above[type.metric()] : below[type.metric()];
+    }
+}
@@ -0,0 +1,284 @@
+package com.stock.realtime.alert;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 行情提醒引擎
+ * 提醒按股票建立有序阈值索引（AlertBook），每个tick只取出被触发的提醒，不扫描全部提醒；
+ * 触发后立即经/user/queue/alert推送给用户，再异步从Redis删除并记入用户的通知历史。
+ * 提醒保存在Redis，启动时加载；集群模式下各节点都持有全部提醒，但只在生成行情的节点上检查（AlertStage），
+ * 每个提醒只触发一次、只记一次历史，触发消息经提醒频道广播，各节点移除该提醒并推送给连在本节点上的用户会话
+ */
+@Slf4j
+@Component
+public class AlertEngine {
+
+    public static final String ALERT_DESTINATION = "/queue/alert";
+
+    public static final String ALERT_CHANNEL = "stock:alert:fired";
+
+    private static final String ALERTS_KEY = "stock:alert:alerts";
+    private static final String NOTIFICATIONS_KEY_PREFIX = "stock:alert:notifications:";
+    private static final Pattern STOCK_CODE = Pattern.compile("[0-9A-Za-z.]{1,16}");
+
+    /**
+     * 已触发提醒的保留时间，期间同步不会把Redis中尚未删除的同一提醒重新加入索引
+     */
+    private static final long TRIGGERED_RETENTION_MS = 60_000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("dataPersistExecutor")
+    private Executor persistExecutor;
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${realtime.alert.max-per-user:100}")
+    private int maxPerUser;
+
+    @Value("${realtime.alert.history-size:100}")
+    private int historySize;
+
+    @Value("${realtime.alert.history-ttl-days:7}")
+    private long historyTtlDays;
+
+    private final ConcurrentHashMap<String, AlertBook> books = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PriceAlert> alerts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> triggered = new ConcurrentHashMap<>();
+    private final ThreadLocal<double[]> values = ThreadLocal.withInitial(() -> new double[AlertType.METRICS]);
+
+    private Counter triggeredCounter;
+
+    @PostConstruct
+    public void init() {
+        triggeredCounter = meterRegistry.counter("realtime.alert.triggered");
+        meterRegistry.gauge("realtime.alert.active", alerts, Map::size);
+        try {
+            sync();
+        } catch (Exception e) {
+            log.error("加载行情提醒失败", e);
+        }
+        log.info("行情提醒引擎启动: 提醒数={}", alerts.size());
+    }
+
+    /**
+     * 用一条行情检查该股票的提醒，在行情处理线程上调用
+     */
+    public void onQuote(RealtimeQuote quote) {
+        String stockCode = quote.getStockCode();
+        AlertBook book = stockCode == null ? null : books.get(stockCode);
+        if (book == null) {
+            return;
+        }
+        double[] v = values.get();
+        for (int m = 0; m < AlertType.METRICS; m++) {
+            v[m] = AlertType.metricValue(quote, m);
+        }
+        List<PriceAlert> fired = book.trigger(v);
+        if (fired == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PriceAlert alert : fired) {
+            alerts.remove(alert.getId());
+            triggered.put(alert.getId(), now);
+            AlertNotification notification = new AlertNotification(alert.getId(), stockCode, alert.getType(),
+                    alert.getThreshold(), v[alert.getType().metric()], alert.getNote(), now);
+            triggeredCounter.increment();
+            persistExecutor.execute(() -> record(alert, notification));
+            if (clusterEnabled) {
+                publish(alert.getUserId(), notification);
+            } else {
+                messagingTemplate.convertAndSendToUser(alert.getUserId(), ALERT_DESTINATION, notification);
+            }
+        }
+    }
+
+    /**
+     * 收到提醒频道的触发消息：移除本节点索引中的该提醒并推送给本节点上的用户会话
+     */
+    public void onFired(String userId, AlertNotification notification) {
+        triggered.put(notification.getAlertId(), System.currentTimeMillis());
+        PriceAlert alert = alerts.get(notification.getAlertId());
+        if (alert != null) {
+            unindex(alert);
+        }
+        messagingTemplate.convertAndSendToUser(userId, ALERT_DESTINATION, notification);
+    }
+
+    /**
+     * 添加提醒
+     *
+     * @throws IllegalArgumentException 参数不合法
+     * @throws IllegalStateException    用户提醒数已达上限
+     */
+    public PriceAlert add(String userId, PriceAlert request) {
+        String stockCode = request.getStockCode();
+        if (stockCode == null || !STOCK_CODE.matcher(stockCode).matches()) {
+            throw new IllegalArgumentException("股票代码不合法: " + stockCode);
+        }
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("提醒类型不能为空");
+        }
+        double threshold = request.getThreshold();
+        boolean changePct = request.getType() == AlertType.CHANGE_PCT_ABOVE
+                || request.getType() == AlertType.CHANGE_PCT_BELOW;
+        if (!Double.isFinite(threshold) || (changePct ? Math.abs(threshold) >= 100 : threshold <= 0)) {
+            throw new IllegalArgumentException("提醒阈值不合法: " + threshold);
+        }
+        long owned = alerts.values().stream().filter(a -> userId.equals(a.getUserId())).count();
+        if (owned >= maxPerUser) {
+            throw new IllegalStateException("提醒数已达上限: " + maxPerUser);
+        }
+        PriceAlert alert = new PriceAlert();
+        alert.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 16));
+        alert.setUserId(userId);
+        alert.setStockCode(stockCode);
+        alert.setType(request.getType());
+        alert.setThreshold(threshold);
+        alert.setNote(request.getNote());
+        alert.setCreatedAt(System.currentTimeMillis());
+        redisTemplate.opsForHash().put(ALERTS_KEY, alert.getId(), alert);
+        index(alert);
+        return alert;
+    }
+
+    /**
+     * 删除用户自己的提醒
+     *
+     * @return 不存在或不属于该用户时返回false
+     */
+    public boolean remove(String userId, String alertId) {
+        PriceAlert alert = alerts.get(alertId);
+        if (alert == null || !userId.equals(alert.getUserId())) {
+            return false;
+        }
+        redisTemplate.opsForHash().delete(ALERTS_KEY, alertId);
+        return unindex(alert);
+    }
+
+    /**
+     * 用户未触发的提醒
+     */
+    public List<PriceAlert> getAlerts(String userId) {
+        List<PriceAlert> result = new ArrayList<>();
+        for (PriceAlert alert : alerts.values()) {
+            if (userId.equals(alert.getUserId())) {
+                result.add(alert);
+            }
+        }
+        result.sort(Comparator.comparingLong(PriceAlert::getCreatedAt));
+        return result;
+    }
+
+    /**
+     * 用户最近的触发通知（新的在前），用于补看离线期间触发的提醒
+     */
+    public List<AlertNotification> getNotifications(String userId) {
+        List<Object> stored = redisTemplate.opsForList().range(NOTIFICATIONS_KEY_PREFIX + userId, 0, -1);
+        List<AlertNotification> result = new ArrayList<>();
+        if (stored != null) {
+            for (Object value : stored) {
+                result.add((AlertNotification) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 集群模式下同步其他节点增删的提醒
+     */
+    @Scheduled(fixedDelayString = "${realtime.alert.sync-interval-ms:2000}")
+    public void scheduledSync() {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("同步行情提醒失败: {}", e.getMessage());
+        }
+    }
+
+    private void sync() {
+        long now = System.currentTimeMillis();
+        triggered.values().removeIf(at -> now - at > TRIGGERED_RETENTION_MS);
+        Map<Object, Object> stored = redisTemplate.opsForHash().entries(ALERTS_KEY);
+        for (Object value : stored.values()) {
+            PriceAlert alert = (PriceAlert) value;
+            if (!alerts.containsKey(alert.getId()) && !triggered.containsKey(alert.getId())) {
+                index(alert);
+            }
+        }
+        for (PriceAlert alert : new ArrayList<>(alerts.values())) {
+            if (!stored.containsKey(alert.getId())) {
+                unindex(alert);
+            }
+        }
+    }
+
+    private void index(PriceAlert alert) {
+        alerts.put(alert.getId(), alert);
+        books.computeIfAbsent(alert.getStockCode(), k -> new AlertBook()).add(alert);
+    }
+
+    private boolean unindex(PriceAlert alert) {
+        if (alerts.remove(alert.getId()) == null) {
+            return false;
+        }
+        AlertBook book = books.get(alert.getStockCode());
+        return book != null && book.remove(alert);
+    }
+
+    private void publish(String userId, AlertNotification notification) {
+        try {
+            redisTemplate.convertAndSend(ALERT_CHANNEL, new AlertFired(userId, notification));
+        } catch (Exception e) {
+            log.error("广播提醒触发失败: {}", notification.getAlertId(), e);
+        }
+    }
+
+    private void record(PriceAlert alert, AlertNotification notification) {
+        try {
+            Long removed = redisTemplate.opsForHash().delete(ALERTS_KEY, alert.getId());
+            if (removed != null && removed > 0) {
+                String key = NOTIFICATIONS_KEY_PREFIX + alert.getUserId();
+                redisTemplate.opsForList().leftPush(key, notification);
+                redisTemplate.opsForList().trim(key, 0, historySize - 1);
+                redisTemplate.expire(key, historyTtlDays, TimeUnit.DAYS);
+            }
+        } catch (Exception e) {
+            log.error("记录提醒触发失败: {}", alert.getId(), e);
+        }
+    }
+}
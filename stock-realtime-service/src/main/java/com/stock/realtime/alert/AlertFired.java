@@ -0,0 +1,18 @@
+package com.stock.realtime.alert;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 集群模式下经提醒频道广播的触发消息，各节点推送给连在本节点上的该用户会话
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertFired {
+
+    private String userId;
+
+    private AlertNotification notification;
+}
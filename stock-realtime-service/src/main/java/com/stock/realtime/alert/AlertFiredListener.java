@@ -0,0 +1,34 @@
+package com.stock.realtime.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提醒频道接收端：把生成节点触发的提醒交给本节点推送
+ */
+@Slf4j
+@Component
+public class AlertFiredListener implements MessageListener {
+
+    @Autowired
+    private AlertEngine alertEngine;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            AlertFired fired = (AlertFired) redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (fired != null) {
+                alertEngine.onFired(fired.getUserId(), fired.getNotification());
+            }
+        } catch (Exception e) {
+            log.error("处理提醒触发消息失败", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.stock.realtime.alert;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 提醒触发通知，推送到/user/queue/alert
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertNotification {
+
+    private String alertId;
+
+    private String stockCode;
+
+    private AlertType type;
+
+    private double threshold;
+
+    /**
+     * 触发时的行情数值
+     */
+    private double value;
+
+    private String note;
+
+    private long triggeredAt;
+}
@@ -0,0 +1,56 @@
+package com.stock.realtime.alert;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.math.BigDecimal;
+
+/**
+ * 提醒类型：按行情的价格、涨跌幅（%）或当日成交量向上/向下触达阈值
+ */
+public enum AlertType {
+
+    PRICE_ABOVE(0, true),
+    PRICE_BELOW(0, false),
+    CHANGE_PCT_ABOVE(1, true),
+    CHANGE_PCT_BELOW(1, false),
+    VOLUME_ABOVE(2, true);
+
+    /**
+     * 指标数：价格、涨跌幅、成交量
+     */
+    static final int METRICS = 3;
+
+    private final int metric;
+    private final boolean above;
+
+    AlertType(int metric, boolean above) {
+        this.metric = metric;
+        this.above = above;
+    }
+
+    int metric() {
+        return metric;
+    }
+
+    public boolean isAbove() {
+        return above;
+    }
+
+    /**
+     * 从行情中取出指标数值，缺失时返回NaN
+     */
+    static double metricValue(RealtimeQuote quote, int metric) {
+        switch (metric) {
+            case 0:
+                return decimal(quote.getCurrentPrice());
+            case 1:
+                return decimal(quote.getChangePercent());
+            default:
+                return quote.getVolume() == null ? Double.NaN : quote.getVolume();
+        }
+    }
+
+    private static double decimal(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+}
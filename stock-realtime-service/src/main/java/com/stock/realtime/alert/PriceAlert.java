@@ -0,0 +1,27 @@
+package com.stock.realtime.alert;
+
+import lombok.Data;
+
+/**
+ * 用户设置的行情提醒，触发一次后自动删除
+ */
+@Data
+public class PriceAlert {
+
+    private String id;
+
+    private String userId;
+
+    private String stockCode;
+
+    private AlertType type;
+
+    private double threshold;
+
+    /**
+     * 用户备注
+     */
+    private String note;
+
+    private long createdAt;
+}
@@ -0,0 +1,190 @@
+package com.stock.realtime.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 单只股票单一周期的归档文件
+ * 64字节文件头之后是7个定长列区（时间戳、OHLC、成交量、成交额），每列capacity个8字节值，
+ * 整个文件以内存映射方式读写。只允许追加，文件头中的行数在列数据写完之后更新，
+ * 读取方按打开视图时的行数读取，不会看到写了一半的新行（覆盖最后一根时除外）。
+ * 写满后按两倍容量重建文件并原子替换
+ */
+final class ArchiveFile {
+
+    static final int MAGIC = 0x42415243;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+
+    static final int COLUMNS = 7;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+
+    private final Path path;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private volatile int count;
+
+    private ArchiveFile(Path path, MappedByteBuffer buffer, int capacity, int count) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    /**
+     * 打开归档文件，不存在且create为true时按initialCapacity创建
+     *
+     * @return 文件不存在且create为false时返回null
+     */
+    static ArchiveFile open(Path path, int initialCapacity, boolean create) throws IOException {
+        if (!Files.exists(path)) {
+            if (!create) {
+                return null;
+            }
+            Files.createDirectories(path.getParent());
+            MappedByteBuffer buffer = map(path, initialCapacity);
+            writeHeader(buffer, initialCapacity, 0);
+            return new ArchiveFile(path, buffer, initialCapacity, 0);
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("不是K线归档文件或版本不支持: " + path);
+        }
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        int count = buffer.getInt(COUNT_OFFSET);
+        if (capacity <= 0 || count < 0 || count > capacity || buffer.capacity() < fileSize(capacity)) {
+            throw new IOException("K线归档文件已损坏: " + path);
+        }
+        return new ArchiveFile(path, buffer, capacity, count);
+    }
+
+    /**
+     * 追加一根K线，时间戳与最后一根相同时覆盖最后一根，早于最后一根时忽略
+     *
+     * @return 写入（含覆盖）时返回true
+     */
+    synchronized boolean append(long timestamp, double open, double high, double low, double close,
+                                long volume, double amount) throws IOException {
+        int row = count;
+        if (row > 0) {
+            long last = buffer.getLong(offset(0, row - 1));
+            if (timestamp < last) {
+                return false;
+            }
+            if (timestamp == last) {
+                row--;
+            }
+        }
+        if (row == capacity) {
+            grow();
+        }
+        buffer.putLong(offset(0, row), timestamp);
+        buffer.putDouble(offset(1, row), open);
+        buffer.putDouble(offset(2, row), high);
+        buffer.putDouble(offset(3, row), low);
+        buffer.putDouble(offset(4, row), close);
+        buffer.putLong(offset(5, row), volume);
+        buffer.putDouble(offset(6, row), amount);
+        if (row == count) {
+            buffer.putInt(COUNT_OFFSET, row + 1);
+            count = row + 1;
+        }
+        return true;
+    }
+
+    /**
+     * 当前已提交行的只读视图，之后追加的行不可见
+     */
+    ArchiveView view() {
+        // 先读count再读buffer：扩容时先替换buffer再增加count，视图中的行一定在所持buffer内
+        int rows = count;
+        MappedByteBuffer current;
+        int cap;
+        synchronized (this) {
+            current = buffer;
+            cap = capacity;
+        }
+        return new ArchiveView(current, cap, rows);
+    }
+
+    int size() {
+        return count;
+    }
+
+    long lastTimestamp() {
+        int rows = count;
+        return rows == 0 ? -1L : view().getTimestamp(rows - 1);
+    }
+
+    synchronized void force() {
+        buffer.force();
+    }
+
+    long getFileBytes() {
+        return fileSize(capacity);
+    }
+
+    static int offset(int column, int row, int capacity) {
+        return HEADER_BYTES + (column * capacity + row) * 8;
+    }
+
+    private int offset(int column, int row) {
+        return offset(column, row, capacity);
+    }
+
+    private void grow() throws IOException {
+        int newCapacity = capacity * 2;
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        MappedByteBuffer target = map(tmp, newCapacity);
+        for (int column = 0; column < COLUMNS; column++) {
+            target.put(offset(column, 0, newCapacity), buffer, offset(column, 0, capacity), count * 8);
+        }
+        writeHeader(target, newCapacity, count);
+        target.force();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // 旧映射仍由已打开的视图持有，文件被替换后依然有效，随视图回收
+        buffer = target;
+        capacity = newCapacity;
+    }
+
+    private static MappedByteBuffer map(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int capacity, int count) {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) COLUMNS * capacity * 8;
+    }
+}
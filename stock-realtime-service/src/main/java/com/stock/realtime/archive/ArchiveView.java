@@ -0,0 +1,82 @@
+package com.stock.realtime.archive;
+
+import com.stock.realtime.bar.BarView;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 归档文件的只读视图，直接读取内存映射的列，不复制数据
+ * 行数在打开视图时确定；归档只追加已收盘K线，版本号即行数
+ */
+public final class ArchiveView implements BarView {
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int size;
+
+    ArchiveView(ByteBuffer buffer, int capacity, int size) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getSequence() {
+        return size;
+    }
+
+    @Override
+    public long getCloseVersion() {
+        return size;
+    }
+
+    @Override
+    public long getPriceVersion() {
+        return size;
+    }
+
+    @Override
+    public long getTimestamp(int index) {
+        return buffer.getLong(ArchiveFile.offset(0, index, capacity));
+    }
+
+    @Override
+    public double getOpen(int index) {
+        return buffer.getDouble(ArchiveFile.offset(1, index, capacity));
+    }
+
+    @Override
+    public double getHigh(int index) {
+        return buffer.getDouble(ArchiveFile.offset(2, index, capacity));
+    }
+
+    @Override
+    public double getLow(int index) {
+        return buffer.getDouble(ArchiveFile.offset(3, index, capacity));
+    }
+
+    @Override
+    public double getClose(int index) {
+        return buffer.getDouble(ArchiveFile.offset(4, index, capacity));
+    }
+
+    @Override
+    public long getVolume(int index) {
+        return buffer.getLong(ArchiveFile.offset(5, index, capacity));
+    }
+
+    @Override
+    public double getAmount(int index) {
+        return buffer.getDouble(ArchiveFile.offset(6, index, capacity));
+    }
+}
@@ -0,0 +1,211 @@
+package com.stock.realtime.archive;
+
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.BarView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 本地K线归档
+ * 每只股票每个周期一个内存映射的列式文件（{dir}/{timeframe}/{code}.bars），收盘K线只追加写入。
+ * 读取返回直接映射文件的BarView，不按行分配堆对象，可直接用于回测、截面计算和启动预热，
+ * 替代每次回测都向Tushare按股票拉取List&lt;Map&gt;形式的日线
+ */
+@Slf4j
+@Component
+public class BarArchive implements BarListener {
+
+    private static final String SUFFIX = ".bars";
+
+    @Value("${realtime.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${realtime.archive.dir:./data/archive}")
+    private String dir;
+
+    @Value("${realtime.archive.daily-initial-capacity:4096}")
+    private int dailyInitialCapacity;
+
+    @Value("${realtime.archive.intraday-initial-capacity:16384}")
+    private int intradayInitialCapacity;
+
+    private Path root;
+
+    private final Map<BarTimeframe, ConcurrentHashMap<String, ArchiveFile>> files = new EnumMap<>(BarTimeframe.class);
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (BarTimeframe timeframe : BarTimeframe.values()) {
+            files.put(timeframe, new ConcurrentHashMap<>());
+        }
+        if (!enabled) {
+            log.info("K线归档已关闭");
+            return;
+        }
+        root = Paths.get(dir).toAbsolutePath();
+        Files.createDirectories(root);
+        log.info("K线归档目录: {}", root);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 收盘K线追加到归档
+     */
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            file(stockCode, timeframe, true).append(timestamp, open, high, low, close, volume, amount);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("写入K线归档失败: {} {}", stockCode, timeframe.getCode(), e);
+        }
+    }
+
+    /**
+     * 批量导入K线（如历史数据回填），早于归档最后一根的K线被跳过
+     *
+     * @return 写入的根数
+     */
+    public int append(String stockCode, BarTimeframe timeframe, BarView view) throws IOException {
+        if (!enabled || view.isEmpty()) {
+            return 0;
+        }
+        ArchiveFile file = file(stockCode, timeframe, true);
+        int written = 0;
+        for (int i = 0; i < view.size(); i++) {
+            if (file.append(view.getTimestamp(i), view.getOpen(i), view.getHigh(i), view.getLow(i),
+                    view.getClose(i), view.getVolume(i), view.getAmount(i))) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 读取归档K线
+     *
+     * @return 没有该股票该周期的归档时返回null
+     */
+    public BarView read(String stockCode, BarTimeframe timeframe) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            ArchiveFile file = file(stockCode, timeframe, false);
+            return file == null ? null : file.view();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("读取K线归档失败: {} {}", stockCode, timeframe.getCode(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 遍历该周期的全部归档
+     */
+    public void forEach(BarTimeframe timeframe, BiConsumer<String, BarView> consumer) {
+        for (String stockCode : symbols(timeframe)) {
+            BarView view = read(stockCode, timeframe);
+            if (view != null) {
+                consumer.accept(stockCode, view);
+            }
+        }
+    }
+
+    /**
+     * 该周期下有归档的股票代码
+     */
+    public List<String> symbols(BarTimeframe timeframe) {
+        List<String> symbols = new ArrayList<>();
+        if (!enabled) {
+            return symbols;
+        }
+        Path directory = root.resolve(timeframe.getCode());
+        if (!Files.isDirectory(directory)) {
+            return symbols;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                symbols.add(name.substring(0, name.length() - SUFFIX.length()));
+            }
+        } catch (IOException e) {
+            log.error("列出K线归档失败: {}", directory, e);
+        }
+        return symbols;
+    }
+
+    /**
+     * 已打开的归档文件总字节数
+     */
+    public long getMappedBytes() {
+        long total = 0;
+        for (ConcurrentHashMap<String, ArchiveFile> map : files.values()) {
+            for (ArchiveFile file : map.values()) {
+                total += file.getFileBytes();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 定期把映射页刷到磁盘，缩小进程崩溃或断电时丢失的范围
+     */
+    @Scheduled(fixedDelayString = "${realtime.archive.force-interval-ms:60000}")
+    public void force() {
+        for (ConcurrentHashMap<String, ArchiveFile> map : files.values()) {
+            for (ArchiveFile file : map.values()) {
+                file.force();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        force();
+    }
+
+    private ArchiveFile file(String stockCode, BarTimeframe timeframe, boolean create) throws IOException {
+        ConcurrentHashMap<String, ArchiveFile> map = files.get(timeframe);
+        ArchiveFile file = map.get(stockCode);
+        if (file != null) {
+            return file;
+        }
+        if (stockCode.indexOf('/') >= 0 || stockCode.indexOf('\\') >= 0 || stockCode.startsWith(".")) {
+            throw new IllegalArgumentException("股票代码不合法: " + stockCode);
+        }
+        Path path = root.resolve(timeframe.getCode()).resolve(stockCode + SUFFIX);
+        int capacity = timeframe.isIntraday() ? intradayInitialCapacity : dailyInitialCapacity;
+        // 文件不存在且不创建时open返回null，computeIfAbsent不会留下映射
+        return map.computeIfAbsent(stockCode, k -> {
+            try {
+                return ArchiveFile.open(path, capacity, create);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.stock.realtime.auth;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 用户身份校验
+ * 本服务端口可被直接访问，按用户的接口和WebSocket会话不能信任请求中的X-User-Id，
+ * 统一由认证服务签发的JWT验签得到用户ID（subject）
+ */
+@Slf4j
+@Component
+public class JwtAuthenticator {
+
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    /**
+     * 从Authorization请求头（Bearer token）解析用户ID
+     *
+     * @return 缺少token或token无效、过期时返回null
+     */
+    public String authenticate(String authorization) {
+        if (!StringUtils.hasText(authorization) || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return verify(authorization.substring(BEARER_PREFIX.length()));
+    }
+
+    /**
+     * 校验token并返回用户ID
+     *
+     * @return token无效或已过期时返回null
+     */
+    public String verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String userId = parser.parseClaimsJws(token).getBody().getSubject();
+            return StringUtils.hasText(userId) ? userId : null;
+        } catch (Exception e) {
+            log.debug("Token验证失败: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.stock.realtime.backtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BarSeriesManager;
+import org.ta4j.core.Position;
+import org.ta4j.core.TradingRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 并行回测引擎
+ * 每只股票一个ForkJoin任务：加载K线序列，依次在其上运行全部策略并计算指标；
+ * 股票之间没有共享状态，任务完成后按股票池顺序汇总为报告。
+ * 费用按单边费率线性计入成交价（买入价×(1+费率)、卖出价×(1-费率)），与ta4j LinearTransactionCostModel一致
+ */
+@Slf4j
+public class BacktestEngine {
+
+    private final ForkJoinPool pool;
+
+    public BacktestEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 回测整个股票池
+     *
+     * @param loader        按股票代码加载K线序列，没有数据时返回null；在工作线程中并发调用
+     * @param feeRate       单边交易费率
+     * @param includeTrades 结果中是否保留逐笔交易
+     * @param progress      每完成一只股票回调一次已完成数，在工作线程中并发调用
+     */
+    public BacktestReport run(List<String> symbols, Function<String, BarSeries> loader,
+                              List<BacktestStrategy> strategies, double feeRate, boolean includeTrades,
+                              IntConsumer progress) {
+        long start = System.currentTimeMillis();
+        SymbolBacktest[][] results = new SymbolBacktest[symbols.size()][];
+        AtomicInteger completed = new AtomicInteger();
+        List<SymbolTask> tasks = new ArrayList<>(symbols.size());
+        for (int i = 0; i < symbols.size(); i++) {
+            tasks.add(new SymbolTask(symbols.get(i), i, loader, strategies, feeRate, includeTrades,
+                    results, completed, progress));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return report(strategies, results, System.currentTimeMillis() - start);
+    }
+
+    private static BacktestReport report(List<BacktestStrategy> strategies, SymbolBacktest[][] results, long elapsed) {
+        int tested = 0;
+        long bars = 0;
+        for (SymbolBacktest[] symbol : results) {
+            if (symbol != null) {
+                tested++;
+                bars += symbol[0].getMetrics().getBars();
+            }
+        }
+        List<StrategyReport> reports = new ArrayList<>(strategies.size());
+        for (int s = 0; s < strategies.size(); s++) {
+            List<SymbolBacktest> list = new ArrayList<>(tested);
+            for (SymbolBacktest[] symbol : results) {
+                if (symbol != null) {
+                    list.add(symbol[s]);
+                }
+            }
+            StrategyReport report = new StrategyReport();
+            report.setName(strategies.get(s).getName());
+            report.setSummary(summarize(list));
+            report.setResults(list);
+            reports.add(report);
+        }
+        BacktestReport report = new BacktestReport();
+        report.setSymbols(tested);
+        report.setSkipped(results.length - tested);
+        report.setBars(bars);
+        report.setElapsedMillis(elapsed);
+        report.setStrategies(reports);
+        return report;
+    }
+
+    private static StrategySummary summarize(List<SymbolBacktest> results) {
+        StrategySummary summary = new StrategySummary();
+        summary.setSymbols(results.size());
+        if (results.isEmpty()) {
+            return summary;
+        }
+        long trades = 0;
+        long wins = 0;
+        int profitable = 0;
+        double drawdown = 0;
+        double buyAndHold = 0;
+        double[] returns = new double[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            BacktestMetrics metrics = results.get(i).getMetrics();
+            trades += metrics.getTrades();
+            wins += metrics.getWinningTrades();
+            returns[i] = metrics.getTotalReturn();
+            if (returns[i] > 0) {
+                profitable++;
+            }
+            drawdown += metrics.getMaxDrawdown();
+            buyAndHold += metrics.getBuyAndHoldReturn();
+        }
+        int n = results.size();
+        summary.setTrades(trades);
+        summary.setWinRate(trades == 0 ? 0 : round(100.0 * wins / trades));
+        summary.setAverageReturn(round(Arrays.stream(returns).sum() / n));
+        Arrays.sort(returns);
+        summary.setMedianReturn(round(n % 2 == 1 ? returns[n / 2] : (returns[n / 2 - 1] + returns[n / 2]) / 2));
+        summary.setProfitableRatio(round(100.0 * profitable / n));
+        summary.setAverageMaxDrawdown(round(drawdown / n));
+        summary.setAverageBuyAndHoldReturn(round(buyAndHold / n));
+        return summary;
+    }
+
+    /**
+     * 在一只股票的K线上运行全部策略
+     */
+    static SymbolBacktest[] backtest(String stockCode, BarSeries series, List<BacktestStrategy> strategies,
+                                     double feeRate, boolean includeTrades) {
+        int n = series.getBarCount();
+        double[] close = new double[n];
+        for (int i = 0; i < n; i++) {
+            close[i] = series.getBar(series.getBeginIndex() + i).getClosePrice().doubleValue();
+        }
+        BarSeriesManager manager = new BarSeriesManager(series);
+        SymbolBacktest[] results = new SymbolBacktest[strategies.size()];
+        for (int s = 0; s < strategies.size(); s++) {
+            TradingRecord record = manager.run(strategies.get(s).build(series));
+            results[s] = evaluate(stockCode, series, close, record.getPositions(), feeRate, includeTrades);
+        }
+        return results;
+    }
+
+    private static SymbolBacktest evaluate(String stockCode, BarSeries series, double[] close,
+                                           List<Position> positions, double feeRate, boolean includeTrades) {
+        int begin = series.getBeginIndex();
+        int n = close.length;
+        List<BacktestTrade> trades = includeTrades ? new ArrayList<>(positions.size()) : null;
+
+        double equity = 1;
+        double peak = 1;
+        double maxDrawdown = 0;
+        double returnSum = 0;
+        int wins = 0;
+        int held = 0;
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            double mark = equity;
+            if (next < positions.size()) {
+                Position position = positions.get(next);
+                int entry = position.getEntry().getIndex() - begin;
+                int exit = position.getExit().getIndex() - begin;
+                double cost = close[entry] * (1 + feeRate);
+                if (i > entry && i < exit) {
+                    mark = equity * close[i] * (1 - feeRate) / cost;
+                } else if (i == exit) {
+                    double r = close[exit] * (1 - feeRate) / cost - 1;
+                    equity *= 1 + r;
+                    mark = equity;
+                    returnSum += r;
+                    held += exit - entry;
+                    if (r > 0) {
+                        wins++;
+                    }
+                    if (trades != null) {
+                        trades.add(new BacktestTrade(beginTime(series, entry + begin), close[entry],
+                                beginTime(series, exit + begin), close[exit], round(r * 100), exit - entry));
+                    }
+                    next++;
+                }
+            }
+            peak = Math.max(peak, mark);
+            maxDrawdown = Math.max(maxDrawdown, 1 - mark / peak);
+        }
+
+        int count = positions.size();
+        BacktestMetrics metrics = new BacktestMetrics();
+        metrics.setBars(n);
+        metrics.setTrades(count);
+        metrics.setWinningTrades(wins);
+        metrics.setWinRate(count == 0 ? 0 : round(100.0 * wins / count));
+        metrics.setTotalReturn(round((equity - 1) * 100));
+        metrics.setAverageReturn(count == 0 ? 0 : round(returnSum / count * 100));
+        metrics.setMaxDrawdown(round(maxDrawdown * 100));
+        metrics.setBuyAndHoldReturn(n == 0 || close[0] == 0 ? 0 : round((close[n - 1] / close[0] - 1) * 100));
+        metrics.setExposure(n == 0 ? 0 : round(100.0 * held / n));
+
+        SymbolBacktest result = new SymbolBacktest();
+        result.setStockCode(stockCode);
+        result.setMetrics(metrics);
+        result.setTrades(trades);
+        return result;
+    }
+
+    private static long beginTime(BarSeries series, int index) {
+        return series.getBar(index).getBeginTime().toInstant().toEpochMilli();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static final class SymbolTask extends RecursiveAction {
+
+        private final String stockCode;
+        private final int index;
+        private final Function<String, BarSeries> loader;
+        private final List<BacktestStrategy> strategies;
+        private final double feeRate;
+        private final boolean includeTrades;
+        private final SymbolBacktest[][] results;
+        private final AtomicInteger completed;
+        private final IntConsumer progress;
+
+        SymbolTask(String stockCode, int index, Function<String, BarSeries> loader, List<BacktestStrategy> strategies,
+                   double feeRate, boolean includeTrades, SymbolBacktest[][] results, AtomicInteger completed,
+                   IntConsumer progress) {
+            this.stockCode = stockCode;
+            this.index = index;
+            this.loader = loader;
+            this.strategies = strategies;
+            this.feeRate = feeRate;
+            this.includeTrades = includeTrades;
+            this.results = results;
+            this.completed = completed;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                BarSeries series = loader.apply(stockCode);
+                if (series != null && series.getBarCount() > 0) {
+                    results[index] = backtest(stockCode, series, strategies, feeRate, includeTrades);
+                }
+            } catch (RuntimeException e) {
+                // 单只股票失败不影响整体，计入skipped
+                log.warn("回测失败: {}", stockCode, e);
+            }
+            progress.accept(completed.incrementAndGet());
+        }
+    }
+}
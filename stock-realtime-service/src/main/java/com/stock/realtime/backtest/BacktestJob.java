@@ -0,0 +1,39 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+/**
+ * 回测任务，提交后在后台运行，完成后保留一段时间供查询
+ */
+@Data
+public class BacktestJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String jobId;
+
+    private String timeframe;
+
+    private volatile Status status = Status.RUNNING;
+
+    /**
+     * 股票池大小和已完成数
+     */
+    private int total;
+
+    private volatile int completed;
+
+    private long submitTime;
+
+    private volatile long elapsedMillis;
+
+    private volatile String error;
+
+    private volatile BacktestReport report;
+
+    public BacktestProgress toProgress() {
+        return new BacktestProgress(jobId, status, completed, total, elapsedMillis);
+    }
+}
@@ -0,0 +1,40 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+/**
+ * 单只股票单个策略的回测指标，收益类指标单位为%
+ */
+@Data
+public class BacktestMetrics {
+
+    private int bars;
+
+    private int trades;
+
+    private int winningTrades;
+
+    private double winRate;
+
+    /**
+     * 逐笔复利的累计收益率
+     */
+    private double totalReturn;
+
+    private double averageReturn;
+
+    /**
+     * 按收盘价逐根盯市的最大回撤
+     */
+    private double maxDrawdown;
+
+    /**
+     * 同期买入持有收益率
+     */
+    private double buyAndHoldReturn;
+
+    /**
+     * 持仓K线占比
+     */
+    private double exposure;
+}
@@ -0,0 +1,24 @@
+package com.stock.realtime.backtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 回测进度，推送到/topic/backtest/{jobId}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestProgress {
+
+    private String jobId;
+
+    private BacktestJob.Status status;
+
+    private int completed;
+
+    private int total;
+
+    private long elapsedMillis;
+}
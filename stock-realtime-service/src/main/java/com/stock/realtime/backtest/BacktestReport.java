@@ -0,0 +1,28 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一次回测的完整报告
+ */
+@Data
+public class BacktestReport {
+
+    /**
+     * 实际参与回测的股票数，没有K线或加载失败的股票计入skipped
+     */
+    private int symbols;
+
+    private int skipped;
+
+    /**
+     * 参与回测的K线总根数
+     */
+    private long bars;
+
+    private long elapsedMillis;
+
+    private List<StrategyReport> strategies;
+}
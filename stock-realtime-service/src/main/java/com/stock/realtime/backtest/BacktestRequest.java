@@ -0,0 +1,41 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 回测请求
+ */
+@Data
+public class BacktestRequest {
+
+    /**
+     * K线周期代码，默认日线
+     */
+    private String timeframe = "1d";
+
+    /**
+     * 股票池，为空时使用该周期下有K线的全部股票
+     */
+    private List<String> symbols;
+
+    /**
+     * 起止时间（epoch毫秒），为空时不限
+     */
+    private Long from;
+
+    private Long to;
+
+    /**
+     * 单边交易费率（如0.0003），按成交金额线性计费
+     */
+    private double feeRate;
+
+    /**
+     * 结果中是否保留逐笔交易（全市场回测时结果较大，默认只返回统计指标）
+     */
+    private boolean includeTrades;
+
+    private List<StrategySpec> strategies;
+}
@@ -0,0 +1,328 @@
+package com.stock.realtime.backtest;
+
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseStrategy;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.Rule;
+import org.ta4j.core.Strategy;
+import org.ta4j.core.indicators.EMAIndicator;
+import org.ta4j.core.indicators.MACDIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.SMAIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsLowerIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsMiddleIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsUpperIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.helpers.ConstantIndicator;
+import org.ta4j.core.indicators.helpers.HighPriceIndicator;
+import org.ta4j.core.indicators.helpers.HighestValueIndicator;
+import org.ta4j.core.indicators.helpers.LowPriceIndicator;
+import org.ta4j.core.indicators.helpers.LowestValueIndicator;
+import org.ta4j.core.indicators.helpers.OpenPriceIndicator;
+import org.ta4j.core.indicators.helpers.PreviousValueIndicator;
+import org.ta4j.core.indicators.helpers.VolumeIndicator;
+import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.ta4j.core.num.Num;
+import org.ta4j.core.rules.CrossedDownIndicatorRule;
+import org.ta4j.core.rules.CrossedUpIndicatorRule;
+import org.ta4j.core.rules.OverIndicatorRule;
+import org.ta4j.core.rules.StopGainRule;
+import org.ta4j.core.rules.StopLossRule;
+import org.ta4j.core.rules.UnderIndicatorRule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的回测策略
+ * 提交时一次性解析并校验StrategySpec，之后对每只股票的BarSeries调用build()生成ta4j策略；
+ * 同一只股票上入场和出场规则引用的相同指标表达式共用一个指标实例（及其计算缓存）
+ */
+public final class BacktestStrategy {
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+    private static final Pattern FUNCTION = Pattern.compile("([a-z_]+)(?:\\(([0-9.,]*)\\))?");
+    private static final int MAX_PERIOD = 1000;
+
+    private static final Expr CLOSE = new Expr("close", 0, (series, cache) -> new ClosePriceIndicator(series));
+
+    private final String name;
+    private final RuleFactory entry;
+    private final RuleFactory exit;
+    private final int unstableBars;
+
+    private BacktestStrategy(String name, RuleFactory entry, RuleFactory exit, int unstableBars) {
+        this.name = name;
+        this.entry = entry;
+        this.exit = exit;
+        this.unstableBars = unstableBars;
+    }
+
+    /**
+     * 解析并校验策略定义
+     *
+     * @throws IllegalArgumentException 定义不完整或表达式不合法
+     */
+    public static BacktestStrategy compile(StrategySpec spec) {
+        if (spec == null || spec.getName() == null || spec.getName().isBlank()) {
+            throw new IllegalArgumentException("策略名称不能为空");
+        }
+        if (spec.getEntry() == null || spec.getExit() == null) {
+            throw new IllegalArgumentException("策略缺少入场或出场规则: " + spec.getName());
+        }
+        int[] unstable = new int[1];
+        RuleFactory entry = rule(spec.getEntry(), unstable);
+        RuleFactory exit = rule(spec.getExit(), unstable);
+        return new BacktestStrategy(spec.getName(), entry, exit, unstable[0]);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 指标预热所需的K线根数，此前不产生交易信号
+     */
+    public int getUnstableBars() {
+        return unstableBars;
+    }
+
+    /**
+     * 在一只股票的K线序列上生成ta4j策略
+     */
+    public Strategy build(BarSeries series) {
+        Map<String, Indicator<Num>> indicators = new HashMap<>();
+        return new BaseStrategy(name, entry.create(series, indicators), exit.create(series, indicators), unstableBars);
+    }
+
+    private static RuleFactory rule(RuleSpec spec, int[] unstable) {
+        if (spec == null || spec.getType() == null) {
+            throw new IllegalArgumentException("规则类型不能为空");
+        }
+        switch (spec.getType()) {
+            case CROSS_UP:
+            case CROSS_DOWN:
+            case ABOVE:
+            case BELOW:
+                return comparison(spec, unstable);
+            case AND:
+            case OR:
+                return composite(spec, unstable);
+            case STOP_LOSS:
+            case STOP_GAIN:
+                return stop(spec);
+            default:
+                throw new IllegalArgumentException("不支持的规则类型: " + spec.getType());
+        }
+    }
+
+    private static RuleFactory comparison(RuleSpec spec, int[] unstable) {
+        Expr left = expr(spec.getLeft());
+        Expr right = expr(spec.getRight());
+        unstable[0] = Math.max(unstable[0], Math.max(left.period, right.period));
+        RuleType type = spec.getType();
+        return (series, cache) -> {
+            Indicator<Num> l = left.get(series, cache);
+            Indicator<Num> r = right.get(series, cache);
+            switch (type) {
+                case CROSS_UP:
+                    return new CrossedUpIndicatorRule(l, r);
+                case CROSS_DOWN:
+                    return new CrossedDownIndicatorRule(l, r);
+                case ABOVE:
+                    return new OverIndicatorRule(l, r);
+                default:
+                    return new UnderIndicatorRule(l, r);
+            }
+        };
+    }
+
+    private static RuleFactory composite(RuleSpec spec, int[] unstable) {
+        if (spec.getRules() == null || spec.getRules().isEmpty()) {
+            throw new IllegalArgumentException(spec.getType() + "规则缺少子规则");
+        }
+        List<RuleFactory> children = new ArrayList<>(spec.getRules().size());
+        for (RuleSpec child : spec.getRules()) {
+            children.add(rule(child, unstable));
+        }
+        boolean and = spec.getType() == RuleType.AND;
+        return (series, cache) -> {
+            Rule rule = children.get(0).create(series, cache);
+            for (int i = 1; i < children.size(); i++) {
+                Rule next = children.get(i).create(series, cache);
+                rule = and ? rule.and(next) : rule.or(next);
+            }
+            return rule;
+        };
+    }
+
+    private static RuleFactory stop(RuleSpec spec) {
+        Double value = spec.getValue();
+        if (value == null || value <= 0 || value >= 100) {
+            throw new IllegalArgumentException(spec.getType() + "规则的百分比须在(0, 100)之间");
+        }
+        boolean loss = spec.getType() == RuleType.STOP_LOSS;
+        return (series, cache) -> {
+            ClosePriceIndicator close = (ClosePriceIndicator) CLOSE.get(series, cache);
+            return loss ? new StopLossRule(close, value) : new StopGainRule(close, value);
+        };
+    }
+
+    /**
+     * 解析指标表达式
+     */
+    private static Expr expr(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("指标表达式不能为空");
+        }
+        String key = text.replace(" ", "").toLowerCase(Locale.ROOT);
+        if (NUMBER.matcher(key).matches()) {
+            double value = Double.parseDouble(key);
+            return new Expr(key, 0, (series, cache) -> new ConstantIndicator<>(series, series.numOf(value)));
+        }
+        Matcher matcher = FUNCTION.matcher(key);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("指标表达式不合法: " + text);
+        }
+        String function = matcher.group(1);
+        double[] args = args(matcher.group(2), text);
+        switch (function) {
+            case "close":
+                arity(args, 0, text);
+                return CLOSE;
+            case "open":
+                arity(args, 0, text);
+                return new Expr(key, 0, (series, cache) -> new OpenPriceIndicator(series));
+            case "high":
+                arity(args, 0, text);
+                return new Expr(key, 0, (series, cache) -> new HighPriceIndicator(series));
+            case "low":
+                arity(args, 0, text);
+                return new Expr(key, 0, (series, cache) -> new LowPriceIndicator(series));
+            case "volume":
+                arity(args, 0, text);
+                return new Expr(key, 0, (series, cache) -> new VolumeIndicator(series));
+            case "sma": {
+                int n = period(args, 0, 1, text);
+                return new Expr(key, n, (series, cache) -> new SMAIndicator(CLOSE.get(series, cache), n));
+            }
+            case "ema": {
+                int n = period(args, 0, 1, text);
+                return new Expr(key, n, (series, cache) -> new EMAIndicator(CLOSE.get(series, cache), n));
+            }
+            case "rsi": {
+                int n = period(args, 0, 1, text);
+                return new Expr(key, n, (series, cache) -> new RSIIndicator(CLOSE.get(series, cache), n));
+            }
+            case "macd": {
+                int s = period(args, 0, 2, text);
+                int l = period(args, 1, 2, text);
+                return new Expr(key, l, (series, cache) -> new MACDIndicator(CLOSE.get(series, cache), s, l));
+            }
+            case "macd_signal": {
+                int s = period(args, 0, 3, text);
+                int l = period(args, 1, 3, text);
+                int n = period(args, 2, 3, text);
+                Expr macd = new Expr("macd(" + s + "," + l + ")", l,
+                        (series, cache) -> new MACDIndicator(CLOSE.get(series, cache), s, l));
+                return new Expr(key, l + n, (series, cache) -> new EMAIndicator(macd.get(series, cache), n));
+            }
+            case "boll_upper":
+            case "boll_lower": {
+                arity(args, 2, text);
+                int n = period(args, 0, 2, text);
+                double k = args[1];
+                boolean upper = "boll_upper".equals(function);
+                Expr sma = new Expr("sma(" + n + ")", n, (series, cache) -> new SMAIndicator(CLOSE.get(series, cache), n));
+                return new Expr(key, n, (series, cache) -> {
+                    BollingerBandsMiddleIndicator middle = new BollingerBandsMiddleIndicator(sma.get(series, cache));
+                    StandardDeviationIndicator deviation = new StandardDeviationIndicator(CLOSE.get(series, cache), n);
+                    return upper
+                            ? new BollingerBandsUpperIndicator(middle, deviation, series.numOf(k))
+                            : new BollingerBandsLowerIndicator(middle, deviation, series.numOf(k));
+                });
+            }
+            case "highest": {
+                // 前n根K线（不含当前）的最高价，用于通道突破
+                int n = period(args, 0, 1, text);
+                return new Expr(key, n + 1, (series, cache) ->
+                        new PreviousValueIndicator(new HighestValueIndicator(new HighPriceIndicator(series), n)));
+            }
+            case "lowest": {
+                int n = period(args, 0, 1, text);
+                return new Expr(key, n + 1, (series, cache) ->
+                        new PreviousValueIndicator(new LowestValueIndicator(new LowPriceIndicator(series), n)));
+            }
+            default:
+                throw new IllegalArgumentException("不支持的指标: " + text);
+        }
+    }
+
+    private static double[] args(String group, String text) {
+        if (group == null || group.isEmpty()) {
+            return new double[0];
+        }
+        String[] parts = group.split(",");
+        double[] args = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            if (!NUMBER.matcher(parts[i]).matches()) {
+                throw new IllegalArgumentException("指标参数不合法: " + text);
+            }
+            args[i] = Double.parseDouble(parts[i]);
+        }
+        return args;
+    }
+
+    private static void arity(double[] args, int expected, String text) {
+        if (args.length != expected) {
+            throw new IllegalArgumentException("指标参数个数应为" + expected + ": " + text);
+        }
+    }
+
+    private static int period(double[] args, int index, int arity, String text) {
+        arity(args, arity, text);
+        double value = args[index];
+        if (value != Math.rint(value) || value < 1 || value > MAX_PERIOD) {
+            throw new IllegalArgumentException("指标周期须为1~" + MAX_PERIOD + "的整数: " + text);
+        }
+        return (int) value;
+    }
+
+    @FunctionalInterface
+    private interface RuleFactory {
+
+        Rule create(BarSeries series, Map<String, Indicator<Num>> indicators);
+    }
+
+    /**
+     * 解析后的指标表达式，按规范化文本在一只股票的构建过程内复用实例
+     */
+    private static final class Expr {
+
+        private final String key;
+        private final int period;
+        private final BiFunction<BarSeries, Map<String, Indicator<Num>>, Indicator<Num>> factory;
+
+        private Expr(String key, int period, BiFunction<BarSeries, Map<String, Indicator<Num>>, Indicator<Num>> factory) {
+            this.key = key;
+            this.period = period;
+            this.factory = factory;
+        }
+
+        private Indicator<Num> get(BarSeries series, Map<String, Indicator<Num>> cache) {
+            Indicator<Num> indicator = cache.get(key);
+            if (indicator == null) {
+                // 工厂会递归获取依赖的指标，不能用computeIfAbsent
+                indicator = factory.apply(series, cache);
+                cache.put(key, indicator);
+            }
+            return indicator;
+        }
+    }
+}
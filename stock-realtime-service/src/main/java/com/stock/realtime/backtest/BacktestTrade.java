@@ -0,0 +1,32 @@
+package com.stock.realtime.backtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一笔完整交易（买入到卖出），时间为K线起始时间（epoch毫秒），价格为成交K线收盘价
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestTrade {
+
+    private long entryTime;
+
+    private double entryPrice;
+
+    private long exitTime;
+
+    private double exitPrice;
+
+    /**
+     * 扣除交易费用后的收益率（%）
+     */
+    private double returnPct;
+
+    /**
+     * 持仓K线根数
+     */
+    private int bars;
+}
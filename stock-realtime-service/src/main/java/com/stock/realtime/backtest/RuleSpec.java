@@ -0,0 +1,30 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 回测规则定义
+ * left/right为指标表达式：close、open、high、low、volume、sma(n)、ema(n)、rsi(n)、macd(s,l)、
+ * macd_signal(s,l,n)、boll_upper(n,k)、boll_lower(n,k)、highest(n)、lowest(n)或数值常量
+ */
+@Data
+public class RuleSpec {
+
+    private RuleType type;
+
+    private String left;
+
+    private String right;
+
+    /**
+     * AND/OR的子规则
+     */
+    private List<RuleSpec> rules;
+
+    /**
+     * STOP_LOSS/STOP_GAIN的百分比阈值
+     */
+    private Double value;
+}
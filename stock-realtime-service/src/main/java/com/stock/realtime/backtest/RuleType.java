@@ -0,0 +1,47 @@
+package com.stock.realtime.backtest;
+
+/**
+ * 回测规则类型
+ */
+public enum RuleType {
+
+    /**
+     * left上穿right
+     */
+    CROSS_UP,
+
+    /**
+     * left下穿right
+     */
+    CROSS_DOWN,
+
+    /**
+     * left高于right
+     */
+    ABOVE,
+
+    /**
+     * left低于right
+     */
+    BELOW,
+
+    /**
+     * 全部子规则同时满足
+     */
+    AND,
+
+    /**
+     * 任一子规则满足
+     */
+    OR,
+
+    /**
+     * 持仓亏损达到value（百分比）
+     */
+    STOP_LOSS,
+
+    /**
+     * 持仓盈利达到value（百分比）
+     */
+    STOP_GAIN
+}
@@ -0,0 +1,21 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 单个策略的回测报告
+ */
+@Data
+public class StrategyReport {
+
+    private String name;
+
+    private StrategySummary summary;
+
+    /**
+     * 各股票结果，按股票池顺序排列，没有K线的股票不在其中
+     */
+    private List<SymbolBacktest> results;
+}
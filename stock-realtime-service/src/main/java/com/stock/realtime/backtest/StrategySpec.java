@@ -0,0 +1,16 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+/**
+ * 用户定义的回测策略：满足入场规则时买入，持仓期间满足出场规则时卖出（只做多）
+ */
+@Data
+public class StrategySpec {
+
+    private String name;
+
+    private RuleSpec entry;
+
+    private RuleSpec exit;
+}
@@ -0,0 +1,35 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+/**
+ * 单个策略在整个股票池上的汇总，收益类指标单位为%
+ */
+@Data
+public class StrategySummary {
+
+    private int symbols;
+
+    private long trades;
+
+    /**
+     * 全部交易的胜率
+     */
+    private double winRate;
+
+    /**
+     * 各股票累计收益率的均值和中位数
+     */
+    private double averageReturn;
+
+    private double medianReturn;
+
+    /**
+     * 累计收益为正的股票占比
+     */
+    private double profitableRatio;
+
+    private double averageMaxDrawdown;
+
+    private double averageBuyAndHoldReturn;
+}
@@ -0,0 +1,21 @@
+package com.stock.realtime.backtest;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 单只股票单个策略的回测结果
+ */
+@Data
+public class SymbolBacktest {
+
+    private String stockCode;
+
+    private BacktestMetrics metrics;
+
+    /**
+     * 逐笔交易，请求未要求时为null
+     */
+    private List<BacktestTrade> trades;
+}
@@ -0,0 +1,429 @@
+package com.stock.realtime.bar;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多周期K线聚合
+ * 由tick生成1m、5m、15m、60m和日线OHLCV，形成中的K线直接写入BarStore（新K线append，其余updateLast），
+ * 收盘时回调BarListener。K线按A股交易时段对齐：9:30-11:30、13:00-15:00共240个交易分钟，
+ * 60分钟线为10:30、11:30、14:00、15:00四根；9:30前的集合竞价并入第一根，
+ * 11:30和15:00的收盘成交并入各时段最后一根。
+ *
+ * 每只股票的状态是预分配的原始类型数组，每个tick每个周期O(1)更新且不分配对象。
+ * K线在下一个周期的tick到来时收盘；没有后续tick时由定时扫描在周期结束加宽限时间后收盘。
+ * 晚到的tick：仍属当前K线时只合并最高最低价，不改变收盘价；所属K线已收盘时丢弃并计数。
+ * 重启后BarStore中已有恢复的K线时，从各周期最新一根接续聚合，不会为同一周期重复追加K线
+ */
+@Slf4j
+@Component
+public class BarAggregator {
+
+    /**
+     * 上海时区自1991年起没有夏令时，按固定偏移换算本地时间
+     */
+    private static final ZoneOffset MARKET_OFFSET = ZoneOffset.ofHours(8);
+
+    private static final long MARKET_OFFSET_MILLIS = MARKET_OFFSET.getTotalSeconds() * 1000L;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+
+    private static final int MORNING_OPEN = 9 * 60 + 30;
+
+    private static final int MORNING_CLOSE = 11 * 60 + 30;
+
+    private static final int AFTERNOON_OPEN = 13 * 60;
+
+    private static final int AFTERNOON_CLOSE = 15 * 60;
+
+    private static final int MORNING_MINUTES = MORNING_CLOSE - MORNING_OPEN;
+
+    private static final int SESSION_MINUTES = MORNING_MINUTES + AFTERNOON_CLOSE - AFTERNOON_OPEN;
+
+    private static final BarTimeframe[] TIMEFRAMES = BarTimeframe.values();
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired(required = false)
+    private List<BarListener> listeners = Collections.emptyList();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.bar-aggregator.close-grace-ms:2000}")
+    private long closeGraceMs;
+
+    private final ConcurrentHashMap<String, SymbolBars> states = new ConcurrentHashMap<>();
+
+    private BarListener[] listenerArray;
+    private Counter appliedCounter;
+    private Counter lateCounter;
+    private Counter droppedCounter;
+    private Counter[] closedCounters;
+
+    @PostConstruct
+    public void init() {
+        listenerArray = listeners.toArray(new BarListener[0]);
+        appliedCounter = meterRegistry.counter("realtime.bar.ticks", "result", "applied");
+        lateCounter = meterRegistry.counter("realtime.bar.ticks", "result", "late");
+        droppedCounter = meterRegistry.counter("realtime.bar.ticks", "result", "dropped");
+        closedCounters = new Counter[TIMEFRAMES.length];
+        for (BarTimeframe timeframe : TIMEFRAMES) {
+            closedCounters[timeframe.ordinal()] = meterRegistry.counter("realtime.bar.closed", "timeframe", timeframe.getCode());
+        }
+        meterRegistry.gauge("realtime.bar.symbols", states, Map::size);
+        log.info("K线聚合启动: 周期={}, 收盘宽限={}ms, 监听器={}", TIMEFRAMES.length, closeGraceMs, listenerArray.length);
+    }
+
+    /**
+     * 提交一笔行情，行情的成交量和成交额为当日累计值
+     */
+    public void onQuote(RealtimeQuote quote) {
+        if (quote.getStockCode() == null || quote.getCurrentPrice() == null) {
+            return;
+        }
+        long millis = quote.getUpdateTime() == null ? System.currentTimeMillis()
+                : quote.getUpdateTime().toEpochSecond(MARKET_OFFSET) * 1000L + quote.getUpdateTime().getNano() / 1_000_000;
+        onTick(quote.getStockCode(), millis, quote.getCurrentPrice().doubleValue(),
+                quote.getVolume() == null ? -1L : quote.getVolume(),
+                quote.getAmount() == null ? Double.NaN : quote.getAmount().doubleValue());
+    }
+
+    /**
+     * 提交一个tick
+     *
+     * @param cumulativeVolume 当日累计成交量，未知时传-1
+     * @param cumulativeAmount 当日累计成交额，未知时传NaN
+     */
+    public void onTick(String stockCode, long epochMillis, double price, long cumulativeVolume, double cumulativeAmount) {
+        if (!(price > 0)) {
+            return;
+        }
+        SymbolBars state = states.get(stockCode);
+        if (state == null) {
+            state = states.computeIfAbsent(stockCode, this::newState);
+        }
+        synchronized (state) {
+            apply(state, epochMillis, price, cumulativeVolume, cumulativeAmount);
+        }
+    }
+
+    /**
+     * 收盘已过周期结束时间加宽限时间、但一直没有新tick的K线
+     */
+    @Scheduled(fixedDelayString = "${realtime.bar-aggregator.sweep-interval-ms:1000}")
+    public void sweep() {
+        long deadline = System.currentTimeMillis() - closeGraceMs;
+        for (SymbolBars state : states.values()) {
+            synchronized (state) {
+                for (int t = 0; t < TIMEFRAMES.length; t++) {
+                    if (state.open[t] && state.closeAt[t] <= deadline) {
+                        close(state, t, state.volume, state.amount);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 该K线所在周期的结束时间（epoch毫秒），日线为当日15:00
+     *
+     * @param timestamp K线起始时间
+     */
+    public static long closeTime(BarTimeframe timeframe, long timestamp) {
+        long localMillis = timestamp + MARKET_OFFSET_MILLIS;
+        long dayStart = Math.floorDiv(localMillis, DAY_MILLIS) * DAY_MILLIS - MARKET_OFFSET_MILLIS;
+        int minutes = timeframe.getSessionMinutes();
+        int index = timeframe == BarTimeframe.D1 ? 0
+                : sessionMinute((int) (Math.floorMod(localMillis, DAY_MILLIS) / MINUTE_MILLIS)) / minutes;
+        int lastMinute = Math.min(index * minutes + minutes, SESSION_MINUTES) - 1;
+        return dayStart + (minuteOfDay(lastMinute) + 1) * MINUTE_MILLIS;
+    }
+
+    /**
+     * 该K线是否已过周期结束时间加宽限时间，不会再有tick更新
+     */
+    public boolean isClosed(BarTimeframe timeframe, long timestamp) {
+        return closeTime(timeframe, timestamp) + closeGraceMs <= System.currentTimeMillis();
+    }
+
+    /**
+     * 正在聚合的股票数
+     */
+    public int getSymbolCount() {
+        return states.size();
+    }
+
+    public void remove(String stockCode) {
+        states.remove(stockCode);
+    }
+
+    private void apply(SymbolBars state, long epochMillis, double price, long cumulativeVolume, double cumulativeAmount) {
+        long localMillis = epochMillis + MARKET_OFFSET_MILLIS;
+        long epochDay = Math.floorDiv(localMillis, DAY_MILLIS);
+        int sessionMinute = sessionMinute((int) (Math.floorMod(localMillis, DAY_MILLIS) / MINUTE_MILLIS));
+        long dayStart = epochDay * DAY_MILLIS - MARKET_OFFSET_MILLIS;
+
+        if (epochDay > state.day) {
+            // 新交易日的第一个tick：先按前一日的累计值收盘未收盘的K线，再清零累计量，
+            // 否则收盘时的成交量会以清零后的累计值计算而为负
+            for (int t = 0; t < TIMEFRAMES.length; t++) {
+                if (state.open[t]) {
+                    close(state, t, state.volume, state.amount);
+                }
+            }
+            state.day = epochDay;
+            state.volume = 0;
+            state.amount = 0;
+        } else if (epochDay < state.day) {
+            // 前一交易日的tick
+            droppedCounter.increment();
+            return;
+        }
+        // 累计成交量只增不减，晚到的tick不会让成交量回退
+        long volumeBefore = state.volume;
+        double amountBefore = state.amount;
+        if (cumulativeVolume > state.volume) {
+            state.volume = cumulativeVolume;
+        }
+        if (cumulativeAmount > state.amount) {
+            state.amount = cumulativeAmount;
+        }
+        boolean late = epochMillis < state.lastTick;
+        if (!late) {
+            state.lastTick = epochMillis;
+        }
+
+        boolean applied = false;
+        for (int t = 0; t < TIMEFRAMES.length; t++) {
+            BarTimeframe timeframe = TIMEFRAMES[t];
+            int minutes = timeframe.getSessionMinutes();
+            int index = sessionMinute / minutes;
+            long bucket = epochDay * SESSION_MINUTES + index;
+
+            if (bucket > state.bucket[t]) {
+                if (state.open[t]) {
+                    // 上一根K线的成交量截止到本tick之前
+                    close(state, t, volumeBefore, amountBefore);
+                }
+                int firstMinute = index * minutes;
+                int lastMinute = Math.min(firstMinute + minutes, SESSION_MINUTES) - 1;
+                state.bucket[t] = bucket;
+                state.open[t] = true;
+                state.timestamp[t] = timeframe == BarTimeframe.D1 ? dayStart
+                        : dayStart + minuteOfDay(firstMinute) * MINUTE_MILLIS;
+                state.closeAt[t] = dayStart + (minuteOfDay(lastMinute) + 1) * MINUTE_MILLIS;
+                state.volumeBase[t] = volumeBefore;
+                state.amountBase[t] = amountBefore;
+                state.o[t] = price;
+                state.h[t] = price;
+                state.l[t] = price;
+                state.c[t] = price;
+                state.buffers[t].append(state.timestamp[t], price, price, price, price,
+                        state.volume - volumeBefore, amountOf(state, t));
+            } else if (bucket == state.bucket[t] && state.open[t]) {
+                state.h[t] = Math.max(state.h[t], price);
+                state.l[t] = Math.min(state.l[t], price);
+                if (!late) {
+                    state.c[t] = price;
+                }
+                state.buffers[t].updateLast(state.h[t], state.l[t], state.c[t],
+                        state.volume - state.volumeBase[t], amountOf(state, t));
+            } else {
+                // 所属K线已收盘
+                continue;
+            }
+            applied = true;
+            for (BarListener listener : listenerArray) {
+                try {
+                    listener.onBarUpdate(state.stockCode, timeframe, state.timestamp[t], state.o[t], state.h[t],
+                            state.l[t], state.c[t], state.volume - state.volumeBase[t], amountOf(state, t));
+                } catch (Exception e) {
+                    log.error("K线更新回调失败: {} {}", state.stockCode, timeframe.getCode(), e);
+                }
+            }
+        }
+        if (!applied) {
+            droppedCounter.increment();
+        } else if (late) {
+            lateCounter.increment();
+        } else {
+            appliedCounter.increment();
+        }
+    }
+
+    private void close(SymbolBars state, int t, long cumulativeVolume, double cumulativeAmount) {
+        state.open[t] = false;
+        closedCounters[t].increment();
+        long volume = cumulativeVolume - state.volumeBase[t];
+        double amount = cumulativeAmount - state.amountBase[t];
+        for (BarListener listener : listenerArray) {
+            try {
+                listener.onBarClose(state.stockCode, TIMEFRAMES[t], state.timestamp[t],
+                        state.o[t], state.h[t], state.l[t], state.c[t], volume, amount);
+            } catch (Exception e) {
+                log.error("K线收盘回调失败: {} {}", state.stockCode, TIMEFRAMES[t].getCode(), e);
+            }
+        }
+    }
+
+    private static double amountOf(SymbolBars state, int t) {
+        return state.amount - state.amountBase[t];
+    }
+
+    /**
+     * 当日分钟数换算为交易分钟序号（0~239）
+     */
+    static int sessionMinute(int minuteOfDay) {
+        if (minuteOfDay < MORNING_OPEN) {
+            return 0;
+        }
+        if (minuteOfDay < MORNING_CLOSE) {
+            return minuteOfDay - MORNING_OPEN;
+        }
+        if (minuteOfDay < AFTERNOON_OPEN) {
+            return MORNING_MINUTES - 1;
+        }
+        if (minuteOfDay < AFTERNOON_CLOSE) {
+            return MORNING_MINUTES + minuteOfDay - AFTERNOON_OPEN;
+        }
+        return SESSION_MINUTES - 1;
+    }
+
+    /**
+     * 交易分钟序号换算为当日分钟数
+     */
+    static int minuteOfDay(int sessionMinute) {
+        return sessionMinute < MORNING_MINUTES ? MORNING_OPEN + sessionMinute
+                : AFTERNOON_OPEN + sessionMinute - MORNING_MINUTES;
+    }
+
+    private SymbolBars newState(String stockCode) {
+        SymbolBars state = new SymbolBars(stockCode);
+        for (int t = 0; t < TIMEFRAMES.length; t++) {
+            state.buffers[t] = barStore.getOrCreate(stockCode, TIMEFRAMES[t]);
+        }
+        seed(state);
+        return state;
+    }
+
+    /**
+     * 从BarStore中各周期最新一根K线恢复聚合状态，当日累计成交量取自日线
+     */
+    private void seed(SymbolBars state) {
+        LastBar daily = LastBar.of(state.buffers[BarTimeframe.D1.ordinal()]);
+        if (daily == null) {
+            return;
+        }
+        state.day = Math.floorDiv(daily.timestamp + MARKET_OFFSET_MILLIS, DAY_MILLIS);
+        state.volume = daily.volume;
+        state.amount = daily.amount;
+        long now = System.currentTimeMillis();
+        for (int t = 0; t < TIMEFRAMES.length; t++) {
+            LastBar bar = t == BarTimeframe.D1.ordinal() ? daily : LastBar.of(state.buffers[t]);
+            long localMillis = bar == null ? 0 : bar.timestamp + MARKET_OFFSET_MILLIS;
+            if (bar == null || Math.floorDiv(localMillis, DAY_MILLIS) != state.day) {
+                continue;
+            }
+            BarTimeframe timeframe = TIMEFRAMES[t];
+            int index = timeframe == BarTimeframe.D1 ? 0
+                    : sessionMinute((int) (Math.floorMod(localMillis, DAY_MILLIS) / MINUTE_MILLIS)) / timeframe.getSessionMinutes();
+            state.bucket[t] = state.day * SESSION_MINUTES + index;
+            state.timestamp[t] = bar.timestamp;
+            state.closeAt[t] = closeTime(timeframe, bar.timestamp);
+            state.open[t] = state.closeAt[t] + closeGraceMs > now;
+            state.volumeBase[t] = state.volume - bar.volume;
+            state.amountBase[t] = state.amount - bar.amount;
+            state.o[t] = bar.open;
+            state.h[t] = bar.high;
+            state.l[t] = bar.low;
+            state.c[t] = bar.close;
+        }
+    }
+
+    /**
+     * 缓冲区中最新一根K线
+     */
+    private static final class LastBar {
+
+        private long timestamp;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private long volume;
+        private double amount;
+
+        private static LastBar of(BarRingBuffer buffer) {
+            return buffer.read(view -> {
+                if (view.isEmpty()) {
+                    return null;
+                }
+                int i = view.size() - 1;
+                LastBar bar = new LastBar();
+                bar.timestamp = view.getTimestamp(i);
+                bar.open = view.getOpen(i);
+                bar.high = view.getHigh(i);
+                bar.low = view.getLow(i);
+                bar.close = view.getClose(i);
+                bar.volume = view.getVolume(i);
+                bar.amount = view.getAmount(i);
+                return bar;
+            });
+        }
+    }
+
+    /**
+     * 单只股票各周期的聚合状态，数组下标为BarTimeframe.ordinal()
+     */
+    private static final class SymbolBars {
+
+        private final String stockCode;
+
+        private final BarRingBuffer[] buffers = new BarRingBuffer[TIMEFRAMES.length];
+
+        private final long[] bucket = new long[TIMEFRAMES.length];
+        private final boolean[] open = new boolean[TIMEFRAMES.length];
+        private final long[] timestamp = new long[TIMEFRAMES.length];
+        private final long[] closeAt = new long[TIMEFRAMES.length];
+        private final long[] volumeBase = new long[TIMEFRAMES.length];
+        private final double[] amountBase = new double[TIMEFRAMES.length];
+        private final double[] o = new double[TIMEFRAMES.length];
+        private final double[] h = new double[TIMEFRAMES.length];
+        private final double[] l = new double[TIMEFRAMES.length];
+        private final double[] c = new double[TIMEFRAMES.length];
+
+        private long day = NONE;
+        private long lastTick = NONE;
+
+        /**
+         * 当日累计成交量和成交额
+         */
+        private long volume;
+        private double amount;
+
+        private SymbolBars(String stockCode) {
+            this.stockCode = stockCode;
+            Arrays.fill(bucket, NONE);
+        }
+    }
+}
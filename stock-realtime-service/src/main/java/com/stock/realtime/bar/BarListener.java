@@ -0,0 +1,21 @@
+package com.stock.realtime.bar;
+
+/**
+ * K线事件监听
+ * 由BarAggregator在持有该股票状态锁时回调，参数均为原始类型，回调不应阻塞
+ */
+public interface BarListener {
+
+    /**
+     * 形成中的K线随tick更新，每个tick每个周期回调一次
+     */
+    default void onBarUpdate(String stockCode, BarTimeframe timeframe, long timestamp,
+                             double open, double high, double low, double close, long volume, double amount) {
+    }
+
+    /**
+     * K线收盘
+     */
+    void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                    double open, double high, double low, double close, long volume, double amount);
+}
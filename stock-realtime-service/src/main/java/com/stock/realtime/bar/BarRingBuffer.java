@@ -0,0 +1,259 @@
+package com.stock.realtime.bar;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * 单只股票单一周期的K线环形缓冲区
+ * 只保留最近capacity根K线，写满后覆盖最旧的一根；各列以原始类型存储，子类决定堆内或堆外
+ *
+ * 写入（append/updateLast）持有写锁；读取通过read()进行乐观读，
+ * 读取期间发生写入（或在撕裂的视图上抛出异常）时自动退化为读锁重读，保证返回值来自一致的视图；
+ * 会写入共享状态的读取使用readLocked()，只在读锁内执行一次
+ */
+public abstract class BarRingBuffer implements BarView {
+
+    /**
+     * 每根K线占用字节数：时间戳、成交量各8字节，OHLC和成交额各8字节
+     */
+    public static final int BYTES_PER_BAR = 7 * 8;
+
+    protected final int capacity;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * 最旧一根K线的物理下标
+     */
+    private int head;
+
+    private int size;
+
+    private long sequence;
+
+    private long closeVersion;
+
+    private long priceVersion;
+
+    /**
+     * 每次写入（追加或更新最新一根）加一，快照据此判断缓冲区自上次写出后是否变化
+     */
+    private long writeVersion;
+
+    protected BarRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 追加一根新K线
+     */
+    public void append(long timestamp, double open, double high, double low, double close,
+                       long volume, double amount) {
+        long stamp = lock.writeLock();
+        try {
+            int slot;
+            if (size < capacity) {
+                slot = (head + size) % capacity;
+                size++;
+            } else {
+                slot = head;
+                head = (head + 1) % capacity;
+            }
+            putTimestamp(slot, timestamp);
+            putOpen(slot, open);
+            putHigh(slot, high);
+            putLow(slot, low);
+            putClose(slot, close);
+            putVolume(slot, volume);
+            putAmount(slot, amount);
+            sequence++;
+            closeVersion++;
+            priceVersion++;
+            writeVersion++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 原地更新最新一根K线（形成中的K线），开盘价和时间戳不变
+     *
+     * @return 缓冲区为空时返回false
+     */
+    public boolean updateLast(double high, double low, double close, long volume, double amount) {
+        long stamp = lock.writeLock();
+        try {
+            if (size == 0) {
+                return false;
+            }
+            int slot = (head + size - 1) % capacity;
+            if (closeAt(slot) != close) {
+                closeVersion++;
+                priceVersion++;
+            } else if (highAt(slot) != high || lowAt(slot) != low) {
+                priceVersion++;
+            }
+            putHigh(slot, high);
+            putLow(slot, low);
+            putClose(slot, close);
+            putVolume(slot, volume);
+            putAmount(slot, amount);
+            writeVersion++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 在一致的视图上执行读取逻辑
+     * reader先在乐观读中执行，可能看到撕裂的视图并被执行多次，除返回值外不应有外部可见的副作用；
+     * 乐观读期间抛出的运行时异常视为视图撕裂，在读锁内重读，读锁内的异常照常抛出
+     */
+    public <R> R read(Function<BarView, R> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                R result = reader.apply(this);
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return readLocked(reader);
+    }
+
+    /**
+     * 在读锁内执行一次读取逻辑，适用于有副作用的读取（如预热共享的指标状态）
+     * 持锁期间写入被阻塞，reader应尽快返回
+     */
+    public <R> R readLocked(Function<BarView, R> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.apply(this);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 最新一根K线的时间戳，缓冲区为空时返回-1
+     */
+    public long lastTimestamp() {
+        return read(view -> view.isEmpty() ? -1L : view.getTimestamp(view.size() - 1));
+    }
+
+    /**
+     * 写入次数，任何追加或更新都会改变该值
+     */
+    public long writeVersion() {
+        return read(view -> writeVersion);
+    }
+
+    /**
+     * 占用的列存储字节数
+     */
+    public long getMemoryBytes() {
+        return (long) capacity * BYTES_PER_BAR;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public long getCloseVersion() {
+        return closeVersion;
+    }
+
+    @Override
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    @Override
+    public long getTimestamp(int index) {
+        return timestampAt(physical(index));
+    }
+
+    @Override
+    public double getOpen(int index) {
+        return openAt(physical(index));
+    }
+
+    @Override
+    public double getHigh(int index) {
+        return highAt(physical(index));
+    }
+
+    @Override
+    public double getLow(int index) {
+        return lowAt(physical(index));
+    }
+
+    @Override
+    public double getClose(int index) {
+        return closeAt(physical(index));
+    }
+
+    @Override
+    public long getVolume(int index) {
+        return volumeAt(physical(index));
+    }
+
+    @Override
+    public double getAmount(int index) {
+        return amountAt(physical(index));
+    }
+
+    private int physical(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    protected abstract long timestampAt(int slot);
+
+    protected abstract double openAt(int slot);
+
+    protected abstract double highAt(int slot);
+
+    protected abstract double lowAt(int slot);
+
+    protected abstract double closeAt(int slot);
+
+    protected abstract long volumeAt(int slot);
+
+    protected abstract double amountAt(int slot);
+
+    protected abstract void putTimestamp(int slot, long value);
+
+    protected abstract void putOpen(int slot, double value);
+
+    protected abstract void putHigh(int slot, double value);
+
+    protected abstract void putLow(int slot, double value);
+
+    protected abstract void putClose(int slot, double value);
+
+    protected abstract void putVolume(int slot, long value);
+
+    protected abstract void putAmount(int slot, double value);
+}
@@ -0,0 +1,155 @@
+package com.stock.realtime.bar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.num.DecimalNum;
+import org.ta4j.core.num.Num;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * K线存储
+ * 按股票代码和周期保存最近N根OHLCV，每只股票每个周期一个原始类型环形缓冲区。
+ * 一根K线固定占56字节，而ta4j BaseBar含ZonedDateTime、Duration和多个DecimalNum对象，
+ * 全市场5000只股票的日线加分钟线常驻时可减少一个数量级的堆占用和GC压力
+ */
+@Slf4j
+@Component
+public class BarStore {
+
+    public static final ZoneId MARKET_ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Value("${realtime.bar-store.intraday-capacity:1200}")
+    private int intradayCapacity;
+
+    @Value("${realtime.bar-store.daily-capacity:500}")
+    private int dailyCapacity;
+
+    @Value("${realtime.bar-store.off-heap:false}")
+    private boolean offHeap;
+
+    private final Map<BarTimeframe, ConcurrentHashMap<String, BarRingBuffer>> buffers =
+            new EnumMap<>(BarTimeframe.class);
+
+    @PostConstruct
+    public void init() {
+        for (BarTimeframe timeframe : BarTimeframe.values()) {
+            buffers.put(timeframe, new ConcurrentHashMap<>());
+        }
+        log.info("K线存储初始化完成: 日内容量={}, 日线容量={}, 堆外={}", intradayCapacity, dailyCapacity, offHeap);
+    }
+
+    /**
+     * 获取K线缓冲区，不存在时创建
+     */
+    public BarRingBuffer getOrCreate(String stockCode, BarTimeframe timeframe) {
+        return buffers.get(timeframe).computeIfAbsent(stockCode, k -> newBuffer(timeframe));
+    }
+
+    /**
+     * 获取K线缓冲区，不存在时返回null
+     */
+    public BarRingBuffer get(String stockCode, BarTimeframe timeframe) {
+        return buffers.get(timeframe).get(stockCode);
+    }
+
+    /**
+     * 追加一根新K线
+     */
+    public void append(String stockCode, BarTimeframe timeframe, long timestamp,
+                       double open, double high, double low, double close, long volume, double amount) {
+        getOrCreate(stockCode, timeframe).append(timestamp, open, high, low, close, volume, amount);
+    }
+
+    /**
+     * 在一致的只读视图上读取K线
+     *
+     * @return 股票在该周期没有K线时返回null
+     */
+    public <R> R read(String stockCode, BarTimeframe timeframe, Function<BarView, R> reader) {
+        BarRingBuffer buffer = get(stockCode, timeframe);
+        return buffer == null ? null : buffer.read(reader);
+    }
+
+    /**
+     * 在读锁内读取K线，reader只执行一次，用于有副作用的读取（见BarRingBuffer.readLocked）
+     *
+     * @return 股票在该周期没有K线时返回null
+     */
+    public <R> R readLocked(String stockCode, BarTimeframe timeframe, Function<BarView, R> reader) {
+        BarRingBuffer buffer = get(stockCode, timeframe);
+        return buffer == null ? null : buffer.readLocked(reader);
+    }
+
+    /**
+     * 该周期下已有K线的股票代码
+     */
+    public Set<String> symbols(BarTimeframe timeframe) {
+        return buffers.get(timeframe).keySet();
+    }
+
+    public void remove(String stockCode, BarTimeframe timeframe) {
+        buffers.get(timeframe).remove(stockCode);
+    }
+
+    /**
+     * 全部缓冲区占用的列存储字节数
+     */
+    public long getMemoryBytes() {
+        long total = 0;
+        for (ConcurrentHashMap<String, BarRingBuffer> map : buffers.values()) {
+            for (BarRingBuffer buffer : map.values()) {
+                total += buffer.getMemoryBytes();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 复制为ta4j BarSeries，供仍依赖ta4j对象模型的场景（如规则回测）使用
+     *
+     * @return 股票在该周期没有K线时返回null
+     */
+    public BarSeries toBarSeries(String stockCode, BarTimeframe timeframe) {
+        return read(stockCode, timeframe, view -> toBarSeries(stockCode, timeframe, view));
+    }
+
+    /**
+     * 将视图复制为ta4j BarSeries，应在BarRingBuffer.read()内调用
+     */
+    public static BarSeries toBarSeries(String name, BarTimeframe timeframe, BarView view) {
+        return toBarSeries(name, timeframe, view, DecimalNum.class, 0, view.size());
+    }
+
+    /**
+     * 将视图的[from, to)行复制为指定数值类型的ta4j BarSeries，应在BarRingBuffer.read()内调用
+     * 批量回测等只关心吞吐的场景使用DoubleNum，避免DecimalNum的大数运算
+     */
+    public static BarSeries toBarSeries(String name, BarTimeframe timeframe, BarView view,
+                                        Class<? extends Num> numType, int from, int to) {
+        Duration period = Duration.ofMillis(timeframe.getMillis());
+        BarSeries series = new BaseBarSeriesBuilder().withName(name).withNumTypeOf(numType).build();
+        for (int i = from; i < to; i++) {
+            Instant begin = Instant.ofEpochMilli(view.getTimestamp(i));
+            series.addBar(period, begin.plus(period).atZone(MARKET_ZONE),
+                    view.getOpen(i), view.getHigh(i), view.getLow(i), view.getClose(i), view.getVolume(i));
+        }
+        return series;
+    }
+
+    private BarRingBuffer newBuffer(BarTimeframe timeframe) {
+        int capacity = timeframe.isIntraday() ? intradayCapacity : dailyCapacity;
+        return offHeap ? new OffHeapBarRingBuffer(capacity) : new HeapBarRingBuffer(capacity);
+    }
+}
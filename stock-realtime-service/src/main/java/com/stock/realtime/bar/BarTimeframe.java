@@ -0,0 +1,60 @@
+package com.stock.realtime.bar;
+
+/**
+ * K线周期
+ */
+public enum BarTimeframe {
+
+    M1("1m", 60_000L, 1),
+    M5("5m", 5 * 60_000L, 5),
+    M15("15m", 15 * 60_000L, 15),
+    M60("60m", 60 * 60_000L, 60),
+    D1("1d", 24 * 60 * 60_000L, 240);
+
+    private final String code;
+    private final long millis;
+    private final int sessionMinutes;
+
+    BarTimeframe(String code, long millis, int sessionMinutes) {
+        this.code = code;
+        this.millis = millis;
+        this.sessionMinutes = sessionMinutes;
+    }
+
+    /**
+     * 周期代码，如1m、5m、1d
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 周期时长（毫秒），日线按自然日计
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * 一根K线包含的交易分钟数，A股每个交易日共240分钟
+     */
+    public int getSessionMinutes() {
+        return sessionMinutes;
+    }
+
+    public boolean isIntraday() {
+        return this != D1;
+    }
+
+    /**
+     * 按周期代码（1m/5m/15m/60m/1d）或枚举名解析
+     */
+    public static BarTimeframe of(String value) {
+        for (BarTimeframe timeframe : values()) {
+            if (timeframe.code.equalsIgnoreCase(value) || timeframe.name().equalsIgnoreCase(value)) {
+                return timeframe;
+            }
+        }
+        throw new IllegalArgumentException("不支持的K线周期: " + value);
+    }
+}
@@ -0,0 +1,48 @@
+package com.stock.realtime.bar;
+
+/**
+ * K线只读视图
+ * 直接读取底层列式存储，不复制数据；下标0为最旧的一根，size()-1为最新的一根
+ */
+public interface BarView {
+
+    int size();
+
+    int capacity();
+
+    /**
+     * 累计写入的K线根数（含已被覆盖的），可作为数据版本号
+     */
+    long getSequence();
+
+    /**
+     * 收盘价版本号：追加K线或最新一根的收盘价变化时递增
+     */
+    long getCloseVersion();
+
+    /**
+     * 价格版本号：追加K线或最新一根的最高、最低、收盘价任一变化时递增
+     */
+    long getPriceVersion();
+
+    /**
+     * K线起始时间（epoch毫秒）
+     */
+    long getTimestamp(int index);
+
+    double getOpen(int index);
+
+    double getHigh(int index);
+
+    double getLow(int index);
+
+    double getClose(int index);
+
+    long getVolume(int index);
+
+    double getAmount(int index);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.stock.realtime.bar;
+
+/**
+ * 堆内K线环形缓冲区，每列一个原始类型数组
+ */
+public class HeapBarRingBuffer extends BarRingBuffer {
+
+    private final long[] timestamps;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final long[] volumes;
+    private final double[] amounts;
+
+    public HeapBarRingBuffer(int capacity) {
+        super(capacity);
+        this.timestamps = new long[capacity];
+        this.opens = new double[capacity];
+        this.highs = new double[capacity];
+        this.lows = new double[capacity];
+        this.closes = new double[capacity];
+        this.volumes = new long[capacity];
+        this.amounts = new double[capacity];
+    }
+
+    @Override
+    protected long timestampAt(int slot) {
+        return timestamps[slot];
+    }
+
+    @Override
+    protected double openAt(int slot) {
+        return opens[slot];
+    }
+
+    @Override
+    protected double highAt(int slot) {
+        return highs[slot];
+    }
+
+    @Override
+    protected double lowAt(int slot) {
+        return lows[slot];
+    }
+
+    @Override
+    protected double closeAt(int slot) {
+        return closes[slot];
+    }
+
+    @Override
+    protected long volumeAt(int slot) {
+        return volumes[slot];
+    }
+
+    @Override
+    protected double amountAt(int slot) {
+        return amounts[slot];
+    }
+
+    @Override
+    protected void putTimestamp(int slot, long value) {
+        timestamps[slot] = value;
+    }
+
+    @Override
+    protected void putOpen(int slot, double value) {
+        opens[slot] = value;
+    }
+
+    @Override
+    protected void putHigh(int slot, double value) {
+        highs[slot] = value;
+    }
+
+    @Override
+    protected void putLow(int slot, double value) {
+        lows[slot] = value;
+    }
+
+    @Override
+    protected void putClose(int slot, double value) {
+        closes[slot] = value;
+    }
+
+    @Override
+    protected void putVolume(int slot, long value) {
+        volumes[slot] = value;
+    }
+
+    @Override
+    protected void putAmount(int slot, double value) {
+        amounts[slot] = value;
+    }
+}
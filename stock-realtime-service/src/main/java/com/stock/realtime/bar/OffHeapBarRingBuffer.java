@@ -0,0 +1,101 @@
+package com.stock.realtime.bar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 堆外K线环形缓冲区
+ * 所有列放在同一块DirectByteBuffer中按列连续排布，不占用Java堆，也不参与GC扫描
+ */
+public class OffHeapBarRingBuffer extends BarRingBuffer {
+
+    private final ByteBuffer buffer;
+    private final int openOffset;
+    private final int highOffset;
+    private final int lowOffset;
+    private final int closeOffset;
+    private final int volumeOffset;
+    private final int amountOffset;
+
+    public OffHeapBarRingBuffer(int capacity) {
+        super(capacity);
+        int column = capacity * 8;
+        this.buffer = ByteBuffer.allocateDirect(column * 7).order(ByteOrder.nativeOrder());
+        this.openOffset = column;
+        this.highOffset = column * 2;
+        this.lowOffset = column * 3;
+        this.closeOffset = column * 4;
+        this.volumeOffset = column * 5;
+        this.amountOffset = column * 6;
+    }
+
+    @Override
+    protected long timestampAt(int slot) {
+        return buffer.getLong(slot << 3);
+    }
+
+    @Override
+    protected double openAt(int slot) {
+        return buffer.getDouble(openOffset + (slot << 3));
+    }
+
+    @Override
+    protected double highAt(int slot) {
+        return buffer.getDouble(highOffset + (slot << 3));
+    }
+
+    @Override
+    protected double lowAt(int slot) {
+        return buffer.getDouble(lowOffset + (slot << 3));
+    }
+
+    @Override
+    protected double closeAt(int slot) {
+        return buffer.getDouble(closeOffset + (slot << 3));
+    }
+
+    @Override
+    protected long volumeAt(int slot) {
+        return buffer.getLong(volumeOffset + (slot << 3));
+    }
+
+    @Override
+    protected double amountAt(int slot) {
+        return buffer.getDouble(amountOffset + (slot << 3));
+    }
+
+    @Override
+    protected void putTimestamp(int slot, long value) {
+        buffer.putLong(slot << 3, value);
+    }
+
+    @Override
+    protected void putOpen(int slot, double value) {
+        buffer.putDouble(openOffset + (slot << 3), value);
+    }
+
+    @Override
+    protected void putHigh(int slot, double value) {
+        buffer.putDouble(highOffset + (slot << 3), value);
+    }
+
+    @Override
+    protected void putLow(int slot, double value) {
+        buffer.putDouble(lowOffset + (slot << 3), value);
+    }
+
+    @Override
+    protected void putClose(int slot, double value) {
+        buffer.putDouble(closeOffset + (slot << 3), value);
+    }
+
+    @Override
+    protected void putVolume(int slot, long value) {
+        buffer.putLong(volumeOffset + (slot << 3), value);
+    }
+
+    @Override
+    protected void putAmount(int slot, double value) {
+        buffer.putDouble(amountOffset + (slot << 3), value);
+    }
+}
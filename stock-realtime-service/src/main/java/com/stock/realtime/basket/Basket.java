@@ -0,0 +1,126 @@
+package com.stock.realtime.basket;
+
+import java.util.Arrays;
+
+/**
+ * 已注册篮子的计算状态，访问需持有该对象的锁
+ * 指数 = Σ(份数×价格) / 除数。成分股首次有行情时按权重换算份数（权重视为基期的市值占比），
+ * 并调整除数使指数不跳变；之后每个tick只按价差增量更新总市值，O(1)。
+ * 涨跌幅按同一组份数下的前收盘总市值计算，前收盘价未知的成分股以其首个价格代替
+ */
+final class Basket {
+
+    final BasketDefinition definition;
+    final String topic;
+    final String symbol;
+    final String[] codes;
+    final double[] weights;
+    final double[] shares;
+    final double[] prices;
+    final double[] preCloses;
+
+    double marketValue;
+    double preCloseValue;
+    double divisor;
+    int priced;
+    long timestamp;
+
+    /**
+     * 自上次推送后是否有变化
+     */
+    boolean dirty;
+
+    Basket(BasketDefinition definition, String topic, String symbol, String[] codes, double[] weights) {
+        this.definition = definition;
+        this.topic = topic;
+        this.symbol = symbol;
+        this.codes = codes;
+        this.weights = weights;
+        this.shares = new double[codes.length];
+        this.prices = new double[codes.length];
+        this.preCloses = new double[codes.length];
+        Arrays.fill(prices, Double.NaN);
+        Arrays.fill(preCloses, Double.NaN);
+    }
+
+    /**
+     * 更新第member个成分股的价格
+     *
+     * @param preClose 前收盘价，未知时传NaN
+     * @return 指数是否变化
+     */
+    boolean update(int member, double price, double preClose, long timestamp) {
+        double previous = prices[member];
+        boolean preCloseChanged = preClose > 0 && preClose != preCloses[member];
+        if (previous == price && !preCloseChanged) {
+            return false;
+        }
+        if (Double.isNaN(previous)) {
+            join(member, price);
+            double reference = preClose > 0 ? preClose : price;
+            preCloses[member] = reference;
+            preCloseValue += shares[member] * reference;
+        } else {
+            marketValue += shares[member] * (price - previous);
+            if (preCloseChanged) {
+                preCloseValue += shares[member] * (preClose - preCloses[member]);
+                preCloses[member] = preClose;
+            }
+        }
+        prices[member] = price;
+        this.timestamp = timestamp;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * 新成分股加入：按基期市值占比换算份数，除数按加入前后总市值同比例调整
+     */
+    private void join(int member, double price) {
+        double baseValue = definition.getBaseValue();
+        if (priced == 0) {
+            shares[member] = weights[member] / price;
+            marketValue = weights[member];
+            divisor = marketValue / baseValue;
+        } else {
+            double level = marketValue / divisor;
+            shares[member] = weights[member] / price;
+            marketValue += weights[member];
+            divisor = marketValue / level;
+        }
+        priced++;
+    }
+
+    /**
+     * 按当前价格重新求和，消除增量更新累积的浮点误差，不改变指数值
+     */
+    void resum() {
+        double value = 0;
+        double preClose = 0;
+        for (int i = 0; i < codes.length; i++) {
+            if (!Double.isNaN(prices[i])) {
+                value += shares[i] * prices[i];
+                preClose += shares[i] * preCloses[i];
+            }
+        }
+        marketValue = value;
+        preCloseValue = preClose;
+    }
+
+    double value() {
+        return priced == 0 ? definition.getBaseValue() : marketValue / divisor;
+    }
+
+    IndexTick tick() {
+        IndexTick tick = new IndexTick();
+        tick.setId(definition.getId());
+        tick.setName(definition.getName());
+        tick.setSymbol(symbol);
+        tick.setValue(value());
+        tick.setChangePercent(preCloseValue > 0 ? (marketValue / preCloseValue - 1) * 100 : 0);
+        tick.setMembers(codes.length);
+        tick.setPriced(priced);
+        tick.setTimestamp(timestamp);
+        return tick;
+    }
+}
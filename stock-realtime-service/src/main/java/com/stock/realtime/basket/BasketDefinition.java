@@ -0,0 +1,46 @@
+package com.stock.realtime.basket;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 自定义指数篮子定义，持久化到Redis
+ * 按省份、题材建篮子时成分股在注册时解析一次，解析后的权重随定义保存，集群节点和重启后不再重复查询
+ */
+@Data
+public class BasketDefinition {
+
+    private String id;
+
+    private String name;
+
+    private BasketWeighting weighting;
+
+    /**
+     * 按省份筛选成分股（MARKET_CAP、EQUAL）
+     */
+    private String province;
+
+    /**
+     * 按题材标签筛选成分股（MARKET_CAP、EQUAL）
+     */
+    private String theme;
+
+    /**
+     * 成分股代码到权重；CUSTOM时由请求给出，其余方式注册时解析填入
+     */
+    private Map<String, Double> weights;
+
+    /**
+     * 成分股代码到名称
+     */
+    private Map<String, String> names;
+
+    /**
+     * 基点，默认1000
+     */
+    private Double baseValue;
+
+    private long createdAt;
+}
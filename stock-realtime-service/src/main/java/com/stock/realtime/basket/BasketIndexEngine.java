@@ -0,0 +1,402 @@
+package com.stock.realtime.basket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.common.dto.BasketConstituent;
+import com.stock.common.feign.InvestmentFeignClient;
+import com.stock.common.result.Result;
+import com.stock.realtime.bar.BarAggregator;
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.push.SubscriptionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 自定义指数
+ * 维护股票到所属篮子的反向索引，每笔行情只更新包含该股票的篮子，每个篮子O(1)，
+ * 单笔行情的开销与其所属篮子数成正比，与篮子大小无关。
+ * 指数值按推送周期合并后推送到/topic/index/{id}，同时作为K线代码IDX.{id}的tick交给K线聚合，
+ * 与个股K线一样写入K线存储、本地归档和InfluxDB。
+ * 篮子定义保存在Redis，启动时加载；集群模式下各节点从行情总线接收全部行情并定期同步定义
+ */
+@Slf4j
+@Component
+public class BasketIndexEngine {
+
+    public static final String INDEX_TOPIC_PREFIX = "/topic/index/";
+
+    public static final String SYMBOL_PREFIX = "IDX.";
+
+    private static final String BASKETS_KEY = "stock:basket:baskets";
+
+    private static final double DEFAULT_BASE_VALUE = 1000;
+
+    private static final Pattern STOCK_CODE = Pattern.compile("[0-9A-Za-z.]{1,16}");
+
+    private static final ZoneOffset MARKET_OFFSET = ZoneOffset.ofHours(8);
+
+    private static final String PIN_OWNER = "basket";
+
+    @Autowired
+    private InvestmentFeignClient investmentFeignClient;
+
+    @Autowired
+    private BarAggregator barAggregator;
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    @Qualifier("stockPriceCache")
+    private Cache<String, Object> stockPriceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${realtime.basket.max-baskets:1000}")
+    private int maxBaskets;
+
+    @Value("${realtime.basket.max-members:5000}")
+    private int maxMembers;
+
+    private final ConcurrentHashMap<String, Basket> basketsById = new ConcurrentHashMap<>();
+
+    /**
+     * 股票代码到所属篮子的反向索引，增删篮子时整体替换
+     */
+    private volatile Map<String, Membership[]> memberships = Collections.emptyMap();
+
+    private Timer updateTimer;
+    private Counter tickCounter;
+
+    @PostConstruct
+    public void init() {
+        updateTimer = Timer.builder("realtime.basket.update")
+                .description("单笔行情更新其所属全部篮子的耗时")
+                .register(meterRegistry);
+        tickCounter = meterRegistry.counter("realtime.basket.ticks");
+        meterRegistry.gauge("realtime.basket.baskets", basketsById, Map::size);
+        try {
+            sync();
+        } catch (Exception e) {
+            log.error("加载指数篮子失败", e);
+        }
+        log.info("自定义指数启动: 篮子数={}", basketsById.size());
+    }
+
+    /**
+     * 按一笔行情更新包含该股票的篮子
+     */
+    public void onQuote(RealtimeQuote quote) {
+        if (quote.getStockCode() == null || quote.getCurrentPrice() == null) {
+            return;
+        }
+        Membership[] entries = memberships.get(quote.getStockCode());
+        if (entries == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        double price = quote.getCurrentPrice().doubleValue();
+        double preClose = decimal(quote.getPreClosePrice());
+        long timestamp = quote.getUpdateTime() == null ? System.currentTimeMillis()
+                : quote.getUpdateTime().toInstant(MARKET_OFFSET).toEpochMilli();
+        for (Membership entry : entries) {
+            if (price > 0) {
+                synchronized (entry.basket) {
+                    entry.basket.update(entry.member, price, preClose, timestamp);
+                }
+            }
+        }
+        updateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 注册篮子，返回时已用本地行情缓存中的价格初始化
+     *
+     * @throws IllegalArgumentException 定义不合法或没有成分股
+     * @throws IllegalStateException    篮子数已达上限
+     */
+    public BasketDefinition register(BasketDefinition request) {
+        if (basketsById.size() >= maxBaskets) {
+            throw new IllegalStateException("指数篮子数已达上限: " + maxBaskets);
+        }
+        BasketDefinition definition = resolve(request);
+        definition.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        definition.setCreatedAt(System.currentTimeMillis());
+        redisTemplate.opsForHash().put(BASKETS_KEY, definition.getId(), definition);
+        add(definition);
+        log.info("注册指数篮子: {} {} 成分股={}", definition.getId(), definition.getName(), definition.getWeights().size());
+        return definition;
+    }
+
+    /**
+     * 删除篮子
+     *
+     * @return 不存在时返回false
+     */
+    public boolean remove(String id) {
+        redisTemplate.opsForHash().delete(BASKETS_KEY, id);
+        return removeLocal(id);
+    }
+
+    public List<BasketDefinition> getBaskets() {
+        List<BasketDefinition> definitions = new ArrayList<>(basketsById.size());
+        for (Basket basket : basketsById.values()) {
+            definitions.add(basket.definition);
+        }
+        definitions.sort(Comparator.comparingLong(BasketDefinition::getCreatedAt));
+        return definitions;
+    }
+
+    /**
+     * 篮子当前的指数值，不存在时返回null
+     */
+    public IndexTick getIndex(String id) {
+        Basket basket = basketsById.get(id);
+        if (basket == null) {
+            return null;
+        }
+        synchronized (basket) {
+            return basket.tick();
+        }
+    }
+
+    /**
+     * 推送有变化的指数并交给K线聚合，同时按当前价格重新求和
+     */
+    @Scheduled(fixedDelayString = "${realtime.basket.push-interval-ms:200}")
+    public void publish() {
+        for (Basket basket : basketsById.values()) {
+            IndexTick tick;
+            synchronized (basket) {
+                if (!basket.dirty) {
+                    continue;
+                }
+                basket.dirty = false;
+                basket.resum();
+                tick = basket.tick();
+            }
+            tickCounter.increment();
+            barAggregator.onTick(basket.symbol, tick.getTimestamp(), tick.getValue(), -1L, Double.NaN);
+            try {
+                messagingTemplate.convertAndSend(basket.topic, tick);
+            } catch (Exception e) {
+                log.warn("推送指数失败: {}", basket.definition.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 集群模式下同步其他节点增删的篮子
+     */
+    @Scheduled(fixedDelayString = "${realtime.basket.sync-interval-ms:5000}")
+    public void scheduledSync() {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("同步指数篮子失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 校验请求并解析成分股权重
+     */
+    private BasketDefinition resolve(BasketDefinition request) {
+        if (request.getWeighting() == null) {
+            throw new IllegalArgumentException("加权方式不能为空");
+        }
+        double baseValue = request.getBaseValue() == null ? DEFAULT_BASE_VALUE : request.getBaseValue();
+        if (!(baseValue > 0)) {
+            throw new IllegalArgumentException("基点必须大于0");
+        }
+        Map<String, Double> weights = new LinkedHashMap<>();
+        Map<String, String> names = new HashMap<>();
+        if (request.getWeighting() == BasketWeighting.CUSTOM) {
+            if (request.getWeights() == null || request.getWeights().isEmpty()) {
+                throw new IllegalArgumentException("自定义权重不能为空");
+            }
+            request.getWeights().forEach((code, weight) -> {
+                if (code == null || !STOCK_CODE.matcher(code).matches()) {
+                    throw new IllegalArgumentException("股票代码格式错误: " + code);
+                }
+                if (weight == null || !(weight > 0) || Double.isInfinite(weight)) {
+                    throw new IllegalArgumentException("权重必须大于0: " + code);
+                }
+                weights.put(code, weight);
+            });
+            if (request.getNames() != null) {
+                names.putAll(request.getNames());
+            }
+        } else {
+            if (isBlank(request.getProvince()) && isBlank(request.getTheme())) {
+                throw new IllegalArgumentException("省份和题材至少指定一个");
+            }
+            Result<List<BasketConstituent>> result = investmentFeignClient.getConstituents(
+                    request.getProvince(), request.getTheme());
+            if (result == null || result.getData() == null) {
+                throw new IllegalStateException("查询成分股失败: " + (result == null ? "无响应" : result.getMessage()));
+            }
+            for (BasketConstituent constituent : result.getData()) {
+                String code = constituent.getStockCode();
+                if (code == null || !STOCK_CODE.matcher(code).matches()) {
+                    continue;
+                }
+                double weight = request.getWeighting() == BasketWeighting.EQUAL ? 1
+                        : decimal(constituent.getMarketCap());
+                if (weight > 0) {
+                    weights.put(code, weight);
+                    names.put(code, constituent.getStockName());
+                }
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("没有符合条件的成分股");
+        }
+        if (weights.size() > maxMembers) {
+            throw new IllegalArgumentException("成分股数超过上限: " + maxMembers);
+        }
+        BasketDefinition definition = new BasketDefinition();
+        definition.setWeighting(request.getWeighting());
+        definition.setProvince(request.getProvince());
+        definition.setTheme(request.getTheme());
+        definition.setName(isBlank(request.getName()) ? defaultName(request) : request.getName());
+        definition.setWeights(weights);
+        definition.setNames(names);
+        definition.setBaseValue(baseValue);
+        return definition;
+    }
+
+    private void sync() {
+        Map<Object, Object> stored = redisTemplate.opsForHash().entries(BASKETS_KEY);
+        for (Object value : stored.values()) {
+            BasketDefinition definition = (BasketDefinition) value;
+            if (!basketsById.containsKey(definition.getId())) {
+                add(definition);
+            }
+        }
+        for (String id : new ArrayList<>(basketsById.keySet())) {
+            if (!stored.containsKey(id)) {
+                removeLocal(id);
+            }
+        }
+    }
+
+    private void add(BasketDefinition definition) {
+        String[] codes = definition.getWeights().keySet().toArray(new String[0]);
+        double[] weights = new double[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            weights[i] = definition.getWeights().get(codes[i]);
+        }
+        Basket basket = new Basket(definition, INDEX_TOPIC_PREFIX + definition.getId(),
+                SYMBOL_PREFIX + definition.getId(), codes, weights);
+        // 先加入反向索引再用缓存价格初始化：之后到达的行情总会覆盖缓存中的旧价格
+        synchronized (basketsById) {
+            basketsById.put(definition.getId(), basket);
+            rebuildMemberships();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (basket) {
+            for (int i = 0; i < codes.length; i++) {
+                Object cached = stockPriceCache.getIfPresent(codes[i]);
+                if (cached instanceof RealtimeQuote && Double.isNaN(basket.prices[i])) {
+                    RealtimeQuote quote = (RealtimeQuote) cached;
+                    double price = decimal(quote.getCurrentPrice());
+                    if (price > 0) {
+                        basket.update(i, price, decimal(quote.getPreClosePrice()), now);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean removeLocal(String id) {
+        synchronized (basketsById) {
+            if (basketsById.remove(id) == null) {
+                return false;
+            }
+            rebuildMemberships();
+            return true;
+        }
+    }
+
+    /**
+     * 重建反向索引，并把全部成分股登记为需要生成行情的股票（无人订阅的成分股也要有价格），调用方持有basketsById的锁
+     */
+    private void rebuildMemberships() {
+        Map<String, List<Membership>> index = new HashMap<>();
+        for (Basket basket : basketsById.values()) {
+            for (int i = 0; i < basket.codes.length; i++) {
+                index.computeIfAbsent(basket.codes[i], k -> new ArrayList<>(1)).add(new Membership(basket, i));
+            }
+        }
+        Map<String, Membership[]> rebuilt = new HashMap<>(index.size() * 2);
+        index.forEach((code, list) -> rebuilt.put(code, list.toArray(new Membership[0])));
+        memberships = rebuilt;
+        subscriptionRegistry.pin(PIN_OWNER, rebuilt.keySet());
+    }
+
+    private static String defaultName(BasketDefinition request) {
+        StringBuilder name = new StringBuilder();
+        if (!isBlank(request.getProvince())) {
+            name.append(request.getProvince());
+        }
+        if (!isBlank(request.getTheme())) {
+            name.append(request.getTheme());
+        }
+        return name.length() == 0 ? "自定义指数" : name.append("指数").toString();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static double decimal(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+
+    private static final class Membership {
+
+        private final Basket basket;
+        private final int member;
+
+        private Membership(Basket basket, int member) {
+            this.basket = basket;
+            this.member = member;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.stock.realtime.basket;
+
+/**
+ * 篮子的加权方式
+ */
+public enum BasketWeighting {
+
+    /**
+     * 按成分股市值加权，市值取自投资信息服务
+     */
+    MARKET_CAP,
+
+    /**
+     * 等权
+     */
+    EQUAL,
+
+    /**
+     * 按请求中给出的权重
+     */
+    CUSTOM
+}
@@ -0,0 +1,35 @@
+package com.stock.realtime.basket;
+
+import lombok.Data;
+
+/**
+ * 自定义指数的一次取值，推送到/topic/index/{id}
+ */
+@Data
+public class IndexTick {
+
+    private String id;
+
+    private String name;
+
+    /**
+     * K线代码，可按该代码查询指数K线
+     */
+    private String symbol;
+
+    private double value;
+
+    /**
+     * 按成分股前收盘价计算的涨跌幅（%）
+     */
+    private double changePercent;
+
+    /**
+     * 成分股数和已有行情的成分股数
+     */
+    private int members;
+
+    private int priced;
+
+    private long timestamp;
+}
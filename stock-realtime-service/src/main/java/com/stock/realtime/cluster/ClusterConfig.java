@@ -0,0 +1,64 @@
+package com.stock.realtime.cluster;
+
+import com.stock.realtime.alert.AlertEngine;
+import com.stock.realtime.alert.AlertFiredListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 集群模式配置：订阅行情总线频道和提醒触发频道
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "realtime.cluster", name = "enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * 行情总线消息分发线程
+     * 单线程保证总线消息按到达顺序进入流水线；队列满时订阅线程等待，不丢消息也不在订阅线程上乱序执行
+     */
+    @Bean
+    public ThreadPoolTaskExecutor quoteBusExecutor(
+            @Value("${realtime.cluster.listener-queue-capacity:1024}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("quote-bus-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("行情总线分发线程已关闭");
+            }
+            try {
+                pool.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("等待行情总线分发队列时被中断", e);
+            }
+        });
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer quoteBusListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            QuoteBusListener quoteBusListener,
+            AlertFiredListener alertFiredListener,
+            ThreadPoolTaskExecutor quoteBusExecutor,
+            @Value("${realtime.cluster.channel:stock:quote:bus}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(quoteBusExecutor);
+        container.addMessageListener(quoteBusListener, new ChannelTopic(channel));
+        container.addMessageListener(alertFiredListener, new ChannelTopic(AlertEngine.ALERT_CHANNEL));
+        return container;
+    }
+}
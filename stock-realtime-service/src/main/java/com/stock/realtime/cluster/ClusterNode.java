@@ -0,0 +1,55 @@
+package com.stock.realtime.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.UUID;
+
+/**
+ * 当前节点标识，未配置时启动时随机生成；
+ * 同时记录本节点最近是否在生成行情，集群模式下只需一个节点执行的写入（如K线写入InfluxDB）据此判断
+ */
+@Slf4j
+@Component
+public class ClusterNode {
+
+    @Value("${realtime.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${realtime.cluster.producer-lease-ms:12000}")
+    private long producerLeaseMs;
+
+    private volatile long producingUntil;
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        log.info("实时服务节点ID: {}", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 本节点刚向行情总线发布了行情，在一个生成租约有效期内视为生成节点
+     */
+    public void markProducing() {
+        producingUntil = System.currentTimeMillis() + producerLeaseMs;
+    }
+
+    /**
+     * 单机模式下始终为true；集群模式下本节点在一个租约有效期内发布过行情时为true。
+     * 接管期间新旧生成节点可能同时为true，K线按序列和时间戳覆盖写入，重复写入无副作用
+     */
+    public boolean isProducing() {
+        return !clusterEnabled || System.currentTimeMillis() < producingUntil;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stock.realtime.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 本地行情缓存同步
+ * 行情经缓存阶段写入stockPriceCache，集群模式下各节点（含生成节点）都以从行情总线收到的行情更新本地缓存，
+ * 任一节点生成行情后所有节点的本地缓存随之更新，不必靠短过期时间收敛。
+ * 本地缓存是节点内状态，每个节点都要写；Redis、InfluxDB和提醒触发只由生成节点执行
+ */
+@Component
+public class PriceCacheSync {
+
+    @Autowired
+    @Qualifier("stockPriceCache")
+    private Cache<String, Object> stockPriceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter appliedCounter;
+    private Counter staleCounter;
+
+    @PostConstruct
+    public void init() {
+        appliedCounter = meterRegistry.counter("realtime.price.cache.sync", "result", "applied");
+        staleCounter = meterRegistry.counter("realtime.price.cache.sync", "result", "stale");
+    }
+
+    /**
+     * 写入一笔行情，本地已有更新时间更晚的行情时忽略
+     */
+    public void apply(RealtimeQuote quote) {
+        Object merged = stockPriceCache.asMap().merge(quote.getStockCode(), quote,
+                (current, incoming) -> isNewer((RealtimeQuote) current, (RealtimeQuote) incoming) ? current : incoming);
+        if (merged == quote) {
+            appliedCounter.increment();
+        } else {
+            staleCounter.increment();
+        }
+    }
+
+    private static boolean isNewer(RealtimeQuote current, RealtimeQuote incoming) {
+        return current.getUpdateTime() != null && incoming.getUpdateTime() != null
+                && current.getUpdateTime().isAfter(incoming.getUpdateTime());
+    }
+}
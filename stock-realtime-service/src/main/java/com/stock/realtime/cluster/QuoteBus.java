@@ -0,0 +1,65 @@
+package com.stock.realtime.cluster;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.push.QuoteBinaryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 行情总线
+ * 集群模式下生产节点把一批行情编码为一条二进制消息发布到Redis频道，
+ * 包括生产节点在内的每个节点都从频道接收（见QuoteBusListener），经本节点流水线更新状态并推送给WebSocket订阅者，
+ * 每笔行情只生成一次，订阅者连到任意节点都能收到；单机模式下不发布，行情在本节点流水线内直接推送
+ */
+@Slf4j
+@Component
+public class QuoteBus {
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${realtime.cluster.channel:stock:quote:bus}")
+    private String channel;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private byte[] channelBytes;
+    private Counter publishedCounter;
+
+    @PostConstruct
+    public void init() {
+        channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        publishedCounter = meterRegistry.counter("realtime.cluster.bus.quotes", "direction", "published");
+        log.info("行情总线模式: {}", clusterEnabled ? "集群（Redis频道 " + channel + "）" : "单机");
+    }
+
+    public boolean isClusterEnabled() {
+        return clusterEnabled;
+    }
+
+    /**
+     * 发布一批行情，整批只产生一次Redis PUBLISH；单机模式下不发布
+     */
+    public void publish(List<RealtimeQuote> quotes) {
+        if (!clusterEnabled || quotes.isEmpty()) {
+            return;
+        }
+        byte[] payload = QuoteBinaryCodec.encodeBatch(quotes);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, payload));
+        publishedCounter.increment(quotes.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.stock.realtime.cluster;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.pipeline.QuotePipeline;
+import com.stock.realtime.push.QuoteBinaryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 行情总线接收端
+ * 把其他节点（含本节点）发布到频道的行情按消息内顺序交给本节点流水线（QuotePipeline.ingestRemote），
+ * 由分区线程更新本地行情缓存、K线、提醒、排行榜、自定义指数并推送，不在监听线程上处理。
+ * 消息在单一分发线程上按到达顺序处理（见ClusterConfig），单笔行情接入失败不影响同批其他行情
+ */
+@Slf4j
+@Component
+public class QuoteBusListener implements MessageListener {
+
+    @Autowired
+    private QuotePipeline pipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter receivedCounter;
+
+    @PostConstruct
+    public void init() {
+        receivedCounter = meterRegistry.counter("realtime.cluster.bus.quotes", "direction", "received");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<RealtimeQuote> quotes;
+        try {
+            quotes = QuoteBinaryCodec.decodeBatch(message.getBody());
+        } catch (Exception e) {
+            log.error("解析行情总线消息失败", e);
+            return;
+        }
+        receivedCounter.increment(quotes.size());
+        for (RealtimeQuote quote : quotes) {
+            try {
+                pipeline.ingestRemote(quote);
+            } catch (Exception e) {
+                log.error("接入总线行情失败: {}", quote.getStockCode(), e);
+            }
+        }
+    }
+}
@@ -29,6 +29,23 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * WebSocket会话写出线程池
+     * 每个会话同一时刻最多一个写出任务，队列满时拒绝提交：被拒绝的会话本轮不写出，
+     * 待发行情帧继续在会话内按目的地合并，下一轮再写出
+     */
+    @Bean("sessionDrainExecutor")
+    public Executor sessionDrainExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("session-drain-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 技术指标计算线程池
      */
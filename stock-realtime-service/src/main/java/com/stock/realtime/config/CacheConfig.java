@@ -2,6 +2,17 @@ package com.stock.realtime.config;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stock.realtime.backtest.BacktestJob;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.indicator.IndicatorCacheEntry;
+import com.stock.realtime.indicator.IndicatorCacheKey;
+import com.stock.realtime.indicator.IndicatorGroup;
+import com.stock.realtime.kline.KlineColumns;
+import com.stock.realtime.kline.KlineQuery;
+import com.stock.realtime.kline.KlineResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -37,27 +48,89 @@ public class CacheConfig {
 
     /**
      * 股票实时价格缓存
-     * 更短的过期时间，保证数据实时性
+     * 行情写入时经PriceCacheSync更新，集群模式下各节点经行情总线同步更新，
+     * 过期时间只用于兜底（如总线断连期间漏收的行情）
      */
     @Bean
-    public Cache<String, Object> stockPriceCache() {
-        return Caffeine.newBuilder()
-                .maximumSize(5000)
-                .expireAfterWrite(5, TimeUnit.SECONDS) // 5秒过期
+    public Cache<String, Object> stockPriceCache(
+            MeterRegistry meterRegistry,
+            @Value("${realtime.price-cache.maximum-size:5000}") long maximumSize,
+            @Value("${realtime.price-cache.expire-seconds:30}") long expireSeconds) {
+        Cache<String, Object> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
                 .recordStats()
                 .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "stockPriceCache");
     }
 
     /**
      * 技术指标缓存
-     * 较长的过期时间，减少计算压力
+     * 每只股票每个周期每个分组一条，值带K线版本号，新K线到来即不再命中并被覆盖；
+     * 未配置上限时按股票数×周期数×分组数确定，全市场都被查询过也不会互相淘汰；按访问过期只用于回收不再查询的股票
      */
     @Bean
-    public Cache<String, Object> technicalIndicatorCache() {
-        return Caffeine.newBuilder()
-                .maximumSize(2000)
-                .expireAfterWrite(300, TimeUnit.SECONDS) // 5分钟过期
+    public Cache<IndicatorCacheKey, IndicatorCacheEntry> technicalIndicatorCache(
+            MeterRegistry meterRegistry,
+            @Value("${realtime.indicator-cache.maximum-size:0}") long maximumSize,
+            @Value("${realtime.indicator-cache.symbols:5000}") long symbols,
+            @Value("${realtime.indicator-cache.expire-after-access-seconds:600}") long expireSeconds) {
+        if (maximumSize <= 0) {
+            maximumSize = symbols * BarTimeframe.values().length * IndicatorGroup.values().length;
+        }
+        Cache<IndicatorCacheKey, IndicatorCacheEntry> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        // 导出命中、未命中、淘汰等统计（cache.gets、cache.evictions等）
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "technicalIndicatorCache");
+    }
+
+    /**
+     * K线查询结果缓存
+     * 键中带内存K线版本号，K线更新后不再命中；过期时间只用于回收冷门查询
+     */
+    @Bean
+    public Cache<KlineQuery, KlineResponse> klineCache(
+            MeterRegistry meterRegistry,
+            @Value("${realtime.kline.cache.maximum-size:2000}") long maximumSize,
+            @Value("${realtime.kline.cache.expire-seconds:60}") long expireSeconds) {
+        Cache<KlineQuery, KlineResponse> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
                 .recordStats()
                 .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "klineCache");
+    }
+
+    /**
+     * InfluxDB历史K线段缓存
+     * 内存K线存储之前的K线都已收盘，不会再变化
+     */
+    @Bean
+    public Cache<String, KlineColumns> klineHistoryCache(
+            MeterRegistry meterRegistry,
+            @Value("${realtime.kline.history-cache.maximum-size:500}") long maximumSize,
+            @Value("${realtime.kline.history-cache.expire-seconds:600}") long expireSeconds) {
+        Cache<String, KlineColumns> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "klineHistoryCache");
+    }
+
+    /**
+     * 回测任务，完成后按写入时间过期
+     */
+    @Bean
+    public Cache<String, BacktestJob> backtestJobCache(
+            @Value("${realtime.backtest.max-jobs:50}") long maximumSize,
+            @Value("${realtime.backtest.result-expire-minutes:60}") long expireMinutes) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .build();
     }
 }
@@ -1,10 +1,19 @@
 package com.stock.realtime.config;
 
+import com.stock.realtime.auth.JwtAuthenticator;
+import com.stock.realtime.push.BinarySubscriptionInterceptor;
+import com.stock.realtime.push.ConflatingWebSocketHandlerDecorator;
+import com.stock.realtime.push.SessionFlushScheduler;
+import com.stock.realtime.push.SubscriptionLimitInterceptor;
+import com.stock.realtime.push.UserHandshakeHandler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket配置类
@@ -14,6 +23,18 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private SessionFlushScheduler sessionFlushScheduler;
+
+    @Autowired
+    private BinarySubscriptionInterceptor binarySubscriptionInterceptor;
+
+    @Autowired
+    private SubscriptionLimitInterceptor subscriptionLimitInterceptor;
+
+    @Autowired
+    private JwtAuthenticator jwtAuthenticator;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // 启用简单消息代理，用于向客户端推送消息
@@ -29,6 +50,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // 注册STOMP端点
         registry.addEndpoint("/ws/stock")
                 .setAllowedOriginPatterns("*")
+                // 按握手请求中的JWT确定会话用户，用于/user目的地
+                .setHandshakeHandler(new UserHandshakeHandler(jwtAuthenticator))
                 .withSockJS(); // 启用SockJS支持
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // 按订阅头协商行情编码（JSON/二进制），再校验股票代码和订阅数上限
+        registration.interceptors(binarySubscriptionInterceptor, subscriptionLimitInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        // 出站帧先进入按目的地合并的会话队列，再由调度器按节奏写出
+        registry.addDecoratorFactory(handler -> new ConflatingWebSocketHandlerDecorator(handler, sessionFlushScheduler));
+    }
 }
@@ -0,0 +1,38 @@
+package com.stock.realtime.controller;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.push.QuotePublisher;
+import com.stock.realtime.push.QuoteSnapshot;
+import com.stock.realtime.service.RealtimeQuoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * STOMP行情控制器
+ */
+@Controller
+public class QuoteStompController {
+
+    @Autowired
+    private QuotePublisher quotePublisher;
+
+    @Autowired
+    private RealtimeQuoteService quoteService;
+
+    /**
+     * 增量协议的快照：订阅/app/quote/snapshot/{code}时直接回复一次，
+     * 首次订阅和发现增量帧序号不连续时使用
+     */
+    @SubscribeMapping("/quote/snapshot/{stockCode}")
+    public QuoteSnapshot snapshot(@DestinationVariable String stockCode) {
+        QuoteSnapshot snapshot = quotePublisher.getSnapshot(stockCode);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        // 尚未发布过增量：seq为0，之后的第一帧增量携带全部字段
+        RealtimeQuote quote = quoteService.getQuote(stockCode);
+        return new QuoteSnapshot(0, quote);
+    }
+}
@@ -1,7 +1,32 @@
 package com.stock.realtime.controller;
 
+import com.stock.realtime.alert.AlertEngine;
+import com.stock.realtime.alert.AlertNotification;
+import com.stock.realtime.alert.PriceAlert;
+import com.stock.realtime.auth.JwtAuthenticator;
+import com.stock.realtime.backtest.BacktestJob;
+import com.stock.realtime.backtest.BacktestRequest;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.basket.BasketDefinition;
+import com.stock.realtime.basket.BasketIndexEngine;
+import com.stock.realtime.basket.IndexTick;
 import com.stock.realtime.entity.RealtimeQuote;
 import com.stock.realtime.entity.TechnicalIndicator;
+import com.stock.realtime.indicator.BatchIndicator;
+import com.stock.realtime.indicator.BatchIndicatorResult;
+import com.stock.realtime.kline.KlineDownsampling;
+import com.stock.realtime.kline.KlineResponse;
+import com.stock.realtime.pipeline.QuotePipeline;
+import com.stock.realtime.push.SessionFlushScheduler;
+import com.stock.realtime.push.SubscriptionRegistry;
+import com.stock.realtime.rank.Leaderboard;
+import com.stock.realtime.rank.RankBoard;
+import com.stock.realtime.rank.RankSnapshot;
+import com.stock.realtime.screener.ScreenDefinition;
+import com.stock.realtime.screener.ScreenerEngine;
+import com.stock.realtime.service.BacktestService;
+import com.stock.realtime.service.BatchIndicatorService;
+import com.stock.realtime.service.KlineService;
 import com.stock.realtime.service.RealtimeQuoteService;
 import com.stock.realtime.service.TechnicalIndicatorService;
 import com.stock.common.result.Result;
@@ -9,7 +34,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 实时行情API控制器
@@ -18,12 +45,47 @@ import java.util.Map;
 @RequestMapping("/api/realtime")
 public class RealtimeController {
 
+    private static final String UNAUTHORIZED_MESSAGE = "未登录或登录已过期";
+
     @Autowired
     private RealtimeQuoteService quoteService;
 
     @Autowired
     private TechnicalIndicatorService indicatorService;
 
+    @Autowired
+    private BatchIndicatorService batchIndicatorService;
+
+    @Autowired
+    private SessionFlushScheduler sessionFlushScheduler;
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private QuotePipeline quotePipeline;
+
+    @Autowired
+    private KlineService klineService;
+
+    @Autowired
+    private BacktestService backtestService;
+
+    @Autowired
+    private ScreenerEngine screenerEngine;
+
+    @Autowired
+    private AlertEngine alertEngine;
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    @Autowired
+    private BasketIndexEngine basketIndexEngine;
+
+    @Autowired
+    private JwtAuthenticator jwtAuthenticator;
+
     /**
      * 获取实时行情
      */
@@ -59,6 +121,294 @@ public class RealtimeController {
         return Result.success(quote);
     }
 
+    /**
+     * 获取技术指标（增量引擎）
+     */
+    @GetMapping("/indicator/{stockCode}")
+    public Result<TechnicalIndicator> getIndicator(@PathVariable String stockCode) {
+        TechnicalIndicator indicator = indicatorService.getIndicators(stockCode);
+        if (indicator == null) {
+            return Result.error(404, "暂无K线数据: " + stockCode);
+        }
+        return Result.success(indicator);
+    }
+
+    /**
+     * 按K线存储中指定周期的K线全量计算技术指标（TA4J），结果按指标分组缓存
+     */
+    @GetMapping("/indicator/{stockCode}/full")
+    public CompletableFuture<Result<TechnicalIndicator>> calculateIndicator(
+            @PathVariable String stockCode,
+            @RequestParam(defaultValue = "1d") String timeframe) {
+        return indicatorService.calculateIndicators(stockCode, BarTimeframe.of(timeframe))
+                .thenApply(indicator -> indicator == null
+                        ? Result.<TechnicalIndicator>error(404, "暂无K线数据: " + stockCode + " " + timeframe)
+                        : Result.success(indicator));
+    }
+
+    /**
+     * 获取全市场某个指标的截面快照（股票代码 -> 值）
+     */
+    @GetMapping("/indicator/batch")
+    public Result<Map<String, Double>> getBatchIndicator(
+            @RequestParam(defaultValue = "1d") String timeframe,
+            @RequestParam BatchIndicator indicator) {
+        BatchIndicatorResult result = batchIndicatorService.getSnapshot(BarTimeframe.of(timeframe));
+        if (result == null) {
+            return Result.error(404, "截面指标尚未计算: " + timeframe);
+        }
+        return Result.success(result.toMap(indicator));
+    }
+
+    /**
+     * 手动触发截面指标计算
+     */
+    @PostMapping("/indicator/batch/calculate")
+    public Result<Map<String, Object>> calculateBatchIndicator(@RequestParam(defaultValue = "1d") String timeframe) {
+        BatchIndicatorResult result = batchIndicatorService.calculate(BarTimeframe.of(timeframe));
+        Map<String, Object> data = new HashMap<>();
+        data.put("symbolCount", result.getSymbolCount());
+        data.put("elapsedMicros", result.getElapsedMicros());
+        data.put("vectorized", result.isVectorized());
+        return Result.success(data);
+    }
+
+    /**
+     * 查询历史K线，按请求的点数在服务端降采样
+     *
+     * @param from         起始时间（epoch毫秒）
+     * @param to           截止时间（epoch毫秒），为空时查询到最新
+     * @param downsampling ohlc（蜡烛图）或lttb（折线图）
+     */
+    @GetMapping("/kline/{stockCode}")
+    public Result<KlineResponse> getKline(
+            @PathVariable String stockCode,
+            @RequestParam(defaultValue = "1d") String timeframe,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Integer points,
+            @RequestParam(defaultValue = "ohlc") String downsampling) {
+        try {
+            return Result.success(klineService.query(stockCode, BarTimeframe.of(timeframe), from, to, points,
+                    KlineDownsampling.of(downsampling)));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 提交回测任务，进度推送到/topic/backtest/{jobId}
+     */
+    @PostMapping("/backtest")
+    public Result<BacktestJob> submitBacktest(@RequestBody BacktestRequest request) {
+        try {
+            return Result.success(backtestService.submit(request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(429, e.getMessage());
+        }
+    }
+
+    /**
+     * 查询回测任务的进度和结果
+     */
+    @GetMapping("/backtest/{jobId}")
+    public Result<BacktestJob> getBacktest(@PathVariable String jobId) {
+        BacktestJob job = backtestService.getJob(jobId);
+        if (job == null) {
+            return Result.error(404, "回测任务不存在或已过期: " + jobId);
+        }
+        return Result.success(job);
+    }
+
+    /**
+     * 注册实时选股条件，如 RSI6 &lt; 30 AND CLOSE &gt; MA20 AND VOLUME &gt; 2x VOL_MA5，
+     * 结果变化推送到/topic/screen/{id}
+     */
+    @PostMapping("/screen")
+    public Result<ScreenDefinition> registerScreen(@RequestBody ScreenDefinition request) {
+        try {
+            return Result.success(screenerEngine.register(request.getName(), request.getExpression()));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(429, e.getMessage());
+        }
+    }
+
+    /**
+     * 已注册的选股条件
+     */
+    @GetMapping("/screen")
+    public Result<List<ScreenDefinition>> getScreens() {
+        return Result.success(screenerEngine.getScreens());
+    }
+
+    /**
+     * 当前满足选股条件的股票
+     */
+    @GetMapping("/screen/{id}")
+    public Result<List<String>> getScreenMatches(@PathVariable String id) {
+        List<String> matches = screenerEngine.getMatches(id);
+        if (matches == null) {
+            return Result.error(404, "选股条件不存在: " + id);
+        }
+        return Result.success(matches);
+    }
+
+    /**
+     * 删除选股条件
+     */
+    @DeleteMapping("/screen/{id}")
+    public Result<String> removeScreen(@PathVariable String id) {
+        if (!screenerEngine.remove(id)) {
+            return Result.error(404, "选股条件不存在: " + id);
+        }
+        return Result.success("删除成功");
+    }
+
+    /**
+     * 添加行情提醒，触发时推送到/user/queue/alert
+     */
+    @PostMapping("/alert")
+    public Result<PriceAlert> addAlert(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestBody PriceAlert request) {
+        String userId = jwtAuthenticator.authenticate(authorization);
+        if (userId == null) {
+            return Result.error(401, UNAUTHORIZED_MESSAGE);
+        }
+        try {
+            return Result.success(alertEngine.add(userId, request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(429, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前用户未触发的提醒
+     */
+    @GetMapping("/alert")
+    public Result<List<PriceAlert>> getAlerts(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        String userId = jwtAuthenticator.authenticate(authorization);
+        if (userId == null) {
+            return Result.error(401, UNAUTHORIZED_MESSAGE);
+        }
+        return Result.success(alertEngine.getAlerts(userId));
+    }
+
+    /**
+     * 删除提醒
+     */
+    @DeleteMapping("/alert/{alertId}")
+    public Result<String> removeAlert(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                      @PathVariable String alertId) {
+        String userId = jwtAuthenticator.authenticate(authorization);
+        if (userId == null) {
+            return Result.error(401, UNAUTHORIZED_MESSAGE);
+        }
+        if (!alertEngine.remove(userId, alertId)) {
+            return Result.error(404, "提醒不存在: " + alertId);
+        }
+        return Result.success("删除成功");
+    }
+
+    /**
+     * 当前用户最近的提醒触发记录
+     */
+    @GetMapping("/alert/notifications")
+    public Result<List<AlertNotification>> getAlertNotifications(
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String userId = jwtAuthenticator.authenticate(authorization);
+        if (userId == null) {
+            return Result.error(401, UNAUTHORIZED_MESSAGE);
+        }
+        return Result.success(alertEngine.getNotifications(userId));
+    }
+
+    /**
+     * 排行榜当前前limit名（gainers/losers/volume/amount/turnover），变化推送到/topic/rank/{board}
+     */
+    @GetMapping("/rank/{board}")
+    public Result<RankSnapshot> getRank(@PathVariable String board, @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(leaderboard.getBoard(RankBoard.of(board), limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 注册自定义指数篮子（按省份/题材的市值加权或等权，或自定义权重），指数推送到/topic/index/{id}
+     */
+    @PostMapping("/basket")
+    public Result<BasketDefinition> addBasket(@RequestBody BasketDefinition request) {
+        try {
+            return Result.success(basketIndexEngine.register(request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(429, e.getMessage());
+        }
+    }
+
+    /**
+     * 已注册的指数篮子
+     */
+    @GetMapping("/basket")
+    public Result<List<BasketDefinition>> getBaskets() {
+        return Result.success(basketIndexEngine.getBaskets());
+    }
+
+    /**
+     * 指数当前值，K线可按返回的symbol查询
+     */
+    @GetMapping("/basket/{id}")
+    public Result<IndexTick> getBasketIndex(@PathVariable String id) {
+        IndexTick tick = basketIndexEngine.getIndex(id);
+        if (tick == null) {
+            return Result.error(404, "指数篮子不存在: " + id);
+        }
+        return Result.success(tick);
+    }
+
+    /**
+     * 删除指数篮子
+     */
+    @DeleteMapping("/basket/{id}")
+    public Result<String> removeBasket(@PathVariable String id) {
+        if (!basketIndexEngine.remove(id)) {
+            return Result.error(404, "指数篮子不存在: " + id);
+        }
+        return Result.success("删除成功");
+    }
+
+    /**
+     * 各WebSocket会话的出站排队帧数
+     */
+    @GetMapping("/push/sessions")
+    public Result<Map<String, Integer>> getSessionQueueDepths() {
+        return Result.success(sessionFlushScheduler.getQueueDepths());
+    }
+
+    /**
+     * 本节点各股票的行情订阅数
+     */
+    @GetMapping("/push/subscriptions")
+    public Result<Map<String, Integer>> getSubscriptions() {
+        return Result.success(subscriptionRegistry.getSubscriptionCounts());
+    }
+
+    /**
+     * 行情流水线各分区的积压行情数
+     */
+    @GetMapping("/pipeline")
+    public Result<Map<String, Integer>> getPipelineQueueDepths() {
+        return Result.success(quotePipeline.getQueueDepths());
+    }
+
     /**
      * 健康检查
      */
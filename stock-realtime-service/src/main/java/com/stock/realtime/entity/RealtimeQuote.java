@@ -88,7 +88,7 @@ public class RealtimeQuote {
     private BigDecimal pb;
     
     /**
-     * 更新时间
+     * 更新时间（行情源生成该笔行情的时间，全链路延迟以此为起点）
      */
     private LocalDateTime updateTime;
     
@@ -111,4 +111,9 @@ public class RealtimeQuote {
      * 卖一量
      */
     private Long askVolume1;
-}
\ No newline at end of file
+
+    /**
+     * 行情源生成该行情的时刻（epoch毫秒），用于统计从行情源到WebSocket发送的延迟；为空时以更新时间代替
+     */
+    private Long sourceTime;
+}
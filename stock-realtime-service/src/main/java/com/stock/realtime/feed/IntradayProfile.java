@@ -0,0 +1,79 @@
+package com.stock.realtime.feed;
+
+/**
+ * A股日内成交量分布
+ * 9:30-11:30、13:00-15:00共240个交易分钟，成交量呈U型：开盘后最大并快速衰减，
+ * 午盘前后略有放大，收盘前再次放大。权重按240分钟均值归一为1
+ */
+final class IntradayProfile {
+
+    static final int SESSION_MINUTES = 240;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+
+    private static final long MARKET_OFFSET_MILLIS = 8 * 60 * MINUTE_MILLIS;
+
+    private static final int MORNING_OPEN = 9 * 60 + 30;
+
+    private static final int MORNING_CLOSE = 11 * 60 + 30;
+
+    private static final int AFTERNOON_OPEN = 13 * 60;
+
+    private static final int AFTERNOON_CLOSE = 15 * 60;
+
+    private static final double[] WEIGHTS = new double[SESSION_MINUTES];
+
+    static {
+        double sum = 0;
+        for (int m = 0; m < SESSION_MINUTES; m++) {
+            double weight = 1
+                    + 3.0 * Math.exp(-m / 15.0)
+                    + 0.4 * Math.exp(-Math.abs(m - 119) / 6.0)
+                    + 0.4 * Math.exp(-Math.abs(m - 120) / 8.0)
+                    + 1.5 * Math.exp(-(SESSION_MINUTES - 1 - m) / 12.0);
+            WEIGHTS[m] = weight;
+            sum += weight;
+        }
+        double mean = sum / SESSION_MINUTES;
+        for (int m = 0; m < SESSION_MINUTES; m++) {
+            WEIGHTS[m] /= mean;
+        }
+    }
+
+    private IntradayProfile() {
+    }
+
+    /**
+     * 交易分钟序号（0-239），不在交易时段时返回-1
+     */
+    static int tradingMinute(long epochMillis) {
+        int minuteOfDay = (int) (Math.floorMod(epochMillis + MARKET_OFFSET_MILLIS, DAY_MILLIS) / MINUTE_MILLIS);
+        if (minuteOfDay >= MORNING_OPEN && minuteOfDay < MORNING_CLOSE) {
+            return minuteOfDay - MORNING_OPEN;
+        }
+        if (minuteOfDay >= AFTERNOON_OPEN && minuteOfDay < AFTERNOON_CLOSE) {
+            return MORNING_CLOSE - MORNING_OPEN + minuteOfDay - AFTERNOON_OPEN;
+        }
+        return -1;
+    }
+
+    /**
+     * 不考虑交易时段时把一天循环映射到240个交易分钟，全天都有日内分布
+     */
+    static int cyclicMinute(long epochMillis) {
+        return (int) (Math.floorMod(epochMillis, DAY_MILLIS) / MINUTE_MILLIS) % SESSION_MINUTES;
+    }
+
+    /**
+     * 交易日序号（上海时区的epoch天数）
+     */
+    static long tradingDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + MARKET_OFFSET_MILLIS, DAY_MILLIS);
+    }
+
+    static double weight(int minute) {
+        return WEIGHTS[minute];
+    }
+}
@@ -0,0 +1,99 @@
+package com.stock.realtime.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.pipeline.QuotePipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+
+/**
+ * 消息队列行情源
+ * 消费数据服务发往stock.realtime.queue的行情，转换后接入行情流水线，行情源时间戳随行情传到WebSocket发送。
+ * 只在realtime.feed.source为mq时启动；以独占方式消费，集群模式下同一时刻只有一个节点接入，
+ * 该节点下线后由其他节点的监听容器重连接管
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "realtime.feed", name = "source", havingValue = MqQuoteFeed.SOURCE)
+public class MqQuoteFeed {
+
+    public static final String SOURCE = "mq";
+
+    public static final String QUEUE = "stock.realtime.queue";
+
+    private static final BigDecimal LOT = BigDecimal.valueOf(100);
+    private static final BigDecimal THOUSAND = BigDecimal.valueOf(1000);
+
+    @Autowired
+    private QuotePipeline pipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter ingestedCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        ingestedCounter = meterRegistry.counter("realtime.feed.ticks", "result", "ingested");
+        droppedCounter = meterRegistry.counter("realtime.feed.ticks", "result", "dropped");
+        log.info("消息队列行情源已启用: 队列={}", QUEUE);
+    }
+
+    /**
+     * 按监听方法的参数类型解析消息，不依赖数据服务写入的类型头
+     */
+    @Bean
+    public MessageConverter mqQuoteMessageConverter(ObjectMapper objectMapper) {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter(objectMapper);
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
+    }
+
+    @RabbitListener(queues = QUEUE, exclusive = "true", messageConverter = "mqQuoteMessageConverter")
+    public void onQuote(SourceQuote source) {
+        RealtimeQuote quote = convert(source);
+        if (quote != null && pipeline.ingest(quote)) {
+            ingestedCounter.increment();
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * 转换为实时行情：代码去掉交易所后缀，成交量换算为股，成交额换算为元
+     */
+    static RealtimeQuote convert(SourceQuote source) {
+        if (source.getTsCode() == null || source.getClose() == null) {
+            return null;
+        }
+        String tsCode = source.getTsCode();
+        int dot = tsCode.indexOf('.');
+        return RealtimeQuote.builder()
+                .stockCode(dot > 0 ? tsCode.substring(0, dot) : tsCode)
+                .stockName(source.getName())
+                .currentPrice(source.getClose())
+                .change(source.getChange())
+                .changePercent(source.getPctChg())
+                .openPrice(source.getOpen())
+                .highPrice(source.getHigh())
+                .lowPrice(source.getLow())
+                .preClosePrice(source.getPreClose())
+                .volume(source.getVol() == null ? null : source.getVol().multiply(LOT).longValue())
+                .amount(source.getAmount() == null ? null : source.getAmount().multiply(THOUSAND))
+                .updateTime(source.getUpdateTime())
+                .sourceTime(source.getSourceTime())
+                .build();
+    }
+}
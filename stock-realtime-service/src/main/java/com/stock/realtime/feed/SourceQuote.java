@@ -0,0 +1,42 @@
+package com.stock.realtime.feed;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 数据服务经消息队列发出的行情（与数据服务的StockQuote字段对应），按Tushare口径：成交量单位为手，成交额单位为千元
+ */
+@Data
+public class SourceQuote {
+
+    private String tsCode;
+
+    private String name;
+
+    private BigDecimal open;
+
+    private BigDecimal high;
+
+    private BigDecimal low;
+
+    private BigDecimal close;
+
+    private BigDecimal preClose;
+
+    private BigDecimal change;
+
+    private BigDecimal pctChg;
+
+    private BigDecimal vol;
+
+    private BigDecimal amount;
+
+    private LocalDateTime updateTime;
+
+    /**
+     * 数据服务收到数据源响应的时刻（epoch毫秒）
+     */
+    private Long sourceTime;
+}
@@ -0,0 +1,263 @@
+package com.stock.realtime.feed;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.pipeline.QuotePipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟行情源，用于压测
+ * 按配置的股票数生成模拟全市场，每只股票价格按几何布朗运动随机游走，成交量按日内U型分布和个股活跃度分配；
+ * 专用生成线程按配置的速率（每秒tick数）均匀产生行情，直接接入行情流水线，与真实行情走相同的下游链路。
+ * 股票按序号分给各生成线程，随机数按种子和线程序号确定，同样的配置每次生成同样的市场。
+ * 只在realtime.feed.source为synthetic时启动；集群模式下只应在一个节点启用
+ */
+@Slf4j
+@Component
+public class SyntheticMarketFeed implements SmartLifecycle {
+
+    public static final String SOURCE = "synthetic";
+
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 落后超过该时长（如GC停顿、流水线阻塞）时不再追赶，从当前时刻重新计速
+     */
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long SESSION_IDLE_MILLIS = 1000;
+
+    @Autowired
+    private QuotePipeline pipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.feed.source:mock}")
+    private String source;
+
+    @Value("${realtime.feed.synthetic.symbols:5000}")
+    private int symbolCount;
+
+    @Value("${realtime.feed.synthetic.ticks-per-second:10000}")
+    private double ticksPerSecond;
+
+    @Value("${realtime.feed.synthetic.threads:1}")
+    private int threadCount;
+
+    @Value("${realtime.feed.synthetic.seed:20240101}")
+    private long seed;
+
+    @Value("${realtime.feed.synthetic.trading-hours-only:true}")
+    private boolean tradingHoursOnly;
+
+    @Value("${realtime.feed.synthetic.time-scale:1}")
+    private double timeScale;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private Counter ingestedCounter;
+    private Counter droppedCounter;
+
+    @Override
+    public void start() {
+        if (!SOURCE.equalsIgnoreCase(source)) {
+            return;
+        }
+        if (symbolCount <= 0 || !(ticksPerSecond > 0) || threadCount <= 0 || !(timeScale > 0)) {
+            throw new IllegalStateException("模拟行情源配置错误: symbols、ticks-per-second、threads、time-scale必须大于0");
+        }
+        if (threadCount > symbolCount) {
+            // 每个生成线程至少分到一只股票，否则该线程的股票组为空
+            throw new IllegalStateException("模拟行情源配置错误: threads不能大于symbols");
+        }
+        ingestedCounter = meterRegistry.counter("realtime.feed.ticks", "result", "ingested");
+        droppedCounter = meterRegistry.counter("realtime.feed.ticks", "result", "dropped");
+        List<List<SyntheticSymbol>> groups = universe();
+        running = true;
+        for (int i = 0; i < threadCount; i++) {
+            Generator generator = new Generator(groups.get(i), new SplittableRandom(seed + 31L * (i + 1)),
+                    ticksPerSecond / threadCount);
+            Thread thread = new Thread(generator, "synthetic-feed-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        log.info("模拟行情源启动: 股票数={}, 速率={}/s, 线程={}, 仅交易时段={}, 时间倍数={}",
+                symbolCount, ticksPerSecond, threadCount, tradingHoursOnly, timeScale);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread thread : threads) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+        log.info("模拟行情源停止");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 生成模拟市场：沪市主板、深市主板、创业板按2:2:1分配，起始价、波动率、成交量按对数正态分布抽样
+     */
+    private List<List<SyntheticSymbol>> universe() {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<List<SyntheticSymbol>> groups = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            groups.add(new ArrayList<>(symbolCount / threadCount + 1));
+        }
+        int sh = 0;
+        int sz = 0;
+        int gem = 0;
+        for (int i = 0; i < symbolCount; i++) {
+            String code;
+            switch (i % 5) {
+                case 0:
+                case 2:
+                    code = String.format("%06d", 600000 + sh++);
+                    break;
+                case 4:
+                    code = String.format("%06d", 300001 + gem++);
+                    break;
+                default:
+                    code = String.format("%06d", 1 + sz++);
+            }
+            double startPrice = Math.round(clamp(Math.exp(Math.log(12) + 0.7 * SyntheticSymbol.gaussian(random)), 2, 1800) * 100) / 100.0;
+            double volatility = 0.2 + 0.4 * random.nextDouble();
+            double drift = 0.05 + 0.1 * SyntheticSymbol.gaussian(random);
+            long dailyVolume = (long) clamp(Math.exp(Math.log(2e7) + SyntheticSymbol.gaussian(random)), 1e5, 2e9);
+            long floatShares = dailyVolume * (50 + random.nextInt(150));
+            BigDecimal pe = BigDecimal.valueOf(500 + random.nextInt(6000), 2);
+            BigDecimal pb = BigDecimal.valueOf(50 + random.nextInt(950), 2);
+            groups.get(i % threadCount).add(new SyntheticSymbol(code, "模拟" + code, startPrice, drift, volatility,
+                    dailyVolume, floatShares, pe, pb));
+        }
+        return groups;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 一个生成线程：按活跃度加权随机选股，每1毫秒补齐到目标速率应产生的tick数
+     */
+    private final class Generator implements Runnable {
+
+        private final SyntheticSymbol[] symbols;
+        private final SplittableRandom random;
+        private final double rate;
+
+        /**
+         * 活跃度累积分布，按成交量的平方根加权
+         */
+        private final double[] cumulative;
+
+        /**
+         * 每只股票一个交易日的期望tick数的倒数，用于把全日成交量分摊到每笔
+         */
+        private final double[] tickShare;
+
+        private Generator(List<SyntheticSymbol> symbols, SplittableRandom random, double rate) {
+            this.symbols = symbols.toArray(new SyntheticSymbol[0]);
+            this.random = random;
+            this.rate = rate;
+            this.cumulative = new double[this.symbols.length];
+            this.tickShare = new double[this.symbols.length];
+            double[] activity = new double[this.symbols.length];
+            double total = 0;
+            for (int i = 0; i < activity.length; i++) {
+                activity[i] = Math.sqrt(this.symbols[i].dailyVolume());
+                total += activity[i];
+                cumulative[i] = total;
+            }
+            double sessionSeconds = IntradayProfile.SESSION_MINUTES * 60.0;
+            for (int i = 0; i < activity.length; i++) {
+                cumulative[i] /= total;
+                tickShare[i] = 1 / Math.max(1, rate * activity[i] / total * sessionSeconds);
+            }
+        }
+
+        @Override
+        public void run() {
+            long base = System.nanoTime();
+            long emitted = 0;
+            while (running) {
+                try {
+                    long millis = System.currentTimeMillis();
+                    int minute = tradingHoursOnly ? IntradayProfile.tradingMinute(millis)
+                            : IntradayProfile.cyclicMinute(millis);
+                    if (minute < 0) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SESSION_IDLE_MILLIS));
+                        base = System.nanoTime();
+                        emitted = 0;
+                        continue;
+                    }
+                    long now = System.nanoTime();
+                    long due = (long) ((now - base) * rate / 1e9);
+                    if (due - emitted > rate * MAX_LAG_NANOS / 1e9) {
+                        base = now;
+                        emitted = 0;
+                        due = 0;
+                    }
+                    double profile = IntradayProfile.weight(minute);
+                    int ingested = 0;
+                    int dropped = 0;
+                    for (; emitted < due && running; emitted++) {
+                        int index = pick(random.nextDouble());
+                        RealtimeQuote quote = symbols[index].next(random, millis, timeScale, profile * tickShare[index]);
+                        if (pipeline.ingest(quote)) {
+                            ingested++;
+                        } else {
+                            dropped++;
+                        }
+                    }
+                    ingestedCounter.increment(ingested);
+                    if (dropped > 0) {
+                        droppedCounter.increment(dropped);
+                    }
+                    LockSupport.parkNanos(SLICE_NANOS);
+                } catch (Exception e) {
+                    // 单次生成失败不终止线程，退避后从当前时刻重新计速
+                    log.error("模拟行情生成失败", e);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SESSION_IDLE_MILLIS));
+                    base = System.nanoTime();
+                    emitted = 0;
+                }
+            }
+        }
+
+        private int pick(double u) {
+            int index = Arrays.binarySearch(cumulative, u);
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.stock.realtime.feed;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * 单只股票的模拟状态，只由所属的生成线程访问
+ * 价格按几何布朗运动演化：S(t+dt) = S(t)·exp((μ-σ²/2)dt + σ√dt·Z)，按0.01元取整并限制在涨跌停价内。
+ * 价格以分为单位的long保存；开盘、最高、最低、前收盘等BigDecimal只在数值变化时重建，
+ * 每笔行情只为现价、买一卖一、涨跌额等变化的字段分配对象
+ */
+final class SyntheticSymbol {
+
+    private static final ZoneOffset MARKET_OFFSET = ZoneOffset.ofHours(8);
+
+    /**
+     * 一年的交易毫秒数（250个交易日×240分钟）
+     */
+    private static final double YEAR_MILLIS = 250.0 * 240 * 60_000;
+
+    private final String code;
+    private final String name;
+    private final double drift;
+    private final double volatility;
+    private final long dailyVolume;
+    private final long floatShares;
+    private final BigDecimal pe;
+    private final BigDecimal pb;
+    private final double limitRatio;
+
+    private double price;
+    private long preCloseCents;
+    private long openCents;
+    private long highCents;
+    private long lowCents;
+    private long lastCents;
+    private long limitUpCents;
+    private long limitDownCents;
+    private long volume;
+    private double amount;
+    private long lastMillis;
+    private long day = Long.MIN_VALUE;
+
+    private BigDecimal preClose;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+
+    SyntheticSymbol(String code, String name, double startPrice, double drift, double volatility,
+                    long dailyVolume, long floatShares, BigDecimal pe, BigDecimal pb) {
+        this.code = code;
+        this.name = name;
+        this.price = startPrice;
+        this.drift = drift;
+        this.volatility = volatility;
+        this.dailyVolume = dailyVolume;
+        this.floatShares = floatShares;
+        this.pe = pe;
+        this.pb = pb;
+        this.limitRatio = code.startsWith("300") || code.startsWith("688") ? 0.2 : 0.1;
+    }
+
+    long dailyVolume() {
+        return dailyVolume;
+    }
+
+    /**
+     * 生成下一笔行情
+     *
+     * @param now         行情时间（epoch毫秒）
+     * @param timeScale   模拟时间相对真实时间的倍数
+     * @param volumeShare 本笔成交量占全日成交量的比例（已含日内分布）
+     */
+    RealtimeQuote next(SplittableRandom random, long now, double timeScale, double volumeShare) {
+        long today = IntradayProfile.tradingDay(now);
+        if (today != day) {
+            rollDay(today, now);
+        }
+        double dt = Math.max(1, now - lastMillis) * timeScale / YEAR_MILLIS;
+        lastMillis = now;
+        price *= Math.exp((drift - volatility * volatility / 2) * dt + volatility * Math.sqrt(dt) * gaussian(random));
+        long cents = Math.max(limitDownCents, Math.min(limitUpCents, Math.round(price * 100)));
+        price = Math.max(cents, 1) / 100.0;
+
+        if (openCents == 0) {
+            openCents = cents;
+            highCents = cents;
+            lowCents = cents;
+            open = cents(cents);
+            high = open;
+            low = open;
+        } else if (cents > highCents) {
+            highCents = cents;
+            high = cents(cents);
+        } else if (cents < lowCents) {
+            lowCents = cents;
+            low = cents(cents);
+        }
+
+        // 成交量按全日成交量和日内分布取期望，整手成交
+        long lots = Math.max(1, Math.round(dailyVolume * volumeShare / 100 * (0.5 + random.nextDouble())));
+        volume += lots * 100;
+        amount += lots * 100 * (cents / 100.0);
+        lastCents = cents;
+
+        BigDecimal current = cents(cents);
+        long changeCents = cents - preCloseCents;
+        return RealtimeQuote.builder()
+                .stockCode(code)
+                .stockName(name)
+                .currentPrice(current)
+                .change(cents(changeCents))
+                .changePercent(BigDecimal.valueOf(changeCents * 10000 / preCloseCents, 2))
+                .openPrice(open)
+                .highPrice(high)
+                .lowPrice(low)
+                .preClosePrice(preClose)
+                .volume(volume)
+                .amount(BigDecimal.valueOf(Math.round(amount)))
+                .turnoverRate(BigDecimal.valueOf(volume * 10000 / floatShares, 2))
+                .pe(pe)
+                .pb(pb)
+                .bid1(cents(Math.max(1, cents - 1)))
+                .bidVolume1(100L * (1 + random.nextInt(200)))
+                .ask1(cents(cents + 1))
+                .askVolume1(100L * (1 + random.nextInt(200)))
+                .updateTime(LocalDateTime.ofEpochSecond(Math.floorDiv(now, 1000), (int) Math.floorMod(now, 1000) * 1_000_000,
+                        MARKET_OFFSET))
+                .sourceTime(now)
+                .build();
+    }
+
+    /**
+     * 新交易日：前收盘取上一交易日最后价格，重置开高低和累计成交
+     */
+    private void rollDay(long today, long now) {
+        long close = lastCents > 0 ? lastCents : Math.max(1, Math.round(price * 100));
+        preCloseCents = close;
+        preClose = cents(close);
+        limitUpCents = Math.round(close * (1 + limitRatio));
+        limitDownCents = Math.max(1, Math.round(close * (1 - limitRatio)));
+        openCents = 0;
+        volume = 0;
+        amount = 0;
+        lastMillis = now;
+        day = today;
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 标准正态分布（Marsaglia极坐标法，丢弃第二个值以保持无状态）
+     */
+    static double gaussian(SplittableRandom random) {
+        double u;
+        double v;
+        double s;
+        do {
+            u = random.nextDouble() * 2 - 1;
+            v = random.nextDouble() * 2 - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+}
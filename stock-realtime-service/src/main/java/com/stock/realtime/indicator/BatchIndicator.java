@@ -0,0 +1,54 @@
+package com.stock.realtime.indicator;
+
+/**
+ * 截面批量计算支持的指标
+ */
+public enum BatchIndicator {
+
+    MA5(5),
+    MA10(10),
+    MA20(20),
+    MA30(30),
+    MA60(60),
+    MA120(120),
+    MA250(250),
+    VOL_MA5(5),
+    MACD_DIF(0),
+    MACD_DEA(0),
+    MACD_HIST(0),
+    RSI6(6),
+    RSI12(12),
+    RSI24(24),
+    BOLL_UPPER(20),
+    BOLL_MIDDLE(20),
+    BOLL_LOWER(20);
+
+    private final int period;
+
+    BatchIndicator(int period) {
+        this.period = period;
+    }
+
+    /**
+     * 计算周期，MACD固定为12/26/9时为0
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    boolean isCloseAverage() {
+        return name().startsWith("MA");
+    }
+
+    boolean isMacd() {
+        return name().startsWith("MACD");
+    }
+
+    boolean isRsi() {
+        return name().startsWith("RSI");
+    }
+
+    boolean isBoll() {
+        return name().startsWith("BOLL");
+    }
+}
@@ -0,0 +1,255 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarTimeframe;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 截面批量指标计算器
+ * 对整个股票池一次性计算一组指标：矩阵按股票方向切块，由ForkJoin并行处理，
+ * 每块内由内核沿时间行递推（SIMD或标量），取代逐只股票提交@Async任务。
+ *
+ * 口径与IncrementalIndicatorEngine一致；历史超过矩阵行数的股票，EMA/RSI递推从窗口首行开始，
+ * 窗口为250行时MACD与全量计算的差异约1e-7，RSI24约0.01
+ */
+@Slf4j
+public class BatchIndicatorCalculator {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.stock.realtime.indicator.VectorCrossSectionKernel";
+    private static final int BOLL_PERIOD = 20;
+    private static final double BOLL_K = 2.0;
+
+    private final CrossSectionKernel kernel;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * @param pool         并行计算线程池
+     * @param chunkSize    每个任务处理的股票数
+     * @param vectorEnabled 是否尝试启用SIMD内核（需以vector profile构建，运行时需--add-modules jdk.incubator.vector）
+     */
+    public BatchIndicatorCalculator(ForkJoinPool pool, int chunkSize, boolean vectorEnabled) {
+        this.pool = pool;
+        this.chunkSize = Math.max(chunkSize, 64);
+        this.kernel = vectorEnabled ? loadVectorKernel() : new ScalarCrossSectionKernel();
+    }
+
+    public boolean isVectorized() {
+        return kernel.isVectorized();
+    }
+
+    /**
+     * 在矩阵最后一行上计算指定指标
+     */
+    public BatchIndicatorResult calculate(BarTimeframe timeframe, CrossSectionMatrix matrix,
+                                          Set<BatchIndicator> indicators) {
+        long start = System.nanoTime();
+        int n = matrix.getSymbolCount();
+        EnumMap<BatchIndicator, double[]> values = new EnumMap<>(BatchIndicator.class);
+        for (BatchIndicator indicator : indicators) {
+            values.put(indicator, new double[n]);
+        }
+        if (n > 0) {
+            pool.invoke(new ChunkTask(matrix, values, new Workspace(n), 0, n));
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+        return new BatchIndicatorResult(timeframe, matrix.symbols(), values,
+                System.currentTimeMillis(), elapsedMicros, kernel.isVectorized());
+    }
+
+    /**
+     * 全部分块共享的中间结果数组，各分块只访问自己的股票区间
+     */
+    private static final class Workspace {
+        final double[] sum;
+        final double[] sumSq;
+        final double[] ema12;
+        final double[] ema26;
+        final double[] dea;
+        final double[] gain;
+        final double[] loss;
+
+        Workspace(int n) {
+            sum = new double[n];
+            sumSq = new double[n];
+            ema12 = new double[n];
+            ema26 = new double[n];
+            dea = new double[n];
+            gain = new double[n];
+            loss = new double[n];
+        }
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+
+        private final CrossSectionMatrix matrix;
+        private final EnumMap<BatchIndicator, double[]> values;
+        private final Workspace ws;
+        private final int from;
+        private final int to;
+
+        ChunkTask(CrossSectionMatrix matrix, EnumMap<BatchIndicator, double[]> values, Workspace ws,
+                  int from, int to) {
+            this.matrix = matrix;
+            this.values = values;
+            this.ws = ws;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                computeChunk();
+                return;
+            }
+            // 切分点对齐到64，保证除最后一块外每块都是整条SIMD向量
+            int mid = ((from + to) >>> 1) & ~63;
+            if (mid <= from) {
+                mid = (from + to) >>> 1;
+            }
+            invokeAll(new ChunkTask(matrix, values, ws, from, mid),
+                    new ChunkTask(matrix, values, ws, mid, to));
+        }
+
+        private void computeChunk() {
+            int n = matrix.getSymbolCount();
+            int rows = matrix.getRows();
+            double[] closes = matrix.closes();
+
+            for (BatchIndicator indicator : values.keySet()) {
+                if (indicator.isCloseAverage() || indicator == BatchIndicator.VOL_MA5) {
+                    double[] source = indicator == BatchIndicator.VOL_MA5 ? matrix.volumes() : closes;
+                    average(source, indicator.getPeriod(), values.get(indicator));
+                }
+            }
+
+            if (values.containsKey(BatchIndicator.BOLL_UPPER) || values.containsKey(BatchIndicator.BOLL_MIDDLE)
+                    || values.containsKey(BatchIndicator.BOLL_LOWER)) {
+                boll(closes);
+            }
+
+            if (values.containsKey(BatchIndicator.MACD_DIF) || values.containsKey(BatchIndicator.MACD_DEA)
+                    || values.containsKey(BatchIndicator.MACD_HIST)) {
+                kernel.macd(closes, n, rows, from, to, ws.ema12, ws.ema26, ws.dea);
+                double[] dif = values.get(BatchIndicator.MACD_DIF);
+                double[] dea = values.get(BatchIndicator.MACD_DEA);
+                double[] hist = values.get(BatchIndicator.MACD_HIST);
+                for (int s = from; s < to; s++) {
+                    double d = ws.ema12[s] - ws.ema26[s];
+                    if (dif != null) {
+                        dif[s] = d;
+                    }
+                    if (dea != null) {
+                        dea[s] = ws.dea[s];
+                    }
+                    if (hist != null) {
+                        hist[s] = (d - ws.dea[s]) * 2;
+                    }
+                }
+            }
+
+            for (BatchIndicator indicator : values.keySet()) {
+                if (indicator.isRsi()) {
+                    double[] out = values.get(indicator);
+                    kernel.wilder(closes, n, rows, from, to, 1.0 / indicator.getPeriod(), ws.gain, ws.loss);
+                    for (int s = from; s < to; s++) {
+                        out[s] = rsi(ws.gain[s], ws.loss[s]);
+                    }
+                }
+            }
+
+            // 无数据的股票统一置为NaN
+            for (int s = from; s < to; s++) {
+                if (matrix.getLength(s) == 0) {
+                    for (double[] column : values.values()) {
+                        column[s] = Double.NaN;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 最近period行的均值；窗口内的填充行按首根值扣除，只对实际K线求平均（与ta4j SMA一致）
+         */
+        private void average(double[] source, int period, double[] out) {
+            int n = matrix.getSymbolCount();
+            int rows = matrix.getRows();
+            int window = Math.min(period, rows);
+            kernel.sumRows(source, n, rows - window, rows, from, to, ws.sum, false);
+            for (int s = from; s < to; s++) {
+                int length = matrix.getLength(s);
+                int real = Math.min(window, length);
+                if (real == 0) {
+                    continue;
+                }
+                double sum = ws.sum[s] - (window - real) * source[(rows - length) * n + s];
+                out[s] = sum / real;
+            }
+        }
+
+        private void boll(double[] closes) {
+            int n = matrix.getSymbolCount();
+            int rows = matrix.getRows();
+            int window = Math.min(BOLL_PERIOD, rows);
+            kernel.sumRows(closes, n, rows - window, rows, from, to, ws.sum, false);
+            kernel.sumRows(closes, n, rows - window, rows, from, to, ws.sumSq, true);
+            double[] upper = values.get(BatchIndicator.BOLL_UPPER);
+            double[] middle = values.get(BatchIndicator.BOLL_MIDDLE);
+            double[] lower = values.get(BatchIndicator.BOLL_LOWER);
+            for (int s = from; s < to; s++) {
+                int length = matrix.getLength(s);
+                int real = Math.min(window, length);
+                if (real == 0) {
+                    continue;
+                }
+                double first = closes[(rows - length) * n + s];
+                int padding = window - real;
+                double mean = (ws.sum[s] - padding * first) / real;
+                double variance = Math.max((ws.sumSq[s] - padding * first * first) / real - mean * mean, 0);
+                double width = BOLL_K * Math.sqrt(variance);
+                if (upper != null) {
+                    upper[s] = mean + width;
+                }
+                if (middle != null) {
+                    middle[s] = mean;
+                }
+                if (lower != null) {
+                    lower[s] = mean - width;
+                }
+            }
+        }
+    }
+
+    private static double rsi(double gain, double loss) {
+        if (loss == 0) {
+            return gain == 0 ? 0 : 100;
+        }
+        return 100 - 100 / (1 + gain / loss);
+    }
+
+    /**
+     * 运行时未加载jdk.incubator.vector模块时直接引用Vector API会导致NoClassDefFoundError，
+     * 默认构建也不包含SIMD内核类，因此先检查模块再反射创建内核，失败时退回标量实现
+     */
+    private static CrossSectionKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.info("未加载{}模块，截面指标使用标量内核", VECTOR_MODULE);
+            return new ScalarCrossSectionKernel();
+        }
+        try {
+            return (CrossSectionKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.info("未编译SIMD内核（构建时未启用vector profile），截面指标使用标量内核");
+            return new ScalarCrossSectionKernel();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("SIMD内核加载失败，截面指标使用标量内核: {}", e.getMessage());
+            return new ScalarCrossSectionKernel();
+        }
+    }
+}
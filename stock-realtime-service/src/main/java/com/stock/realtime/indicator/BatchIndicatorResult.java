@@ -0,0 +1,88 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarTimeframe;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次截面批量计算的结果快照（不可变）
+ * 按指标存放与股票列表等长的double数组，无数据的股票为NaN
+ */
+public class BatchIndicatorResult {
+
+    private final BarTimeframe timeframe;
+    private final String[] symbols;
+    private final Map<String, Integer> columns;
+    private final EnumMap<BatchIndicator, double[]> values;
+    private final long computedAt;
+    private final long elapsedMicros;
+    private final boolean vectorized;
+
+    BatchIndicatorResult(BarTimeframe timeframe, String[] symbols, EnumMap<BatchIndicator, double[]> values,
+                         long computedAt, long elapsedMicros, boolean vectorized) {
+        this.timeframe = timeframe;
+        this.symbols = symbols;
+        this.values = values;
+        this.computedAt = computedAt;
+        this.elapsedMicros = elapsedMicros;
+        this.vectorized = vectorized;
+        this.columns = new HashMap<>(symbols.length * 2);
+        for (int i = 0; i < symbols.length; i++) {
+            columns.put(symbols[i], i);
+        }
+    }
+
+    public BarTimeframe getTimeframe() {
+        return timeframe;
+    }
+
+    public int getSymbolCount() {
+        return symbols.length;
+    }
+
+    public Set<BatchIndicator> getIndicators() {
+        return values.keySet();
+    }
+
+    /**
+     * 获取单只股票的指标值，未计算该指标或股票不存在时返回NaN
+     */
+    public double getValue(BatchIndicator indicator, String stockCode) {
+        double[] column = values.get(indicator);
+        Integer index = columns.get(stockCode);
+        return column == null || index == null ? Double.NaN : column[index];
+    }
+
+    /**
+     * 某个指标的全市场取值（股票代码 -> 值），跳过无数据的股票
+     */
+    public Map<String, Double> toMap(BatchIndicator indicator) {
+        double[] column = values.get(indicator);
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (column == null) {
+            return result;
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            if (!Double.isNaN(column[i])) {
+                result.put(symbols[i], column[i]);
+            }
+        }
+        return result;
+    }
+
+    public long getComputedAt() {
+        return computedAt;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+}
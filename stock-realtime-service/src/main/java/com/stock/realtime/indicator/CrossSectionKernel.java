@@ -0,0 +1,31 @@
+package com.stock.realtime.indicator;
+
+/**
+ * 截面计算内核
+ * 所有方法都在时间行优先的矩阵上沿股票方向[from, to)处理，
+ * 不同分块的股票区间互不重叠，可由多个线程并行调用
+ */
+interface CrossSectionKernel {
+
+    /**
+     * out[s] = data[r * n + s]（或其平方）在[fromRow, toRow)上的和
+     */
+    void sumRows(double[] data, int n, int fromRow, int toRow, int from, int to, double[] out, boolean squared);
+
+    /**
+     * 从第0行开始递推EMA12、EMA26和DEA，结束后三个数组保存最后一行的状态
+     */
+    void macd(double[] closes, int n, int rows, int from, int to,
+              double[] ema12, double[] ema26, double[] dea);
+
+    /**
+     * 从第0行开始按Wilder平滑（alpha = 1 / period）递推平均涨幅和平均跌幅
+     */
+    void wilder(double[] closes, int n, int rows, int from, int to, double alpha,
+                double[] avgGain, double[] avgLoss);
+
+    /**
+     * 是否为SIMD实现
+     */
+    boolean isVectorized();
+}
@@ -0,0 +1,92 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarView;
+
+/**
+ * 全市场截面数据（结构数组布局）
+ * 按时间行优先存放：第r行第s只股票位于 r * symbolCount + s，
+ * 同一时刻所有股票的数据连续排列，便于沿股票方向做SIMD和分块并行。
+ * 各股票右对齐到最后一行，历史不足rows根时用首根数据向前填充，
+ * 这样EMA/RSI递推在填充段保持首值，与ta4j以首根为种子的口径一致
+ */
+public class CrossSectionMatrix {
+
+    private final String[] symbols;
+    private final int rows;
+    private final double[] closes;
+    private final double[] volumes;
+    private final int[] lengths;
+    private final long[] lastTimestamps;
+
+    public CrossSectionMatrix(String[] symbols, int rows) {
+        this.symbols = symbols;
+        this.rows = rows;
+        this.closes = new double[symbols.length * rows];
+        this.volumes = new double[symbols.length * rows];
+        this.lengths = new int[symbols.length];
+        this.lastTimestamps = new long[symbols.length];
+    }
+
+    /**
+     * 从K线视图装载第column只股票最近rows根K线，应在BarRingBuffer.read()内调用。
+     * 重复调用会完整覆盖该列，乐观读重试时结果不受影响
+     */
+    public void load(int column, BarView view) {
+        int n = symbols.length;
+        int size = view.size();
+        int length = Math.min(size, rows);
+        lengths[column] = length;
+        if (length == 0) {
+            return;
+        }
+        lastTimestamps[column] = view.getTimestamp(size - 1);
+        int firstRow = rows - length;
+        int firstIndex = size - length;
+        for (int i = 0; i < length; i++) {
+            int cell = (firstRow + i) * n + column;
+            closes[cell] = view.getClose(firstIndex + i);
+            volumes[cell] = view.getVolume(firstIndex + i);
+        }
+        double firstClose = closes[firstRow * n + column];
+        double firstVolume = volumes[firstRow * n + column];
+        for (int r = 0; r < firstRow; r++) {
+            closes[r * n + column] = firstClose;
+            volumes[r * n + column] = firstVolume;
+        }
+    }
+
+    public int getSymbolCount() {
+        return symbols.length;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public String getSymbol(int column) {
+        return symbols[column];
+    }
+
+    String[] symbols() {
+        return symbols;
+    }
+
+    /**
+     * 该股票实际参与计算的K线根数（不超过rows），为0表示无数据
+     */
+    public int getLength(int column) {
+        return lengths[column];
+    }
+
+    public long getLastTimestamp(int column) {
+        return lastTimestamps[column];
+    }
+
+    double[] closes() {
+        return closes;
+    }
+
+    double[] volumes() {
+        return volumes;
+    }
+}
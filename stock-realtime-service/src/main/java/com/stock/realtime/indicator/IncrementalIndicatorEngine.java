@@ -0,0 +1,220 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarView;
+import com.stock.realtime.entity.TechnicalIndicator;
+import org.springframework.stereotype.Component;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarSeries;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量技术指标引擎
+ * 按股票维护MA5~MA250、MACD、KDJ、RSI6/12/24、BOLL的滚动状态，
+ * 每个tick或每根新K线O(1)更新，替代每次对整段BarSeries重建ta4j指标
+ */
+@Component
+public class IncrementalIndicatorEngine {
+
+    private final ConcurrentHashMap<String, IndicatorState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 提交一根收盘K线
+     */
+    public void onBarClose(String stockCode, double high, double low, double close) {
+        IndicatorState state = states.computeIfAbsent(stockCode, k -> new IndicatorState());
+        synchronized (state) {
+            state.commit(high, low, close);
+        }
+    }
+
+    /**
+     * 更新正在形成的K线（最新tick的当根最高、最低和最新价）
+     */
+    public void onTick(String stockCode, double high, double low, double close) {
+        IndicatorState state = states.computeIfAbsent(stockCode, k -> new IndicatorState());
+        synchronized (state) {
+            state.updateForming(high, low, close);
+        }
+    }
+
+    /**
+     * 用历史K线序列预热指标状态（会覆盖已有状态）
+     */
+    public void warmUp(String stockCode, BarSeries series) {
+        IndicatorState state = new IndicatorState();
+        for (int i = series.getBeginIndex(); i <= series.getEndIndex(); i++) {
+            Bar bar = series.getBar(i);
+            state.commit(bar.getHighPrice().doubleValue(),
+                    bar.getLowPrice().doubleValue(),
+                    bar.getClosePrice().doubleValue());
+        }
+        states.put(stockCode, state);
+    }
+
+    /**
+     * 用K线存储中的视图预热指标状态（会覆盖已有状态），应在BarRingBuffer.readLocked()内调用
+     */
+    public void warmUp(String stockCode, BarView view) {
+        warmUp(stockCode, view, false);
+    }
+
+    /**
+     * 用视图预热指标状态（会覆盖已有状态），应在BarRingBuffer.readLocked()内调用
+     *
+     * @param lastForming 最新一根是否为尚未收盘的K线，是则作为形成中K线而不提交
+     */
+    public void warmUp(String stockCode, BarView view, boolean lastForming) {
+        IndicatorState state = new IndicatorState();
+        int committed = lastForming ? view.size() - 1 : view.size();
+        for (int i = 0; i < committed; i++) {
+            state.commit(view.getHigh(i), view.getLow(i), view.getClose(i));
+        }
+        if (lastForming && committed >= 0) {
+            state.updateForming(view.getHigh(committed), view.getLow(committed), view.getClose(committed));
+        }
+        states.put(stockCode, state);
+    }
+
+    /**
+     * 将当前指标值写入out
+     *
+     * @return 该股票没有任何K线数据时返回false
+     */
+    public boolean evaluate(String stockCode, IndicatorValues out) {
+        IndicatorState state = states.get(stockCode);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            if (state.isEmpty()) {
+                return false;
+            }
+            state.evaluate(out);
+            return true;
+        }
+    }
+
+    /**
+     * 获取当前指标，结构与ta4j全量计算结果一致
+     */
+    public TechnicalIndicator getIndicator(String stockCode) {
+        IndicatorValues values = new IndicatorValues();
+        if (!evaluate(stockCode, values)) {
+            return null;
+        }
+        return toTechnicalIndicator(stockCode, values);
+    }
+
+    public boolean contains(String stockCode) {
+        return states.containsKey(stockCode);
+    }
+
+    public void remove(String stockCode) {
+        states.remove(stockCode);
+    }
+
+    /**
+     * 数值快照转换为对外的TechnicalIndicator，信号判定规则与TechnicalIndicatorService一致
+     */
+    public static TechnicalIndicator toTechnicalIndicator(String stockCode, IndicatorValues v) {
+        TechnicalIndicator.MA ma = TechnicalIndicator.MA.builder()
+                .ma5(decimal(v.getMa(0)))
+                .ma10(decimal(v.getMa(1)))
+                .ma20(decimal(v.getMa(2)))
+                .ma30(decimal(v.getMa(3)))
+                .ma60(decimal(v.getMa(4)))
+                .ma120(decimal(v.getMa(5)))
+                .ma250(decimal(v.getMa(6)))
+                .build();
+
+        TechnicalIndicator.MACD macd = TechnicalIndicator.MACD.builder()
+                .dif(decimal(v.getDif()))
+                .dea(decimal(v.getDea()))
+                .macd(decimal(v.getMacd()))
+                .signal(macdSignal(v.getDif(), v.getDea()))
+                .build();
+
+        TechnicalIndicator.KDJ kdj = TechnicalIndicator.KDJ.builder()
+                .k(decimal(v.getK()))
+                .d(decimal(v.getD()))
+                .j(decimal(v.getJ()))
+                .signal(kdjSignal(v.getK()))
+                .build();
+
+        TechnicalIndicator.RSI rsi = TechnicalIndicator.RSI.builder()
+                .rsi6(decimal(v.getRsi(0)))
+                .rsi12(decimal(v.getRsi(1)))
+                .rsi24(decimal(v.getRsi(2)))
+                .signal(rsiSignal(v.getRsi(0)))
+                .build();
+
+        TechnicalIndicator.BOLL boll = TechnicalIndicator.BOLL.builder()
+                .upper(decimal(v.getBollUpper()))
+                .middle(decimal(v.getBollMiddle()))
+                .lower(decimal(v.getBollLower()))
+                .signal(bollSignal(v.getClose(), v.getBollUpper(), v.getBollLower()))
+                .build();
+
+        return TechnicalIndicator.builder()
+                .stockCode(stockCode)
+                .ma(ma)
+                .macd(macd)
+                .kdj(kdj)
+                .rsi(rsi)
+                .boll(boll)
+                .build();
+    }
+
+    /**
+     * MACD信号：金叉、死叉、持平
+     */
+    public static String macdSignal(double dif, double dea) {
+        if (dif > dea) {
+            return "金叉";
+        } else if (dif < dea) {
+            return "死叉";
+        }
+        return "持平";
+    }
+
+    /**
+     * KDJ信号（按K值）：超买、超卖、正常
+     */
+    public static String kdjSignal(double k) {
+        return overboughtSignal(k, 80, 20);
+    }
+
+    /**
+     * RSI信号（按RSI6）：超买、超卖、正常
+     */
+    public static String rsiSignal(double rsi6) {
+        return overboughtSignal(rsi6, 70, 30);
+    }
+
+    /**
+     * 布林带信号：突破上轨、跌破下轨、正常
+     */
+    public static String bollSignal(double close, double upper, double lower) {
+        if (close > upper) {
+            return "突破上轨";
+        } else if (close < lower) {
+            return "跌破下轨";
+        }
+        return "正常";
+    }
+
+    private static String overboughtSignal(double value, double upper, double lower) {
+        if (value > upper) {
+            return "超买";
+        } else if (value < lower) {
+            return "超卖";
+        }
+        return "正常";
+    }
+
+    private static BigDecimal decimal(double value) {
+        return Double.isFinite(value) ? BigDecimal.valueOf(value) : BigDecimal.ZERO;
+    }
+}
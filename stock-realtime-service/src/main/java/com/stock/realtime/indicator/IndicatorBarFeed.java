@@ -0,0 +1,35 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarTimeframe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日线事件驱动增量指标引擎：形成中的日线更新当根指标，日线收盘时提交
+ * 排在读取指标的监听器（如选股引擎）之前
+ */
+@Component
+@Order(100)
+public class IndicatorBarFeed implements BarListener {
+
+    @Autowired
+    private IncrementalIndicatorEngine indicatorEngine;
+
+    @Override
+    public void onBarUpdate(String stockCode, BarTimeframe timeframe, long timestamp,
+                            double open, double high, double low, double close, long volume, double amount) {
+        if (timeframe == BarTimeframe.D1) {
+            indicatorEngine.onTick(stockCode, high, low, close);
+        }
+    }
+
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        if (timeframe == BarTimeframe.D1) {
+            indicatorEngine.onBarClose(stockCode, high, low, close);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.stock.realtime.indicator;
+
+import lombok.Value;
+
+/**
+ * 指标缓存值，带计算时最新一根K线的时间戳和分组数据版本号
+ */
+@Value
+public class IndicatorCacheEntry {
+
+    long lastTimestamp;
+
+    long version;
+
+    Object value;
+
+    /**
+     * 是否按当前K线版本计算
+     */
+    public boolean isCurrent(long lastTimestamp, long version) {
+        return this.lastTimestamp == lastTimestamp && this.version == version;
+    }
+}
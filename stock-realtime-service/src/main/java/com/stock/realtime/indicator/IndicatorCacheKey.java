@@ -0,0 +1,19 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarTimeframe;
+import lombok.Value;
+
+/**
+ * 指标缓存键
+ * 每只股票每个周期每个分组只占一条缓存，计算时的K线版本记录在IndicatorCacheEntry中，读取时比对，
+ * K线追加或更新后旧值不再命中并被新值覆盖，缓存条目数不随K线版本增长
+ */
+@Value
+public class IndicatorCacheKey {
+
+    String stockCode;
+
+    BarTimeframe timeframe;
+
+    IndicatorGroup group;
+}
@@ -0,0 +1,30 @@
+package com.stock.realtime.indicator;
+
+import com.stock.realtime.bar.BarView;
+
+/**
+ * 指标分组，每组在指标缓存中单独成条
+ * MA、MACD、RSI、BOLL只依赖收盘价，KDJ还依赖最高最低价；
+ * 形成中K线只改变最高最低价时仅KDJ需要重算
+ */
+public enum IndicatorGroup {
+
+    MA(false),
+    MACD(false),
+    KDJ(true),
+    RSI(false),
+    BOLL(false);
+
+    private final boolean rangeDependent;
+
+    IndicatorGroup(boolean rangeDependent) {
+        this.rangeDependent = rangeDependent;
+    }
+
+    /**
+     * 该组在视图上的数据版本号
+     */
+    public long versionOf(BarView view) {
+        return rangeDependent ? view.getPriceVersion() : view.getCloseVersion();
+    }
+}
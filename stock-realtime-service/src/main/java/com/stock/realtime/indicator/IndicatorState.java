@@ -0,0 +1,288 @@
+package com.stock.realtime.indicator;
+
+import static com.stock.realtime.indicator.IndicatorValues.MA_PERIODS;
+import static com.stock.realtime.indicator.IndicatorValues.RSI_PERIODS;
+
+/**
+ * 单只股票的增量指标状态
+ *
+ * 已收盘K线折叠进滑动和、EMA、RSI平滑均值和KDJ窗口；正在形成的K线只参与临时计算，
+ * 不修改已提交状态，因此tick和收盘更新都是O(1)。
+ * 计算口径与ta4j 0.15保持一致（SMA/方差在数据不足时按已有根数计算，EMA/MMA以首根值为种子），
+ * 与ta4j（DecimalNum）全量计算结果的绝对误差不超过1e-6。
+ *
+ * 非线程安全，由调用方按股票加锁。
+ */
+class IndicatorState {
+
+    private static final int WINDOW = 250;
+    private static final int KDJ_PERIOD = 9;
+    private static final int KDJ_SMOOTH = 3;
+    private static final int BOLL_PERIOD = 20;
+    private static final int BOLL_MA_INDEX = 2;
+    private static final double BOLL_K = 2.0;
+    private static final double EMA12_ALPHA = 2.0 / (12 + 1);
+    private static final double EMA26_ALPHA = 2.0 / (26 + 1);
+    private static final double DEA_ALPHA = 2.0 / (9 + 1);
+
+    /**
+     * 每累计若干根K线重新求和一次，消除滑动加减带来的浮点漂移
+     */
+    private static final int RESUM_INTERVAL = 4096;
+
+    private final double[] closes = new double[WINDOW];
+    private final double[] highs = new double[KDJ_PERIOD];
+    private final double[] lows = new double[KDJ_PERIOD];
+    private final double[] kValues = new double[KDJ_SMOOTH];
+    private final double[] maSums = new double[MA_PERIODS.length];
+    private final double[] avgGain = new double[RSI_PERIODS.length];
+    private final double[] avgLoss = new double[RSI_PERIODS.length];
+
+    private long count;
+    private double bollSumSq;
+    private double ema12;
+    private double ema26;
+    private double dea;
+    private double prevClose;
+
+    private boolean forming;
+    private double formHigh;
+    private double formLow;
+    private double formClose;
+
+    /**
+     * 已提交（收盘）的K线数量
+     */
+    long getCount() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0 && !forming;
+    }
+
+    /**
+     * 更新正在形成的K线（tick）
+     */
+    void updateForming(double high, double low, double close) {
+        forming = true;
+        formHigh = high;
+        formLow = low;
+        formClose = close;
+    }
+
+    /**
+     * 提交一根收盘K线
+     */
+    void commit(double high, double low, double close) {
+        long i = count;
+        int slot = (int) (i % WINDOW);
+
+        // 先减去滑出窗口的值，再写入新值（周期为250时两者占用同一槽位）
+        for (int m = 0; m < MA_PERIODS.length; m++) {
+            int period = MA_PERIODS[m];
+            maSums[m] += close;
+            if (i >= period) {
+                maSums[m] -= closes[(int) ((i - period) % WINDOW)];
+            }
+        }
+        bollSumSq += close * close;
+        if (i >= BOLL_PERIOD) {
+            double out = closes[(int) ((i - BOLL_PERIOD) % WINDOW)];
+            bollSumSq -= out * out;
+        }
+
+        if (i == 0) {
+            ema12 = close;
+            ema26 = close;
+            dea = 0;
+        } else {
+            ema12 += (close - ema12) * EMA12_ALPHA;
+            ema26 += (close - ema26) * EMA26_ALPHA;
+            dea += ((ema12 - ema26) - dea) * DEA_ALPHA;
+        }
+
+        for (int r = 0; r < RSI_PERIODS.length; r++) {
+            if (i == 0) {
+                avgGain[r] = 0;
+                avgLoss[r] = 0;
+            } else {
+                double diff = close - prevClose;
+                avgGain[r] += (Math.max(diff, 0) - avgGain[r]) / RSI_PERIODS[r];
+                avgLoss[r] += (Math.max(-diff, 0) - avgLoss[r]) / RSI_PERIODS[r];
+            }
+        }
+
+        int kdjSlot = (int) (i % KDJ_PERIOD);
+        highs[kdjSlot] = high;
+        lows[kdjSlot] = low;
+        int available = (int) Math.min(KDJ_PERIOD, i + 1);
+        double highest = Double.NEGATIVE_INFINITY;
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int n = 0; n < available; n++) {
+            highest = Math.max(highest, highs[n]);
+            lowest = Math.min(lowest, lows[n]);
+        }
+        kValues[(int) (i % KDJ_SMOOTH)] = stochasticK(close, highest, lowest);
+
+        closes[slot] = close;
+        prevClose = close;
+        count = i + 1;
+        forming = false;
+
+        if (count % RESUM_INTERVAL == 0) {
+            resum();
+        }
+    }
+
+    /**
+     * 计算当前时点的指标值（有形成中的K线则以其为最后一根）
+     */
+    void evaluate(IndicatorValues out) {
+        if (forming) {
+            evaluateForming(out);
+        } else {
+            evaluateCommitted(out);
+        }
+    }
+
+    private void evaluateCommitted(IndicatorValues out) {
+        long n = count;
+        for (int m = 0; m < MA_PERIODS.length; m++) {
+            out.ma[m] = maSums[m] / Math.min(MA_PERIODS[m], n);
+        }
+        fillBoll(out, maSums[BOLL_MA_INDEX], bollSumSq, (int) Math.min(BOLL_PERIOD, n));
+
+        fillMacd(out, ema12 - ema26, dea);
+
+        for (int r = 0; r < RSI_PERIODS.length; r++) {
+            out.rsi[r] = rsi(avgGain[r], avgLoss[r]);
+        }
+
+        int smooth = (int) Math.min(KDJ_SMOOTH, n);
+        double kSum = 0;
+        for (int s = 0; s < smooth; s++) {
+            kSum += kValues[(int) ((n - 1 - s) % KDJ_SMOOTH)];
+        }
+        fillKdj(out, kValues[(int) ((n - 1) % KDJ_SMOOTH)], kSum / smooth);
+
+        out.close = prevClose;
+    }
+
+    private void evaluateForming(IndicatorValues out) {
+        long n = count;
+        double x = formClose;
+
+        for (int m = 0; m < MA_PERIODS.length; m++) {
+            int period = MA_PERIODS[m];
+            double sum = maSums[m] + x;
+            if (n >= period) {
+                sum -= closes[(int) ((n - period) % WINDOW)];
+            }
+            out.ma[m] = sum / Math.min(period, n + 1);
+        }
+        double sum20 = maSums[BOLL_MA_INDEX] + x;
+        double sumSq20 = bollSumSq + x * x;
+        if (n >= BOLL_PERIOD) {
+            double outValue = closes[(int) ((n - BOLL_PERIOD) % WINDOW)];
+            sum20 -= outValue;
+            sumSq20 -= outValue * outValue;
+        }
+        fillBoll(out, sum20, sumSq20, (int) Math.min(BOLL_PERIOD, n + 1));
+
+        if (n == 0) {
+            fillMacd(out, 0, 0);
+        } else {
+            double e12 = ema12 + (x - ema12) * EMA12_ALPHA;
+            double e26 = ema26 + (x - ema26) * EMA26_ALPHA;
+            double dif = e12 - e26;
+            fillMacd(out, dif, dea + (dif - dea) * DEA_ALPHA);
+        }
+
+        for (int r = 0; r < RSI_PERIODS.length; r++) {
+            if (n == 0) {
+                out.rsi[r] = 0;
+            } else {
+                double diff = x - prevClose;
+                double gain = avgGain[r] + (Math.max(diff, 0) - avgGain[r]) / RSI_PERIODS[r];
+                double loss = avgLoss[r] + (Math.max(-diff, 0) - avgLoss[r]) / RSI_PERIODS[r];
+                out.rsi[r] = rsi(gain, loss);
+            }
+        }
+
+        // 形成中的K线加上最近8根已收盘K线构成KDJ窗口
+        int previous = (int) Math.min(KDJ_PERIOD - 1, n);
+        double highest = formHigh;
+        double lowest = formLow;
+        for (int p = 1; p <= previous; p++) {
+            int idx = (int) ((n - p) % KDJ_PERIOD);
+            highest = Math.max(highest, highs[idx]);
+            lowest = Math.min(lowest, lows[idx]);
+        }
+        double k = stochasticK(x, highest, lowest);
+        int prevK = (int) Math.min(KDJ_SMOOTH - 1, n);
+        double kSum = k;
+        for (int p = 1; p <= prevK; p++) {
+            kSum += kValues[(int) ((n - p) % KDJ_SMOOTH)];
+        }
+        fillKdj(out, k, kSum / (prevK + 1));
+
+        out.close = x;
+    }
+
+    private void fillBoll(IndicatorValues out, double sum, double sumSq, int n) {
+        double mean = sum / n;
+        double variance = Math.max(sumSq / n - mean * mean, 0);
+        double width = BOLL_K * Math.sqrt(variance);
+        out.bollMiddle = mean;
+        out.bollUpper = mean + width;
+        out.bollLower = mean - width;
+    }
+
+    private void fillMacd(IndicatorValues out, double dif, double deaValue) {
+        out.dif = dif;
+        out.dea = deaValue;
+        out.macd = (dif - deaValue) * 2;
+    }
+
+    private void fillKdj(IndicatorValues out, double k, double d) {
+        out.k = k;
+        out.d = d;
+        out.j = k * 3 - d * 2;
+    }
+
+    /**
+     * 最高最低价相等时ta4j会得到NaN，这里取中性值50
+     */
+    private static double stochasticK(double close, double highest, double lowest) {
+        double range = highest - lowest;
+        if (range == 0) {
+            return 50;
+        }
+        return (close - lowest) / range * 100;
+    }
+
+    private static double rsi(double gain, double loss) {
+        if (loss == 0) {
+            return gain == 0 ? 0 : 100;
+        }
+        return 100 - 100 / (1 + gain / loss);
+    }
+
+    private void resum() {
+        for (int m = 0; m < MA_PERIODS.length; m++) {
+            maSums[m] = windowSum(MA_PERIODS[m], false);
+        }
+        bollSumSq = windowSum(BOLL_PERIOD, true);
+    }
+
+    private double windowSum(int period, boolean squared) {
+        int n = (int) Math.min(period, count);
+        double sum = 0;
+        for (int p = 1; p <= n; p++) {
+            double v = closes[(int) ((count - p) % WINDOW)];
+            sum += squared ? v * v : v;
+        }
+        return sum;
+    }
+}
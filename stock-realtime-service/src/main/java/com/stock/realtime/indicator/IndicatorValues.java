@@ -0,0 +1,85 @@
+package com.stock.realtime.indicator;
+
+/**
+ * 技术指标数值快照（原始double值）
+ * 可复用的可变对象，避免在热路径上为每次计算分配BigDecimal
+ */
+public class IndicatorValues {
+
+    /**
+     * 均线周期，与TechnicalIndicator.MA字段一一对应
+     */
+    public static final int[] MA_PERIODS = {5, 10, 20, 30, 60, 120, 250};
+
+    /**
+     * RSI周期，与TechnicalIndicator.RSI字段一一对应
+     */
+    public static final int[] RSI_PERIODS = {6, 12, 24};
+
+    final double[] ma = new double[MA_PERIODS.length];
+    final double[] rsi = new double[RSI_PERIODS.length];
+    double close;
+    double dif;
+    double dea;
+    double macd;
+    double k;
+    double d;
+    double j;
+    double bollUpper;
+    double bollMiddle;
+    double bollLower;
+
+    /**
+     * 按下标获取均线值，下标对应MA_PERIODS
+     */
+    public double getMa(int index) {
+        return ma[index];
+    }
+
+    /**
+     * 按下标获取RSI值，下标对应RSI_PERIODS
+     */
+    public double getRsi(int index) {
+        return rsi[index];
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public double getDif() {
+        return dif;
+    }
+
+    public double getDea() {
+        return dea;
+    }
+
+    public double getMacd() {
+        return macd;
+    }
+
+    public double getK() {
+        return k;
+    }
+
+    public double getD() {
+        return d;
+    }
+
+    public double getJ() {
+        return j;
+    }
+
+    public double getBollUpper() {
+        return bollUpper;
+    }
+
+    public double getBollMiddle() {
+        return bollMiddle;
+    }
+
+    public double getBollLower() {
+        return bollLower;
+    }
+}
@@ -0,0 +1,76 @@
+package com.stock.realtime.indicator;
+
+/**
+ * 标量内核，按行顺序扫描，内层循环沿股票方向连续访问，JIT可自动向量化部分循环
+ */
+class ScalarCrossSectionKernel implements CrossSectionKernel {
+
+    static final double EMA12_ALPHA = 2.0 / (12 + 1);
+    static final double EMA26_ALPHA = 2.0 / (26 + 1);
+    static final double DEA_ALPHA = 2.0 / (9 + 1);
+
+    @Override
+    public void sumRows(double[] data, int n, int fromRow, int toRow, int from, int to,
+                        double[] out, boolean squared) {
+        for (int s = from; s < to; s++) {
+            out[s] = 0;
+        }
+        for (int r = fromRow; r < toRow; r++) {
+            int base = r * n;
+            if (squared) {
+                for (int s = from; s < to; s++) {
+                    double v = data[base + s];
+                    out[s] += v * v;
+                }
+            } else {
+                for (int s = from; s < to; s++) {
+                    out[s] += data[base + s];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void macd(double[] closes, int n, int rows, int from, int to,
+                     double[] ema12, double[] ema26, double[] dea) {
+        for (int s = from; s < to; s++) {
+            ema12[s] = closes[s];
+            ema26[s] = closes[s];
+            dea[s] = 0;
+        }
+        for (int r = 1; r < rows; r++) {
+            int base = r * n;
+            for (int s = from; s < to; s++) {
+                double x = closes[base + s];
+                double e12 = ema12[s] + (x - ema12[s]) * EMA12_ALPHA;
+                double e26 = ema26[s] + (x - ema26[s]) * EMA26_ALPHA;
+                ema12[s] = e12;
+                ema26[s] = e26;
+                dea[s] += ((e12 - e26) - dea[s]) * DEA_ALPHA;
+            }
+        }
+    }
+
+    @Override
+    public void wilder(double[] closes, int n, int rows, int from, int to, double alpha,
+                       double[] avgGain, double[] avgLoss) {
+        for (int s = from; s < to; s++) {
+            avgGain[s] = 0;
+            avgLoss[s] = 0;
+        }
+        for (int r = 1; r < rows; r++) {
+            int base = r * n;
+            int prev = base - n;
+            for (int s = from; s < to; s++) {
+                double diff = closes[base + s] - closes[prev + s];
+                avgGain[s] += (Math.max(diff, 0) - avgGain[s]) * alpha;
+                avgLoss[s] += (Math.max(-diff, 0) - avgLoss[s]) * alpha;
+            }
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.stock.realtime.indicator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于JDK Vector API（jdk.incubator.vector）的SIMD内核
+ * 一次处理一条向量宽度的股票，沿时间行递推，尾部不足一条向量的部分交给标量内核。
+ * 该类只在以vector profile构建时编译，且只在运行时已加载jdk.incubator.vector模块时才会被反射实例化
+ */
+class VectorCrossSectionKernel implements CrossSectionKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final ScalarCrossSectionKernel tail = new ScalarCrossSectionKernel();
+
+    @Override
+    public void sumRows(double[] data, int n, int fromRow, int toRow, int from, int to,
+                        double[] out, boolean squared) {
+        int bound = from + SPECIES.loopBound(to - from);
+        for (int s = from; s < bound; s += SPECIES.length()) {
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            for (int r = fromRow; r < toRow; r++) {
+                DoubleVector v = DoubleVector.fromArray(SPECIES, data, r * n + s);
+                acc = squared ? v.fma(v, acc) : acc.add(v);
+            }
+            acc.intoArray(out, s);
+        }
+        if (bound < to) {
+            tail.sumRows(data, n, fromRow, toRow, bound, to, out, squared);
+        }
+    }
+
+    @Override
+    public void macd(double[] closes, int n, int rows, int from, int to,
+                     double[] ema12, double[] ema26, double[] dea) {
+        int bound = from + SPECIES.loopBound(to - from);
+        for (int s = from; s < bound; s += SPECIES.length()) {
+            DoubleVector e12 = DoubleVector.fromArray(SPECIES, closes, s);
+            DoubleVector e26 = e12;
+            DoubleVector d = DoubleVector.zero(SPECIES);
+            for (int r = 1; r < rows; r++) {
+                DoubleVector x = DoubleVector.fromArray(SPECIES, closes, r * n + s);
+                e12 = x.sub(e12).mul(ScalarCrossSectionKernel.EMA12_ALPHA).add(e12);
+                e26 = x.sub(e26).mul(ScalarCrossSectionKernel.EMA26_ALPHA).add(e26);
+                d = e12.sub(e26).sub(d).mul(ScalarCrossSectionKernel.DEA_ALPHA).add(d);
+            }
+            e12.intoArray(ema12, s);
+            e26.intoArray(ema26, s);
+            d.intoArray(dea, s);
+        }
+        if (bound < to) {
+            tail.macd(closes, n, rows, bound, to, ema12, ema26, dea);
+        }
+    }
+
+    @Override
+    public void wilder(double[] closes, int n, int rows, int from, int to, double alpha,
+                       double[] avgGain, double[] avgLoss) {
+        int bound = from + SPECIES.loopBound(to - from);
+        for (int s = from; s < bound; s += SPECIES.length()) {
+            DoubleVector prev = DoubleVector.fromArray(SPECIES, closes, s);
+            DoubleVector gain = DoubleVector.zero(SPECIES);
+            DoubleVector loss = DoubleVector.zero(SPECIES);
+            for (int r = 1; r < rows; r++) {
+                DoubleVector x = DoubleVector.fromArray(SPECIES, closes, r * n + s);
+                DoubleVector diff = x.sub(prev);
+                gain = diff.max(0).sub(gain).mul(alpha).add(gain);
+                loss = diff.neg().max(0).sub(loss).mul(alpha).add(loss);
+                prev = x;
+            }
+            gain.intoArray(avgGain, s);
+            loss.intoArray(avgLoss, s);
+        }
+        if (bound < to) {
+            tail.wilder(closes, n, rows, bound, to, alpha, avgGain, avgLoss);
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+}
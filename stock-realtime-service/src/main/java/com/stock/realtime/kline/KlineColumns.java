@@ -0,0 +1,119 @@
+package com.stock.realtime.kline;
+
+import com.stock.realtime.bar.BarView;
+
+import java.util.Arrays;
+
+/**
+ * 按列存放的一段K线，数组按需扩容，有效长度为size()
+ */
+public final class KlineColumns {
+
+    private long[] timestamps;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+    private int size;
+
+    public KlineColumns(int capacity) {
+        int initial = Math.max(capacity, 4);
+        timestamps = new long[initial];
+        open = new double[initial];
+        high = new double[initial];
+        low = new double[initial];
+        close = new double[initial];
+        volume = new long[initial];
+    }
+
+    /**
+     * 复制视图中时间戳在[from, to]内的K线，应在BarRingBuffer.read()内调用
+     */
+    public static KlineColumns copyOf(BarView view, long from, long to) {
+        int begin = lowerBound(view, from);
+        int end = begin;
+        while (end < view.size() && view.getTimestamp(end) <= to) {
+            end++;
+        }
+        KlineColumns columns = new KlineColumns(end - begin);
+        for (int i = begin; i < end; i++) {
+            columns.add(view.getTimestamp(i), view.getOpen(i), view.getHigh(i), view.getLow(i),
+                    view.getClose(i), view.getVolume(i));
+        }
+        return columns;
+    }
+
+    public void add(long timestamp, double o, double h, double l, double c, long v) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+        timestamps[size] = timestamp;
+        open[size] = o;
+        high[size] = h;
+        low[size] = l;
+        close[size] = c;
+        volume[size] = v;
+        size++;
+    }
+
+    /**
+     * 追加另一段中时间戳晚于本段最后一根的K线
+     */
+    public void addAll(KlineColumns other) {
+        long last = size == 0 ? Long.MIN_VALUE : timestamps[size - 1];
+        for (int i = 0; i < other.size; i++) {
+            if (other.timestamps[i] > last) {
+                add(other.timestamps[i], other.open[i], other.high[i], other.low[i], other.close[i], other.volume[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getOpen(int index) {
+        return open[index];
+    }
+
+    public double getHigh(int index) {
+        return high[index];
+    }
+
+    public double getLow(int index) {
+        return low[index];
+    }
+
+    public double getClose(int index) {
+        return close[index];
+    }
+
+    public long getVolume(int index) {
+        return volume[index];
+    }
+
+    private static int lowerBound(BarView view, long from) {
+        int lo = 0;
+        int hi = view.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (view.getTimestamp(mid) < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,106 @@
+package com.stock.realtime.kline;
+
+/**
+ * K线降采样方式
+ */
+public enum KlineDownsampling {
+
+    /**
+     * 按根数等分分桶合并为OHLC：开盘取首根、收盘取末根、最高最低取极值、成交量求和，保留价格极值，适合蜡烛图
+     */
+    OHLC,
+
+    /**
+     * 按收盘价做Largest-Triangle-Three-Buckets选点，返回原始K线的子集，适合折线图
+     */
+    LTTB;
+
+    public static KlineDownsampling of(String value) {
+        for (KlineDownsampling mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的降采样方式: " + value);
+    }
+
+    /**
+     * 降采样到不超过points个点，原数据不多于points时原样返回
+     */
+    public KlineColumns apply(KlineColumns input, int points) {
+        if (input.size() <= points || points < 3) {
+            return input;
+        }
+        return this == OHLC ? ohlc(input, points) : lttb(input, points);
+    }
+
+    static KlineColumns ohlc(KlineColumns input, int points) {
+        int n = input.size();
+        KlineColumns out = new KlineColumns(points);
+        for (int b = 0; b < points; b++) {
+            int begin = (int) ((long) b * n / points);
+            int end = (int) ((long) (b + 1) * n / points);
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            long volume = 0;
+            for (int i = begin; i < end; i++) {
+                high = Math.max(high, input.getHigh(i));
+                low = Math.min(low, input.getLow(i));
+                volume += input.getVolume(i);
+            }
+            out.add(input.getTimestamp(begin), input.getOpen(begin), high, low, input.getClose(end - 1), volume);
+        }
+        return out;
+    }
+
+    static KlineColumns lttb(KlineColumns input, int points) {
+        int n = input.size();
+        KlineColumns out = new KlineColumns(points);
+        copy(input, 0, out);
+        // 首尾两点固定，中间n-2个点分为points-2个桶，每桶选与前一选中点、下一桶均值构成三角形面积最大的点
+        double bucketSize = (double) (n - 2) / (points - 2);
+        int selected = 0;
+        for (int b = 0; b < points - 2; b++) {
+            int nextBegin = (int) ((b + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((b + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextBegin; i < nextEnd; i++) {
+                avgX += input.getTimestamp(i);
+                avgY += input.getClose(i);
+            }
+            int nextCount = nextEnd - nextBegin;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = input.getTimestamp(n - 1);
+                avgY = input.getClose(n - 1);
+            }
+
+            int begin = (int) (b * bucketSize) + 1;
+            int end = (int) ((b + 1) * bucketSize) + 1;
+            double ax = input.getTimestamp(selected);
+            double ay = input.getClose(selected);
+            double maxArea = -1;
+            int chosen = begin;
+            for (int i = begin; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (input.getClose(i) - ay)
+                        - (ax - input.getTimestamp(i)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            copy(input, chosen, out);
+            selected = chosen;
+        }
+        copy(input, n - 1, out);
+        return out;
+    }
+
+    private static void copy(KlineColumns input, int index, KlineColumns out) {
+        out.add(input.getTimestamp(index), input.getOpen(index), input.getHigh(index), input.getLow(index),
+                input.getClose(index), input.getVolume(index));
+    }
+}
@@ -0,0 +1,31 @@
+package com.stock.realtime.kline;
+
+import com.stock.realtime.bar.BarTimeframe;
+import lombok.Value;
+
+/**
+ * K线查询缓存键
+ * 包含内存K线的序号和价格版本号，K线追加或更新后旧键自然失效
+ */
+@Value
+public class KlineQuery {
+
+    String stockCode;
+
+    BarTimeframe timeframe;
+
+    long from;
+
+    /**
+     * 查询截止时间，查询最新数据时为Long.MAX_VALUE
+     */
+    long to;
+
+    int points;
+
+    KlineDownsampling downsampling;
+
+    long sequence;
+
+    long priceVersion;
+}
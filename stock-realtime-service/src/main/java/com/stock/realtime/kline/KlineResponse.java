@@ -0,0 +1,68 @@
+package com.stock.realtime.kline;
+
+import lombok.Data;
+
+/**
+ * K线查询结果，按列返回，timestamps为K线起始时间（epoch毫秒）
+ */
+@Data
+public class KlineResponse {
+
+    private String stockCode;
+
+    private String timeframe;
+
+    /**
+     * 降采样前的K线根数
+     */
+    private int sourceCount;
+
+    /**
+     * 实际使用的降采样方式，未降采样时为null
+     */
+    private String downsampling;
+
+    private long[] timestamps;
+
+    private double[] open;
+
+    private double[] high;
+
+    private double[] low;
+
+    private double[] close;
+
+    private long[] volume;
+
+    /**
+     * 按列复制，价格保留4位小数以压缩JSON体积
+     */
+    public static KlineResponse of(String stockCode, String timeframe, int sourceCount,
+                                   String downsampling, KlineColumns columns) {
+        int n = columns.size();
+        KlineResponse response = new KlineResponse();
+        response.setStockCode(stockCode);
+        response.setTimeframe(timeframe);
+        response.setSourceCount(sourceCount);
+        response.setDownsampling(downsampling);
+        response.timestamps = new long[n];
+        response.open = new double[n];
+        response.high = new double[n];
+        response.low = new double[n];
+        response.close = new double[n];
+        response.volume = new long[n];
+        for (int i = 0; i < n; i++) {
+            response.timestamps[i] = columns.getTimestamp(i);
+            response.open[i] = round(columns.getOpen(i));
+            response.high[i] = round(columns.getHigh(i));
+            response.low[i] = round(columns.getLow(i));
+            response.close[i] = round(columns.getClose(i));
+            response.volume[i] = columns.getVolume(i);
+        }
+        return response;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10_000d) / 10_000d;
+    }
+}
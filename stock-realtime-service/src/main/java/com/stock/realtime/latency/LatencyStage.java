@@ -0,0 +1,27 @@
+package com.stock.realtime.latency;
+
+/**
+ * 全链路延迟的观测点，从行情接入本节点流水线起计时
+ */
+public enum LatencyStage {
+
+    /**
+     * 写后缓冲批量写入Redis完成
+     */
+    REDIS_WRITE("redis_write"),
+
+    /**
+     * 发布器交给STOMP代理发往WebSocket会话
+     */
+    WS_SEND("ws_send");
+
+    private final String tag;
+
+    LatencyStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,32 @@
+package com.stock.realtime.latency;
+
+/**
+ * 股票分层，延迟指标按层打标签，标签基数固定不随股票数增长
+ */
+public enum SymbolTier {
+
+    /**
+     * 常驻股票
+     */
+    CORE("core"),
+
+    /**
+     * 本节点有订阅者的股票
+     */
+    SUBSCRIBED("subscribed"),
+
+    /**
+     * 其他股票
+     */
+    OTHER("other");
+
+    private final String tag;
+
+    SymbolTier(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
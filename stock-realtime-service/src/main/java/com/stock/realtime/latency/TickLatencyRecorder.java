@@ -0,0 +1,131 @@
+package com.stock.realtime.latency;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.push.SubscriptionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tick全链路延迟记录
+ * 行情接入流水线时记下System.nanoTime()（流水线事件的接入时刻），到写入Redis、发往WebSocket时
+ * 按观测点和股票分层记录单调时钟耗时；同时以行情源时间戳（RealtimeQuote.sourceTime，缺省时为更新时间）记录从行情源到WebSocket发送的墙钟延迟。
+ * 所有延迟计时器统一导出p50/p99/p99.9和SLO阈值桶；完整直方图桶每个计时器数十个时间序列，默认关闭，
+ * 需要跨实例聚合分位数时再开启。分层只用于端到端延迟，各阶段耗时不分层
+ *
+ * 集群模式下经行情总线收到的行情以本节点收到时刻为接入时刻，源头时间戳随行情经总线传递。
+ * 以消息队列为行情源时（MqQuoteFeed），源头时间戳为数据服务收到数据源响应的时刻，延迟包含数据服务内的耗时
+ */
+@Slf4j
+@Component
+public class TickLatencyRecorder {
+
+    private static final ZoneOffset MARKET_OFFSET = ZoneOffset.ofHours(8);
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.latency.percentile-histogram:false}")
+    private boolean percentileHistogram;
+
+    @Value("${realtime.latency.slo-ms:50,100,250,500,1000}")
+    private List<String> sloMs;
+
+    private Duration[] slos;
+    private Timer[][] sinceIngest;
+    private Timer[] sinceSource;
+
+    @PostConstruct
+    public void init() {
+        slos = sloMs.stream().map(String::trim).filter(s -> !s.isEmpty())
+                .map(s -> Duration.ofMillis(Long.parseLong(s))).toArray(Duration[]::new);
+        sinceIngest = new Timer[LatencyStage.values().length][];
+        for (LatencyStage stage : LatencyStage.values()) {
+            sinceIngest[stage.ordinal()] = tierTimers("realtime.tick.latency",
+                    "行情从接入本节点流水线到各观测点的耗时", Tags.of("stage", stage.getTag()));
+        }
+        sinceSource = tierTimers("realtime.tick.source.latency",
+                "行情从行情源生成到发往WebSocket的墙钟延迟", Tags.empty());
+        log.info("tick延迟统计: 直方图={}, SLO={}", percentileHistogram, sloMs);
+    }
+
+    /**
+     * 股票所属分层
+     */
+    public SymbolTier tierOf(String stockCode) {
+        if (subscriptionRegistry.isAlwaysOn(stockCode)) {
+            return SymbolTier.CORE;
+        }
+        return subscriptionRegistry.hasLocalSubscribers(stockCode) ? SymbolTier.SUBSCRIBED : SymbolTier.OTHER;
+    }
+
+    /**
+     * 创建延迟计时器，分位数、直方图和SLO设置与全链路延迟一致
+     */
+    public Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram(percentileHistogram)
+                .serviceLevelObjectives(slos)
+                .minimumExpectedValue(Duration.ofNanos(1000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按分层各创建一个延迟计时器，下标为SymbolTier.ordinal()
+     */
+    public Timer[] tierTimers(String name, String description, Tags tags) {
+        Timer[] timers = new Timer[SymbolTier.values().length];
+        for (SymbolTier tier : SymbolTier.values()) {
+            timers[tier.ordinal()] = timer(name, description, tags.and("tier", tier.getTag()));
+        }
+        return timers;
+    }
+
+    /**
+     * 记录从接入本节点流水线到观测点的耗时，没有接入时刻的行情跳过
+     */
+    public void recordSinceIngest(LatencyStage stage, String stockCode, long ingestNanos, long nowNanos) {
+        if (ingestNanos == 0) {
+            return;
+        }
+        sinceIngest[stage.ordinal()][tierOf(stockCode).ordinal()]
+                .record(nowNanos - ingestNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录从行情源生成到现在的墙钟延迟，优先取行情源时间戳，时钟偏差导致为负时跳过
+     */
+    public void recordSinceSource(RealtimeQuote quote, long nowMillis) {
+        long sourceMillis;
+        if (quote.getSourceTime() != null) {
+            sourceMillis = quote.getSourceTime();
+        } else if (quote.getUpdateTime() != null) {
+            LocalDateTime updateTime = quote.getUpdateTime();
+            sourceMillis = updateTime.toEpochSecond(MARKET_OFFSET) * 1000L + updateTime.getNano() / 1_000_000;
+        } else {
+            return;
+        }
+        long lag = nowMillis - sourceMillis;
+        if (lag >= 0) {
+            sinceSource[tierOf(quote.getStockCode()).ordinal()].record(lag, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.stock.realtime.latency;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 行情及其接入本节点流水线时的System.nanoTime()，供写后缓冲合并时保留接入时刻
+ */
+@Getter
+@AllArgsConstructor
+public class TimedQuote {
+
+    private final RealtimeQuote quote;
+
+    private final long ingestNanos;
+}
@@ -0,0 +1,28 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.bar.BarAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * K线聚合阶段：由行情更新各周期K线
+ */
+@Component
+@Order(250)
+public class AggregateStage implements QuoteStage {
+
+    @Autowired
+    private BarAggregator barAggregator;
+
+    @Override
+    public String getName() {
+        return "aggregate";
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        barAggregator.onQuote(event.getQuote());
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.alert.AlertEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 行情提醒阶段：检查该股票的提醒阈值，集群模式下只在生成行情的节点上检查，每个提醒只触发一次
+ */
+@Component
+@Order(260)
+public class AlertStage implements QuoteStage {
+
+    @Autowired
+    private AlertEngine alertEngine;
+
+    @Override
+    public String getName() {
+        return "alert";
+    }
+
+    @Override
+    public StageScope getScope() {
+        return StageScope.PRODUCER;
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        alertEngine.onQuote(event.getQuote());
+        return true;
+    }
+}
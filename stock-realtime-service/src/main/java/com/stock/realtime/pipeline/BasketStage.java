@@ -0,0 +1,28 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.basket.BasketIndexEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 自定义指数阶段：更新包含该股票的指数篮子
+ */
+@Component
+@Order(280)
+public class BasketStage implements QuoteStage {
+
+    @Autowired
+    private BasketIndexEngine basketIndexEngine;
+
+    @Override
+    public String getName() {
+        return "basket";
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        basketIndexEngine.onQuote(event.getQuote());
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.cluster.PriceCacheSync;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存阶段：更新本地行情缓存
+ */
+@Component
+@Order(200)
+public class CacheStage implements QuoteStage {
+
+    @Autowired
+    private PriceCacheSync priceCacheSync;
+
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        priceCacheSync.apply(event.getQuote());
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 规整阶段：丢弃缺少代码或价格的行情，补齐更新时间
+ */
+@Component
+@Order(100)
+public class NormalizeStage implements QuoteStage {
+
+    @Override
+    public String getName() {
+        return "normalize";
+    }
+
+    @Override
+    public StageScope getScope() {
+        return StageScope.ALL;
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        RealtimeQuote quote = event.getQuote();
+        if (quote.getStockCode() == null || quote.getStockCode().isEmpty()) {
+            return false;
+        }
+        BigDecimal price = quote.getCurrentPrice();
+        if (price == null || price.signum() <= 0) {
+            return false;
+        }
+        if (quote.getUpdateTime() == null) {
+            quote.setUpdateTime(LocalDateTime.now());
+        }
+        return true;
+    }
+}
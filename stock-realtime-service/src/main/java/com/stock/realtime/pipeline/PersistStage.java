@@ -0,0 +1,39 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.sink.InfluxPointSink;
+import com.stock.realtime.sink.QuoteRedisSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 持久化阶段：交给Redis写后缓冲，并写入InfluxDB行情序列
+ * 只在生成行情的节点上执行，集群模式下每笔行情只写一次
+ */
+@Component
+@Order(300)
+public class PersistStage implements QuoteStage {
+
+    @Autowired
+    private QuoteRedisSink quoteRedisSink;
+
+    @Autowired
+    private InfluxPointSink influxPointSink;
+
+    @Override
+    public String getName() {
+        return "persist";
+    }
+
+    @Override
+    public StageScope getScope() {
+        return StageScope.PRODUCER;
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        quoteRedisSink.offer(event.getQuote(), event.getIngestNanos());
+        influxPointSink.writeQuote(event.getQuote());
+        return true;
+    }
+}
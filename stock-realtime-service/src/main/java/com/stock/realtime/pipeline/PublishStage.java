@@ -0,0 +1,59 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.cluster.ClusterNode;
+import com.stock.realtime.cluster.QuoteBus;
+import com.stock.realtime.entity.RealtimeQuote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发布阶段：集群模式下按分区线程攒批，每批经行情总线发布一次；单机模式下无需发布，由推送阶段直接推送
+ */
+@Component
+@Order(400)
+public class PublishStage implements QuoteStage {
+
+    @Autowired
+    private QuoteBus quoteBus;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    private final ThreadLocal<List<RealtimeQuote>> batch = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String getName() {
+        return "publish";
+    }
+
+    @Override
+    public StageScope getScope() {
+        return StageScope.PRODUCER;
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        if (quoteBus.isClusterEnabled()) {
+            batch.get().add(event.getQuote());
+        }
+        return true;
+    }
+
+    @Override
+    public void endOfBatch() {
+        List<RealtimeQuote> quotes = batch.get();
+        if (quotes.isEmpty()) {
+            return;
+        }
+        try {
+            quoteBus.publish(quotes);
+            clusterNode.markProducing();
+        } finally {
+            quotes.clear();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.push.QuotePublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 推送阶段：交给发布器推送给本节点的WebSocket订阅者
+ */
+@Component
+@Order(350)
+public class PushStage implements QuoteStage {
+
+    @Autowired
+    private QuotePublisher quotePublisher;
+
+    @Override
+    public String getName() {
+        return "push";
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        quotePublisher.offer(event.getQuote(), event.getIngestNanos());
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+/**
+ * 环形缓冲区中的行情槽位，预先分配并循环复用
+ */
+public final class QuoteEvent {
+
+    private RealtimeQuote quote;
+
+    private long ingestNanos;
+
+    private boolean remote;
+
+    public RealtimeQuote getQuote() {
+        return quote;
+    }
+
+    /**
+     * 阶段可以替换行情对象（如规整后的副本），后续阶段看到替换后的对象
+     */
+    public void setQuote(RealtimeQuote quote) {
+        this.quote = quote;
+    }
+
+    /**
+     * 进入流水线时的System.nanoTime()
+     */
+    public long getIngestNanos() {
+        return ingestNanos;
+    }
+
+    /**
+     * 是否从行情总线收到（集群模式），否则为本节点接入的行情
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    void set(RealtimeQuote quote, long ingestNanos, boolean remote) {
+        this.quote = quote;
+        this.ingestNanos = ingestNanos;
+        this.remote = remote;
+    }
+
+    void clear() {
+        this.quote = null;
+    }
+}
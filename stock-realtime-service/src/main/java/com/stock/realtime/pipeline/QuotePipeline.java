@@ -0,0 +1,263 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.latency.SymbolTier;
+import com.stock.realtime.latency.TickLatencyRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 行情处理流水线
+ * 接入的行情按股票代码哈希分区，每个分区一个预分配的环形缓冲区和一个单写线程，
+ * 线程依次执行规整、缓存、持久化、发布各阶段（QuoteStage），
+ * 同一只股票的更新在本地缓存、Redis和WebSocket中的顺序与接入顺序一致；
+ * 各阶段耗时和接入到走完全部阶段的延迟按股票分层统计。
+ *
+ * 集群模式下生成节点接入的行情只经过生产阶段（规整、持久化、发布到行情总线），
+ * 各节点从总线收到的行情经ingestRemote进入同一流水线，在分区线程上执行其余阶段（见StageScope），
+ * 单写线程的顺序保证在单机和集群模式下一致
+ */
+@Slf4j
+@Component
+public class QuotePipeline {
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Value("${realtime.pipeline.partitions:4}")
+    private int partitionCount;
+
+    @Value("${realtime.pipeline.ring-size:8192}")
+    private int ringSize;
+
+    @Value("${realtime.pipeline.batch-size:256}")
+    private int batchSize;
+
+    @Value("${realtime.pipeline.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Autowired
+    private List<QuoteStage> stages;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TickLatencyRecorder latencyRecorder;
+
+    private Partition[] partitions;
+    private Timer[] stageTimers;
+    private Counter[] stageDropped;
+    private boolean[] runsLocal;
+    private boolean[] runsRemote;
+    private Timer[] latencyTimers;
+    private Counter processedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        stageTimers = new Timer[stages.size()];
+        stageDropped = new Counter[stages.size()];
+        runsLocal = new boolean[stages.size()];
+        runsRemote = new boolean[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            String name = stages.get(i).getName();
+            StageScope scope = stages.get(i).getScope();
+            runsLocal[i] = !clusterEnabled || scope != StageScope.NODE;
+            runsRemote[i] = scope != StageScope.PRODUCER;
+            // 阶段耗时只按阶段区分，分层只用于端到端延迟，控制时间序列数
+            stageTimers[i] = latencyRecorder.timer("realtime.pipeline.stage",
+                    "单笔行情在各阶段的处理耗时", Tags.of("stage", name));
+            stageDropped[i] = meterRegistry.counter("realtime.pipeline.dropped", "stage", name);
+        }
+        latencyTimers = latencyRecorder.tierTimers("realtime.pipeline.latency",
+                "行情从接入到走完全部阶段的耗时", Tags.empty());
+        processedCounter = meterRegistry.counter("realtime.pipeline.quotes", "result", "processed");
+        rejectedCounter = meterRegistry.counter("realtime.pipeline.quotes", "result", "rejected");
+        failedCounter = meterRegistry.counter("realtime.pipeline.quotes", "result", "failed");
+
+        running = true;
+        partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            Partition partition = new Partition(i, new QuoteRingBuffer(capacity));
+            meterRegistry.gauge("realtime.pipeline.queue.depth", Tags.of("partition", String.valueOf(i)),
+                    partition.ring, QuoteRingBuffer::depth);
+            partitions[i] = partition;
+            partition.thread.start();
+        }
+        log.info("行情流水线启动: 分区={}, 环形缓冲区={}, 阶段={}", partitions.length, capacity,
+                stages.stream().map(QuoteStage::getName).toList());
+    }
+
+    /**
+     * 接入一笔本节点生成或接收的行情
+     * 所在分区已满时短暂等待消费线程腾出槽位，超时仍满则丢弃并计数
+     *
+     * @return 行情被丢弃时返回false
+     */
+    public boolean ingest(RealtimeQuote quote) {
+        return ingest(quote, false);
+    }
+
+    /**
+     * 接入一笔从行情总线收到的行情，须由单一线程按总线消息顺序调用
+     *
+     * @return 行情被丢弃时返回false
+     */
+    public boolean ingestRemote(RealtimeQuote quote) {
+        return ingest(quote, true);
+    }
+
+    private boolean ingest(RealtimeQuote quote, boolean remote) {
+        // 缺少代码的行情落到0号分区，由规整阶段丢弃
+        String stockCode = quote.getStockCode();
+        int hash = stockCode == null ? 0 : stockCode.hashCode();
+        Partition partition = partitions[Math.floorMod(hash, partitions.length)];
+        long now = System.nanoTime();
+        if (!partition.ring.tryPublish(quote, now, remote)) {
+            long deadline = now + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            do {
+                if (!running || System.nanoTime() - deadline > 0) {
+                    rejectedCounter.increment();
+                    log.warn("行情流水线分区{}已满，丢弃行情: {}", partition.index, stockCode);
+                    return false;
+                }
+                partition.wake();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            } while (!partition.ring.tryPublish(quote, now, remote));
+        }
+        partition.wake();
+        return true;
+    }
+
+    /**
+     * 各分区积压的行情数
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Partition partition : partitions) {
+            depths.put(partition.thread.getName(), partition.ring.depth());
+        }
+        return depths;
+    }
+
+    /**
+     * 停止接入并处理完已接入的行情
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void handle(QuoteEvent event) {
+        boolean[] runs = event.isRemote() ? runsRemote : runsLocal;
+        for (int i = 0; i < stageTimers.length; i++) {
+            if (!runs[i]) {
+                continue;
+            }
+            long start = System.nanoTime();
+            boolean keep;
+            try {
+                keep = stages.get(i).process(event);
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("行情处理阶段{}失败: {}", stages.get(i).getName(), event.getQuote().getStockCode(), e);
+                return;
+            } finally {
+                stageTimers[i].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!keep) {
+                stageDropped[i].increment();
+                return;
+            }
+        }
+        processedCounter.increment();
+        String stockCode = event.getQuote().getStockCode();
+        int tier = stockCode == null ? SymbolTier.OTHER.ordinal() : latencyRecorder.tierOf(stockCode).ordinal();
+        latencyTimers[tier].record(System.nanoTime() - event.getIngestNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void endOfBatch() {
+        for (QuoteStage stage : stages) {
+            try {
+                stage.endOfBatch();
+            } catch (Exception e) {
+                log.error("行情处理阶段{}批量提交失败", stage.getName(), e);
+            }
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        private final int index;
+        private final QuoteRingBuffer ring;
+        private final Thread thread;
+
+        private volatile boolean parked;
+
+        private Partition(int index, QuoteRingBuffer ring) {
+            this.index = index;
+            this.ring = ring;
+            this.thread = new Thread(this, "quote-pipeline-" + index);
+        }
+
+        /**
+         * 唤醒空闲等待中的消费线程
+         */
+        private void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running || ring.depth() > 0) {
+                if (ring.drain(QuotePipeline.this::handle, batchSize) > 0) {
+                    endOfBatch();
+                    idle = 0;
+                } else if (++idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    if (ring.depth() == 0 && running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    parked = false;
+                }
+            }
+            log.info("行情流水线分区{}已停止", index);
+        }
+    }
+}
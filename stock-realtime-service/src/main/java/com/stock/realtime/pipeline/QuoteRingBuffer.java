@@ -0,0 +1,106 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者单消费者的有界环形缓冲区
+ * 槽位预先分配，生产者CAS抢占序号后写入槽位再发布该序号，消费者按序号顺序读取，
+ * 未发布的序号会挡住后续槽位，保证消费顺序与抢占顺序一致
+ */
+final class QuoteRingBuffer {
+
+    private final QuoteEvent[] slots;
+
+    /**
+     * 每个槽位最近一次发布的序号
+     */
+    private final AtomicLongArray published;
+
+    private final int mask;
+
+    /**
+     * 下一个待抢占的序号
+     */
+    private final AtomicLong claim = new AtomicLong();
+
+    /**
+     * 下一个待消费的序号
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    QuoteRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity必须是2的幂");
+        }
+        this.slots = new QuoteEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new QuoteEvent();
+            published.set(i, -1L);
+        }
+    }
+
+    /**
+     * 写入一笔行情
+     *
+     * @return 缓冲区已满时返回false
+     */
+    boolean tryPublish(RealtimeQuote quote, long ingestNanos, boolean remote) {
+        long seq;
+        do {
+            seq = claim.get();
+            if (seq - head.get() >= slots.length) {
+                return false;
+            }
+        } while (!claim.compareAndSet(seq, seq + 1));
+        int index = (int) (seq & mask);
+        slots[index].set(quote, ingestNanos, remote);
+        published.lazySet(index, seq);
+        return true;
+    }
+
+    /**
+     * 按顺序消费最多max笔已发布的行情，只能由唯一的消费线程调用
+     *
+     * @return 实际消费的笔数
+     */
+    int drain(Consumer<QuoteEvent> handler, int max) {
+        long next = head.get();
+        int count = 0;
+        try {
+            while (count < max) {
+                int index = (int) (next & mask);
+                if (published.get(index) != next) {
+                    break;
+                }
+                QuoteEvent event = slots[index];
+                try {
+                    handler.accept(event);
+                } finally {
+                    event.clear();
+                }
+                next++;
+                count++;
+            }
+        } finally {
+            head.lazySet(next);
+        }
+        return count;
+    }
+
+    /**
+     * 已抢占未消费的笔数
+     */
+    int depth() {
+        return (int) Math.max(0, claim.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
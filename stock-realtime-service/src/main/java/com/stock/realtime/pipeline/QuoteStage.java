@@ -0,0 +1,34 @@
+package com.stock.realtime.pipeline;
+
+/**
+ * 行情处理阶段
+ * 各阶段按@Order顺序在分区线程上依次执行，同一只股票的行情总在同一线程上按到达顺序经过每个阶段，
+ * 实现无需加锁也无需考虑乱序
+ */
+public interface QuoteStage {
+
+    /**
+     * 阶段名，用作指标标签
+     */
+    String getName();
+
+    /**
+     * 处理一笔行情
+     *
+     * @return false时丢弃该行情，不再进入后续阶段
+     */
+    boolean process(QuoteEvent event);
+
+    /**
+     * 集群模式下该阶段处理的行情来源，默认只处理从行情总线收到的行情
+     */
+    default StageScope getScope() {
+        return StageScope.NODE;
+    }
+
+    /**
+     * 分区线程处理完一批行情后调用，用于批量提交
+     */
+    default void endOfBatch() {
+    }
+}
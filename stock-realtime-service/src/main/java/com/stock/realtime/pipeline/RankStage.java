@@ -0,0 +1,28 @@
+package com.stock.realtime.pipeline;
+
+import com.stock.realtime.rank.Leaderboard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 排行阶段：更新该股票在各排行指标上的位置
+ */
+@Component
+@Order(270)
+public class RankStage implements QuoteStage {
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    @Override
+    public String getName() {
+        return "rank";
+    }
+
+    @Override
+    public boolean process(QuoteEvent event) {
+        leaderboard.onQuote(event.getQuote());
+        return true;
+    }
+}
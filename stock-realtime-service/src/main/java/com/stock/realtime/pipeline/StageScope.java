@@ -0,0 +1,23 @@
+package com.stock.realtime.pipeline;
+
+/**
+ * 集群模式下流水线阶段处理的行情来源
+ * 单机模式下所有行情都由本节点接入，经过全部阶段
+ */
+public enum StageScope {
+
+    /**
+     * 本节点接入的行情和从行情总线收到的行情都处理
+     */
+    ALL,
+
+    /**
+     * 只处理本节点接入的行情：每笔行情只在生成它的节点上执行一次，如持久化、发布到行情总线
+     */
+    PRODUCER,
+
+    /**
+     * 只处理从行情总线收到的行情：每个节点（含生成节点）以相同顺序更新本节点的状态
+     */
+    NODE
+}
@@ -0,0 +1,49 @@
+package com.stock.realtime.push;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 按订阅协商行情编码
+ * 客户端订阅/topic/quote/{code}时携带 x-encoding:binary 头，即改为订阅二进制主题/topic/quote-bin/{code}，
+ * 收到的MESSAGE帧content-type为application/octet-stream，帧体格式见QuoteBinaryCodec。
+ * SockJS只能传输文本帧，SockJS连接上的二进制请求保持JSON订阅
+ */
+@Component
+public class BinarySubscriptionInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "x-encoding";
+    public static final String ENCODING_BINARY = "binary";
+
+    /**
+     * 会话属性：该连接是否为SockJS，由ConflatingWebSocketHandlerDecorator在建立连接时写入
+     */
+    public static final String SOCKJS_ATTRIBUTE = "realtime.sockjs";
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(QuotePublisher.QUOTE_TOPIC_PREFIX)
+                || !ENCODING_BINARY.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            return message;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && Boolean.TRUE.equals(attributes.get(SOCKJS_ATTRIBUTE))) {
+            return message;
+        }
+        accessor.setDestination(QuotePublisher.BINARY_TOPIC_PREFIX
+                + destination.substring(QuotePublisher.QUOTE_TOPIC_PREFIX.length()));
+        return message;
+    }
+}
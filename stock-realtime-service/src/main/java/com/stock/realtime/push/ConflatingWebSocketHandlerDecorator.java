@@ -0,0 +1,50 @@
+package com.stock.realtime.push;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+/**
+ * 将底层会话替换为合并会话后再交给STOMP处理器，使所有出站帧都经过合并队列
+ */
+public class ConflatingWebSocketHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final SessionFlushScheduler scheduler;
+
+    public ConflatingWebSocketHandlerDecorator(WebSocketHandler delegate, SessionFlushScheduler scheduler) {
+        super(delegate);
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // 包装后无法再通过instanceof识别SockJS，先记录到会话属性供订阅协商使用
+        session.getAttributes().put(BinarySubscriptionInterceptor.SOCKJS_ATTRIBUTE, session instanceof SockJsSession);
+        super.afterConnectionEstablished(scheduler.register(session));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        super.handleMessage(wrapped(session), message);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(wrapped(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        WebSocketSession conflating = wrapped(session);
+        scheduler.unregister(session.getId());
+        super.afterConnectionClosed(conflating, closeStatus);
+    }
+
+    private WebSocketSession wrapped(WebSocketSession session) {
+        ConflatingWebSocketSession conflating = scheduler.get(session.getId());
+        return conflating != null ? conflating : session;
+    }
+}
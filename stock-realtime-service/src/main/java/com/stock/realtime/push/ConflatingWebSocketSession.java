@@ -0,0 +1,286 @@
+package com.stock.realtime.push;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按目的地合并的WebSocket会话
+ * 发送行情类STOMP帧时只在本会话内按destination保留最新一帧，其他帧按顺序排队；
+ * sendMessage只入队不阻塞，实际写出由SessionFlushScheduler按节奏调用drain()完成，
+ * 慢客户端积压的只是每个主题的一帧，而不是全部tick；非行情帧（CONNECTED、RECEIPT等）入队后立即触发写出。
+ * 增量帧（resyncPrefixes）不能合并，按订阅分别排队、随行情帧一起写出；某个订阅积压超过上限时丢弃其排队的帧，
+ * 客户端据seq不连续重新获取快照，而不是因增量主题订阅多就被断开。
+ * 写出线程池拒绝任务时本轮不写出，行情帧继续合并，由下一轮调度重新提交。
+ * 行情帧从入队到写出套接字的等待时间计入waitTimer
+ */
+@Slf4j
+public class ConflatingWebSocketSession extends WebSocketSessionDecorator {
+
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    private static final String SUBSCRIPTION_HEADER = "\nsubscription:";
+
+    /**
+     * 只在帧头部范围内查找destination，避免扫描整个消息体
+     */
+    private static final int HEADER_SCAN_LIMIT = 512;
+
+    private final List<String> conflatePrefixes;
+    private final List<String> resyncPrefixes;
+    private final int maxResyncFrames;
+    private final Executor executor;
+    private final Counter conflatedCounter;
+    private final Counter resyncCounter;
+    private final Counter rejectedCounter;
+    private final Timer waitTimer;
+    private final Queue<WebSocketMessage<?>> ordered = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger orderedSize = new AtomicInteger();
+    private final Map<String, Frame> latestByDestination = new ConcurrentHashMap<>();
+    private final Map<String, ResyncQueue> resyncByDestination = new ConcurrentHashMap<>();
+    private final AtomicInteger resyncSize = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final LongAdder conflated = new LongAdder();
+
+    public ConflatingWebSocketSession(WebSocketSession delegate, List<String> conflatePrefixes,
+                                      List<String> resyncPrefixes, int maxResyncFrames, Executor executor,
+                                      Counter conflatedCounter, Counter resyncCounter, Counter rejectedCounter,
+                                      Timer waitTimer) {
+        super(delegate);
+        this.conflatePrefixes = conflatePrefixes;
+        this.resyncPrefixes = resyncPrefixes;
+        this.maxResyncFrames = maxResyncFrames;
+        this.executor = executor;
+        this.conflatedCounter = conflatedCounter;
+        this.resyncCounter = resyncCounter;
+        this.rejectedCounter = rejectedCounter;
+        this.waitTimer = waitTimer;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        String key = subscriptionKey(message);
+        if (key != null && matches(conflatePrefixes, key)) {
+            if (latestByDestination.put(key, new Frame(message, System.nanoTime())) != null) {
+                conflated.increment();
+                conflatedCounter.increment();
+            }
+        } else if (key != null && matches(resyncPrefixes, key)) {
+            enqueueResync(key, new Frame(message, System.nanoTime()));
+        } else {
+            ordered.add(message);
+            orderedSize.incrementAndGet();
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 提交一次写出任务；已有任务待执行时不重复提交，线程池已满时放弃本次提交
+     */
+    void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drainQuietly);
+            } catch (RejectedExecutionException e) {
+                drainScheduled.set(false);
+                rejectedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * 在线程池中写出，异常只记录日志；连接失效由容器的关闭回调清理
+     */
+    private void drainQuietly() {
+        // 先清除标记再写出，写出期间入队的帧可以再提交一次任务
+        drainScheduled.set(false);
+        try {
+            drain();
+        } catch (Exception e) {
+            log.debug("会话写出失败: {}", getId(), e);
+        }
+    }
+
+    /**
+     * 写出排队的帧，同一时刻只有一个线程执行
+     */
+    public void drain() throws IOException {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            WebSocketMessage<?> message;
+            while ((message = ordered.poll()) != null) {
+                orderedSize.decrementAndGet();
+                getDelegate().sendMessage(message);
+            }
+            for (ResyncQueue queue : resyncByDestination.values()) {
+                Frame frame;
+                while ((frame = queue.poll()) != null) {
+                    getDelegate().sendMessage(frame.message);
+                    waitTimer.record(System.nanoTime() - frame.enqueuedNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            for (String destination : latestByDestination.keySet()) {
+                Frame frame = latestByDestination.remove(destination);
+                if (frame != null) {
+                    getDelegate().sendMessage(frame.message);
+                    waitTimer.record(System.nanoTime() - frame.enqueuedNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 当前排队的帧数（顺序帧、增量帧加各目的地待发的最新帧）
+     */
+    public int getQueueDepth() {
+        return orderedSize.get() + resyncSize.get() + latestByDestination.size();
+    }
+
+    /**
+     * 顺序队列中的帧数，这部分既不可合并也不可丢弃
+     */
+    public int getOrderedDepth() {
+        return orderedSize.get();
+    }
+
+    /**
+     * 被后续帧覆盖而未发送的帧数
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    /**
+     * 增量帧按订阅排队，积压超过上限时丢弃该订阅排队的帧，由客户端重新获取快照
+     */
+    private void enqueueResync(String key, Frame frame) {
+        ResyncQueue queue = resyncByDestination.computeIfAbsent(key, k -> new ResyncQueue());
+        queue.add(frame);
+        if (queue.size() > maxResyncFrames) {
+            queue.clear();
+            resyncCounter.increment();
+        }
+    }
+
+    private static boolean matches(List<String> prefixes, String key) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * MESSAGE帧的目的地加订阅ID，其他帧返回null
+     */
+    private String subscriptionKey(WebSocketMessage<?> message) {
+        String header;
+        if (message instanceof TextMessage) {
+            String payload = ((TextMessage) message).getPayload();
+            header = payload.substring(0, Math.min(payload.length(), HEADER_SCAN_LIMIT));
+        } else if (message instanceof BinaryMessage) {
+            ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(payload.remaining(), HEADER_SCAN_LIMIT)];
+            payload.get(bytes);
+            header = new String(bytes, StandardCharsets.ISO_8859_1);
+        } else {
+            return null;
+        }
+        if (!header.startsWith("MESSAGE")) {
+            return null;
+        }
+        String destination = headerValue(header, DESTINATION_HEADER);
+        if (destination == null) {
+            return null;
+        }
+        // 同一会话可能以不同订阅ID重复订阅同一目的地，按订阅分别合并、排队
+        return destination + '#' + headerValue(header, SUBSCRIPTION_HEADER);
+    }
+
+    private static String headerValue(String header, String name) {
+        int start = header.indexOf(name);
+        if (start < 0) {
+            return null;
+        }
+        start += name.length();
+        int end = header.indexOf('\n', start);
+        return end < 0 ? null : header.substring(start, end);
+    }
+
+    /**
+     * 待写出的行情帧及其入队时刻
+     */
+    private static final class Frame {
+
+        private final WebSocketMessage<?> message;
+        private final long enqueuedNanos;
+
+        private Frame(WebSocketMessage<?> message, long enqueuedNanos) {
+            this.message = message;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * 单个订阅的增量帧队列，帧数同时计入会话的resyncSize
+     */
+    private final class ResyncQueue {
+
+        private final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void add(Frame frame) {
+            frames.add(frame);
+            size.incrementAndGet();
+            resyncSize.incrementAndGet();
+        }
+
+        private Frame poll() {
+            Frame frame = frames.poll();
+            if (frame != null) {
+                size.decrementAndGet();
+                resyncSize.decrementAndGet();
+            }
+            return frame;
+        }
+
+        private int size() {
+            return size.get();
+        }
+
+        private void clear() {
+            while (poll() != null) {
+                // 逐帧出队以保持计数一致
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.stock.realtime.push;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 推送给客户端的收盘K线，timestamp为K线起始时间（epoch毫秒）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KlineBar {
+
+    private String stockCode;
+
+    private String timeframe;
+
+    private long timestamp;
+
+    private double open;
+
+    private double high;
+
+    private double low;
+
+    private double close;
+
+    private long volume;
+
+    private double amount;
+}
@@ -0,0 +1,27 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarTimeframe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 收盘K线推送到/topic/kline/{timeframe}/{code}
+ * 每只股票每个周期收盘一次才推送，不做合并
+ */
+@Component
+public class KlinePublisher implements BarListener {
+
+    public static final String KLINE_TOPIC_PREFIX = "/topic/kline/";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        messagingTemplate.convertAndSend(KLINE_TOPIC_PREFIX + timeframe.getCode() + "/" + stockCode,
+                new KlineBar(stockCode, timeframe.getCode(), timestamp, open, high, low, close, volume, amount));
+    }
+}
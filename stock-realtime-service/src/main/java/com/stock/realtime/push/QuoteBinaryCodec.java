@@ -0,0 +1,258 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 行情二进制编解码
+ *
+ * 帧格式（多字节整数均为大端）：
+ * <pre>
+ * u8  版本号（当前为1）
+ * u8  标志位：bit0 含股票名称，bit1 含更新时间，bit2 含行情源时间
+ * u16 字段位图：bit0~15 依次对应 currentPrice, change, changePercent, openPrice, highPrice,
+ *     lowPrice, preClosePrice, volume, amount, turnoverRate, pe, pb, bid1, bidVolume1, ask1, askVolume1
+ * i64 更新时间（epoch毫秒，Asia/Shanghai），标志位bit1为1时存在
+ * i64 行情源时间（epoch毫秒），标志位bit2为1时存在
+ * u8  股票代码长度 + ASCII字节
+ * u8  股票名称长度 + UTF-8字节，标志位bit0为1时存在
+ * 位图中为1的字段依次写入：价格类按10^4缩放为整数，数量类为原值，均以ZigZag变长整数编码
+ * </pre>
+ * 价格保留4位小数（超出部分四舍五入）。一笔带名称的完整行情约90字节，同样内容的JSON约380字节
+ */
+public final class QuoteBinaryCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int FLAG_NAME = 1;
+    private static final int FLAG_TIME = 1 << 1;
+    private static final int FLAG_SOURCE_TIME = 1 << 2;
+    private static final int SCALE = 4;
+    private static final BigDecimal SCALE_FACTOR = BigDecimal.TEN.pow(SCALE);
+
+    /**
+     * 位图中的数量类字段（其余为价格类）
+     */
+    private static final int LONG_FIELDS = (1 << 7) | (1 << 13) | (1 << 15);
+
+    private static final int FIELD_COUNT = 16;
+
+    private static final int MAX_FRAME = 4 + 8 + 8 + 1 + 255 + 1 + 255 + FIELD_COUNT * 10;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[MAX_FRAME]);
+
+    private QuoteBinaryCodec() {
+    }
+
+    /**
+     * 编码一笔完整行情
+     */
+    public static byte[] encode(RealtimeQuote quote) {
+        byte[] buf = BUFFER.get();
+        Object[] values = fieldValues(quote);
+        int bitmap = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (values[i] != null) {
+                bitmap |= 1 << i;
+            }
+        }
+        byte[] code = quote.getStockCode().getBytes(StandardCharsets.US_ASCII);
+        byte[] name = quote.getStockName() == null ? null : utf8(quote.getStockName());
+        int flags = (name != null ? FLAG_NAME : 0) | (quote.getUpdateTime() != null ? FLAG_TIME : 0)
+                | (quote.getSourceTime() != null ? FLAG_SOURCE_TIME : 0);
+
+        int pos = 0;
+        buf[pos++] = (byte) VERSION;
+        buf[pos++] = (byte) flags;
+        buf[pos++] = (byte) (bitmap >>> 8);
+        buf[pos++] = (byte) bitmap;
+        if ((flags & FLAG_TIME) != 0) {
+            pos = writeLong(buf, pos, quote.getUpdateTime().atZone(BarStore.MARKET_ZONE).toInstant().toEpochMilli());
+        }
+        if ((flags & FLAG_SOURCE_TIME) != 0) {
+            pos = writeLong(buf, pos, quote.getSourceTime());
+        }
+        pos = writeBytes(buf, pos, code);
+        if (name != null) {
+            pos = writeBytes(buf, pos, name);
+        }
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            long raw = (LONG_FIELDS & (1 << i)) != 0 ? (Long) value : scaled((BigDecimal) value);
+            pos = writeVarLong(buf, pos, (raw << 1) ^ (raw >> 63));
+        }
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /**
+     * 解码一帧行情
+     */
+    public static RealtimeQuote decode(byte[] frame) {
+        int pos = 0;
+        int version = frame[pos++] & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的行情帧版本: " + version);
+        }
+        int flags = frame[pos++] & 0xFF;
+        int bitmap = ((frame[pos++] & 0xFF) << 8) | (frame[pos++] & 0xFF);
+        RealtimeQuote.RealtimeQuoteBuilder builder = RealtimeQuote.builder();
+        if ((flags & FLAG_TIME) != 0) {
+            long millis = readLong(frame, pos);
+            pos += 8;
+            builder.updateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), BarStore.MARKET_ZONE));
+        }
+        if ((flags & FLAG_SOURCE_TIME) != 0) {
+            builder.sourceTime(readLong(frame, pos));
+            pos += 8;
+        }
+        int codeLength = frame[pos++] & 0xFF;
+        builder.stockCode(new String(frame, pos, codeLength, StandardCharsets.US_ASCII));
+        pos += codeLength;
+        if ((flags & FLAG_NAME) != 0) {
+            int nameLength = frame[pos++] & 0xFF;
+            builder.stockName(new String(frame, pos, nameLength, StandardCharsets.UTF_8));
+            pos += nameLength;
+        }
+        Object[] values = new Object[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((bitmap & (1 << i)) == 0) {
+                continue;
+            }
+            int[] cursor = {pos};
+            long zigzag = readVarLong(frame, cursor);
+            pos = cursor[0];
+            long raw = (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = (LONG_FIELDS & (1 << i)) != 0 ? (Object) raw : BigDecimal.valueOf(raw, SCALE);
+        }
+        return builder
+                .currentPrice((BigDecimal) values[0])
+                .change((BigDecimal) values[1])
+                .changePercent((BigDecimal) values[2])
+                .openPrice((BigDecimal) values[3])
+                .highPrice((BigDecimal) values[4])
+                .lowPrice((BigDecimal) values[5])
+                .preClosePrice((BigDecimal) values[6])
+                .volume((Long) values[7])
+                .amount((BigDecimal) values[8])
+                .turnoverRate((BigDecimal) values[9])
+                .pe((BigDecimal) values[10])
+                .pb((BigDecimal) values[11])
+                .bid1((BigDecimal) values[12])
+                .bidVolume1((Long) values[13])
+                .ask1((BigDecimal) values[14])
+                .askVolume1((Long) values[15])
+                .build();
+    }
+
+    /**
+     * 编码一批行情：变长整数的帧数，随后每帧为变长整数长度 + 帧内容
+     */
+    public static byte[] encodeBatch(List<RealtimeQuote> quotes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(quotes.size() * 96 + 8);
+        byte[] varint = new byte[10];
+        out.write(varint, 0, writeVarLong(varint, 0, quotes.size()));
+        for (RealtimeQuote quote : quotes) {
+            byte[] frame = encode(quote);
+            out.write(varint, 0, writeVarLong(varint, 0, frame.length));
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码encodeBatch生成的批量帧
+     */
+    public static List<RealtimeQuote> decodeBatch(byte[] batch) {
+        int[] pos = {0};
+        int count = (int) readVarLong(batch, pos);
+        List<RealtimeQuote> quotes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = (int) readVarLong(batch, pos);
+            quotes.add(decode(Arrays.copyOfRange(batch, pos[0], pos[0] + length)));
+            pos[0] += length;
+        }
+        return quotes;
+    }
+
+    private static Object[] fieldValues(RealtimeQuote q) {
+        return new Object[]{
+                q.getCurrentPrice(), q.getChange(), q.getChangePercent(), q.getOpenPrice(), q.getHighPrice(),
+                q.getLowPrice(), q.getPreClosePrice(), q.getVolume(), q.getAmount(), q.getTurnoverRate(),
+                q.getPe(), q.getPb(), q.getBid1(), q.getBidVolume1(), q.getAsk1(), q.getAskVolume1()
+        };
+    }
+
+    private static long scaled(BigDecimal value) {
+        return value.multiply(SCALE_FACTOR).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * 名称超过255字节时截断到完整字符边界
+     */
+    private static byte[] utf8(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= 255) {
+            return bytes;
+        }
+        int length = 255;
+        while ((bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static int writeBytes(byte[] buf, int pos, byte[] bytes) {
+        buf[pos++] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private static int writeLong(byte[] buf, int pos, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (value >>> shift);
+        }
+        return pos;
+    }
+
+    private static long readLong(byte[] buf, int pos) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long readVarLong(byte[] buf, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int writeVarLong(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+}
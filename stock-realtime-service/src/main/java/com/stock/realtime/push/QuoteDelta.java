@@ -0,0 +1,29 @@
+package com.stock.realtime.push;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 增量行情帧
+ * 只携带相对上一帧发生变化的字段；seq按股票连续递增，客户端发现不连续时应重新获取快照
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteDelta {
+
+    private String stockCode;
+
+    private long seq;
+
+    private LocalDateTime updateTime;
+
+    /**
+     * 变化的字段（属性名 -> 新值），属性名与RealtimeQuote一致
+     */
+    private Map<String, Object> fields;
+}
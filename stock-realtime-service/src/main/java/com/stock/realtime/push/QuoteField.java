@@ -0,0 +1,74 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 参与变更比较的行情字段，名称与RealtimeQuote属性名一致，增量帧中直接作为键使用
+ */
+public enum QuoteField {
+
+    STOCK_NAME("stockName", RealtimeQuote::getStockName),
+    CURRENT_PRICE("currentPrice", RealtimeQuote::getCurrentPrice),
+    CHANGE("change", RealtimeQuote::getChange),
+    CHANGE_PERCENT("changePercent", RealtimeQuote::getChangePercent),
+    OPEN_PRICE("openPrice", RealtimeQuote::getOpenPrice),
+    HIGH_PRICE("highPrice", RealtimeQuote::getHighPrice),
+    LOW_PRICE("lowPrice", RealtimeQuote::getLowPrice),
+    PRE_CLOSE_PRICE("preClosePrice", RealtimeQuote::getPreClosePrice),
+    VOLUME("volume", RealtimeQuote::getVolume),
+    AMOUNT("amount", RealtimeQuote::getAmount),
+    TURNOVER_RATE("turnoverRate", RealtimeQuote::getTurnoverRate),
+    PE("pe", RealtimeQuote::getPe),
+    PB("pb", RealtimeQuote::getPb),
+    BID1("bid1", RealtimeQuote::getBid1),
+    BID_VOLUME1("bidVolume1", RealtimeQuote::getBidVolume1),
+    ASK1("ask1", RealtimeQuote::getAsk1),
+    ASK_VOLUME1("askVolume1", RealtimeQuote::getAskVolume1);
+
+    private final String property;
+    private final Function<RealtimeQuote, Object> getter;
+
+    QuoteField(String property, Function<RealtimeQuote, Object> getter) {
+        this.property = property;
+        this.getter = getter;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object get(RealtimeQuote quote) {
+        return getter.apply(quote);
+    }
+
+    /**
+     * 两笔行情在该字段上是否相同（BigDecimal按数值比较，忽略精度差异）
+     */
+    public boolean same(RealtimeQuote a, RealtimeQuote b) {
+        Object x = get(a);
+        Object y = get(b);
+        if (x instanceof BigDecimal && y instanceof BigDecimal) {
+            return ((BigDecimal) x).compareTo((BigDecimal) y) == 0;
+        }
+        return Objects.equals(x, y);
+    }
+
+    /**
+     * 除更新时间外的全部字段是否相同
+     */
+    public static boolean sameMarketData(RealtimeQuote a, RealtimeQuote b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        for (QuoteField field : values()) {
+            if (!field.same(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.latency.LatencyStage;
+import com.stock.realtime.latency.TickLatencyRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情发布器
+ * 在推送阶段（PushStage）的分区线程上逐笔发布，同一只股票的发布由同一线程按接入顺序执行；
+ * 与上次已发布内容相同的行情直接跳过。发布器不做合并，慢客户端的合并只在会话出站队列中按目的地进行
+ * （ConflatingWebSocketSession），每笔行情只经过一个合并点
+ *
+ * 每次发布同时提供两种协议：
+ * /topic/quote/{code} 推送完整行情；
+ * /topic/quote-delta/{code} 只推送变化字段及按股票递增的seq。增量客户端先订阅增量主题，
+ * 再订阅/app/quote/snapshot/{code}取得快照，丢弃seq不大于快照的增量帧；发现seq不连续时重新订阅快照；
+ * /topic/quote-bin/{code} 推送二进制编码的完整行情（见BinarySubscriptionInterceptor）
+ *
+ * 每种编码只在本节点有该主题的订阅者时才编码和发送，没有二进制订阅者时不做二进制编码。
+ * 发送后按股票分层记录发送耗时，以及从接入流水线、从行情源到发送的全链路延迟（见TickLatencyRecorder）
+ */
+@Slf4j
+@Component
+public class QuotePublisher {
+
+    public static final String QUOTE_TOPIC_PREFIX = "/topic/quote/";
+    public static final String DELTA_TOPIC_PREFIX = "/topic/quote-delta/";
+    public static final String BINARY_TOPIC_PREFIX = "/topic/quote-bin/";
+
+    private static final Map<String, Object> BINARY_HEADERS =
+            Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private TickLatencyRecorder latencyRecorder;
+
+    private final ConcurrentHashMap<String, QuoteSnapshot> lastPublished = new ConcurrentHashMap<>();
+
+    private Counter sentCounter;
+    private Counter skippedCounter;
+    private Counter unsubscribedCounter;
+    private Timer[] sendTimers;
+
+    @PostConstruct
+    public void init() {
+        sentCounter = meterRegistry.counter("realtime.quote.publish", "result", "sent");
+        skippedCounter = meterRegistry.counter("realtime.quote.publish", "result", "unchanged");
+        unsubscribedCounter = meterRegistry.counter("realtime.quote.publish", "result", "unsubscribed");
+        sendTimers = latencyRecorder.tierTimers("realtime.ws.send",
+                "单笔行情序列化并交给STOMP代理发往各主题的耗时", Tags.empty());
+    }
+
+    /**
+     * 发布一笔行情，ingestNanos为接入流水线的时刻，0表示未经流水线；同一只股票须由同一线程调用
+     */
+    public void offer(RealtimeQuote quote, long ingestNanos) {
+        String stockCode = quote.getStockCode();
+        QuoteSnapshot previous = lastPublished.get(stockCode);
+        if (previous != null && QuoteField.sameMarketData(previous.getQuote(), quote)) {
+            skippedCounter.increment();
+            return;
+        }
+        long seq = previous == null ? 1 : previous.getSeq() + 1;
+        // 先登记再发送：快照请求拿到的seq一定不小于已发出的增量帧
+        lastPublished.put(stockCode, new QuoteSnapshot(seq, quote));
+        if (!subscriptionRegistry.hasLocalSubscribers(stockCode)) {
+            // 本节点无人订阅只更新快照，不做序列化和广播
+            unsubscribedCounter.increment();
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            if (subscriptionRegistry.hasTopicSubscribers(QUOTE_TOPIC_PREFIX, stockCode)) {
+                messagingTemplate.convertAndSend(QUOTE_TOPIC_PREFIX + stockCode, quote);
+            }
+            if (subscriptionRegistry.hasTopicSubscribers(DELTA_TOPIC_PREFIX, stockCode)) {
+                messagingTemplate.convertAndSend(DELTA_TOPIC_PREFIX + stockCode,
+                        diff(previous == null ? null : previous.getQuote(), quote, seq));
+            }
+            if (subscriptionRegistry.hasTopicSubscribers(BINARY_TOPIC_PREFIX, stockCode)) {
+                messagingTemplate.convertAndSend(BINARY_TOPIC_PREFIX + stockCode,
+                        QuoteBinaryCodec.encode(quote), BINARY_HEADERS);
+            }
+            long end = System.nanoTime();
+            sendTimers[latencyRecorder.tierOf(stockCode).ordinal()].record(end - start, TimeUnit.NANOSECONDS);
+            latencyRecorder.recordSinceIngest(LatencyStage.WS_SEND, stockCode, ingestNanos, end);
+            latencyRecorder.recordSinceSource(quote, System.currentTimeMillis());
+            sentCounter.increment();
+        } catch (Exception e) {
+            log.error("发布行情失败: {}", stockCode, e);
+        }
+    }
+
+    /**
+     * 最近一次发布的行情及其增量序号，尚未发布过时返回null
+     */
+    public QuoteSnapshot getSnapshot(String stockCode) {
+        return lastPublished.get(stockCode);
+    }
+
+    /**
+     * 计算相对上一帧的增量，没有上一帧时携带全部非空字段
+     */
+    static QuoteDelta diff(RealtimeQuote previous, RealtimeQuote quote, long seq) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (QuoteField field : QuoteField.values()) {
+            if (previous == null ? field.get(quote) != null : !field.same(previous, quote)) {
+                fields.put(field.getProperty(), field.get(quote));
+            }
+        }
+        return new QuoteDelta(quote.getStockCode(), seq, quote.getUpdateTime(), fields);
+    }
+}
@@ -0,0 +1,19 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 行情快照：完整行情及其对应的增量序号，客户端从seq + 1开始应用增量帧
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteSnapshot {
+
+    private long seq;
+
+    private RealtimeQuote quote;
+}
@@ -0,0 +1,145 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.latency.TickLatencyRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 会话写出调度
+ * 登记所有合并会话，按固定节奏把各会话排队的帧交给专用写出线程池（sessionDrainExecutor）；
+ * 每个会话同一时刻只有一个写出任务，慢客户端只阻塞自己的任务。线程池满时本轮跳过该会话，
+ * 不在调度线程上写出；顺序帧仍持续积压的会话被断开
+ */
+@Slf4j
+@Component
+public class SessionFlushScheduler {
+
+    @Autowired
+    @Qualifier("sessionDrainExecutor")
+    private Executor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TickLatencyRecorder latencyRecorder;
+
+    @Value("${realtime.push.session.conflate-prefixes:/topic/quote/,/topic/quote-bin/}")
+    private List<String> conflatePrefixes;
+
+    @Value("${realtime.push.session.resync-prefixes:/topic/quote-delta/}")
+    private List<String> resyncPrefixes;
+
+    @Value("${realtime.push.session.max-resync-frames:50}")
+    private int maxResyncFrames;
+
+    @Value("${realtime.push.session.max-ordered-frames:1000}")
+    private int maxOrderedFrames;
+
+    private final ConcurrentHashMap<String, ConflatingWebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    private Counter conflatedCounter;
+    private Counter resyncCounter;
+    private Counter rejectedCounter;
+    private Timer waitTimer;
+
+    @PostConstruct
+    public void init() {
+        conflatedCounter = meterRegistry.counter("realtime.ws.frames.conflated");
+        resyncCounter = meterRegistry.counter("realtime.ws.delta.resync");
+        rejectedCounter = meterRegistry.counter("realtime.ws.session.drain.rejected");
+        waitTimer = latencyRecorder.timer("realtime.ws.session.queue.wait",
+                "行情帧在会话出站队列中等待写出的时间", Tags.empty());
+        meterRegistry.gauge("realtime.ws.sessions", sessions, Map::size);
+        meterRegistry.gauge("realtime.ws.session.queue.depth.total", this, s -> s.totalQueueDepth());
+        meterRegistry.gauge("realtime.ws.session.queue.depth.max", this, s -> s.maxQueueDepth());
+    }
+
+    /**
+     * 为新连接创建合并会话
+     */
+    public ConflatingWebSocketSession register(WebSocketSession session) {
+        ConflatingWebSocketSession conflating =
+                new ConflatingWebSocketSession(session, conflatePrefixes, resyncPrefixes, maxResyncFrames,
+                        executor, conflatedCounter, resyncCounter, rejectedCounter, waitTimer);
+        sessions.put(session.getId(), conflating);
+        return conflating;
+    }
+
+    public ConflatingWebSocketSession get(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * 按节奏写出各会话的待发帧
+     */
+    @Scheduled(fixedDelayString = "${realtime.push.session.flush-interval-ms:200}")
+    public void flush() {
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            if (session.getOrderedDepth() > maxOrderedFrames) {
+                // 既不可合并也不可丢弃的帧仍持续积压，说明客户端已无法跟上，断开让其重连
+                log.warn("会话积压过多，断开连接: {}, 排队帧数={}", session.getId(), session.getOrderedDepth());
+                closeQuietly(session);
+                continue;
+            }
+            if (session.getQueueDepth() > 0 && !session.isDraining()) {
+                session.scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * 各会话当前排队帧数
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        sessions.forEach((id, session) -> depths.put(id, session.getQueueDepth()));
+        return depths;
+    }
+
+    private double totalQueueDepth() {
+        long total = 0;
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            total += session.getQueueDepth();
+        }
+        return total;
+    }
+
+    private double maxQueueDepth() {
+        int max = 0;
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            max = Math.max(max, session.getQueueDepth());
+        }
+        return max;
+    }
+
+    private void closeQuietly(ConflatingWebSocketSession session) {
+        sessions.remove(session.getId());
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.debug("关闭会话失败: {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.stock.realtime.push;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订阅校验
+ * 按股票推送的主题在进入代理前校验代码格式和订阅数上限（见SubscriptionRegistry.checkSubscribe），
+ * 不合法的SUBSCRIBE帧被拒绝，客户端收到ERROR帧
+ */
+@Component
+public class SubscriptionLimitInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        try {
+            subscriptionRegistry.checkSubscribe(accessor.getSessionId(), accessor.getDestination());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new MessageDeliveryException(message, e.getMessage());
+        }
+        return message;
+    }
+}
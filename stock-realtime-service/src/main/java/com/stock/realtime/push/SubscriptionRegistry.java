@@ -0,0 +1,326 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.cluster.ClusterNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 行情订阅登记
+ * 根据STOMP订阅、退订和断开事件维护每只股票的订阅数，行情生成和推送只针对有订阅的股票和常驻股票；
+ * 同时按主题（JSON、增量、二进制）分别计数，发布器只编码和发送有订阅者的主题。
+ * 集群模式下各节点定期把本节点关注的股票写入Redis集合（带过期时间），生成节点取所有节点的并集。
+ * 股票代码须符合代码格式，每个会话和本节点的订阅股票数有上限，客户端不能任意扩大行情生成范围
+ */
+@Slf4j
+@Component
+public class SubscriptionRegistry {
+
+    private static final String NODES_KEY = "stock:subscription:nodes";
+    private static final String NODE_KEY_PREFIX = "stock:subscription:node:";
+    private static final String STAGING_SUFFIX = ":staging";
+
+    /**
+     * 按股票推送的行情主题前缀
+     */
+    private static final String[] SYMBOL_TOPICS = {
+            QuotePublisher.QUOTE_TOPIC_PREFIX,
+            QuotePublisher.DELTA_TOPIC_PREFIX,
+            QuotePublisher.BINARY_TOPIC_PREFIX
+    };
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.subscription.always-on:}")
+    private List<String> alwaysOn;
+
+    @Value("${realtime.subscription.node-ttl-seconds:15}")
+    private long nodeTtlSeconds;
+
+    @Value("${realtime.subscription.symbol-pattern:\\d{6}}")
+    private String symbolPattern;
+
+    @Value("${realtime.subscription.max-per-session:200}")
+    private int maxPerSession;
+
+    @Value("${realtime.subscription.max-symbols:6000}")
+    private int maxSymbols;
+
+    /**
+     * 会话ID -> (订阅ID -> 订阅目的地)
+     */
+    private final ConcurrentHashMap<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 股票代码 -> 本节点订阅数
+     */
+    private final ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+
+    /**
+     * 主题前缀 -> (股票代码 -> 本节点订阅数)
+     */
+    private final Map<String, ConcurrentHashMap<String, Integer>> topicCounts = new HashMap<>();
+
+    private volatile Set<String> clusterSymbols = Collections.emptySet();
+
+    /**
+     * 其他模块登记的需要生成行情的股票（如自定义指数成分股），登记方 -> 股票代码
+     */
+    private final ConcurrentHashMap<String, Set<String>> pinned = new ConcurrentHashMap<>();
+
+    private Set<String> alwaysOnSymbols = Collections.emptySet();
+
+    private Pattern symbolFormat;
+
+    @PostConstruct
+    public void init() {
+        alwaysOn = alwaysOn.stream().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+        alwaysOnSymbols = new HashSet<>(alwaysOn);
+        symbolFormat = Pattern.compile(symbolPattern);
+        for (String prefix : SYMBOL_TOPICS) {
+            topicCounts.put(prefix, new ConcurrentHashMap<>());
+        }
+        meterRegistry.gauge("realtime.subscription.symbols", counts, Map::size);
+        meterRegistry.gauge("realtime.subscription.sessions", sessions, Map::size);
+        log.info("常驻行情股票: {}", alwaysOn);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        String symbol = symbolOf(destination);
+        if (symbol == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        if (!symbolFormat.matcher(symbol).matches()) {
+            return;
+        }
+        Map<String, String> subscriptions =
+                sessions.computeIfAbsent(accessor.getSessionId(), k -> new ConcurrentHashMap<>());
+        if (subscriptions.size() >= maxPerSession) {
+            return;
+        }
+        if (subscriptions.put(accessor.getSubscriptionId(), destination) == null) {
+            // 增减都在同一个键的原子操作内完成，计数归零删除与新订阅不会交错
+            counts.merge(symbol, 1, Integer::sum);
+            topicCounts.get(topicOf(destination)).merge(symbol, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 校验订阅请求，由SubscriptionLimitInterceptor在SUBSCRIBE帧进入代理前调用
+     *
+     * @throws IllegalArgumentException 股票代码格式不合法
+     * @throws IllegalStateException    超出会话或本节点的订阅股票数上限
+     */
+    public void checkSubscribe(String sessionId, String destination) {
+        String symbol = symbolOf(destination);
+        if (symbol == null) {
+            return;
+        }
+        if (!symbolFormat.matcher(symbol).matches()) {
+            throw new IllegalArgumentException("股票代码格式不合法: " + symbol);
+        }
+        Map<String, String> subscriptions = sessionId == null ? null : sessions.get(sessionId);
+        if (subscriptions != null && subscriptions.size() >= maxPerSession) {
+            throw new IllegalStateException("单个连接最多订阅" + maxPerSession + "个行情主题");
+        }
+        if (!counts.containsKey(symbol) && counts.size() >= maxSymbols) {
+            throw new IllegalStateException("订阅股票数已达上限: " + maxSymbols);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            release(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * 本节点是否有该股票的订阅者
+     */
+    public boolean hasLocalSubscribers(String stockCode) {
+        return counts.containsKey(stockCode);
+    }
+
+    /**
+     * 本节点是否有该股票在指定主题（QuotePublisher的主题前缀）上的订阅者
+     */
+    public boolean hasTopicSubscribers(String topicPrefix, String stockCode) {
+        ConcurrentHashMap<String, Integer> topic = topicCounts.get(topicPrefix);
+        return topic != null && topic.containsKey(stockCode);
+    }
+
+    /**
+     * 是否为常驻股票
+     */
+    public boolean isAlwaysOn(String stockCode) {
+        return alwaysOnSymbols.contains(stockCode);
+    }
+
+    /**
+     * 按登记方整体替换需要生成行情的股票，传入空集合即释放
+     * 登记的股票只参与行情生成，不计入订阅数
+     */
+    public void pin(String owner, Set<String> symbols) {
+        if (symbols.isEmpty()) {
+            pinned.remove(owner);
+        } else {
+            pinned.put(owner, Set.copyOf(symbols));
+        }
+    }
+
+    /**
+     * 需要生成行情的股票：常驻股票、登记的股票加上（集群模式下所有节点的）订阅股票
+     */
+    public Set<String> getActiveSymbols() {
+        Set<String> symbols = new LinkedHashSet<>(alwaysOn);
+        pinned.values().forEach(symbols::addAll);
+        symbols.addAll(counts.keySet());
+        if (clusterEnabled) {
+            symbols.addAll(clusterSymbols);
+        }
+        return symbols;
+    }
+
+    /**
+     * 本节点各股票的订阅数
+     */
+    public Map<String, Integer> getSubscriptionCounts() {
+        Map<String, Integer> result = new TreeMap<>();
+        result.putAll(counts);
+        return result;
+    }
+
+    /**
+     * 集群模式下同步本节点关注的股票，并刷新所有节点的并集
+     */
+    @Scheduled(fixedDelayString = "${realtime.subscription.sync-interval-ms:5000}")
+    public void syncCluster() {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            String nodeKey = NODE_KEY_PREFIX + clusterNode.getNodeId();
+            byte[] nodeKeyBytes = nodeKey.getBytes(StandardCharsets.UTF_8);
+            byte[][] members = counts.keySet().stream()
+                    .map(s -> s.getBytes(StandardCharsets.UTF_8))
+                    .toArray(byte[][]::new);
+            byte[] stagingKeyBytes = (nodeKey + STAGING_SUFFIX).getBytes(StandardCharsets.UTF_8);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (members.length > 0) {
+                    // 先写暂存集合再RENAME原子替换（连同过期时间），其他节点读不到删除后、写入前的空集合
+                    connection.del(stagingKeyBytes);
+                    connection.sAdd(stagingKeyBytes, members);
+                    connection.expire(stagingKeyBytes, nodeTtlSeconds);
+                    connection.rename(stagingKeyBytes, nodeKeyBytes);
+                } else {
+                    connection.del(nodeKeyBytes);
+                }
+                connection.sAdd(NODES_KEY.getBytes(StandardCharsets.UTF_8),
+                        clusterNode.getNodeId().getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+
+            Set<String> union = new HashSet<>();
+            Set<byte[]> nodes = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                    connection.sMembers(NODES_KEY.getBytes(StandardCharsets.UTF_8)));
+            if (nodes != null) {
+                for (byte[] node : nodes) {
+                    byte[] key = (NODE_KEY_PREFIX + new String(node, StandardCharsets.UTF_8))
+                            .getBytes(StandardCharsets.UTF_8);
+                    Set<byte[]> symbols = redisTemplate.execute(
+                            (RedisCallback<Set<byte[]>>) connection -> connection.sMembers(key));
+                    if (symbols == null || symbols.isEmpty()) {
+                        // 节点集合已过期（节点下线或无订阅），从节点列表中移除
+                        redisTemplate.execute((RedisCallback<Long>) connection ->
+                                connection.sRem(NODES_KEY.getBytes(StandardCharsets.UTF_8), node));
+                        continue;
+                    }
+                    symbols.forEach(s -> union.add(new String(s, StandardCharsets.UTF_8)));
+                }
+            }
+            clusterSymbols = union;
+        } catch (Exception e) {
+            log.warn("同步集群订阅失败: {}", e.getMessage());
+        }
+    }
+
+    private void release(String destination) {
+        String symbol = symbolOf(destination);
+        if (symbol == null) {
+            return;
+        }
+        counts.computeIfPresent(symbol, (k, count) -> count > 1 ? count - 1 : null);
+        topicCounts.get(topicOf(destination)).computeIfPresent(symbol, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 从订阅目的地解析股票代码，非按股票推送的主题返回null
+     */
+    static String symbolOf(String destination) {
+        String prefix = topicOf(destination);
+        return prefix == null ? null : destination.substring(prefix.length());
+    }
+
+    /**
+     * 订阅目的地所属的按股票推送主题前缀，不是按股票推送的主题时返回null
+     */
+    static String topicOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        for (String prefix : SYMBOL_TOPICS) {
+            if (destination.startsWith(prefix) && destination.length() > prefix.length()) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+}
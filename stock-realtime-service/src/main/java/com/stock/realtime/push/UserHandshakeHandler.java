@@ -0,0 +1,54 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.auth.JwtAuthenticator;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * 以握手请求中JWT的用户ID作为WebSocket会话的用户身份，供/user目的地（如提醒通知）按用户投递；
+ * token取自Authorization请求头，浏览器无法为WebSocket设置请求头时取自access_token查询参数。
+ * 没有有效token的连接为匿名会话，只能订阅公共主题
+ */
+public class UserHandshakeHandler extends DefaultHandshakeHandler {
+
+    public static final String TOKEN_PARAM = "access_token";
+
+    private final JwtAuthenticator authenticator;
+
+    public UserHandshakeHandler(JwtAuthenticator authenticator) {
+        this.authenticator = authenticator;
+    }
+
+    @Override
+    protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                      Map<String, Object> attributes) {
+        String userId = authenticator.authenticate(request.getHeaders().getFirst(JwtAuthenticator.AUTHORIZATION_HEADER));
+        if (userId == null) {
+            userId = authenticator.verify(UriComponentsBuilder.fromUri(request.getURI()).build()
+                    .getQueryParams().getFirst(TOKEN_PARAM));
+        }
+        if (userId != null) {
+            return new UserPrincipal(userId);
+        }
+        return super.determineUser(request, wsHandler, attributes);
+    }
+
+    private static final class UserPrincipal implements Principal {
+
+        private final String name;
+
+        private UserPrincipal(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
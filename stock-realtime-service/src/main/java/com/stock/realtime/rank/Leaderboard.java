@@ -0,0 +1,164 @@
+package com.stock.realtime.rank;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时排行榜
+ * 每个排行指标维护一份有序索引，每笔行情按O(log n)更新，不再对全市场定期排序；
+ * 定时取各榜单前N名，与上一次推送比较，有变化时连同名次变化推送到/topic/rank/{code}。
+ * 集群模式下各节点从行情总线接收全部行情，各自维护排行榜并推送给本节点的订阅者
+ */
+@Slf4j
+@Component
+public class Leaderboard {
+
+    public static final String RANK_TOPIC_PREFIX = "/topic/rank/";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.rank.top-n:50}")
+    private int topN;
+
+    @Value("${realtime.rank.max-limit:200}")
+    private int maxLimit;
+
+    private final Map<RankMetric, RankIndex> indexes = new EnumMap<>(RankMetric.class);
+
+    /**
+     * 各指标的更新版本号，推送时跳过没有变化的指标
+     */
+    private final Map<RankMetric, AtomicLong> versions = new EnumMap<>(RankMetric.class);
+
+    /**
+     * 各榜单上一次推送时的版本号和前N名，只在推送线程上访问
+     */
+    private final Map<RankBoard, Long> pushedVersions = new EnumMap<>(RankBoard.class);
+    private final Map<RankBoard, List<RankItem>> pushedItems = new EnumMap<>(RankBoard.class);
+
+    private Timer publishTimer;
+
+    @PostConstruct
+    public void init() {
+        for (RankMetric metric : RankMetric.values()) {
+            indexes.put(metric, new RankIndex());
+            versions.put(metric, new AtomicLong());
+        }
+        publishTimer = Timer.builder("realtime.rank.publish")
+                .description("一轮排行榜比较和推送的耗时")
+                .register(meterRegistry);
+        meterRegistry.gauge("realtime.rank.symbols", indexes.get(RankMetric.CHANGE_PERCENT), RankIndex::size);
+        log.info("排行榜启动: 前{}名", topN);
+    }
+
+    /**
+     * 按一笔行情更新全部排行指标
+     */
+    public void onQuote(RealtimeQuote quote) {
+        String code = quote.getStockCode();
+        if (code == null) {
+            return;
+        }
+        double price = decimal(quote.getCurrentPrice());
+        double changePercent = decimal(quote.getChangePercent());
+        for (RankMetric metric : RankMetric.values()) {
+            if (indexes.get(metric).update(code, quote.getStockName(), metric.valueOf(quote), price, changePercent)) {
+                versions.get(metric).incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 查询榜单当前的前limit名
+     */
+    public RankSnapshot getBoard(RankBoard board, Integer limit) {
+        int n = limit == null ? topN : limit;
+        if (n <= 0 || n > maxLimit) {
+            throw new IllegalArgumentException("limit取值范围为1到" + maxLimit);
+        }
+        RankIndex index = indexes.get(board.getMetric());
+        return snapshot(board, index.size(), index.top(n, board.isDescending()), Collections.emptyList());
+    }
+
+    @Scheduled(fixedDelayString = "${realtime.rank.push-interval-ms:1000}")
+    public void publish() {
+        long start = System.nanoTime();
+        for (RankBoard board : RankBoard.values()) {
+            long version = versions.get(board.getMetric()).get();
+            Long pushed = pushedVersions.get(board);
+            if (pushed != null && pushed == version) {
+                continue;
+            }
+            pushedVersions.put(board, version);
+            RankIndex index = indexes.get(board.getMetric());
+            List<RankItem> items = index.top(topN, board.isDescending());
+            List<RankItem> previous = pushedItems.getOrDefault(board, Collections.emptyList());
+            if (items.equals(previous)) {
+                continue;
+            }
+            pushedItems.put(board, items);
+            try {
+                messagingTemplate.convertAndSend(RANK_TOPIC_PREFIX + board.getCode(),
+                        snapshot(board, index.size(), items, changes(previous, items)));
+            } catch (Exception e) {
+                log.warn("推送排行榜失败: {}", board.getCode(), e);
+            }
+        }
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 前N名中名次变化的股票，含新上榜和跌出榜单的
+     */
+    private static List<RankChange> changes(List<RankItem> previous, List<RankItem> current) {
+        Map<String, Integer> previousRanks = new HashMap<>(previous.size() * 2);
+        for (RankItem item : previous) {
+            previousRanks.put(item.getStockCode(), item.getRank());
+        }
+        List<RankChange> changes = new ArrayList<>();
+        for (RankItem item : current) {
+            Integer before = previousRanks.remove(item.getStockCode());
+            if (before == null || before != item.getRank()) {
+                changes.add(new RankChange(item.getStockCode(), item.getRank(), before == null ? 0 : before));
+            }
+        }
+        previousRanks.forEach((code, before) -> changes.add(new RankChange(code, 0, before)));
+        return changes;
+    }
+
+    private static RankSnapshot snapshot(RankBoard board, int total, List<RankItem> items, List<RankChange> changes) {
+        RankSnapshot snapshot = new RankSnapshot();
+        snapshot.setBoard(board.getCode());
+        snapshot.setTimestamp(System.currentTimeMillis());
+        snapshot.setTotal(total);
+        snapshot.setItems(items);
+        snapshot.setChanges(changes);
+        return snapshot;
+    }
+
+    private static double decimal(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+}
@@ -0,0 +1,45 @@
+package com.stock.realtime.rank;
+
+/**
+ * 对外的排行榜，每个榜单推送到/topic/rank/{code}
+ * 涨幅榜和跌幅榜共用涨跌幅索引，分别从两端读取
+ */
+public enum RankBoard {
+
+    GAINERS("gainers", RankMetric.CHANGE_PERCENT, true),
+    LOSERS("losers", RankMetric.CHANGE_PERCENT, false),
+    VOLUME("volume", RankMetric.VOLUME, true),
+    AMOUNT("amount", RankMetric.AMOUNT, true),
+    TURNOVER("turnover", RankMetric.TURNOVER_RATE, true);
+
+    private final String code;
+    private final RankMetric metric;
+    private final boolean descending;
+
+    RankBoard(String code, RankMetric metric, boolean descending) {
+        this.code = code;
+        this.metric = metric;
+        this.descending = descending;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public RankMetric getMetric() {
+        return metric;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public static RankBoard of(String value) {
+        for (RankBoard board : values()) {
+            if (board.code.equalsIgnoreCase(value) || board.name().equalsIgnoreCase(value)) {
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("不支持的排行榜: " + value);
+    }
+}
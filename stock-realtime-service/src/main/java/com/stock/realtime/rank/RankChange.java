@@ -0,0 +1,20 @@
+package com.stock.realtime.rank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 相对上一次推送的名次变化，rank为0表示跌出榜单，previousRank为0表示新上榜
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankChange {
+
+    private String stockCode;
+
+    private int rank;
+
+    private int previousRank;
+}
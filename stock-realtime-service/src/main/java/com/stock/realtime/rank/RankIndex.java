@@ -0,0 +1,88 @@
+package com.stock.realtime.rank;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 单个指标的有序索引
+ * 跳表按指标值降序（同值按代码）排列，另以哈希表记录每只股票当前所在的条目；
+ * 更新时删除旧条目再插入新条目，均为O(log n)，读取任一端的前N名为O(N)。
+ * 同一只股票的更新总在同一个线程上；读取与更新并发时可能短暂看到新旧条目之一，不影响快照使用
+ */
+final class RankIndex {
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = Double.compare(b.value, a.value);
+        return c != 0 ? c : a.stockCode.compareTo(b.stockCode);
+    };
+
+    private final ConcurrentSkipListSet<Entry> ranked = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentHashMap<String, Entry> current = new ConcurrentHashMap<>();
+
+    /**
+     * 更新一只股票的指标值，NaN表示移出排行
+     *
+     * @return 排行是否发生变化
+     */
+    boolean update(String stockCode, String stockName, double value, double price, double changePercent) {
+        Entry previous = current.get(stockCode);
+        if (Double.isNaN(value)) {
+            if (previous != null && current.remove(stockCode, previous)) {
+                ranked.remove(previous);
+                return true;
+            }
+            return false;
+        }
+        if (previous != null && previous.value == value && previous.price == price) {
+            return false;
+        }
+        Entry entry = new Entry(stockCode, stockName, value, price, changePercent);
+        current.put(stockCode, entry);
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+        ranked.add(entry);
+        return true;
+    }
+
+    int size() {
+        return current.size();
+    }
+
+    /**
+     * 前limit名
+     *
+     * @param descending true从最大值开始，false从最小值开始
+     */
+    List<RankItem> top(int limit, boolean descending) {
+        List<RankItem> items = new ArrayList<>(limit);
+        Iterator<Entry> iterator = descending ? ranked.iterator() : ranked.descendingIterator();
+        while (iterator.hasNext() && items.size() < limit) {
+            Entry entry = iterator.next();
+            items.add(new RankItem(items.size() + 1, entry.stockCode, entry.stockName, entry.value,
+                    entry.price, entry.changePercent));
+        }
+        return items;
+    }
+
+    private static final class Entry {
+
+        private final String stockCode;
+        private final String stockName;
+        private final double value;
+        private final double price;
+        private final double changePercent;
+
+        private Entry(String stockCode, String stockName, double value, double price, double changePercent) {
+            this.stockCode = stockCode;
+            this.stockName = stockName;
+            this.value = value;
+            this.price = price;
+            this.changePercent = changePercent;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.stock.realtime.rank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行榜中的一项，rank从1开始
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankItem {
+
+    private int rank;
+
+    private String stockCode;
+
+    private String stockName;
+
+    /**
+     * 排行指标的值
+     */
+    private double value;
+
+    private double price;
+
+    private double changePercent;
+}
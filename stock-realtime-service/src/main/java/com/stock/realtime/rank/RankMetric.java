@@ -0,0 +1,36 @@
+package com.stock.realtime.rank;
+
+import com.stock.realtime.entity.RealtimeQuote;
+
+import java.math.BigDecimal;
+
+/**
+ * 排行指标
+ */
+public enum RankMetric {
+
+    CHANGE_PERCENT,
+    VOLUME,
+    AMOUNT,
+    TURNOVER_RATE;
+
+    /**
+     * 从行情中取出指标值，缺失时返回NaN
+     */
+    public double valueOf(RealtimeQuote quote) {
+        switch (this) {
+            case CHANGE_PERCENT:
+                return decimal(quote.getChangePercent());
+            case VOLUME:
+                return quote.getVolume() == null ? Double.NaN : quote.getVolume();
+            case AMOUNT:
+                return decimal(quote.getAmount());
+            default:
+                return decimal(quote.getTurnoverRate());
+        }
+    }
+
+    private static double decimal(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+}
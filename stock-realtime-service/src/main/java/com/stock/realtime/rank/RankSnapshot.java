@@ -0,0 +1,28 @@
+package com.stock.realtime.rank;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 排行榜快照：前N名及相对上一次推送的名次变化
+ */
+@Data
+public class RankSnapshot {
+
+    private String board;
+
+    private long timestamp;
+
+    /**
+     * 参与排行的股票数
+     */
+    private int total;
+
+    private List<RankItem> items;
+
+    /**
+     * 主动查询时为空
+     */
+    private List<RankChange> changes;
+}
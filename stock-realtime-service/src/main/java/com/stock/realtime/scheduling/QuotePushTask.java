@@ -1,14 +1,28 @@
 package com.stock.realtime.scheduling;
 
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.cluster.ClusterNode;
+import com.stock.realtime.cluster.QuoteBus;
 import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.feed.MqQuoteFeed;
+import com.stock.realtime.feed.SyntheticMarketFeed;
+import com.stock.realtime.push.SubscriptionRegistry;
+import com.stock.realtime.service.BatchIndicatorService;
 import com.stock.realtime.service.RealtimeQuoteService;
+import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,30 +32,72 @@ import java.util.List;
 @Component
 public class QuotePushTask {
 
+    private static final String PRODUCER_LEASE_KEY = "lease:scheduled:pushQuote";
+
+    /**
+     * 租约不存在时以本节点占有，由本节点持有时续期
+     */
+    private static final String ACQUIRE_LEASE_SCRIPT =
+            "local holder = redis.call('get', KEYS[1]) "
+            + "if holder == false then redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end "
+            + "if holder == ARGV[1] then redis.call('pexpire', KEYS[1], ARGV[2]) return 1 end "
+            + "return 0";
+
+    /**
+     * 只释放本节点持有的租约
+     */
+    private static final String RELEASE_LEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0";
+
     @Autowired
     private RealtimeQuoteService quoteService;
 
-    // 模拟的热门股票列表
-    private static final String[] HOT_STOCKS = {
-            "000001", "000002", "000333", "600000", "600036",
-            "600519", "601318", "601398", "601857", "601988"
-    };
+    @Autowired
+    private BatchIndicatorService batchIndicatorService;
+
+    @Autowired
+    private QuoteBus quoteBus;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Value("${realtime.feed.source:mock}")
+    private String feedSource;
+
+    @Value("${realtime.cluster.producer-lease-ms:12000}")
+    private long producerLeaseMs;
 
     /**
      * 定时推送行情（每5秒执行一次）
-     * 使用Spring @Scheduled
+     * 使用Spring @Scheduled，只生成有订阅者的股票和常驻股票的行情；启用模拟行情源或消息队列行情源时由行情源生成
      */
     @Scheduled(fixedRate = 5000, initialDelay = 10000)
     public void pushQuoteScheduled() {
+        if (SyntheticMarketFeed.SOURCE.equalsIgnoreCase(feedSource) || MqQuoteFeed.SOURCE.equalsIgnoreCase(feedSource)) {
+            return;
+        }
+        if (quoteBus.isClusterEnabled() && !acquireProducerLease()) {
+            log.debug("其他节点正在生成行情，跳过");
+            return;
+        }
         try {
             log.info("开始推送实时行情...");
             List<RealtimeQuote> quotes = new ArrayList<>();
             
-            for (String stockCode : HOT_STOCKS) {
+            for (String stockCode : subscriptionRegistry.getActiveSymbols()) {
                 RealtimeQuote quote = quoteService.generateMockQuote(stockCode, "股票" + stockCode);
                 quotes.add(quote);
             }
             
+            if (quotes.isEmpty()) {
+                return;
+            }
             quoteService.pushQuoteBatch(quotes);
             log.info("推送行情完成，共{}只股票", quotes.size());
         } catch (Exception e) {
@@ -49,6 +105,40 @@ public class QuotePushTask {
         }
     }
 
+    /**
+     * 集群模式下竞争行情生成权
+     * 租约值为节点ID，有效期长于推送周期，持有节点每个周期续期；持有节点下线后租约过期，由其他节点接管。
+     * 租约按节点而不是按线程持有，定时任务在哪个调度线程上执行都能续期
+     */
+    private boolean acquireProducerLease() {
+        try {
+            Boolean acquired = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    ACQUIRE_LEASE_SCRIPT, RScript.ReturnType.BOOLEAN,
+                    Collections.singletonList(PRODUCER_LEASE_KEY), clusterNode.getNodeId(), String.valueOf(producerLeaseMs));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            log.warn("竞争行情生成权失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 停机时释放本节点持有的租约，其他节点下个周期即可接管
+     */
+    @PreDestroy
+    public void releaseProducerLease() {
+        if (!quoteBus.isClusterEnabled()) {
+            return;
+        }
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    RELEASE_LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(PRODUCER_LEASE_KEY), clusterNode.getNodeId());
+        } catch (Exception e) {
+            log.debug("释放行情生成租约失败: {}", e.getMessage());
+        }
+    }
+
     /**
      * XXL-JOB任务：推送行情
      */
@@ -68,6 +158,18 @@ public class QuotePushTask {
         log.info("XXL-JOB: 缓存清理完成");
     }
 
+    /**
+     * XXL-JOB任务：全市场截面指标批量计算
+     * 任务参数为K线周期（如1d、5m），为空时计算日线
+     */
+    @XxlJob("batchIndicatorJob")
+    public void batchIndicatorJob() {
+        String param = XxlJobHelper.getJobParam();
+        BarTimeframe timeframe = param == null || param.isBlank() ? BarTimeframe.D1 : BarTimeframe.of(param.trim());
+        log.info("XXL-JOB: 开始计算截面指标, 周期={}", timeframe.getCode());
+        batchIndicatorService.calculate(timeframe);
+    }
+
     /**
      * XXL-JOB任务：同步历史数据到InfluxDB
      */
@@ -0,0 +1,21 @@
+package com.stock.realtime.screener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已注册的选股条件及其当前结果集
+ */
+final class Screen {
+
+    final ScreenDefinition definition;
+    final ScreenExpression expression;
+    final String topic;
+    final Set<String> matches = ConcurrentHashMap.newKeySet();
+
+    Screen(ScreenDefinition definition, ScreenExpression expression, String topic) {
+        this.definition = definition;
+        this.expression = expression;
+        this.topic = topic;
+    }
+}
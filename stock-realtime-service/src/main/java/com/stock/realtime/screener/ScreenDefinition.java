@@ -0,0 +1,18 @@
+package com.stock.realtime.screener;
+
+import lombok.Data;
+
+/**
+ * 选股条件定义，持久化到Redis
+ */
+@Data
+public class ScreenDefinition {
+
+    private String id;
+
+    private String name;
+
+    private String expression;
+
+    private long createdAt;
+}
@@ -0,0 +1,24 @@
+package com.stock.realtime.screener;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 股票进入（matched=true）或退出选股结果的事件，推送到/topic/screen/{id}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenEvent {
+
+    private String screenId;
+
+    private String stockCode;
+
+    private boolean matched;
+
+    private double close;
+
+    private long timestamp;
+}
@@ -0,0 +1,457 @@
+package com.stock.realtime.screener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 选股条件编译器
+ *
+ * <pre>
+ * 条件   := 或 ;  或 := 与 (OR 与)* ;  与 := 非 (AND 非)* ;  非 := NOT 非 | '(' 条件 ')' | 比较
+ * 比较   := 算式 (&lt; | &lt;= | &gt; | &gt;= | = | != ) 算式  |  信号字段 (= | !=) '取值'
+ * 算式   := 项 ((+ | -) 项)* ;  项 := 因子 ((* | /) 因子)* ;  因子 := 数值 | 字段 | '(' 算式 ')' | - 因子
+ * </pre>
+ * 关键字不区分大小写，AND/OR/NOT也可写作&amp;&amp;、||、!；"2x VOL_MA5"等价于"2 * VOL_MA5"。
+ * 编译结果是直接读取字段数组的闭包，任一侧为NaN（如指标尚未形成）的比较不成立
+ */
+public final class ScreenExpression {
+
+    private static final int MAX_LENGTH = 1000;
+
+    private final String source;
+    private final ScreenCondition condition;
+    private final long fieldMask;
+
+    private ScreenExpression(String source, ScreenCondition condition, long fieldMask) {
+        this.source = source;
+        this.condition = condition;
+        this.fieldMask = fieldMask;
+    }
+
+    /**
+     * 编译条件表达式
+     *
+     * @throws IllegalArgumentException 语法错误或引用了不存在的字段
+     */
+    public static ScreenExpression compile(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("选股条件不能为空");
+        }
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("选股条件过长");
+        }
+        Parser parser = new Parser(tokenize(source));
+        ScreenCondition condition = parser.parseOr();
+        if (!parser.atEnd()) {
+            throw parser.error();
+        }
+        return new ScreenExpression(source, condition, parser.mask);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 条件引用的字段位图，字段值都没有变化时无需重新求值
+     */
+    public long getFieldMask() {
+        return fieldMask;
+    }
+
+    public boolean test(double[] fields) {
+        return condition.test(fields);
+    }
+
+    @FunctionalInterface
+    interface ScreenCondition {
+
+        boolean test(double[] fields);
+    }
+
+    @FunctionalInterface
+    private interface Operand {
+
+        double eval(double[] fields);
+    }
+
+    private enum TokenType {
+        NUMBER, IDENT, STRING, COMPARE, PLUS, MINUS, STAR, SLASH, LPAREN, RPAREN, AND, OR, NOT, END
+    }
+
+    private static final class Token {
+
+        private final TokenType type;
+        private final String text;
+        private final int position;
+
+        private Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = source.length();
+        while (i < n) {
+            char c = source.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || c == '.') {
+                while (i < n && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, source.substring(start, i), start));
+                // 倍数写法：2x VOL_MA5
+                if (i < n && (source.charAt(i) == 'x' || source.charAt(i) == 'X')
+                        && (i + 1 == n || !isIdentifierPart(source.charAt(i + 1)))) {
+                    tokens.add(new Token(TokenType.STAR, "*", i));
+                    i++;
+                }
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < n && isIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                String word = source.substring(start, i);
+                switch (word.toUpperCase(Locale.ROOT)) {
+                    case "AND":
+                        tokens.add(new Token(TokenType.AND, word, start));
+                        break;
+                    case "OR":
+                        tokens.add(new Token(TokenType.OR, word, start));
+                        break;
+                    case "NOT":
+                        tokens.add(new Token(TokenType.NOT, word, start));
+                        break;
+                    default:
+                        tokens.add(new Token(TokenType.IDENT, word, start));
+                }
+            } else if (c == '\'' || c == '"') {
+                int end = source.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("字符串未结束，位置" + start);
+                }
+                tokens.add(new Token(TokenType.STRING, source.substring(i + 1, end), start));
+                i = end + 1;
+            } else if (source.startsWith("&&", i)) {
+                tokens.add(new Token(TokenType.AND, "&&", start));
+                i += 2;
+            } else if (source.startsWith("||", i)) {
+                tokens.add(new Token(TokenType.OR, "||", start));
+                i += 2;
+            } else if (source.startsWith("<=", i) || source.startsWith(">=", i) || source.startsWith("!=", i)
+                    || source.startsWith("==", i) || source.startsWith("<>", i)) {
+                tokens.add(new Token(TokenType.COMPARE, source.substring(i, i + 2), start));
+                i += 2;
+            } else if (c == '<' || c == '>' || c == '=') {
+                tokens.add(new Token(TokenType.COMPARE, String.valueOf(c), start));
+                i++;
+            } else if (c == '!') {
+                tokens.add(new Token(TokenType.NOT, "!", start));
+                i++;
+            } else if (c == '+') {
+                tokens.add(new Token(TokenType.PLUS, "+", start));
+                i++;
+            } else if (c == '-') {
+                tokens.add(new Token(TokenType.MINUS, "-", start));
+                i++;
+            } else if (c == '*') {
+                tokens.add(new Token(TokenType.STAR, "*", start));
+                i++;
+            } else if (c == '/') {
+                tokens.add(new Token(TokenType.SLASH, "/", start));
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.LPAREN, "(", start));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenType.RPAREN, ")", start));
+                i++;
+            } else {
+                throw new IllegalArgumentException("无法识别的字符'" + c + "'，位置" + start);
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", n));
+        return tokens;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * 递归下降解析，边解析边生成闭包
+     */
+    private static final class Parser {
+
+        private final List<Token> tokens;
+        private int pos;
+        private long mask;
+
+        private Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        private boolean atEnd() {
+            return peek().type == TokenType.END;
+        }
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token next() {
+            return tokens.get(pos++);
+        }
+
+        private boolean accept(TokenType type) {
+            if (peek().type == type) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private IllegalArgumentException error() {
+            Token token = peek();
+            return new IllegalArgumentException(token.type == TokenType.END
+                    ? "选股条件不完整"
+                    : "选股条件语法错误，位置" + token.position + "附近的'" + token.text + "'");
+        }
+
+        private ScreenCondition parseOr() {
+            ScreenCondition left = parseAnd();
+            while (accept(TokenType.OR)) {
+                ScreenCondition a = left;
+                ScreenCondition b = parseAnd();
+                left = f -> a.test(f) || b.test(f);
+            }
+            return left;
+        }
+
+        private ScreenCondition parseAnd() {
+            ScreenCondition left = parseNot();
+            while (accept(TokenType.AND)) {
+                ScreenCondition a = left;
+                ScreenCondition b = parseNot();
+                left = f -> a.test(f) && b.test(f);
+            }
+            return left;
+        }
+
+        private ScreenCondition parseNot() {
+            if (accept(TokenType.NOT)) {
+                ScreenCondition inner = parseNot();
+                return f -> !inner.test(f);
+            }
+            if (peek().type == TokenType.LPAREN) {
+                // 括号可能包住条件，也可能是算式的一部分（如 (CLOSE - MA20) / MA20 > 0.05），先按条件尝试
+                int mark = pos;
+                long maskMark = mask;
+                try {
+                    pos++;
+                    ScreenCondition inner = parseOr();
+                    if (accept(TokenType.RPAREN)) {
+                        return inner;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // 按算式重新解析
+                }
+                pos = mark;
+                mask = maskMark;
+            }
+            return parseComparison();
+        }
+
+        private ScreenCondition parseComparison() {
+            Token fieldToken = peek();
+            ScreenField signal = fieldToken.type == TokenType.IDENT ? ScreenField.of(fieldToken.text) : null;
+            if (signal != null && signal.isSignal()) {
+                return parseSignal(signal);
+            }
+            Operand left = parseSum();
+            Token op = next();
+            if (op.type != TokenType.COMPARE) {
+                pos--;
+                throw error();
+            }
+            Operand right = parseSum();
+            return compare(op.text, left, right);
+        }
+
+        private ScreenCondition parseSignal(ScreenField field) {
+            next();
+            Token op = next();
+            Token value = next();
+            boolean equal = "=".equals(op.text) || "==".equals(op.text);
+            boolean notEqual = "!=".equals(op.text) || "<>".equals(op.text);
+            if (!equal && !notEqual) {
+                throw new IllegalArgumentException(field + "只支持=和!=比较");
+            }
+            if (value.type != TokenType.STRING && value.type != TokenType.IDENT) {
+                throw new IllegalArgumentException(field + "的取值应为" + field.getLabels() + "之一");
+            }
+            int code = field.code(value.text);
+            if (code < 0) {
+                throw new IllegalArgumentException(field + "的取值应为" + field.getLabels() + "之一: " + value.text);
+            }
+            mask |= field.mask();
+            int index = field.ordinal();
+            double expected = code;
+            return equal ? f -> f[index] == expected : f -> f[index] != expected && f[index] == f[index];
+        }
+
+        private Operand parseSum() {
+            Operand left = parseTerm();
+            while (true) {
+                if (accept(TokenType.PLUS)) {
+                    Operand a = left;
+                    Operand b = parseTerm();
+                    left = f -> a.eval(f) + b.eval(f);
+                } else if (accept(TokenType.MINUS)) {
+                    Operand a = left;
+                    Operand b = parseTerm();
+                    left = f -> a.eval(f) - b.eval(f);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Operand parseTerm() {
+            Operand left = parseFactor();
+            while (true) {
+                if (accept(TokenType.STAR)) {
+                    Operand a = left;
+                    Operand b = parseFactor();
+                    left = constant(a) && constant(b) ? fold(a.eval(null) * b.eval(null)) : f -> a.eval(f) * b.eval(f);
+                } else if (accept(TokenType.SLASH)) {
+                    Operand a = left;
+                    Operand b = parseFactor();
+                    left = f -> a.eval(f) / b.eval(f);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Operand parseFactor() {
+            Token token = next();
+            switch (token.type) {
+                case NUMBER:
+                    try {
+                        return fold(Double.parseDouble(token.text));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("数值不合法: " + token.text);
+                    }
+                case IDENT: {
+                    ScreenField field = ScreenField.of(token.text);
+                    if (field == null) {
+                        throw new IllegalArgumentException("不支持的字段: " + token.text);
+                    }
+                    if (field.isSignal()) {
+                        throw new IllegalArgumentException(field + "只能与取值比较，如 " + field + " = '...'");
+                    }
+                    mask |= field.mask();
+                    return new FieldOperand(field.ordinal());
+                }
+                case MINUS: {
+                    Operand inner = parseFactor();
+                    return constant(inner) ? fold(-inner.eval(null)) : f -> -inner.eval(f);
+                }
+                case LPAREN: {
+                    Operand inner = parseSum();
+                    if (!accept(TokenType.RPAREN)) {
+                        throw error();
+                    }
+                    return inner;
+                }
+                default:
+                    pos--;
+                    throw error();
+            }
+        }
+
+        /**
+         * 生成比较闭包，字段与常量比较（最常见的形式）直接读数组，省去一层调用
+         */
+        private ScreenCondition compare(String op, Operand left, Operand right) {
+            if (left instanceof FieldOperand && right instanceof ConstantOperand) {
+                int i = ((FieldOperand) left).index;
+                double c = ((ConstantOperand) right).value;
+                switch (op) {
+                    case "<":
+                        return f -> f[i] < c;
+                    case "<=":
+                        return f -> f[i] <= c;
+                    case ">":
+                        return f -> f[i] > c;
+                    case ">=":
+                        return f -> f[i] >= c;
+                    default:
+                        break;
+                }
+            }
+            switch (op) {
+                case "<":
+                    return f -> left.eval(f) < right.eval(f);
+                case "<=":
+                    return f -> left.eval(f) <= right.eval(f);
+                case ">":
+                    return f -> left.eval(f) > right.eval(f);
+                case ">=":
+                    return f -> left.eval(f) >= right.eval(f);
+                case "=":
+                case "==":
+                    return f -> left.eval(f) == right.eval(f);
+                default:
+                    return f -> {
+                        double a = left.eval(f);
+                        double b = right.eval(f);
+                        return a != b && a == a && b == b;
+                    };
+            }
+        }
+
+        private static boolean constant(Operand operand) {
+            return operand instanceof ConstantOperand;
+        }
+
+        private static Operand fold(double value) {
+            return new ConstantOperand(value);
+        }
+    }
+
+    private static final class FieldOperand implements Operand {
+
+        private final int index;
+
+        private FieldOperand(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public double eval(double[] fields) {
+            return fields[index];
+        }
+    }
+
+    private static final class ConstantOperand implements Operand {
+
+        private final double value;
+
+        private ConstantOperand(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(double[] fields) {
+            return value;
+        }
+    }
+}
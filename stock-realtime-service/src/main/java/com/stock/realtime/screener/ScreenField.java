@@ -0,0 +1,114 @@
+package com.stock.realtime.screener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 选股条件可引用的字段，均基于日线：行情字段取形成中的当日K线，指标取增量指标引擎的当前值。
+ * 信号字段的值为labels中的下标，条件中写作 MACD_SIGNAL = '金叉'
+ */
+public enum ScreenField {
+
+    CLOSE("PRICE"),
+    OPEN,
+    HIGH,
+    LOW,
+    /**
+     * 当日累计成交量
+     */
+    VOLUME("VOL"),
+    AMOUNT,
+    PRE_CLOSE,
+    /**
+     * 涨跌幅（%），相对前一根日线收盘价
+     */
+    CHANGE_PCT("CHANGE"),
+    MA5,
+    MA10,
+    MA20,
+    MA30,
+    MA60,
+    MA120,
+    MA250,
+    RSI6,
+    RSI12,
+    RSI24,
+    DIF,
+    DEA,
+    MACD,
+    K,
+    D,
+    J,
+    BOLL_UPPER,
+    BOLL_MIDDLE,
+    BOLL_LOWER,
+    /**
+     * 前5、10个交易日的平均成交量（不含当日）
+     */
+    VOL_MA5,
+    VOL_MA10,
+    MACD_SIGNAL(new String[]{"死叉", "持平", "金叉"}),
+    KDJ_SIGNAL(new String[]{"超卖", "正常", "超买"}),
+    RSI_SIGNAL(new String[]{"超卖", "正常", "超买"}),
+    BOLL_SIGNAL(new String[]{"跌破下轨", "正常", "突破上轨"});
+
+    public static final int COUNT = values().length;
+
+    private static final Map<String, ScreenField> BY_NAME = new HashMap<>();
+
+    static {
+        for (ScreenField field : values()) {
+            BY_NAME.put(field.name(), field);
+            if (field.alias != null) {
+                BY_NAME.put(field.alias, field);
+            }
+        }
+    }
+
+    private final String alias;
+    private final List<String> labels;
+
+    ScreenField() {
+        this((String) null);
+    }
+
+    ScreenField(String alias) {
+        this.alias = alias;
+        this.labels = Collections.emptyList();
+    }
+
+    ScreenField(String[] labels) {
+        this.alias = null;
+        this.labels = Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    public boolean isSignal() {
+        return !labels.isEmpty();
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * 信号取值的编码，不是该信号的取值时返回-1
+     */
+    public int code(String label) {
+        return labels.indexOf(label);
+    }
+
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * 按名称或别名查找字段（不区分大小写），不存在时返回null
+     */
+    public static ScreenField of(String name) {
+        return BY_NAME.get(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,390 @@
+package com.stock.realtime.screener;
+
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.indicator.IncrementalIndicatorEngine;
+import com.stock.realtime.indicator.IndicatorValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时选股引擎
+ * 每只股票维护一份日线字段数组（行情、增量指标、信号），每个tick更新后得到变化字段的位图，
+ * 只对引用了变化字段的条件重新求值；结果集变化时推送进入/退出事件到/topic/screen/{id}。
+ * 同一只股票的更新总在同一个流水线分区线程上，按股票加锁无竞争。
+ * 条件定义保存在Redis，启动时加载；集群模式下各节点定期同步
+ */
+@Slf4j
+@Component
+@Order(200)
+public class ScreenerEngine implements BarListener {
+
+    public static final String SCREEN_TOPIC_PREFIX = "/topic/screen/";
+
+    private static final String SCREENS_KEY = "stock:screener:screens";
+
+    /**
+     * 计算成交量均线保留的已收盘日线根数
+     */
+    private static final int VOLUME_HISTORY = 10;
+
+    @Autowired
+    private IncrementalIndicatorEngine indicatorEngine;
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${realtime.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${realtime.screener.max-screens:5000}")
+    private int maxScreens;
+
+    private final ConcurrentHashMap<String, SymbolState> states = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Screen> screensById = new ConcurrentHashMap<>();
+
+    /**
+     * 求值时遍历的快照，增删条件时整体替换
+     */
+    private volatile Screen[] screens = new Screen[0];
+
+    private Timer evaluateTimer;
+    private Counter matchCounter;
+    private Counter unmatchCounter;
+
+    @PostConstruct
+    public void init() {
+        evaluateTimer = Timer.builder("realtime.screener.evaluate")
+                .description("单个tick上全部选股条件的求值耗时")
+                .register(meterRegistry);
+        matchCounter = meterRegistry.counter("realtime.screener.events", "type", "match");
+        unmatchCounter = meterRegistry.counter("realtime.screener.events", "type", "unmatch");
+        meterRegistry.gauge("realtime.screener.screens", screensById, Map::size);
+        try {
+            sync();
+        } catch (Exception e) {
+            log.error("加载选股条件失败", e);
+        }
+        log.info("选股引擎启动: 条件数={}", screensById.size());
+    }
+
+    @Override
+    public void onBarUpdate(String stockCode, BarTimeframe timeframe, long timestamp,
+                            double open, double high, double low, double close, long volume, double amount) {
+        if (timeframe != BarTimeframe.D1) {
+            return;
+        }
+        SymbolState state = states.computeIfAbsent(stockCode, k -> seed(k, timestamp));
+        Screen[] current = screens;
+        long start = System.nanoTime();
+        synchronized (state) {
+            long changed = state.update(indicatorEngine, open, high, low, close, volume, amount);
+            if (changed != 0) {
+                for (Screen screen : current) {
+                    if ((screen.expression.getFieldMask() & changed) != 0) {
+                        evaluate(screen, state, timestamp);
+                    }
+                }
+            }
+        }
+        if (current.length > 0) {
+            evaluateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        if (timeframe != BarTimeframe.D1) {
+            return;
+        }
+        SymbolState state = states.get(stockCode);
+        if (state != null) {
+            synchronized (state) {
+                state.commit(close, volume);
+            }
+        }
+    }
+
+    /**
+     * 注册选股条件，返回时结果集已按当前数据初始化
+     *
+     * @throws IllegalArgumentException 条件不合法
+     * @throws IllegalStateException    条件数已达上限
+     */
+    public ScreenDefinition register(String name, String expression) {
+        ScreenExpression compiled = ScreenExpression.compile(expression);
+        if (screensById.size() >= maxScreens) {
+            throw new IllegalStateException("选股条件数已达上限: " + maxScreens);
+        }
+        ScreenDefinition definition = new ScreenDefinition();
+        definition.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 16));
+        definition.setName(name == null || name.isBlank() ? expression : name);
+        definition.setExpression(expression);
+        definition.setCreatedAt(System.currentTimeMillis());
+        redisTemplate.opsForHash().put(SCREENS_KEY, definition.getId(), definition);
+        add(new Screen(definition, compiled, SCREEN_TOPIC_PREFIX + definition.getId()));
+        log.info("注册选股条件: {} {}", definition.getId(), expression);
+        return definition;
+    }
+
+    /**
+     * 删除选股条件
+     *
+     * @return 不存在时返回false
+     */
+    public boolean remove(String id) {
+        redisTemplate.opsForHash().delete(SCREENS_KEY, id);
+        return removeLocal(id);
+    }
+
+    public List<ScreenDefinition> getScreens() {
+        List<ScreenDefinition> definitions = new ArrayList<>(screensById.size());
+        for (Screen screen : screensById.values()) {
+            definitions.add(screen.definition);
+        }
+        definitions.sort(Comparator.comparingLong(ScreenDefinition::getCreatedAt));
+        return definitions;
+    }
+
+    /**
+     * 当前满足条件的股票，条件不存在时返回null
+     */
+    public List<String> getMatches(String id) {
+        Screen screen = screensById.get(id);
+        if (screen == null) {
+            return null;
+        }
+        List<String> matches = new ArrayList<>(screen.matches);
+        matches.sort(null);
+        return matches;
+    }
+
+    /**
+     * 集群模式下同步其他节点增删的条件
+     */
+    @Scheduled(fixedDelayString = "${realtime.screener.sync-interval-ms:5000}")
+    public void scheduledSync() {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("同步选股条件失败: {}", e.getMessage());
+        }
+    }
+
+    private void sync() {
+        Map<Object, Object> stored = redisTemplate.opsForHash().entries(SCREENS_KEY);
+        for (Object value : stored.values()) {
+            ScreenDefinition definition = (ScreenDefinition) value;
+            if (screensById.containsKey(definition.getId())) {
+                continue;
+            }
+            try {
+                add(new Screen(definition, ScreenExpression.compile(definition.getExpression()),
+                        SCREEN_TOPIC_PREFIX + definition.getId()));
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略无法编译的选股条件: {} {}", definition.getId(), e.getMessage());
+            }
+        }
+        for (String id : new ArrayList<>(screensById.keySet())) {
+            if (!stored.containsKey(id)) {
+                removeLocal(id);
+            }
+        }
+    }
+
+    private void add(Screen screen) {
+        synchronized (screensById) {
+            screensById.put(screen.definition.getId(), screen);
+            screens = screensById.values().toArray(new Screen[0]);
+        }
+        // 先加入求值快照再全量扫描：同一只股票的tick和扫描都在该股票的锁内，结果一致
+        for (SymbolState state : states.values()) {
+            synchronized (state) {
+                if (state.ready && screen.expression.test(state.fields)) {
+                    screen.matches.add(state.stockCode);
+                }
+            }
+        }
+    }
+
+    private boolean removeLocal(String id) {
+        synchronized (screensById) {
+            if (screensById.remove(id) == null) {
+                return false;
+            }
+            screens = screensById.values().toArray(new Screen[0]);
+            return true;
+        }
+    }
+
+    private void evaluate(Screen screen, SymbolState state, long timestamp) {
+        boolean matched = screen.expression.test(state.fields);
+        if (matched ? screen.matches.add(state.stockCode) : screen.matches.remove(state.stockCode)) {
+            (matched ? matchCounter : unmatchCounter).increment();
+            messagingTemplate.convertAndSend(screen.topic, new ScreenEvent(screen.definition.getId(),
+                    state.stockCode, matched, state.fields[ScreenField.CLOSE.ordinal()], timestamp));
+        }
+    }
+
+    /**
+     * 首次出现的股票从K线存储取前收盘价和成交量历史，formingTimestamp为当日K线的起始时间
+     */
+    private SymbolState seed(String stockCode, long formingTimestamp) {
+        SymbolState state = new SymbolState(stockCode);
+        barStore.readLocked(stockCode, BarTimeframe.D1, view -> {
+            state.resetHistory();
+            int end = view.size();
+            while (end > 0 && view.getTimestamp(end - 1) >= formingTimestamp) {
+                end--;
+            }
+            for (int i = Math.max(0, end - VOLUME_HISTORY); i < end; i++) {
+                state.commit(view.getClose(i), view.getVolume(i));
+            }
+            return null;
+        });
+        return state;
+    }
+
+    /**
+     * 单只股票的字段数组，访问需持有该对象的锁
+     */
+    private static final class SymbolState {
+
+        private final String stockCode;
+        private final IndicatorValues values = new IndicatorValues();
+        private final long[] volumes = new long[VOLUME_HISTORY];
+        private double[] fields = newFields();
+        private double[] next = newFields();
+        private int volumeCount;
+        private double preClose = Double.NaN;
+        private boolean ready;
+
+        private SymbolState(String stockCode) {
+            this.stockCode = stockCode;
+        }
+
+        private static double[] newFields() {
+            double[] fields = new double[ScreenField.COUNT];
+            Arrays.fill(fields, Double.NaN);
+            return fields;
+        }
+
+        private void resetHistory() {
+            volumeCount = 0;
+            preClose = Double.NaN;
+        }
+
+        /**
+         * 日线收盘：记入前收盘价和成交量历史
+         */
+        private void commit(double close, long volume) {
+            volumes[volumeCount % VOLUME_HISTORY] = volume;
+            volumeCount++;
+            preClose = close;
+        }
+
+        /**
+         * 用形成中的日线刷新字段
+         *
+         * @return 发生变化的字段位图
+         */
+        private long update(IncrementalIndicatorEngine engine, double open, double high, double low, double close,
+                            long volume, double amount) {
+            double[] f = next;
+            f[ScreenField.CLOSE.ordinal()] = close;
+            f[ScreenField.OPEN.ordinal()] = open;
+            f[ScreenField.HIGH.ordinal()] = high;
+            f[ScreenField.LOW.ordinal()] = low;
+            f[ScreenField.VOLUME.ordinal()] = volume;
+            f[ScreenField.AMOUNT.ordinal()] = amount;
+            f[ScreenField.PRE_CLOSE.ordinal()] = preClose;
+            f[ScreenField.CHANGE_PCT.ordinal()] = preClose > 0 ? (close / preClose - 1) * 100 : Double.NaN;
+            f[ScreenField.VOL_MA5.ordinal()] = volumeAverage(5);
+            f[ScreenField.VOL_MA10.ordinal()] = volumeAverage(10);
+
+            if (engine.evaluate(stockCode, values)) {
+                for (int m = 0; m < IndicatorValues.MA_PERIODS.length; m++) {
+                    f[ScreenField.MA5.ordinal() + m] = values.getMa(m);
+                }
+                for (int r = 0; r < IndicatorValues.RSI_PERIODS.length; r++) {
+                    f[ScreenField.RSI6.ordinal() + r] = values.getRsi(r);
+                }
+                f[ScreenField.DIF.ordinal()] = values.getDif();
+                f[ScreenField.DEA.ordinal()] = values.getDea();
+                f[ScreenField.MACD.ordinal()] = values.getMacd();
+                f[ScreenField.K.ordinal()] = values.getK();
+                f[ScreenField.D.ordinal()] = values.getD();
+                f[ScreenField.J.ordinal()] = values.getJ();
+                f[ScreenField.BOLL_UPPER.ordinal()] = values.getBollUpper();
+                f[ScreenField.BOLL_MIDDLE.ordinal()] = values.getBollMiddle();
+                f[ScreenField.BOLL_LOWER.ordinal()] = values.getBollLower();
+                // 信号判定与TechnicalIndicator一致
+                f[ScreenField.MACD_SIGNAL.ordinal()] = ScreenField.MACD_SIGNAL.code(
+                        IncrementalIndicatorEngine.macdSignal(values.getDif(), values.getDea()));
+                f[ScreenField.KDJ_SIGNAL.ordinal()] = ScreenField.KDJ_SIGNAL.code(
+                        IncrementalIndicatorEngine.kdjSignal(values.getK()));
+                f[ScreenField.RSI_SIGNAL.ordinal()] = ScreenField.RSI_SIGNAL.code(
+                        IncrementalIndicatorEngine.rsiSignal(values.getRsi(0)));
+                f[ScreenField.BOLL_SIGNAL.ordinal()] = ScreenField.BOLL_SIGNAL.code(
+                        IncrementalIndicatorEngine.bollSignal(close, values.getBollUpper(), values.getBollLower()));
+            }
+
+            long changed = 0;
+            double[] previous = fields;
+            for (int i = 0; i < f.length; i++) {
+                if (Double.doubleToRawLongBits(f[i]) != Double.doubleToRawLongBits(previous[i])) {
+                    changed |= 1L << i;
+                }
+            }
+            fields = f;
+            next = previous;
+            System.arraycopy(f, 0, next, 0, f.length);
+            ready = true;
+            return changed;
+        }
+
+        private double volumeAverage(int period) {
+            if (volumeCount < period) {
+                return Double.NaN;
+            }
+            long sum = 0;
+            for (int i = 1; i <= period; i++) {
+                sum += volumes[(volumeCount - i) % VOLUME_HISTORY];
+            }
+            return (double) sum / period;
+        }
+    }
+}
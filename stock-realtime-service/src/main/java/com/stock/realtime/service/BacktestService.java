@@ -0,0 +1,256 @@
+package com.stock.realtime.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.realtime.archive.BarArchive;
+import com.stock.realtime.backtest.BacktestEngine;
+import com.stock.realtime.backtest.BacktestJob;
+import com.stock.realtime.backtest.BacktestReport;
+import com.stock.realtime.backtest.BacktestRequest;
+import com.stock.realtime.backtest.BacktestStrategy;
+import com.stock.realtime.backtest.StrategySpec;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.BarView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.num.DoubleNum;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 策略回测服务
+ * 提交后在后台任务线程中运行，由回测专用ForkJoin池按股票并行；
+ * K线优先取本地归档（完整历史），没有归档时取内存K线存储。进度按固定节奏推送到/topic/backtest/{jobId}
+ */
+@Slf4j
+@Service
+public class BacktestService {
+
+    public static final String BACKTEST_TOPIC_PREFIX = "/topic/backtest/";
+
+    private static final Pattern STOCK_CODE = Pattern.compile("[0-9A-Za-z.]{1,16}");
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired
+    private BarArchive barArchive;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("backtestJobCache")
+    private Cache<String, BacktestJob> backtestJobCache;
+
+    /**
+     * 并行度，0为CPU核数
+     */
+    @Value("${realtime.backtest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${realtime.backtest.max-running-jobs:2}")
+    private int maxRunningJobs;
+
+    @Value("${realtime.backtest.max-strategies:10}")
+    private int maxStrategies;
+
+    @Value("${realtime.backtest.progress-interval-ms:200}")
+    private long progressIntervalMs;
+
+    private ForkJoinPool pool;
+    private BacktestEngine engine;
+    private ThreadPoolTaskExecutor jobExecutor;
+    private Timer durationTimer;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        engine = new BacktestEngine(pool);
+
+        // 任务线程只负责提交和汇总，超过并发上限直接拒绝
+        jobExecutor = new ThreadPoolTaskExecutor();
+        jobExecutor.setCorePoolSize(maxRunningJobs);
+        jobExecutor.setMaxPoolSize(maxRunningJobs);
+        jobExecutor.setQueueCapacity(0);
+        jobExecutor.setThreadNamePrefix("backtest-job-");
+        jobExecutor.initialize();
+
+        durationTimer = Timer.builder("realtime.backtest.duration")
+                .description("回测任务耗时")
+                .register(meterRegistry);
+        log.info("回测服务初始化完成: 并行度={}, 最大并发任务={}", threads, maxRunningJobs);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdown();
+        pool.shutdownNow();
+    }
+
+    /**
+     * 提交回测任务
+     *
+     * @throws IllegalArgumentException 请求不合法
+     * @throws IllegalStateException    运行中的任务已达上限
+     */
+    public BacktestJob submit(BacktestRequest request) {
+        BarTimeframe timeframe = BarTimeframe.of(request.getTimeframe());
+        List<StrategySpec> specs = request.getStrategies();
+        if (specs == null || specs.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个策略");
+        }
+        if (specs.size() > maxStrategies) {
+            throw new IllegalArgumentException("单次回测最多" + maxStrategies + "个策略");
+        }
+        if (request.getFeeRate() < 0 || request.getFeeRate() >= 0.1) {
+            throw new IllegalArgumentException("交易费率须在[0, 0.1)之间");
+        }
+        List<BacktestStrategy> strategies = new ArrayList<>(specs.size());
+        for (StrategySpec spec : specs) {
+            strategies.add(BacktestStrategy.compile(spec));
+        }
+        List<String> symbols = universe(timeframe, request.getSymbols());
+        long from = request.getFrom() == null ? Long.MIN_VALUE : request.getFrom();
+        long to = request.getTo() == null ? Long.MAX_VALUE : request.getTo();
+
+        BacktestJob job = new BacktestJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setTimeframe(timeframe.getCode());
+        job.setTotal(symbols.size());
+        job.setSubmitTime(System.currentTimeMillis());
+        try {
+            jobExecutor.execute(() -> run(job, timeframe, symbols, strategies, from, to,
+                    request.getFeeRate(), request.isIncludeTrades()));
+        } catch (TaskRejectedException e) {
+            throw new IllegalStateException("运行中的回测任务已达上限: " + maxRunningJobs);
+        }
+        backtestJobCache.put(job.getJobId(), job);
+        log.info("回测任务已提交: {}, 周期={}, 股票数={}, 策略数={}",
+                job.getJobId(), timeframe.getCode(), symbols.size(), strategies.size());
+        return job;
+    }
+
+    /**
+     * 查询回测任务，不存在或已过期时返回null
+     */
+    public BacktestJob getJob(String jobId) {
+        return backtestJobCache.getIfPresent(jobId);
+    }
+
+    private void run(BacktestJob job, BarTimeframe timeframe, List<String> symbols, List<BacktestStrategy> strategies,
+                     long from, long to, double feeRate, boolean includeTrades) {
+        long start = System.nanoTime();
+        AtomicLong lastPublish = new AtomicLong();
+        try {
+            BacktestReport report = engine.run(symbols, code -> load(code, timeframe, from, to), strategies,
+                    feeRate, includeTrades, completed -> {
+                        job.setCompleted(completed);
+                        long now = System.currentTimeMillis();
+                        long last = lastPublish.get();
+                        if (now - last >= progressIntervalMs && lastPublish.compareAndSet(last, now)) {
+                            job.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                            publish(job);
+                        }
+                    });
+            job.setReport(report);
+            job.setStatus(BacktestJob.Status.COMPLETED);
+            log.info("回测任务完成: {}, 股票数={}, K线={}, 耗时={}ms",
+                    job.getJobId(), report.getSymbols(), report.getBars(), report.getElapsedMillis());
+        } catch (RuntimeException e) {
+            job.setError(e.getMessage());
+            job.setStatus(BacktestJob.Status.FAILED);
+            log.error("回测任务失败: {}", job.getJobId(), e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            durationTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            Counter.builder("realtime.backtest.jobs")
+                    .tag("result", job.getStatus().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            job.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            // 重新写入以从完成时刻起计算过期
+            backtestJobCache.put(job.getJobId(), job);
+            publish(job);
+        }
+    }
+
+    private void publish(BacktestJob job) {
+        messagingTemplate.convertAndSend(BACKTEST_TOPIC_PREFIX + job.getJobId(), job.toProgress());
+    }
+
+    /**
+     * 请求的股票池，未指定时取归档和内存K线存储中该周期的全部股票
+     */
+    private List<String> universe(BarTimeframe timeframe, List<String> requested) {
+        if (requested != null && !requested.isEmpty()) {
+            TreeSet<String> symbols = new TreeSet<>();
+            for (String stockCode : requested) {
+                if (stockCode == null || !STOCK_CODE.matcher(stockCode).matches()) {
+                    throw new IllegalArgumentException("股票代码不合法: " + stockCode);
+                }
+                symbols.add(stockCode);
+            }
+            return new ArrayList<>(symbols);
+        }
+        TreeSet<String> symbols = new TreeSet<>(barArchive.symbols(timeframe));
+        symbols.addAll(barStore.symbols(timeframe));
+        return new ArrayList<>(symbols);
+    }
+
+    /**
+     * 加载一只股票[from, to]区间的K线，在回测工作线程中调用
+     */
+    private BarSeries load(String stockCode, BarTimeframe timeframe, long from, long to) {
+        BarView archived = barArchive.read(stockCode, timeframe);
+        if (archived != null && !archived.isEmpty()) {
+            return toSeries(stockCode, timeframe, archived, from, to);
+        }
+        return barStore.read(stockCode, timeframe, view -> toSeries(stockCode, timeframe, view, from, to));
+    }
+
+    private static BarSeries toSeries(String stockCode, BarTimeframe timeframe, BarView view, long from, long to) {
+        return BarStore.toBarSeries(stockCode, timeframe, view, DoubleNum.class,
+                lowerBound(view, from), lowerBound(view, to == Long.MAX_VALUE ? to : to + 1));
+    }
+
+    /**
+     * 第一根时间戳不小于timestamp的K线下标
+     */
+    private static int lowerBound(BarView view, long timestamp) {
+        int low = 0;
+        int high = view.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (view.getTimestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
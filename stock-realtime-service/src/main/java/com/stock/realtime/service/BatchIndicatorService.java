@@ -0,0 +1,182 @@
+package com.stock.realtime.service;
+
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.indicator.BatchIndicator;
+import com.stock.realtime.indicator.BatchIndicatorCalculator;
+import com.stock.realtime.indicator.BatchIndicatorResult;
+import com.stock.realtime.indicator.CrossSectionMatrix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 全市场截面指标服务
+ * 在K线收盘时对整个股票池一次性批量计算指标，发布只读快照供选股、看板等截面查询使用。
+ * 各股票的K线在下一个tick或定时扫描时陆续收盘，收盘回调只记下该周期最新收盘的K线时间；
+ * 定时检查发现新周期后再等待close-delay-ms，待其余股票收盘后每个周期只计算一次
+ */
+@Slf4j
+@Service
+public class BatchIndicatorService implements BarListener {
+
+    private static final BarTimeframe[] TIMEFRAMES = BarTimeframe.values();
+
+    @Autowired
+    private BarStore barStore;
+
+    @Value("${realtime.batch.lookback:250}")
+    private int lookback;
+
+    @Value("${realtime.batch.chunk-size:512}")
+    private int chunkSize;
+
+    /**
+     * 是否启用SIMD内核，需以-Pvector构建并以--add-modules jdk.incubator.vector启动
+     */
+    @Value("${realtime.batch.vector-enabled:false}")
+    private boolean vectorEnabled;
+
+    @Value("${realtime.batch.on-close-timeframes:5m,15m,60m,1d}")
+    private List<String> onCloseTimeframes;
+
+    @Value("${realtime.batch.close-delay-ms:3000}")
+    private long closeDelayMs;
+
+    private final Map<BarTimeframe, BatchIndicatorResult> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 各周期已收盘的最新K线时间，由收盘回调更新
+     */
+    private final AtomicLongArray closedBars = new AtomicLongArray(TIMEFRAMES.length);
+
+    /**
+     * 以下两个数组只由定时检查线程访问：已计算的K线时间、发现新收盘周期的时刻
+     */
+    private final long[] calculatedBars = new long[TIMEFRAMES.length];
+    private final long[] pendingSince = new long[TIMEFRAMES.length];
+
+    private boolean[] calculateOnClose;
+
+    private ForkJoinPool pool;
+    private BatchIndicatorCalculator calculator;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        calculator = new BatchIndicatorCalculator(pool, chunkSize, vectorEnabled);
+        calculateOnClose = new boolean[TIMEFRAMES.length];
+        for (String code : onCloseTimeframes) {
+            if (!code.isBlank()) {
+                calculateOnClose[BarTimeframe.of(code.trim()).ordinal()] = true;
+            }
+        }
+        log.info("截面指标计算器初始化完成: 窗口={}, 分块={}, SIMD={}, 收盘计算周期={}",
+                lookback, chunkSize, calculator.isVectorized(), onCloseTimeframes);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        int t = timeframe.ordinal();
+        if (!calculateOnClose[t]) {
+            return;
+        }
+        // 同一周期只有第一只收盘的股票会更新，其余只读一次
+        long latest = closedBars.get(t);
+        while (timestamp > latest && !closedBars.compareAndSet(t, latest, timestamp)) {
+            latest = closedBars.get(t);
+        }
+    }
+
+    /**
+     * 检查各周期是否有新收盘的K线，等待其余股票收盘后计算一次
+     */
+    @Scheduled(fixedDelayString = "${realtime.batch.check-interval-ms:1000}")
+    public void calculateClosed() {
+        long now = System.currentTimeMillis();
+        for (BarTimeframe timeframe : TIMEFRAMES) {
+            int t = timeframe.ordinal();
+            long closed = closedBars.get(t);
+            if (closed <= calculatedBars[t]) {
+                continue;
+            }
+            if (pendingSince[t] == 0) {
+                pendingSince[t] = now;
+            }
+            if (now - pendingSince[t] < closeDelayMs) {
+                continue;
+            }
+            calculatedBars[t] = closed;
+            pendingSince[t] = 0;
+            try {
+                calculate(timeframe);
+            } catch (Exception e) {
+                log.error("收盘截面指标计算失败: 周期={}", timeframe.getCode(), e);
+            }
+        }
+    }
+
+    /**
+     * 计算该周期全部股票的全部指标并发布快照
+     */
+    public BatchIndicatorResult calculate(BarTimeframe timeframe) {
+        return calculate(timeframe, EnumSet.allOf(BatchIndicator.class));
+    }
+
+    /**
+     * 计算该周期全部股票的指定指标并发布快照
+     */
+    public BatchIndicatorResult calculate(BarTimeframe timeframe, Set<BatchIndicator> indicators) {
+        long start = System.currentTimeMillis();
+        String[] symbols = barStore.symbols(timeframe).toArray(new String[0]);
+        CrossSectionMatrix matrix = new CrossSectionMatrix(symbols, lookback);
+        for (int i = 0; i < symbols.length; i++) {
+            int column = i;
+            barStore.read(symbols[i], timeframe, view -> {
+                matrix.load(column, view);
+                return null;
+            });
+        }
+        long loaded = System.currentTimeMillis();
+
+        BatchIndicatorResult result = calculator.calculate(timeframe, matrix, indicators);
+        snapshots.put(timeframe, result);
+        log.info("截面指标计算完成: 周期={}, 股票数={}, 指标数={}, 装载{}ms, 计算{}us",
+                timeframe.getCode(), symbols.length, indicators.size(), loaded - start, result.getElapsedMicros());
+        return result;
+    }
+
+    /**
+     * 最近一次计算的快照，未计算过时返回null
+     */
+    public BatchIndicatorResult getSnapshot(BarTimeframe timeframe) {
+        return snapshots.get(timeframe);
+    }
+
+    /**
+     * 从最近一次快照中读取单只股票的指标值，无数据时返回NaN
+     */
+    public double getValue(BarTimeframe timeframe, BatchIndicator indicator, String stockCode) {
+        BatchIndicatorResult result = snapshots.get(timeframe);
+        return result == null ? Double.NaN : result.getValue(indicator, stockCode);
+    }
+}
@@ -0,0 +1,206 @@
+package com.stock.realtime.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.query.FluxRecord;
+import com.influxdb.query.FluxTable;
+import com.stock.realtime.archive.BarArchive;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.BarView;
+import com.stock.realtime.config.InfluxDBConfig;
+import com.stock.realtime.kline.KlineColumns;
+import com.stock.realtime.kline.KlineDownsampling;
+import com.stock.realtime.kline.KlineQuery;
+import com.stock.realtime.kline.KlineResponse;
+import com.stock.realtime.sink.InfluxPointSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 历史K线查询
+ * 内存K线存储覆盖的区间直接读BarStore，更早的部分优先读本地K线归档，归档不覆盖时从InfluxDB查询，
+ * 拼接后在服务端降采样到请求的点数。
+ * 结果按内存K线版本号缓存，InfluxDB中已收盘的历史段单独缓存
+ */
+@Slf4j
+@Service
+public class KlineService {
+
+    private static final Pattern STOCK_CODE = Pattern.compile("[0-9A-Za-z.]{1,16}");
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired
+    private BarArchive barArchive;
+
+    @Autowired
+    private InfluxDBClient influxDBClient;
+
+    @Autowired
+    private InfluxDBConfig influxDBConfig;
+
+    @Autowired
+    @Qualifier("klineCache")
+    private Cache<KlineQuery, KlineResponse> klineCache;
+
+    @Autowired
+    @Qualifier("klineHistoryCache")
+    private Cache<String, KlineColumns> klineHistoryCache;
+
+    @Value("${realtime.influx.enabled:true}")
+    private boolean influxEnabled;
+
+    @Value("${realtime.kline.default-points:500}")
+    private int defaultPoints;
+
+    @Value("${realtime.kline.max-points:5000}")
+    private int maxPoints;
+
+    @Value("${realtime.kline.default-bars:500}")
+    private int defaultBars;
+
+    @Value("${realtime.kline.max-history-rows:100000}")
+    private int maxHistoryRows;
+
+    /**
+     * 查询K线
+     *
+     * @param from   起始时间（epoch毫秒），为空时取截止时间前default-bars个周期
+     * @param to     截止时间（epoch毫秒），为空时查询到最新
+     * @param points 返回的最多点数，为空时取default-points
+     */
+    public KlineResponse query(String stockCode, BarTimeframe timeframe, Long from, Long to,
+                               Integer points, KlineDownsampling downsampling) {
+        if (!STOCK_CODE.matcher(stockCode).matches()) {
+            throw new IllegalArgumentException("股票代码格式错误: " + stockCode);
+        }
+        long end = to == null ? System.currentTimeMillis() : to;
+        long start = from == null ? end - timeframe.getMillis() * defaultBars : from;
+        // 起始时间按周期取整，查询最新数据时同一周期内的请求落在同一个缓存键上
+        start = Math.floorDiv(start, timeframe.getMillis()) * timeframe.getMillis();
+        if (start > end) {
+            throw new IllegalArgumentException("起始时间晚于截止时间");
+        }
+        int limit = Math.max(3, Math.min(points == null ? defaultPoints : points, maxPoints));
+
+        long[] version = barStore.read(stockCode, timeframe, view -> new long[]{view.getSequence(), view.getPriceVersion()});
+        KlineQuery key = new KlineQuery(stockCode, timeframe, start, to == null ? Long.MAX_VALUE : end, limit, downsampling,
+                version == null ? -1 : version[0], version == null ? -1 : version[1]);
+        KlineResponse cached = klineCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long rangeStart = start;
+        MemorySlice memory = barStore.read(stockCode, timeframe, view -> new MemorySlice(
+                KlineColumns.copyOf(view, rangeStart, end),
+                view.isEmpty() ? Long.MAX_VALUE : view.getTimestamp(0),
+                view.getSequence(), view.getPriceVersion()));
+
+        KlineColumns bars;
+        if (memory == null) {
+            bars = history(stockCode, timeframe, start, end);
+        } else if (start < memory.firstTimestamp) {
+            bars = history(stockCode, timeframe, start, Math.min(end, memory.firstTimestamp - 1));
+            bars.addAll(memory.columns);
+        } else {
+            bars = memory.columns;
+        }
+
+        KlineColumns sampled = downsampling.apply(bars, limit);
+        KlineResponse response = KlineResponse.of(stockCode, timeframe.getCode(), bars.size(),
+                sampled == bars ? null : downsampling.name(), sampled);
+        if (memory != null) {
+            key = new KlineQuery(stockCode, timeframe, start, key.getTo(), limit, downsampling,
+                    memory.sequence, memory.priceVersion);
+        }
+        klineCache.put(key, response);
+        return response;
+    }
+
+    /**
+     * 查询[from, to]内的已收盘K线：本地归档覆盖起始时间时直接读归档，否则查询InfluxDB，查询失败时返回空结果且不缓存
+     */
+    private KlineColumns history(String stockCode, BarTimeframe timeframe, long from, long to) {
+        if (from > to) {
+            return new KlineColumns(0);
+        }
+        BarView archived = barArchive.read(stockCode, timeframe);
+        if (archived != null && !archived.isEmpty() && archived.getTimestamp(0) <= from) {
+            return KlineColumns.copyOf(archived, from, to);
+        }
+        if (!influxEnabled) {
+            return new KlineColumns(0);
+        }
+        String cacheKey = stockCode + "|" + timeframe.getCode() + "|" + from + "|" + to;
+        KlineColumns cached = klineHistoryCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return copy(cached);
+        }
+        String flux = "from(bucket: \"" + influxDBConfig.getBucket() + "\")"
+                + " |> range(start: " + Instant.ofEpochMilli(from) + ", stop: " + Instant.ofEpochMilli(to + 1) + ")"
+                + " |> filter(fn: (r) => r._measurement == \"" + InfluxPointSink.BAR_MEASUREMENT + "\""
+                + " and r.code == \"" + stockCode + "\" and r.timeframe == \"" + timeframe.getCode() + "\")"
+                + " |> pivot(rowKey: [\"_time\"], columnKey: [\"_field\"], valueColumn: \"_value\")"
+                + " |> keep(columns: [\"_time\", \"open\", \"high\", \"low\", \"close\", \"volume\"])"
+                + " |> sort(columns: [\"_time\"])"
+                + " |> tail(n: " + maxHistoryRows + ")";
+        try {
+            List<FluxTable> tables = influxDBClient.getQueryApi().query(flux, influxDBConfig.getOrg());
+            KlineColumns columns = new KlineColumns(tables.isEmpty() ? 0 : tables.get(0).getRecords().size());
+            for (FluxTable table : tables) {
+                for (FluxRecord record : table.getRecords()) {
+                    Instant time = record.getTime();
+                    if (time == null) {
+                        continue;
+                    }
+                    columns.add(time.toEpochMilli(), number(record, "open"), number(record, "high"),
+                            number(record, "low"), number(record, "close"), (long) number(record, "volume"));
+                }
+            }
+            klineHistoryCache.put(cacheKey, columns);
+            return copy(columns);
+        } catch (Exception e) {
+            log.warn("查询InfluxDB历史K线失败: {} {}", stockCode, timeframe.getCode(), e);
+            return new KlineColumns(0);
+        }
+    }
+
+    /**
+     * 缓存中的历史段会被后续拼接追加，返回副本
+     */
+    private static KlineColumns copy(KlineColumns source) {
+        KlineColumns copy = new KlineColumns(source.size());
+        copy.addAll(source);
+        return copy;
+    }
+
+    private static double number(FluxRecord record, String field) {
+        Object value = record.getValueByKey(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    private static final class MemorySlice {
+
+        private final KlineColumns columns;
+        private final long firstTimestamp;
+        private final long sequence;
+        private final long priceVersion;
+
+        private MemorySlice(KlineColumns columns, long firstTimestamp, long sequence, long priceVersion) {
+            this.columns = columns;
+            this.firstTimestamp = firstTimestamp;
+            this.sequence = sequence;
+            this.priceVersion = priceVersion;
+        }
+    }
+}
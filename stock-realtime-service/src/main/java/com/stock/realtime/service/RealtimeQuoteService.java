@@ -2,12 +2,12 @@ package com.stock.realtime.service;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.pipeline.QuotePipeline;
+import com.stock.realtime.sink.QuoteRedisSink;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -15,7 +15,6 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 实时行情推送服务
@@ -25,7 +24,7 @@ import java.util.concurrent.TimeUnit;
 public class RealtimeQuoteService {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private QuotePipeline pipeline;
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
@@ -34,37 +33,25 @@ public class RealtimeQuoteService {
     @Qualifier("stockPriceCache")
     private Cache<String, Object> stockPriceCache;
 
-    private static final String REDIS_QUOTE_KEY = "stock:quote:";
+    private static final String REDIS_QUOTE_KEY = QuoteRedisSink.REDIS_QUOTE_KEY;
     private static final Random random = new Random();
 
     /**
-     * 推送实时行情到WebSocket
+     * 推送实时行情，经流水线依次更新缓存、写入Redis并发布到WebSocket
      */
-    @Async("quotePushExecutor")
     public void pushQuote(RealtimeQuote quote) {
-        try {
-            // 1. 更新本地缓存
-            stockPriceCache.put(quote.getStockCode(), quote);
-
-            // 2. 更新Redis缓存
-            String redisKey = REDIS_QUOTE_KEY + quote.getStockCode();
-            redisTemplate.opsForValue().set(redisKey, quote, 60, TimeUnit.SECONDS);
-
-            // 3. 推送到WebSocket订阅者
-            messagingTemplate.convertAndSend("/topic/quote/" + quote.getStockCode(), quote);
-
+        if (pipeline.ingest(quote)) {
             log.debug("推送行情: {} - {}", quote.getStockCode(), quote.getCurrentPrice());
-        } catch (Exception e) {
-            log.error("推送行情失败: {}", quote.getStockCode(), e);
         }
     }
 
     /**
-     * 批量推送行情
+     * 批量推送行情，同一只股票的行情按列表顺序处理
      */
-    @Async("quotePushExecutor")
     public void pushQuoteBatch(List<RealtimeQuote> quotes) {
-        quotes.forEach(this::pushQuote);
+        for (RealtimeQuote quote : quotes) {
+            pipeline.ingest(quote);
+        }
     }
 
     /**
@@ -123,6 +110,7 @@ public class RealtimeQuoteService {
                 .ask1(currentPrice.add(new BigDecimal("0.01")))
                 .askVolume1(random.nextLong(1000, 10000))
                 .updateTime(LocalDateTime.now())
+                .sourceTime(System.currentTimeMillis())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,7 +1,16 @@
 package com.stock.realtime.service;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.BarView;
 import com.stock.realtime.entity.TechnicalIndicator;
+import com.stock.realtime.indicator.IncrementalIndicatorEngine;
+import com.stock.realtime.indicator.IndicatorCacheEntry;
+import com.stock.realtime.indicator.IndicatorCacheKey;
+import com.stock.realtime.indicator.IndicatorGroup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -16,59 +25,235 @@ import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
 import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
 import org.ta4j.core.num.Num;
 
+import javax.annotation.PostConstruct;
+
 import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * 技术指标计算服务
- * 使用TA4J库计算各种技术指标
+ * 实时路径使用增量指标引擎，TA4J全量计算用于冷启动和结果核对
  */
 @Slf4j
 @Service
 public class TechnicalIndicatorService {
 
+    private static final IndicatorGroup[] GROUPS = IndicatorGroup.values();
+
     @Autowired
     @Qualifier("technicalIndicatorCache")
-    private Cache<String, Object> indicatorCache;
+    private Cache<IndicatorCacheKey, IndicatorCacheEntry> indicatorCache;
+
+    @Autowired
+    private IncrementalIndicatorEngine indicatorEngine;
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 各周期各指标分组的缓存未命中重算次数
+     */
+    private final Map<BarTimeframe, Map<IndicatorGroup, Counter>> recomputeCounters = new EnumMap<>(BarTimeframe.class);
+
+    @PostConstruct
+    public void init() {
+        for (BarTimeframe timeframe : BarTimeframe.values()) {
+            Map<IndicatorGroup, Counter> counters = new EnumMap<>(IndicatorGroup.class);
+            for (IndicatorGroup group : GROUPS) {
+                counters.put(group, meterRegistry.counter("indicator.cache.recompute",
+                        "group", group.name(), "timeframe", timeframe.getCode()));
+            }
+            recomputeCounters.put(timeframe, counters);
+        }
+    }
 
     /**
-     * 计算所有技术指标
+     * 收盘K线推进增量指标状态
+     */
+    public void onBarClose(String stockCode, double high, double low, double close) {
+        indicatorEngine.onBarClose(stockCode, high, low, close);
+    }
+
+    /**
+     * 用形成中K线的最新价更新增量指标
+     */
+    public void onTick(String stockCode, double high, double low, double close) {
+        indicatorEngine.onTick(stockCode, high, low, close);
+    }
+
+    /**
+     * 用历史K线预热增量指标状态
+     */
+    public void warmUp(String stockCode, BarSeries series) {
+        indicatorEngine.warmUp(stockCode, series);
+    }
+
+    /**
+     * 用K线存储中的日线预热增量指标状态
+     *
+     * @return K线存储中没有该股票日线时返回false
+     */
+    public boolean warmUp(String stockCode) {
+        Boolean loaded = barStore.readLocked(stockCode, BarTimeframe.D1, view -> {
+            indicatorEngine.warmUp(stockCode, view);
+            return !view.isEmpty();
+        });
+        return Boolean.TRUE.equals(loaded);
+    }
+
+    /**
+     * 获取增量引擎维护的最新技术指标
+     *
+     * @return 尚无K线数据时返回null
+     */
+    public TechnicalIndicator getIndicators(String stockCode) {
+        return indicatorEngine.getIndicator(stockCode);
+    }
+
+    /**
+     * 计算K线存储中某只股票某个周期的全部技术指标（TA4J全量计算）
+     * 按指标分组缓存，值带最新K线时间戳和数据版本号：K线未变化时直接命中，
+     * 形成中K线只改变最高最低价时仅重算KDJ
+     *
+     * @return 股票在该周期没有K线时结果为null
      */
     @Async("indicatorCalculateExecutor")
-    public CompletableFuture<TechnicalIndicator> calculateIndicators(String stockCode, BarSeries series) {
+    public CompletableFuture<TechnicalIndicator> calculateIndicators(String stockCode, BarTimeframe timeframe) {
         try {
-            // 从缓存获取
-            TechnicalIndicator cached = (TechnicalIndicator) indicatorCache.getIfPresent(stockCode);
-            if (cached != null) {
-                return CompletableFuture.completedFuture(cached);
+            Versions versions = barStore.read(stockCode, timeframe,
+                    view -> view.isEmpty() ? null : Versions.of(view));
+            if (versions == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Map<IndicatorGroup, Object> groups = lookup(stockCode, timeframe, versions);
+            if (groups.size() < GROUPS.length) {
+                // 在同一个一致视图上取版本号和数据，保证缓存值与版本对应
+                VersionedSeries input = barStore.read(stockCode, timeframe, view -> view.isEmpty() ? null
+                        : new VersionedSeries(Versions.of(view), BarStore.toBarSeries(stockCode, timeframe, view)));
+                if (input == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                groups = lookup(stockCode, timeframe, input.versions);
+                for (IndicatorGroup group : GROUPS) {
+                    if (!groups.containsKey(group)) {
+                        Object value = calculateGroup(group, input.series);
+                        indicatorCache.put(new IndicatorCacheKey(stockCode, timeframe, group), new IndicatorCacheEntry(
+                                input.versions.lastTimestamp, input.versions.of(group), value));
+                        groups.put(group, value);
+                        recomputeCounters.get(timeframe).get(group).increment();
+                    }
+                }
             }
+            return CompletableFuture.completedFuture(assemble(stockCode, groups));
+        } catch (Exception e) {
+            log.error("计算技术指标失败: {}", stockCode, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-            // 计算各项指标
-            TechnicalIndicator.MA ma = calculateMA(series);
-            TechnicalIndicator.MACD macd = calculateMACD(series);
-            TechnicalIndicator.KDJ kdj = calculateKDJ(series);
-            TechnicalIndicator.RSI rsi = calculateRSI(series);
-            TechnicalIndicator.BOLL boll = calculateBOLL(series);
-
-            TechnicalIndicator indicator = TechnicalIndicator.builder()
-                    .stockCode(stockCode)
-                    .ma(ma)
-                    .macd(macd)
-                    .kdj(kdj)
-                    .rsi(rsi)
-                    .boll(boll)
-                    .build();
-
-            // 缓存结果
-            indicatorCache.put(stockCode, indicator);
-
-            return CompletableFuture.completedFuture(indicator);
+    /**
+     * 计算所有技术指标（TA4J全量计算）
+     * 调用方传入的序列没有版本信息，不走指标缓存
+     */
+    @Async("indicatorCalculateExecutor")
+    public CompletableFuture<TechnicalIndicator> calculateIndicators(String stockCode, BarSeries series) {
+        try {
+            Map<IndicatorGroup, Object> groups = new EnumMap<>(IndicatorGroup.class);
+            for (IndicatorGroup group : IndicatorGroup.values()) {
+                groups.put(group, calculateGroup(group, series));
+            }
+            return CompletableFuture.completedFuture(assemble(stockCode, groups));
         } catch (Exception e) {
             log.error("计算技术指标失败: {}", stockCode, e);
             return CompletableFuture.failedFuture(e);
         }
     }
 
+    /**
+     * 取出按当前K线版本计算的各分组缓存值
+     */
+    private Map<IndicatorGroup, Object> lookup(String stockCode, BarTimeframe timeframe, Versions versions) {
+        Map<IndicatorGroup, Object> groups = new EnumMap<>(IndicatorGroup.class);
+        for (IndicatorGroup group : GROUPS) {
+            IndicatorCacheEntry entry = indicatorCache.getIfPresent(new IndicatorCacheKey(stockCode, timeframe, group));
+            if (entry != null && entry.isCurrent(versions.lastTimestamp, versions.of(group))) {
+                groups.put(group, entry.getValue());
+            }
+        }
+        return groups;
+    }
+
+    private Object calculateGroup(IndicatorGroup group, BarSeries series) {
+        switch (group) {
+            case MA:
+                return calculateMA(series);
+            case MACD:
+                return calculateMACD(series);
+            case KDJ:
+                return calculateKDJ(series);
+            case RSI:
+                return calculateRSI(series);
+            case BOLL:
+                return calculateBOLL(series);
+            default:
+                throw new IllegalArgumentException("未知指标分组: " + group);
+        }
+    }
+
+    private static TechnicalIndicator assemble(String stockCode, Map<IndicatorGroup, Object> groups) {
+        return TechnicalIndicator.builder()
+                .stockCode(stockCode)
+                .ma((TechnicalIndicator.MA) groups.get(IndicatorGroup.MA))
+                .macd((TechnicalIndicator.MACD) groups.get(IndicatorGroup.MACD))
+                .kdj((TechnicalIndicator.KDJ) groups.get(IndicatorGroup.KDJ))
+                .rsi((TechnicalIndicator.RSI) groups.get(IndicatorGroup.RSI))
+                .boll((TechnicalIndicator.BOLL) groups.get(IndicatorGroup.BOLL))
+                .build();
+    }
+
+    /**
+     * 视图最新一根K线的时间戳和各分组的数据版本号
+     */
+    private static final class Versions {
+        final long lastTimestamp;
+        final long[] versions;
+
+        private Versions(long lastTimestamp, long[] versions) {
+            this.lastTimestamp = lastTimestamp;
+            this.versions = versions;
+        }
+
+        static Versions of(BarView view) {
+            long[] versions = new long[GROUPS.length];
+            for (IndicatorGroup group : GROUPS) {
+                versions[group.ordinal()] = group.versionOf(view);
+            }
+            return new Versions(view.getTimestamp(view.size() - 1), versions);
+        }
+
+        long of(IndicatorGroup group) {
+            return versions[group.ordinal()];
+        }
+    }
+
+    /**
+     * 同一视图上取得的版本号和K线序列
+     */
+    private static final class VersionedSeries {
+        final Versions versions;
+        final BarSeries series;
+
+        VersionedSeries(Versions versions, BarSeries series) {
+            this.versions = versions;
+            this.series = series;
+        }
+    }
+
     /**
      * 计算移动平均线
      */
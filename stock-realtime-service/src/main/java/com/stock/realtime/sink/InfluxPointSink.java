@@ -0,0 +1,238 @@
+package com.stock.realtime.sink;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.events.BackpressureEvent;
+import com.influxdb.client.write.events.WriteErrorEvent;
+import com.influxdb.client.write.events.WriteRetriableErrorEvent;
+import com.influxdb.client.write.events.WriteSuccessEvent;
+import com.stock.realtime.bar.BarListener;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.cluster.ClusterNode;
+import com.stock.realtime.config.InfluxDBConfig;
+import com.stock.realtime.entity.RealtimeQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情和K线写入InfluxDB
+ * 每笔行情、每根收盘K线拼成一行line protocol交给WriteApi，由其后台线程按批次和刷新间隔异步写出，
+ * 失败批次进入重试缓冲，缓冲写满后丢弃最旧的数据，调用方不会被阻塞。
+ * 集群模式下行情只由生成节点写入（PersistStage），K线由各节点各自聚合，只在生成节点上写入
+ */
+@Slf4j
+@Component
+public class InfluxPointSink implements BarListener {
+
+    public static final String TICK_MEASUREMENT = "stock_tick";
+
+    public static final String BAR_MEASUREMENT = "stock_bar";
+
+    @Autowired
+    private InfluxDBClient influxDBClient;
+
+    @Autowired
+    private InfluxDBConfig influxDBConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Value("${realtime.influx.enabled:true}")
+    private boolean enabled;
+
+    @Value("${realtime.influx.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${realtime.influx.flush-interval-ms:1000}")
+    private int flushIntervalMs;
+
+    @Value("${realtime.influx.buffer-limit:100000}")
+    private int bufferLimit;
+
+    @Value("${realtime.influx.retry-interval-ms:5000}")
+    private int retryIntervalMs;
+
+    @Value("${realtime.influx.max-retries:5}")
+    private int maxRetries;
+
+    private WriteApi writeApi;
+
+    private Counter submittedCounter;
+    private Counter writtenCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Counter backpressureCounter;
+    private Timer lagTimer;
+
+    @PostConstruct
+    public void init() {
+        submittedCounter = meterRegistry.counter("realtime.influx.points", "result", "submitted");
+        writtenCounter = meterRegistry.counter("realtime.influx.points", "result", "written");
+        failedCounter = meterRegistry.counter("realtime.influx.batches", "result", "failed");
+        retriedCounter = meterRegistry.counter("realtime.influx.batches", "result", "retried");
+        backpressureCounter = meterRegistry.counter("realtime.influx.backpressure");
+        lagTimer = Timer.builder("realtime.influx.write.lag")
+                .description("批次中最后一个数据点的时间戳到写入成功的间隔")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        if (!enabled) {
+            log.info("InfluxDB写入已关闭");
+            return;
+        }
+
+        writeApi = influxDBClient.makeWriteApi(WriteOptions.builder()
+                .batchSize(batchSize)
+                .flushInterval(flushIntervalMs)
+                .jitterInterval(0)
+                .bufferLimit(bufferLimit)
+                .retryInterval(retryIntervalMs)
+                .maxRetries(maxRetries)
+                .backpressureStrategy(BackpressureOverflowStrategy.DROP_OLDEST)
+                .build());
+        writeApi.listenEvents(WriteSuccessEvent.class, this::onSuccess);
+        writeApi.listenEvents(WriteRetriableErrorEvent.class, event -> {
+            retriedCounter.increment();
+            log.warn("InfluxDB写入失败，{}ms后重试: {}", event.getRetryInterval(), event.getThrowable().getMessage());
+        });
+        writeApi.listenEvents(WriteErrorEvent.class, event -> {
+            failedCounter.increment();
+            log.error("InfluxDB写入失败，放弃该批次", event.getThrowable());
+        });
+        writeApi.listenEvents(BackpressureEvent.class, event -> {
+            backpressureCounter.increment();
+            log.warn("InfluxDB写入缓冲已满，丢弃最旧的数据点");
+        });
+        log.info("InfluxDB批量写入已启动: 批次={}, 刷新间隔={}ms, 缓冲上限={}", batchSize, flushIntervalMs, bufferLimit);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (writeApi != null) {
+            // close()会先写出缓冲中的数据
+            writeApi.close();
+        }
+    }
+
+    /**
+     * 写入一笔行情
+     */
+    public void writeQuote(RealtimeQuote quote) {
+        if (writeApi == null || quote.getCurrentPrice() == null) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(160);
+        line.append(TICK_MEASUREMENT).append(",code=");
+        escapeTag(line, quote.getStockCode());
+        char sep = ' ';
+        sep = field(line, sep, "price", quote.getCurrentPrice());
+        sep = field(line, sep, "open", quote.getOpenPrice());
+        sep = field(line, sep, "high", quote.getHighPrice());
+        sep = field(line, sep, "low", quote.getLowPrice());
+        sep = field(line, sep, "change_pct", quote.getChangePercent());
+        sep = field(line, sep, "amount", quote.getAmount());
+        sep = field(line, sep, "bid1", quote.getBid1());
+        sep = field(line, sep, "ask1", quote.getAsk1());
+        if (quote.getVolume() != null) {
+            line.append(sep).append("volume=").append(quote.getVolume().longValue()).append('i');
+        }
+        long timestamp = quote.getUpdateTime() == null ? System.currentTimeMillis()
+                : quote.getUpdateTime().atZone(BarStore.MARKET_ZONE).toInstant().toEpochMilli();
+        line.append(' ').append(timestamp);
+        write(line.toString());
+    }
+
+    /**
+     * 写入一根收盘K线
+     */
+    public void writeBar(String stockCode, BarTimeframe timeframe, long timestamp,
+                         double open, double high, double low, double close, long volume, double amount) {
+        if (writeApi == null) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(160);
+        line.append(BAR_MEASUREMENT).append(",code=");
+        escapeTag(line, stockCode);
+        line.append(",timeframe=").append(timeframe.getCode())
+                .append(" open=").append(open)
+                .append(",high=").append(high)
+                .append(",low=").append(low)
+                .append(",close=").append(close)
+                .append(",volume=").append(volume).append('i')
+                .append(",amount=").append(amount)
+                .append(' ').append(timestamp);
+        write(line.toString());
+    }
+
+    @Override
+    public void onBarClose(String stockCode, BarTimeframe timeframe, long timestamp,
+                           double open, double high, double low, double close, long volume, double amount) {
+        if (!clusterNode.isProducing()) {
+            return;
+        }
+        writeBar(stockCode, timeframe, timestamp, open, high, low, close, volume, amount);
+    }
+
+    private void write(String record) {
+        submittedCounter.increment();
+        writeApi.writeRecord(influxDBConfig.getBucket(), influxDBConfig.getOrg(), WritePrecision.MS, record);
+    }
+
+    private void onSuccess(WriteSuccessEvent event) {
+        String lineProtocol = event.getLineProtocol();
+        int points = 1;
+        for (int i = 0; i < lineProtocol.length(); i++) {
+            if (lineProtocol.charAt(i) == '\n') {
+                points++;
+            }
+        }
+        writtenCounter.increment(points);
+
+        int lastSpace = lineProtocol.lastIndexOf(' ');
+        if (lastSpace > 0) {
+            try {
+                long timestamp = Long.parseLong(lineProtocol.substring(lastSpace + 1).trim());
+                lagTimer.record(Math.max(0, System.currentTimeMillis() - timestamp), TimeUnit.MILLISECONDS);
+            } catch (NumberFormatException ignored) {
+                // 末行不带时间戳时不统计延迟
+            }
+        }
+    }
+
+    private static char field(StringBuilder line, char sep, String name, BigDecimal value) {
+        if (value == null) {
+            return sep;
+        }
+        line.append(sep).append(name).append('=').append(value.toPlainString());
+        return ',';
+    }
+
+    /**
+     * 标签值中的逗号、等号和空格需要转义
+     */
+    private static void escapeTag(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '=' || c == ' ') {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+    }
+}
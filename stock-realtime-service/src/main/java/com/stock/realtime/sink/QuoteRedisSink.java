@@ -0,0 +1,145 @@
+package com.stock.realtime.sink;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.latency.LatencyStage;
+import com.stock.realtime.latency.TickLatencyRecorder;
+import com.stock.realtime.latency.TimedQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情Redis写后缓冲
+ * 行情按股票合并，只保留最新一笔，每隔几毫秒以流水线批量写入（SET带过期时间），
+ * 每个周期的Redis往返次数取决于批次数而不是行情笔数
+ */
+@Slf4j
+@Component
+public class QuoteRedisSink {
+
+    public static final String REDIS_QUOTE_KEY = "stock:quote:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TickLatencyRecorder latencyRecorder;
+
+    @Value("${realtime.redis-sink.batch-size:500}")
+    private int batchSize;
+
+    @Value("${realtime.redis-sink.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, TimedQuote> pending = new ConcurrentHashMap<>();
+
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter writtenCounter;
+    private Counter coalescedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        flushTimer = latencyRecorder.timer("realtime.redis.sink.flush", "一个批次流水线写入Redis的耗时", Tags.empty());
+        batchSizeSummary = DistributionSummary.builder("realtime.redis.sink.batch.size")
+                .description("每个批次写入的行情数")
+                .register(meterRegistry);
+        writtenCounter = meterRegistry.counter("realtime.redis.sink.quotes", "result", "written");
+        coalescedCounter = meterRegistry.counter("realtime.redis.sink.quotes", "result", "coalesced");
+        failedCounter = meterRegistry.counter("realtime.redis.sink.quotes", "result", "failed");
+        meterRegistry.gauge("realtime.redis.sink.pending", pending, Map::size);
+    }
+
+    /**
+     * 提交一笔行情，覆盖该股票尚未写入的旧行情，ingestNanos为接入流水线的时刻，0表示未经流水线
+     */
+    public void offer(RealtimeQuote quote, long ingestNanos) {
+        if (pending.put(quote.getStockCode(), new TimedQuote(quote, ingestNanos)) != null) {
+            coalescedCounter.increment();
+        }
+    }
+
+    /**
+     * 分批写出待写行情
+     */
+    @Scheduled(fixedDelayString = "${realtime.redis-sink.flush-interval-ms:20}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<TimedQuote> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (String stockCode : pending.keySet()) {
+            TimedQuote quote = pending.remove(stockCode);
+            if (quote == null) {
+                continue;
+            }
+            batch.add(quote);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void write(List<TimedQuote> batch) {
+        long start = System.nanoTime();
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (TimedQuote timed : batch) {
+                        RealtimeQuote quote = timed.getQuote();
+                        ops.opsForValue().set(REDIS_QUOTE_KEY + quote.getStockCode(), quote, ttlSeconds, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
+            writtenCounter.increment(batch.size());
+            long now = System.nanoTime();
+            for (TimedQuote timed : batch) {
+                latencyRecorder.recordSinceIngest(LatencyStage.REDIS_WRITE,
+                        timed.getQuote().getStockCode(), timed.getIngestNanos(), now);
+            }
+        } catch (Exception e) {
+            // 写失败的行情不重试：下一笔行情很快会覆盖，重放旧数据没有意义
+            failedCounter.increment(batch.size());
+            log.error("批量写入Redis行情失败: {}条", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+        }
+    }
+}
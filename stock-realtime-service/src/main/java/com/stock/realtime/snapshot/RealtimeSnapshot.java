@@ -0,0 +1,296 @@
+package com.stock.realtime.snapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.stock.realtime.bar.BarAggregator;
+import com.stock.realtime.bar.BarRingBuffer;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.cluster.PriceCacheSync;
+import com.stock.realtime.entity.RealtimeQuote;
+import com.stock.realtime.indicator.IncrementalIndicatorEngine;
+import com.stock.realtime.push.QuoteBinaryCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存状态快照
+ * 由专用线程定时、停机时把本地行情缓存和K线存储写入快照目录：K线按周期和股票代码哈希分片存放，
+ * 每次只重写自上次写出后有缓冲区变化的分片，休市期间几乎不产生写入；行情文件很小，每次都重写。
+ * 启动时在Web服务器启动（即向Nacos注册）之前分段映射读回，再由恢复的日线重建增量指标状态，
+ * 服务一接收流量就有完整的K线和指标。恢复会推迟Web服务器启动和注册，最长restore-timeout-ms，
+ * 超时后放弃其余分片和指标预热，未恢复的部分由新tick重建。
+ * 行情只恢复更新时间在quote-max-age-ms以内的，更早的行情已不是现价，不写回行情缓存，等新tick覆盖。
+ * 技术指标缓存的值带进程内K线版本号，重启后版本号重新计数，不纳入快照，由增量引擎承担实时查询
+ */
+@Slf4j
+@Component
+public class RealtimeSnapshot implements SmartLifecycle {
+
+    /**
+     * 早于Web服务器（Integer.MAX_VALUE - 1）和Redis消息监听容器启动，晚于它们停止
+     */
+    private static final int PHASE = 0;
+
+    private static final ZoneOffset MARKET_OFFSET = ZoneOffset.ofHours(8);
+
+    @Value("${realtime.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${realtime.snapshot.dir:./data/snapshot}")
+    private String dir;
+
+    @Value("${realtime.snapshot.shards:64}")
+    private int shards;
+
+    @Value("${realtime.snapshot.interval-ms:300000}")
+    private long intervalMs;
+
+    @Value("${realtime.snapshot.restore-timeout-ms:30000}")
+    private long restoreTimeoutMs;
+
+    @Value("${realtime.snapshot.max-age-hours:72}")
+    private long maxAgeHours;
+
+    @Value("${realtime.snapshot.quote-max-age-ms:10000}")
+    private long quoteMaxAgeMs;
+
+    @Autowired
+    private BarStore barStore;
+
+    @Autowired
+    private BarAggregator barAggregator;
+
+    @Autowired
+    private IncrementalIndicatorEngine indicatorEngine;
+
+    @Autowired
+    private PriceCacheSync priceCacheSync;
+
+    @Autowired
+    @Qualifier("stockPriceCache")
+    private Cache<String, Object> stockPriceCache;
+
+    /**
+     * 各K线分片上次写出时的摘要，未变化的分片不再重写
+     */
+    private final Map<String, Long> writtenDigests = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (enabled) {
+            restore();
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "realtime-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::save, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (enabled) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            save();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * 写入快照：重写行情文件和有变化的K线分片，失败时只记录日志
+     */
+    public synchronized void save() {
+        long start = System.nanoTime();
+        try {
+            List<RealtimeQuote> quotes = new ArrayList<>();
+            for (Object value : stockPriceCache.asMap().values()) {
+                quotes.add((RealtimeQuote) value);
+            }
+            long bytes = SnapshotFile.writeQuotes(dir().resolve(SnapshotFile.QUOTES_FILE), QuoteBinaryCodec.encodeBatch(quotes));
+            int written = 0;
+            for (BarTimeframe timeframe : BarTimeframe.values()) {
+                List<List<String>> shardSymbols = new ArrayList<>(shards);
+                long[] digests = new long[shards];
+                for (int i = 0; i < shards; i++) {
+                    shardSymbols.add(new ArrayList<>());
+                }
+                for (String stockCode : barStore.symbols(timeframe)) {
+                    BarRingBuffer buffer = barStore.get(stockCode, timeframe);
+                    int shard = Math.floorMod(stockCode.hashCode(), shards);
+                    shardSymbols.get(shard).add(stockCode);
+                    // 与顺序无关的摘要：股票集合或任一缓冲区的写入次数变化都会改变
+                    long version = buffer == null ? 0 : buffer.writeVersion();
+                    digests[shard] += (stockCode.hashCode() * 0x9E3779B97F4A7C15L) ^ (version * 0xC2B2AE3D27D4EB4FL);
+                }
+                for (int shard = 0; shard < shards; shard++) {
+                    String name = SnapshotFile.barsFile(timeframe, shard);
+                    Long previous = writtenDigests.get(name);
+                    if (previous != null && previous == digests[shard]) {
+                        continue;
+                    }
+                    bytes += SnapshotFile.writeBars(dir().resolve(name), timeframe, shardSymbols.get(shard), barStore);
+                    writtenDigests.put(name, digests[shard]);
+                    written++;
+                }
+            }
+            log.info("快照已写入: {}, 行情={}, K线分片={}/{}, 写入{}KB, 耗时={}ms", dir(), quotes.size(), written,
+                    shards * BarTimeframe.values().length, bytes / 1024,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("写入快照失败: {}", dir(), e);
+        }
+    }
+
+    private void restore() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(restoreTimeoutMs);
+        try {
+            long createdAt;
+            List<RealtimeQuote> quotes;
+            try (SnapshotFile.Reader reader = SnapshotFile.open(dir().resolve(SnapshotFile.QUOTES_FILE))) {
+                if (reader == null) {
+                    log.info("没有快照文件，冷启动: {}", dir());
+                    return;
+                }
+                createdAt = reader.createdAt();
+                quotes = QuoteBinaryCodec.decodeBatch(reader.quotes());
+            }
+            long age = System.currentTimeMillis() - createdAt;
+            if (age > TimeUnit.HOURS.toMillis(maxAgeHours)) {
+                log.info("快照已过期（{}小时前），冷启动", TimeUnit.MILLISECONDS.toHours(age));
+                return;
+            }
+
+            long quoteDeadline = System.currentTimeMillis() - quoteMaxAgeMs;
+            int restoredQuotes = 0;
+            for (RealtimeQuote quote : quotes) {
+                long updatedAt = quote.getUpdateTime() == null ? createdAt
+                        : quote.getUpdateTime().toInstant(MARKET_OFFSET).toEpochMilli();
+                if (updatedAt >= quoteDeadline) {
+                    priceCacheSync.apply(quote);
+                    restoredQuotes++;
+                }
+            }
+
+            int[] bars = new int[1];
+            boolean complete = true;
+            restoreShards:
+            for (BarTimeframe timeframe : BarTimeframe.values()) {
+                for (int shard = 0; shard < shards; shard++) {
+                    if (System.nanoTime() - deadline > 0) {
+                        complete = false;
+                        break restoreShards;
+                    }
+                    restoreShard(dir().resolve(SnapshotFile.barsFile(timeframe, shard)), bars);
+                }
+            }
+
+            int indicators = 0;
+            for (String stockCode : barStore.symbols(BarTimeframe.D1)) {
+                if (System.nanoTime() - deadline > 0) {
+                    complete = false;
+                    break;
+                }
+                Boolean warmed = barStore.readLocked(stockCode, BarTimeframe.D1, view -> {
+                    if (view.isEmpty()) {
+                        return false;
+                    }
+                    boolean forming = !barAggregator.isClosed(BarTimeframe.D1, view.getTimestamp(view.size() - 1));
+                    indicatorEngine.warmUp(stockCode, view, forming);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(warmed)) {
+                    indicators++;
+                }
+            }
+            if (!complete) {
+                log.warn("恢复快照超过{}ms，其余K线和指标由新tick重建", restoreTimeoutMs);
+            }
+            log.info("快照已恢复: 行情={}/{}, K线={}, 指标={}, 快照时间={}秒前, 耗时={}ms",
+                    restoredQuotes, quotes.size(), bars[0], indicators,
+                    TimeUnit.MILLISECONDS.toSeconds(age), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("恢复快照失败，冷启动: {}", dir(), e);
+        }
+    }
+
+    /**
+     * 恢复一个K线分片，分片缺失、过期或损坏时跳过
+     */
+    private void restoreShard(Path path, int[] bars) {
+        try (SnapshotFile.Reader reader = SnapshotFile.open(path)) {
+            if (reader == null || System.currentTimeMillis() - reader.createdAt() > TimeUnit.HOURS.toMillis(maxAgeHours)) {
+                return;
+            }
+            reader.bars((stockCode, timeframe, buffer, base, n) -> bars[0] += restoreBars(stockCode, timeframe, buffer, base, n));
+        } catch (Exception e) {
+            log.warn("恢复K线分片失败，跳过: {}", path, e);
+        }
+    }
+
+    /**
+     * 回放一只股票一个周期的K线，缓冲区已有数据（如已有tick到来）时不覆盖
+     */
+    private int restoreBars(String stockCode, BarTimeframe timeframe, ByteBuffer buffer, int base, int n) {
+        if (n == 0) {
+            return 0;
+        }
+        BarRingBuffer target = barStore.getOrCreate(stockCode, timeframe);
+        if (target.size() > 0) {
+            return 0;
+        }
+        // 缓冲区容量小于快照中的根数时只回放最新的部分
+        int from = Math.max(0, n - target.capacity());
+        for (int i = from; i < n; i++) {
+            target.append(buffer.getLong(base + i * 8),
+                    buffer.getDouble(base + (n + i) * 8),
+                    buffer.getDouble(base + (2 * n + i) * 8),
+                    buffer.getDouble(base + (3 * n + i) * 8),
+                    buffer.getDouble(base + (4 * n + i) * 8),
+                    buffer.getLong(base + (5 * n + i) * 8),
+                    buffer.getDouble(base + (6 * n + i) * 8));
+        }
+        return n - from;
+    }
+
+    private Path dir() {
+        return Paths.get(dir);
+    }
+}
@@ -0,0 +1,298 @@
+package com.stock.realtime.snapshot;
+
+import com.stock.realtime.bar.BarRingBuffer;
+import com.stock.realtime.bar.BarStore;
+import com.stock.realtime.bar.BarTimeframe;
+import com.stock.realtime.bar.BarView;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 快照文件读写
+ * 快照目录下一个行情文件和按周期、分片划分的K线文件，每个文件格式相同：
+ * <pre>
+ * i32 魔数 "RSNP"，i32 版本，i64 写入时间（epoch毫秒）
+ * 行情文件：i32 行情字节数 + QuoteBinaryCodec批量编码的行情
+ * K线文件：u8 周期序号，i32 股票数；
+ *     每只股票：u16 代码长度 + 代码，i32 K线根数n，依次为n个时间戳、开、高、低、收、成交量、成交额
+ * i64 以上全部字节的CRC32
+ * </pre>
+ * 先写临时文件再原子替换；读取时按不超过2GB的分段内存映射，校验CRC后顺序读取
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x52534E50;
+
+    static final int VERSION = 2;
+
+    static final String QUOTES_FILE = "quotes.snap";
+
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * 单次映射的最大字节数，MappedByteBuffer按int寻址
+     */
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 一个周期一个分片的K线文件名
+     */
+    static String barsFile(BarTimeframe timeframe, int shard) {
+        return "bars-" + timeframe.getCode() + "-" + shard + ".snap";
+    }
+
+    /**
+     * 写入行情文件
+     *
+     * @return 文件字节数
+     */
+    static long writeQuotes(Path path, byte[] quotes) throws IOException {
+        return write(path, out -> {
+            out.writeInt(quotes.length);
+            out.write(quotes);
+        });
+    }
+
+    /**
+     * 写入一个周期中一组股票的K线
+     *
+     * @return 文件字节数
+     */
+    static long writeBars(Path path, BarTimeframe timeframe, Collection<String> symbols, BarStore barStore)
+            throws IOException {
+        return write(path, out -> {
+            out.writeByte(timeframe.ordinal());
+            out.writeInt(symbols.size());
+            Columns columns = new Columns();
+            for (String stockCode : symbols) {
+                byte[] code = stockCode.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(code.length);
+                out.write(code);
+                BarRingBuffer buffer = barStore.get(stockCode, timeframe);
+                int n = buffer == null ? 0 : buffer.read(columns::copy);
+                out.writeInt(n);
+                for (int i = 0; i < n; i++) {
+                    out.writeLong(columns.timestamp[i]);
+                }
+                writeColumn(out, columns.open, n);
+                writeColumn(out, columns.high, n);
+                writeColumn(out, columns.low, n);
+                writeColumn(out, columns.close, n);
+                for (int i = 0; i < n; i++) {
+                    out.writeLong(columns.volume[i]);
+                }
+                writeColumn(out, columns.amount, n);
+            }
+        });
+    }
+
+    private static long write(Path path, Body body) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(tmp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 20), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            body.write(out);
+            out.flush();
+            // CRC不计入自身，直接写到底层流
+            long value = crc.getValue();
+            DataOutputStream trailer = new DataOutputStream(file);
+            trailer.writeLong(value);
+            trailer.flush();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    private static void writeColumn(DataOutputStream out, double[] values, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            out.writeDouble(values[i]);
+        }
+    }
+
+    /**
+     * 打开并校验快照文件，调用方负责关闭
+     *
+     * @return 文件不存在时返回null
+     * @throws IOException 文件损坏或版本不支持
+     */
+    static Reader open(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long bodyLength = channel.size() - Long.BYTES;
+            if (bodyLength < HEADER_BYTES) {
+                throw new IOException("不是快照文件: " + path);
+            }
+            CRC32 crc = new CRC32();
+            for (long offset = 0; offset < bodyLength; offset += MAX_CHUNK) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAX_CHUNK, bodyLength - offset)));
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(trailer, bodyLength);
+            if (crc.getValue() != trailer.getLong(0)) {
+                throw new IOException("快照文件校验失败: " + path);
+            }
+            Reader reader = new Reader(channel, bodyLength);
+            if (reader.readInt() != MAGIC || reader.readInt() != VERSION) {
+                throw new IOException("不是快照文件或版本不支持: " + path);
+            }
+            reader.createdAt = reader.readLong();
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 顺序读取快照内容，按需从当前位置映射不超过2GB的窗口
+     */
+    static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final long bodyLength;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+        private long createdAt;
+
+        private Reader(FileChannel channel, long bodyLength) {
+            this.channel = channel;
+            this.bodyLength = bodyLength;
+        }
+
+        long createdAt() {
+            return createdAt;
+        }
+
+        /**
+         * 读取行情文件中的行情
+         */
+        byte[] quotes() throws IOException {
+            byte[] quotes = new byte[readInt()];
+            require(quotes.length).get(quotes);
+            return quotes;
+        }
+
+        /**
+         * 逐只股票回放K线文件中的K线
+         */
+        void bars(BarSink sink) throws IOException {
+            BarTimeframe timeframe = BarTimeframe.values()[require(1).get() & 0xFF];
+            int symbolCount = readInt();
+            for (int s = 0; s < symbolCount; s++) {
+                byte[] code = new byte[require(2).getShort() & 0xFFFF];
+                require(code.length).get(code);
+                int n = readInt();
+                ByteBuffer buffer = require(n * BarRingBuffer.BYTES_PER_BAR);
+                sink.accept(new String(code, StandardCharsets.UTF_8), timeframe, buffer, buffer.position(), n);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private int readInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        private long readLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        /**
+         * 返回定位到当前位置、至少有length字节可读的窗口，并把当前位置后移length字节
+         */
+        private ByteBuffer require(int length) throws IOException {
+            if (position + length > bodyLength) {
+                throw new IOException("快照文件内容不完整");
+            }
+            if (window == null || position + length > windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_CHUNK, bodyLength - position));
+            }
+            window.position((int) (position - windowStart));
+            position += length;
+            return window;
+        }
+    }
+
+    /**
+     * K线回放回调，第i根K线第c列（0时间戳、1~4开高低收、5成交量、6成交额）位于base + (c * n + i) * 8
+     */
+    @FunctionalInterface
+    interface BarSink {
+
+        void accept(String stockCode, BarTimeframe timeframe, ByteBuffer buffer, int base, int n);
+    }
+
+    @FunctionalInterface
+    private interface Body {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * 复制一只股票的K线时复用的列数组
+     */
+    private static final class Columns {
+
+        private long[] timestamp = new long[0];
+        private double[] open = new double[0];
+        private double[] high = new double[0];
+        private double[] low = new double[0];
+        private double[] close = new double[0];
+        private long[] volume = new long[0];
+        private double[] amount = new double[0];
+
+        private int copy(BarView view) {
+            int n = view.size();
+            if (timestamp.length < n) {
+                timestamp = new long[n];
+                open = new double[n];
+                high = new double[n];
+                low = new double[n];
+                close = new double[n];
+                volume = new long[n];
+                amount = new double[n];
+            }
+            for (int i = 0; i < n; i++) {
+                timestamp[i] = view.getTimestamp(i);
+                open[i] = view.getOpen(i);
+                high[i] = view.getHigh(i);
+                low[i] = view.getLow(i);
+                close[i] = view.getClose(i);
+                volume[i] = view.getVolume(i);
+                amount[i] = view.getAmount(i);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.stock.realtime.alert;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 提醒索引的阈值触达和一次性触发
+ */
+class AlertBookTest {
+
+    private static final double NONE = Double.NaN;
+
+    @Test
+    void aboveAndBelowAlertsFireWhenThresholdIsReached() {
+        AlertBook book = new AlertBook();
+        book.add(alert("a10", AlertType.PRICE_ABOVE, 10));
+        book.add(alert("a10.5", AlertType.PRICE_ABOVE, 10.5));
+        book.add(alert("a11", AlertType.PRICE_ABOVE, 11));
+        book.add(alert("b10", AlertType.PRICE_BELOW, 10));
+        book.add(alert("b10.5", AlertType.PRICE_BELOW, 10.5));
+        book.add(alert("b11", AlertType.PRICE_BELOW, 11));
+
+        // 等于阈值即触发，两个方向都包含
+        assertEquals(Set.of("a10", "a10.5", "b10.5", "b11"), ids(book.trigger(values(10.5, NONE, NONE))));
+
+        assertNull(book.trigger(values(10.5, NONE, NONE)));
+        assertEquals(Set.of("b10"), ids(book.trigger(values(9.99, NONE, NONE))));
+        assertEquals(Set.of("a11"), ids(book.trigger(values(11.2, NONE, NONE))));
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    void valuesBetweenThresholdsTriggerNothing() {
+        AlertBook book = new AlertBook();
+        book.add(alert("up", AlertType.PRICE_ABOVE, 12));
+        book.add(alert("down", AlertType.PRICE_BELOW, 8));
+
+        assertNull(book.trigger(values(10, NONE, NONE)));
+        assertNull(book.trigger(values(11.99, NONE, NONE)));
+        assertNull(book.trigger(values(8.01, NONE, NONE)));
+        assertFalse(book.isEmpty());
+    }
+
+    @Test
+    void metricsAreIndependentAndMissingValuesAreSkipped() {
+        AlertBook book = new AlertBook();
+        book.add(alert("price", AlertType.PRICE_ABOVE, 5));
+        book.add(alert("change", AlertType.CHANGE_PCT_BELOW, -3));
+        book.add(alert("volume", AlertType.VOLUME_ABOVE, 1_000_000));
+
+        // 价格缺失时价格提醒不触发，即使其他指标的数值越过了它的阈值
+        assertEquals(Set.of("change"), ids(book.trigger(values(NONE, -4, 10))));
+        assertEquals(Set.of("volume"), ids(book.trigger(values(NONE, NONE, 1_000_000))));
+        assertEquals(Set.of("price"), ids(book.trigger(values(6, NONE, NONE))));
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    void removeDropsOnlyTheMatchingAlert() {
+        AlertBook book = new AlertBook();
+        PriceAlert first = alert("first", AlertType.PRICE_ABOVE, 10);
+        PriceAlert second = alert("second", AlertType.PRICE_ABOVE, 10);
+        book.add(first);
+        book.add(second);
+
+        assertTrue(book.remove(first));
+        assertFalse(book.remove(first));
+        assertFalse(book.remove(alert("other", AlertType.PRICE_BELOW, 10)));
+        assertFalse(book.isEmpty());
+
+        assertEquals(Set.of("second"), ids(book.trigger(values(10, NONE, NONE))));
+        assertTrue(book.isEmpty());
+        assertFalse(book.remove(second));
+    }
+
+    private static PriceAlert alert(String id, AlertType type, double threshold) {
+        PriceAlert alert = new PriceAlert();
+        alert.setId(id);
+        alert.setUserId("u1");
+        alert.setStockCode("600000");
+        alert.setType(type);
+        alert.setThreshold(threshold);
+        return alert;
+    }
+
+    /**
+     * 按指标排列的数值：价格、涨跌幅、成交量
+     */
+    private static double[] values(double price, double changePct, double volume) {
+        return new double[]{price, changePct, volume};
+    }
+
+    private static Set<String> ids(List<PriceAlert> alerts) {
+        return alerts == null ? null : alerts.stream().map(PriceAlert::getId).collect(Collectors.toSet());
+    }
+}
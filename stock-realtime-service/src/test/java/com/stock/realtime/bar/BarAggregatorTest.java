@@ -0,0 +1,163 @@
+package com.stock.realtime.bar;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * K线聚合的交易时段对齐和跨交易日收盘
+ */
+class BarAggregatorTest {
+
+    private static final String CODE = "600000";
+
+    private final List<ClosedBar> closed = new ArrayList<>();
+
+    private BarStore barStore;
+    private MeterRegistry meterRegistry;
+    private BarAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        barStore = new BarStore();
+        ReflectionTestUtils.setField(barStore, "intradayCapacity", 64);
+        ReflectionTestUtils.setField(barStore, "dailyCapacity", 8);
+        barStore.init();
+
+        meterRegistry = new SimpleMeterRegistry();
+        aggregator = new BarAggregator();
+        ReflectionTestUtils.setField(aggregator, "barStore", barStore);
+        ReflectionTestUtils.setField(aggregator, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(aggregator, "listeners", List.<BarListener>of(
+                (stockCode, timeframe, timestamp, open, high, low, close, volume, amount) ->
+                        closed.add(new ClosedBar(timeframe, timestamp, open, high, low, close, volume, amount))));
+        ReflectionTestUtils.setField(aggregator, "closeGraceMs", 2000L);
+        aggregator.init();
+    }
+
+    @Test
+    void firstTickOfNewDayClosesPreviousDayWithItsCumulativeVolume() {
+        aggregator.onTick(CODE, millis(2024, 1, 2, 9, 31, 0), 10.0, 100, 1000.0);
+        aggregator.onTick(CODE, millis(2024, 1, 2, 14, 59, 30), 11.0, 500, 5200.0);
+        closed.clear();
+
+        // 次日累计量从零开始
+        aggregator.onTick(CODE, millis(2024, 1, 3, 9, 30, 5), 12.0, 50, 600.0);
+
+        assertEquals(BarTimeframe.values().length, closed.size());
+        ClosedBar daily = find(BarTimeframe.D1);
+        assertEquals(millis(2024, 1, 2, 0, 0, 0), daily.timestamp);
+        assertEquals(10.0, daily.open);
+        assertEquals(11.0, daily.high);
+        assertEquals(10.0, daily.low);
+        assertEquals(11.0, daily.close);
+        assertEquals(500L, daily.volume);
+        assertEquals(5200.0, daily.amount, 1e-9);
+
+        // 14:59的各日内K线由第二笔tick开出，成交量从该tick之前的累计值算起
+        ClosedBar hourly = find(BarTimeframe.M60);
+        assertEquals(millis(2024, 1, 2, 14, 0, 0), hourly.timestamp);
+        assertEquals(400L, hourly.volume);
+        assertEquals(4200.0, hourly.amount, 1e-9);
+        for (ClosedBar bar : closed) {
+            assertTrue(bar.volume >= 0, "negative volume on " + bar.timeframe);
+        }
+
+        BarRingBuffer dailyBars = barStore.get(CODE, BarTimeframe.D1);
+        assertEquals(2, dailyBars.size());
+        assertEquals(millis(2024, 1, 3, 0, 0, 0), dailyBars.getTimestamp(1));
+        assertEquals(12.0, dailyBars.getOpen(1));
+        assertEquals(50L, dailyBars.getVolume(1));
+        assertEquals(600.0, dailyBars.getAmount(1), 1e-9);
+        BarRingBuffer minuteBars = barStore.get(CODE, BarTimeframe.M1);
+        assertEquals(millis(2024, 1, 3, 9, 30, 0), minuteBars.getTimestamp(minuteBars.size() - 1));
+    }
+
+    @Test
+    void tickFromPreviousDayAfterRolloverIsDropped() {
+        aggregator.onTick(CODE, millis(2024, 1, 2, 14, 59, 0), 11.0, 500, 5200.0);
+        aggregator.onTick(CODE, millis(2024, 1, 3, 9, 30, 5), 12.0, 50, 600.0);
+        long version = barStore.get(CODE, BarTimeframe.D1).writeVersion();
+
+        aggregator.onTick(CODE, millis(2024, 1, 2, 14, 59, 59), 9.0, 520, 5400.0);
+
+        assertEquals(version, barStore.get(CODE, BarTimeframe.D1).writeVersion());
+        assertEquals(12.0, barStore.get(CODE, BarTimeframe.D1).getClose(1));
+        assertEquals(1.0, meterRegistry.counter("realtime.bar.ticks", "result", "dropped").count());
+    }
+
+    @Test
+    void auctionAndClosingTicksFoldIntoSessionEdgeBars() {
+        aggregator.onTick(CODE, millis(2024, 1, 2, 9, 25, 0), 10.0, 10, 100.0);
+        aggregator.onTick(CODE, millis(2024, 1, 2, 9, 30, 30), 10.5, 20, 210.0);
+        BarRingBuffer minuteBars = barStore.get(CODE, BarTimeframe.M1);
+        // 集合竞价并入9:30这一根
+        assertEquals(1, minuteBars.size());
+        assertEquals(millis(2024, 1, 2, 9, 30, 0), minuteBars.getTimestamp(0));
+        assertEquals(10.0, minuteBars.getOpen(0));
+        assertEquals(10.5, minuteBars.getClose(0));
+
+        // 11:30的收盘成交并入11:29，午休后的第一根是13:00
+        aggregator.onTick(CODE, millis(2024, 1, 2, 11, 30, 0), 10.8, 30, 320.0);
+        aggregator.onTick(CODE, millis(2024, 1, 2, 13, 0, 10), 10.9, 40, 430.0);
+        assertEquals(millis(2024, 1, 2, 11, 29, 0), minuteBars.getTimestamp(1));
+        assertEquals(millis(2024, 1, 2, 13, 0, 0), minuteBars.getTimestamp(2));
+        BarRingBuffer hourlyBars = barStore.get(CODE, BarTimeframe.M60);
+        assertEquals(millis(2024, 1, 2, 10, 30, 0), hourlyBars.getTimestamp(1));
+        assertEquals(millis(2024, 1, 2, 13, 0, 0), hourlyBars.getTimestamp(2));
+    }
+
+    @Test
+    void closeTimeFollowsTradingSessions() {
+        assertEquals(millis(2024, 1, 2, 9, 31, 0), BarAggregator.closeTime(BarTimeframe.M1, millis(2024, 1, 2, 9, 30, 0)));
+        assertEquals(millis(2024, 1, 2, 10, 30, 0), BarAggregator.closeTime(BarTimeframe.M60, millis(2024, 1, 2, 9, 30, 0)));
+        assertEquals(millis(2024, 1, 2, 11, 30, 0), BarAggregator.closeTime(BarTimeframe.M60, millis(2024, 1, 2, 10, 30, 0)));
+        assertEquals(millis(2024, 1, 2, 14, 0, 0), BarAggregator.closeTime(BarTimeframe.M60, millis(2024, 1, 2, 13, 0, 0)));
+        assertEquals(millis(2024, 1, 2, 15, 0, 0), BarAggregator.closeTime(BarTimeframe.D1, millis(2024, 1, 2, 0, 0, 0)));
+    }
+
+    private ClosedBar find(BarTimeframe timeframe) {
+        ClosedBar bar = closed.stream().filter(b -> b.timeframe == timeframe).findFirst().orElse(null);
+        assertNotNull(bar, "no close for " + timeframe);
+        return bar;
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, int second) {
+        return LocalDateTime.of(year, month, day, hour, minute, second).atZone(BarStore.MARKET_ZONE)
+                .toInstant().toEpochMilli();
+    }
+
+    private static final class ClosedBar {
+
+        private final BarTimeframe timeframe;
+        private final long timestamp;
+        private final double open;
+        private final double high;
+        private final double low;
+        private final double close;
+        private final long volume;
+        private final double amount;
+
+        private ClosedBar(BarTimeframe timeframe, long timestamp, double open, double high, double low,
+                          double close, long volume, double amount) {
+            this.timeframe = timeframe;
+            this.timestamp = timestamp;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.stock.realtime.bar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * K线环形缓冲区的覆盖写入和乐观读重试
+ */
+class BarRingBufferTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void overwritesOldestBarWhenFull(boolean offHeap) {
+        BarRingBuffer buffer = newBuffer(offHeap, 3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.append(i * 1000L, i, i + 0.5, i - 0.5, i, i * 10L, i * 100.0);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(3000L, buffer.getTimestamp(0));
+        assertEquals(5000L, buffer.getTimestamp(2));
+        assertEquals(5.0, buffer.getClose(2));
+        assertEquals(5000L, buffer.lastTimestamp());
+
+        long version = buffer.writeVersion();
+        assertTrue(buffer.updateLast(6, 4, 5.5, 60, 600.0));
+        assertEquals(5.5, buffer.getClose(2));
+        assertEquals(5.0, buffer.getOpen(2));
+        assertTrue(buffer.writeVersion() > version);
+    }
+
+    @Test
+    void updateLastOnEmptyBufferIsRejected() {
+        BarRingBuffer buffer = new HeapBarRingBuffer(4);
+        assertFalse(buffer.updateLast(1, 1, 1, 1, 1));
+        assertEquals(-1L, buffer.lastTimestamp());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void retriesUnderReadLockWhenWriteInterleavesOptimisticRead(boolean offHeap) {
+        BarRingBuffer buffer = newBuffer(offHeap, 4);
+        buffer.append(1000L, 10, 10, 10, 10, 1, 10.0);
+        AtomicInteger calls = new AtomicInteger();
+
+        double close = buffer.read(view -> {
+            double value = view.getClose(view.size() - 1);
+            if (calls.incrementAndGet() == 1) {
+                // 乐观读不持锁，同一线程可以写入，模拟读取期间发生的写入
+                buffer.updateLast(12, 9, 11, 2, 22.0);
+            }
+            return value;
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(11.0, close);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void exceptionOnTornViewIsRetriedUnderReadLock(boolean offHeap) {
+        BarRingBuffer buffer = newBuffer(offHeap, 4);
+        buffer.append(1000L, 10, 10, 10, 10, 1, 10.0);
+        AtomicInteger calls = new AtomicInteger();
+
+        int size = buffer.read(view -> {
+            if (calls.incrementAndGet() == 1) {
+                buffer.append(2000L, 11, 11, 11, 11, 1, 11.0);
+                throw new IndexOutOfBoundsException("torn");
+            }
+            return view.size();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(2, size);
+    }
+
+    @Test
+    void exceptionWithoutConcurrentWriteIsRethrown() {
+        BarRingBuffer buffer = new HeapBarRingBuffer(4);
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> buffer.read(view -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("reader bug");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentReadsAlwaysSeeConsistentBar(boolean offHeap) throws InterruptedException {
+        BarRingBuffer buffer = newBuffer(offHeap, 8);
+        buffer.append(0L, 0, 0, 0, 0, 0, 0.0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            long n = 1;
+            while (running.get()) {
+                // 每次写入时各列取同一个值，读到不一致的列即为撕裂
+                if (n % 16 == 0) {
+                    buffer.append(n, n, n, n, n, n, n);
+                } else {
+                    buffer.updateLast(n, n, n, n, n);
+                }
+                n++;
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                double[] bar = buffer.read(view -> {
+                    int last = view.size() - 1;
+                    return new double[]{view.getHigh(last), view.getLow(last), view.getClose(last),
+                            view.getVolume(last), view.getAmount(last)};
+                });
+                for (double column : bar) {
+                    assertEquals(bar[0], column, "torn bar at iteration " + i);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static BarRingBuffer newBuffer(boolean offHeap, int capacity) {
+        return offHeap ? new OffHeapBarRingBuffer(capacity) : new HeapBarRingBuffer(capacity);
+    }
+}
@@ -0,0 +1,172 @@
+package com.stock.realtime.indicator;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.indicators.EMAIndicator;
+import org.ta4j.core.indicators.MACDIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.SMAIndicator;
+import org.ta4j.core.indicators.StochasticOscillatorDIndicator;
+import org.ta4j.core.indicators.StochasticOscillatorKIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsLowerIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsMiddleIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandsUpperIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.ta4j.core.num.DecimalNum;
+import org.ta4j.core.num.Num;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import static com.stock.realtime.indicator.IndicatorValues.MA_PERIODS;
+import static com.stock.realtime.indicator.IndicatorValues.RSI_PERIODS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 增量指标状态与ta4j（DecimalNum）全量计算结果对照
+ */
+class IndicatorStateTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * 超过250根，覆盖最长均线窗口的滑出
+     */
+    private static final int BARS = 320;
+
+    private static final int[] CHECKPOINTS = {0, 1, 2, 8, 19, 20, 26, 59, 249, 250, 251, BARS - 1};
+
+    private static double[] highs;
+    private static double[] lows;
+    private static double[] closes;
+    private static Reference reference;
+
+    @BeforeAll
+    static void generate() {
+        Random random = new Random(20240601L);
+        highs = new double[BARS];
+        lows = new double[BARS];
+        closes = new double[BARS];
+        BarSeries series = new BaseBarSeriesBuilder().withName("600000").withNumTypeOf(DecimalNum.class).build();
+        ZonedDateTime end = ZonedDateTime.of(2024, 1, 2, 15, 0, 0, 0, ZoneId.of("Asia/Shanghai"));
+        double price = 10;
+        for (int i = 0; i < BARS; i++) {
+            double open = price;
+            price = Math.max(1, price * (1 + (random.nextDouble() - 0.5) * 0.06));
+            closes[i] = round(price);
+            highs[i] = round(Math.max(open, price) * (1 + random.nextDouble() * 0.02));
+            lows[i] = round(Math.min(open, price) * (1 - random.nextDouble() * 0.02));
+            series.addBar(Duration.ofDays(1), end.plusDays(i), round(open), highs[i], lows[i], closes[i], 1000 + i);
+        }
+        reference = new Reference(series);
+    }
+
+    @Test
+    void committedBarsMatchTa4j() {
+        IndicatorState state = new IndicatorState();
+        IndicatorValues values = new IndicatorValues();
+        int next = 0;
+        for (int i = 0; i < BARS; i++) {
+            state.commit(highs[i], lows[i], closes[i]);
+            if (i == CHECKPOINTS[next]) {
+                state.evaluate(values);
+                reference.assertMatches(i, values);
+                next = Math.min(next + 1, CHECKPOINTS.length - 1);
+            }
+        }
+        assertEquals(BARS, state.getCount());
+    }
+
+    @Test
+    void formingBarMatchesTa4jWithoutChangingCommittedState() {
+        IndicatorState state = new IndicatorState();
+        IndicatorValues values = new IndicatorValues();
+        int next = 0;
+        for (int i = 0; i < BARS; i++) {
+            if (i == CHECKPOINTS[next]) {
+                // 先用一个偏离的价格更新形成中K线，再更新为最终价格，结果只取决于最后一次
+                state.updateForming(highs[i] * 1.5, lows[i] * 0.5, closes[i] * 1.2);
+                state.updateForming(highs[i], lows[i], closes[i]);
+                state.evaluate(values);
+                reference.assertMatches(i, values);
+                next = Math.min(next + 1, CHECKPOINTS.length - 1);
+            }
+            state.commit(highs[i], lows[i], closes[i]);
+        }
+        state.evaluate(values);
+        reference.assertMatches(BARS - 1, values);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 按TechnicalIndicatorService的口径构造的ta4j指标
+     */
+    private static final class Reference {
+
+        private final ClosePriceIndicator close;
+        private final SMAIndicator[] ma = new SMAIndicator[MA_PERIODS.length];
+        private final RSIIndicator[] rsi = new RSIIndicator[RSI_PERIODS.length];
+        private final MACDIndicator dif;
+        private final EMAIndicator dea;
+        private final StochasticOscillatorKIndicator k;
+        private final StochasticOscillatorDIndicator d;
+        private final BollingerBandsMiddleIndicator bollMiddle;
+        private final BollingerBandsUpperIndicator bollUpper;
+        private final BollingerBandsLowerIndicator bollLower;
+
+        Reference(BarSeries series) {
+            close = new ClosePriceIndicator(series);
+            for (int m = 0; m < MA_PERIODS.length; m++) {
+                ma[m] = new SMAIndicator(close, MA_PERIODS[m]);
+            }
+            for (int r = 0; r < RSI_PERIODS.length; r++) {
+                rsi[r] = new RSIIndicator(close, RSI_PERIODS[r]);
+            }
+            dif = new MACDIndicator(close, 12, 26);
+            dea = new EMAIndicator(dif, 9);
+            k = new StochasticOscillatorKIndicator(series, 9);
+            d = new StochasticOscillatorDIndicator(k);
+            bollMiddle = new BollingerBandsMiddleIndicator(new SMAIndicator(close, 20));
+            StandardDeviationIndicator std = new StandardDeviationIndicator(close, 20);
+            bollUpper = new BollingerBandsUpperIndicator(bollMiddle, std);
+            bollLower = new BollingerBandsLowerIndicator(bollMiddle, std);
+        }
+
+        void assertMatches(int index, IndicatorValues values) {
+            String at = "index " + index + ": ";
+            assertEquals(value(close, index), values.getClose(), TOLERANCE, at + "close");
+            for (int m = 0; m < MA_PERIODS.length; m++) {
+                assertEquals(value(ma[m], index), values.getMa(m), TOLERANCE, at + "ma" + MA_PERIODS[m]);
+            }
+            for (int r = 0; r < RSI_PERIODS.length; r++) {
+                assertEquals(value(rsi[r], index), values.getRsi(r), TOLERANCE, at + "rsi" + RSI_PERIODS[r]);
+            }
+            double expectedDif = value(dif, index);
+            double expectedDea = value(dea, index);
+            assertEquals(expectedDif, values.getDif(), TOLERANCE, at + "dif");
+            assertEquals(expectedDea, values.getDea(), TOLERANCE, at + "dea");
+            assertEquals((expectedDif - expectedDea) * 2, values.getMacd(), TOLERANCE, at + "macd");
+            double expectedK = value(k, index);
+            double expectedD = value(d, index);
+            assertEquals(expectedK, values.getK(), TOLERANCE, at + "k");
+            assertEquals(expectedD, values.getD(), TOLERANCE, at + "d");
+            assertEquals(expectedK * 3 - expectedD * 2, values.getJ(), TOLERANCE, at + "j");
+            assertEquals(value(bollMiddle, index), values.getBollMiddle(), TOLERANCE, at + "boll middle");
+            assertEquals(value(bollUpper, index), values.getBollUpper(), TOLERANCE, at + "boll upper");
+            assertEquals(value(bollLower, index), values.getBollLower(), TOLERANCE, at + "boll lower");
+        }
+
+        private static double value(Indicator<Num> indicator, int index) {
+            return indicator.getValue(index).doubleValue();
+        }
+    }
+}
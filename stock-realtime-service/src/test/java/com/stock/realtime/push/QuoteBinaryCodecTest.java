@@ -0,0 +1,157 @@
+package com.stock.realtime.push;
+
+import com.stock.realtime.entity.RealtimeQuote;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 行情二进制编解码往返
+ */
+class QuoteBinaryCodecTest {
+
+    @Test
+    void fullQuoteRoundTrip() {
+        RealtimeQuote quote = fullQuote();
+
+        RealtimeQuote decoded = QuoteBinaryCodec.decode(QuoteBinaryCodec.encode(quote));
+
+        assertSameQuote(quote, decoded);
+    }
+
+    @Test
+    void absentFieldsStayAbsent() {
+        RealtimeQuote quote = RealtimeQuote.builder()
+                .stockCode("000001")
+                .currentPrice(new BigDecimal("9.87"))
+                .volume(0L)
+                .build();
+
+        byte[] frame = QuoteBinaryCodec.encode(quote);
+        RealtimeQuote decoded = QuoteBinaryCodec.decode(frame);
+
+        // 版本、标志、位图4字节，代码1+6字节，两个字段各若干字节
+        assertTrue(frame.length < 20, "frame length " + frame.length);
+        assertEquals("000001", decoded.getStockCode());
+        assertEquals(0, new BigDecimal("9.87").compareTo(decoded.getCurrentPrice()));
+        assertEquals(0L, decoded.getVolume());
+        assertNull(decoded.getStockName());
+        assertNull(decoded.getUpdateTime());
+        assertNull(decoded.getSourceTime());
+        assertNull(decoded.getAmount());
+        assertNull(decoded.getAsk1());
+    }
+
+    @Test
+    void pricesAreRoundedToFourDecimals() {
+        RealtimeQuote quote = RealtimeQuote.builder()
+                .stockCode("600000")
+                .currentPrice(new BigDecimal("10.12345"))
+                .change(new BigDecimal("-0.00005"))
+                .build();
+
+        RealtimeQuote decoded = QuoteBinaryCodec.decode(QuoteBinaryCodec.encode(quote));
+
+        assertEquals(new BigDecimal("10.1235"), decoded.getCurrentPrice());
+        assertEquals(new BigDecimal("-0.0001"), decoded.getChange());
+    }
+
+    @Test
+    void longNameIsTruncatedOnCharacterBoundary() {
+        String name = "浦".repeat(100);
+        RealtimeQuote quote = RealtimeQuote.builder().stockCode("600000").stockName(name).build();
+
+        RealtimeQuote decoded = QuoteBinaryCodec.decode(QuoteBinaryCodec.encode(quote));
+
+        assertEquals("浦".repeat(85), decoded.getStockName());
+        assertTrue(decoded.getStockName().getBytes(StandardCharsets.UTF_8).length <= 255);
+    }
+
+    @Test
+    void batchRoundTrip() {
+        RealtimeQuote first = fullQuote();
+        RealtimeQuote second = RealtimeQuote.builder()
+                .stockCode("000002")
+                .currentPrice(new BigDecimal("7.5"))
+                .build();
+
+        List<RealtimeQuote> decoded = QuoteBinaryCodec.decodeBatch(QuoteBinaryCodec.encodeBatch(List.of(first, second)));
+
+        assertEquals(2, decoded.size());
+        assertSameQuote(first, decoded.get(0));
+        assertEquals("000002", decoded.get(1).getStockCode());
+        assertEquals(0, new BigDecimal("7.5").compareTo(decoded.get(1).getCurrentPrice()));
+    }
+
+    @Test
+    void unknownVersionIsRejected() {
+        byte[] frame = QuoteBinaryCodec.encode(fullQuote());
+        frame[0] = (byte) (QuoteBinaryCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> QuoteBinaryCodec.decode(frame));
+    }
+
+    private static RealtimeQuote fullQuote() {
+        return RealtimeQuote.builder()
+                .stockCode("600519")
+                .stockName("贵州茅台")
+                .currentPrice(new BigDecimal("1688.88"))
+                .change(new BigDecimal("-12.34"))
+                .changePercent(new BigDecimal("-0.7256"))
+                .openPrice(new BigDecimal("1700.00"))
+                .highPrice(new BigDecimal("1705.50"))
+                .lowPrice(new BigDecimal("1680.01"))
+                .preClosePrice(new BigDecimal("1701.22"))
+                // 缩放后超过2^53，覆盖大额成交额
+                .volume(123_456_789_012L)
+                .amount(new BigDecimal("9876543210123.4567"))
+                .turnoverRate(new BigDecimal("0.3512"))
+                .pe(new BigDecimal("-35.20"))
+                .pb(new BigDecimal("9.81"))
+                .bid1(new BigDecimal("1688.87"))
+                .bidVolume1(300L)
+                .ask1(new BigDecimal("1688.88"))
+                .askVolume1(1200L)
+                .updateTime(LocalDateTime.of(2024, 1, 2, 10, 15, 30, 123_000_000))
+                .sourceTime(1704161730100L)
+                .build();
+    }
+
+    private static void assertSameQuote(RealtimeQuote expected, RealtimeQuote actual) {
+        assertEquals(expected.getStockCode(), actual.getStockCode());
+        assertEquals(expected.getStockName(), actual.getStockName());
+        assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+        assertEquals(expected.getSourceTime(), actual.getSourceTime());
+        assertEquals(expected.getVolume(), actual.getVolume());
+        assertEquals(expected.getBidVolume1(), actual.getBidVolume1());
+        assertEquals(expected.getAskVolume1(), actual.getAskVolume1());
+        assertDecimal(expected.getCurrentPrice(), actual.getCurrentPrice());
+        assertDecimal(expected.getChange(), actual.getChange());
+        assertDecimal(expected.getChangePercent(), actual.getChangePercent());
+        assertDecimal(expected.getOpenPrice(), actual.getOpenPrice());
+        assertDecimal(expected.getHighPrice(), actual.getHighPrice());
+        assertDecimal(expected.getLowPrice(), actual.getLowPrice());
+        assertDecimal(expected.getPreClosePrice(), actual.getPreClosePrice());
+        assertDecimal(expected.getAmount(), actual.getAmount());
+        assertDecimal(expected.getTurnoverRate(), actual.getTurnoverRate());
+        assertDecimal(expected.getPe(), actual.getPe());
+        assertDecimal(expected.getPb(), actual.getPb());
+        assertDecimal(expected.getBid1(), actual.getBid1());
+        assertDecimal(expected.getAsk1(), actual.getAsk1());
+    }
+
+    /**
+     * 解码结果固定4位小数，按数值比较
+     */
+    private static void assertDecimal(BigDecimal expected, BigDecimal actual) {
+        assertEquals(0, expected.compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,144 @@
+package com.stock.realtime.screener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 选股条件的解析和求值
+ */
+class ScreenExpressionTest {
+
+    @Test
+    void andBindsTighterThanOr() {
+        ScreenExpression expression = ScreenExpression.compile("CLOSE > 10 OR CLOSE < 5 AND VOLUME > 100");
+
+        assertTrue(expression.test(fields(12, 50)));
+        assertTrue(expression.test(fields(4, 200)));
+        assertFalse(expression.test(fields(4, 50)));
+        assertFalse(expression.test(fields(7, 200)));
+    }
+
+    @Test
+    void parenthesesGroupConditions() {
+        ScreenExpression expression = ScreenExpression.compile("(CLOSE > 10 OR CLOSE < 5) AND VOLUME > 100");
+
+        assertFalse(expression.test(fields(12, 50)));
+        assertTrue(expression.test(fields(12, 200)));
+    }
+
+    @Test
+    void parenthesesGroupArithmetic() {
+        ScreenExpression expression = ScreenExpression.compile("(CLOSE - MA20) / MA20 > 0.05");
+        double[] fields = fields(10.6, 0);
+        fields[ScreenField.MA20.ordinal()] = 10;
+
+        assertTrue(expression.test(fields));
+        fields[ScreenField.CLOSE.ordinal()] = 10.4;
+        assertFalse(expression.test(fields));
+    }
+
+    @Test
+    void multiplierShorthandAndOperatorPrecedence() {
+        ScreenExpression expression = ScreenExpression.compile("VOL > 2x VOL_MA5 and close >= 1 + 2 * 3");
+        double[] fields = fields(7, 250);
+        fields[ScreenField.VOL_MA5.ordinal()] = 100;
+
+        assertTrue(expression.test(fields));
+        fields[ScreenField.VOL_MA5.ordinal()] = 130;
+        assertFalse(expression.test(fields));
+        fields[ScreenField.VOL_MA5.ordinal()] = 100;
+        fields[ScreenField.CLOSE.ordinal()] = 6.9;
+        assertFalse(expression.test(fields));
+    }
+
+    @Test
+    void symbolicOperatorsAndNegativeConstants() {
+        ScreenExpression expression = ScreenExpression.compile("!(CHANGE < -3) && (PRICE <> 0 || VOL == 0)");
+        double[] fields = fields(10, 100);
+        fields[ScreenField.CHANGE_PCT.ordinal()] = -2;
+
+        assertTrue(expression.test(fields));
+        fields[ScreenField.CHANGE_PCT.ordinal()] = -4;
+        assertFalse(expression.test(fields));
+    }
+
+    @Test
+    void signalFieldsCompareAgainstLabels() {
+        ScreenExpression golden = ScreenExpression.compile("MACD_SIGNAL = '金叉' AND KDJ_SIGNAL != \"超买\"");
+        double[] fields = fields(10, 100);
+        fields[ScreenField.MACD_SIGNAL.ordinal()] = ScreenField.MACD_SIGNAL.code("金叉");
+        fields[ScreenField.KDJ_SIGNAL.ordinal()] = ScreenField.KDJ_SIGNAL.code("正常");
+
+        assertTrue(golden.test(fields));
+        fields[ScreenField.KDJ_SIGNAL.ordinal()] = ScreenField.KDJ_SIGNAL.code("超买");
+        assertFalse(golden.test(fields));
+        // 信号尚未形成时不等比较也不成立
+        fields[ScreenField.KDJ_SIGNAL.ordinal()] = Double.NaN;
+        assertFalse(golden.test(fields));
+    }
+
+    @Test
+    void comparisonsWithNaNAreFalse() {
+        double[] fields = fields(10, 100);
+
+        assertFalse(ScreenExpression.compile("MA250 > 0").test(fields));
+        assertFalse(ScreenExpression.compile("MA250 <= 0").test(fields));
+        assertFalse(ScreenExpression.compile("MA250 != CLOSE").test(fields));
+        assertTrue(ScreenExpression.compile("NOT MA250 > 0").test(fields));
+    }
+
+    @Test
+    void fieldMaskCoversReferencedFieldsOnly() {
+        ScreenExpression expression = ScreenExpression.compile("(CLOSE - MA20) / MA20 > 0.05 OR RSI_SIGNAL = '超卖'");
+
+        assertEquals(ScreenField.CLOSE.mask() | ScreenField.MA20.mask() | ScreenField.RSI_SIGNAL.mask(),
+                expression.getFieldMask());
+        assertEquals("(CLOSE - MA20) / MA20 > 0.05 OR RSI_SIGNAL = '超卖'", expression.getSource());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            " ",
+            "CLOSE >",
+            "CLOSE > 10 AND",
+            "CLOSE > 10)",
+            "(CLOSE > 10",
+            "CLOSE 10",
+            "UNKNOWN > 1",
+            "MACD_SIGNAL > 1",
+            "MACD_SIGNAL = '上涨'",
+            "MACD_SIGNAL + 1 > 0",
+            "CLOSE > 1.2.3",
+            "CLOSE > 'abc",
+            "CLOSE # 1"
+    })
+    void invalidExpressionsAreRejected(String source) {
+        assertThrows(IllegalArgumentException.class, () -> ScreenExpression.compile(source));
+    }
+
+    @Test
+    void overlongExpressionIsRejected() {
+        String source = "CLOSE > 1" + " AND CLOSE > 1".repeat(100);
+
+        assertThrows(IllegalArgumentException.class, () -> ScreenExpression.compile(source));
+    }
+
+    /**
+     * 收盘价和成交量给定，其余字段为NaN（指标尚未形成）
+     */
+    private static double[] fields(double close, double volume) {
+        double[] fields = new double[ScreenField.COUNT];
+        Arrays.fill(fields, Double.NaN);
+        fields[ScreenField.CLOSE.ordinal()] = close;
+        fields[ScreenField.VOLUME.ordinal()] = volume;
+        return fields;
+    }
+}